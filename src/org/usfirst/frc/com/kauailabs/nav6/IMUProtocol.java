@@ -286,7 +286,11 @@ public class IMUProtocol {
             u.mag_x = decodeProtocolUint16(buffer, offset+GYRO_UPDATE_MAG_X_VALUE_INDEX);
             u.mag_y = decodeProtocolUint16(buffer, offset+GYRO_UPDATE_MAG_Y_VALUE_INDEX);
             u.mag_z = decodeProtocolUint16(buffer, offset+GYRO_UPDATE_MAG_Z_VALUE_INDEX);
-            u.temp_c = decodeProtocolFloat(buffer, offset+GYRO_UPDATE_TEMP_VALUE_INDEX);
+            // The temperature field is only 4 characters wide here, since
+            // the checksum starts at index 42; a full-width float would run
+            // into the checksum and terminator.
+            u.temp_c = decodeProtocolFloat(buffer, offset+GYRO_UPDATE_TEMP_VALUE_INDEX,
+                    GYRO_UPDATE_CHECKSUM_INDEX - GYRO_UPDATE_TEMP_VALUE_INDEX);
             return GYRO_UPDATE_MESSAGE_LENGTH;
         }
         return 0;
@@ -351,8 +355,64 @@ public class IMUProtocol {
         return decoded_checksum;
     }
 
+    // Exact float powers of ten; a protocol float has at most 6 fractional digits
+    final static float[] POWERS_OF_TEN
+            = new float[]{1.0f, 10.0f, 100.0f, 1000.0f, 10000.0f, 100000.0f, 1000000.0f};
+
+    // Decodes a fixed-width ASCII float (e.g., "-123.45" or "  12.34") without
+    // allocating.  The digits are accumulated into an integer mantissa, which
+    // (at 7 characters) is always below 2^24 and therefore exact as a float; a
+    // single IEEE float division by an exact power of ten then yields the
+    // correctly-rounded result, bit-for-bit identical to Float.parseFloat().
+    // Anything other than leading spaces, a leading sign, digits and a single
+    // decimal point falls back to Float.parseFloat().
     public static float decodeProtocolFloat(byte[] buffer, int offset) {
-        String float_string = new String(buffer, offset, PROTOCOL_FLOAT_LENGTH);
+        return decodeProtocolFloat(buffer, offset, PROTOCOL_FLOAT_LENGTH);
+    }
+
+    // Decodes a float field narrower than the usual 7 characters, in the
+    // same way.
+    static float decodeProtocolFloat(byte[] buffer, int offset, int length) {
+        int mantissa = 0;
+        int fraction_digits = -1;
+        boolean negative = false;
+        boolean digit_seen = false;
+        for (int i = offset; i < offset + length; i++) {
+            byte c = buffer[i];
+            if ((c >= '0') && (c <= '9')) {
+                mantissa = (mantissa * 10) + (c - '0');
+                digit_seen = true;
+                if (fraction_digits >= 0) {
+                    fraction_digits++;
+                }
+            } else if ((c == '.') && (fraction_digits < 0)) {
+                fraction_digits = 0;
+            } else if ((c == '-') && !negative && !digit_seen && (fraction_digits < 0)) {
+                negative = true;
+            } else if ((c == ' ') && !negative && !digit_seen && (fraction_digits < 0)) {
+                // leading padding
+            } else {
+                return decodeProtocolFloatSlow(buffer, offset, length);
+            }
+        }
+        if (!digit_seen) {
+            return decodeProtocolFloatSlow(buffer, offset, length);
+        }
+        float value = (float) mantissa;
+        if (fraction_digits > 0) {
+            value /= POWERS_OF_TEN[fraction_digits];
+        }
+        return negative ? -value : value;
+    }
+
+    // The reference decoding, which decodeProtocolFloat() must match bit for
+    // bit; public so the equivalence check can compare the two.
+    public static float decodeProtocolFloatSlow(byte[] buffer, int offset) {
+        return decodeProtocolFloatSlow(buffer, offset, PROTOCOL_FLOAT_LENGTH);
+    }
+
+    static float decodeProtocolFloatSlow(byte[] buffer, int offset, int length) {
+        String float_string = new String(buffer, offset, length);
         return Float.parseFloat(float_string);
     }
 }
\ No newline at end of file
@@ -10,14 +10,12 @@
 
 package org.usfirst.frc.com.kauailabs.nav6.frc;
 
-import java.util.Arrays;
-
 import org.usfirst.frc.com.kauailabs.nav6.IMUProtocol;
+import org.usfirst.frc.team2485.util.RobotClock;
 
 import edu.wpi.first.wpilibj.PIDSource;
 import edu.wpi.first.wpilibj.SensorBase;
 import edu.wpi.first.wpilibj.SerialPort;
-import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj.livewindow.LiveWindowSendable;
 import edu.wpi.first.wpilibj.tables.ITable;
 
@@ -39,9 +37,9 @@ public class IMU extends SensorBase implements PIDSource, LiveWindowSendable, Ru
     static final short  DEFAULT_GYRO_FSR_DPS    = 2000;
     
     SerialPort serial_port;
-    float yaw_history[];
-    int next_yaw_history_index;
-    double user_yaw_offset;
+    SensorHistory yaw_history;
+    // written by zeroYaw() on the robot thread, read by control loop threads
+    volatile double user_yaw_offset;
     ITable m_table;
     Thread m_thread;
     protected byte update_rate_hz;
@@ -50,6 +48,10 @@ public class IMU extends SensorBase implements PIDSource, LiveWindowSendable, Ru
     volatile float pitch;
     volatile float roll;
     volatile float compass_heading;
+    // Seqlock counter guarding yaw/pitch/roll/compass_heading/last_update_time,
+    // and any values a subclass writes between beginPublish() and endPublish();
+    // odd while the serial thread is publishing a packet.
+    volatile int orientation_sequence = 0;
     volatile int update_count = 0;
     volatile int byte_count = 0;
     volatile float nav6_yaw_offset_degrees;
@@ -57,9 +59,10 @@ public class IMU extends SensorBase implements PIDSource, LiveWindowSendable, Ru
     volatile short gyro_fsr_dps;
     volatile short flags;    
 
-    double last_update_time;
+    volatile double last_update_time;
     boolean stop = false;
     private IMUProtocol.YPRUpdate ypr_update_data;
+    private PacketFramer framer;
     protected byte update_type = IMUProtocol.MSGID_YPR_UPDATE;
     
     /**
@@ -74,12 +77,13 @@ public class IMU extends SensorBase implements PIDSource, LiveWindowSendable, Ru
      */
     public IMU(SerialPort serial_port, byte update_rate_hz) {
         ypr_update_data = new IMUProtocol.YPRUpdate();
+        framer = new PacketFramer();
         this.update_rate_hz = update_rate_hz;
         flags = 0;
         accel_fsr_g = DEFAULT_ACCEL_FSR_G;
         gyro_fsr_dps = DEFAULT_GYRO_FSR_DPS;
         this.serial_port = serial_port;
-        yaw_history = new float[YAW_HISTORY_LENGTH];
+        yaw_history = new SensorHistory(YAW_HISTORY_LENGTH, true);
         yaw = (float) 0.0;
         pitch = (float) 0.0;
         roll = (float) 0.0;
@@ -102,6 +106,23 @@ public class IMU extends SensorBase implements PIDSource, LiveWindowSendable, Ru
         this(serial_port,DEFAULT_UPDATE_RATE_HZ);
     }
 
+    /**
+     * Constructs the IMU class without a serial port, for subclasses
+     * which publish orientation values themselves (e.g. a simulated 
+     * IMU).  No serial thread is started.
+     */
+    protected IMU() {
+        ypr_update_data = new IMUProtocol.YPRUpdate();
+        framer = new PacketFramer();
+        this.update_rate_hz = DEFAULT_UPDATE_RATE_HZ;
+        flags = 0;
+        accel_fsr_g = DEFAULT_ACCEL_FSR_G;
+        gyro_fsr_dps = DEFAULT_GYRO_FSR_DPS;
+        yaw_history = new SensorHistory(YAW_HISTORY_LENGTH, true);
+        initializeYawHistory();
+        user_yaw_offset = 0;
+    }
+
     protected void initIMU() {
         
         // The nav6 IMU serial port configuration is 8 data bits, no parity, one stop bit. 
@@ -138,39 +159,81 @@ public class IMU extends SensorBase implements PIDSource, LiveWindowSendable, Ru
         
     private void initializeYawHistory() {
 
-        Arrays.fill(yaw_history,0);
-        next_yaw_history_index = 0;
+        yaw_history.clear();
         last_update_time = 0.0;
     }
 
     private void setYawPitchRoll(float yaw, float pitch, float roll, float compass_heading) {
 
+        publishOrientation(yaw, pitch, roll, compass_heading);
+    }
+
+    /**
+     * Publishes the orientation values from one update packet.  Only the 
+     * IMU thread may call this; readers using getSnapshot() will see either
+     * all of these values or none of them.
+     */
+    protected void publishOrientation(float yaw, float pitch, float roll, float compass_heading) {
+
+        publishOrientation(RobotClock.getTimestamp(), yaw, pitch, roll, compass_heading);
+    }
+
+    /**
+     * Publishes the orientation values from one update packet, received 
+     * at the specified time (in seconds, from RobotClock.getTimestamp(),
+     * which is the FPGA time on the robot).
+     * 
+     * The yaw history is updated after the values are published, since 
+     * it takes a lock: a reader holding it must not keep getSnapshot() 
+     * callers waiting.
+     */
+    protected void publishOrientation(double timestamp, float yaw, float pitch, float roll, float compass_heading) {
+
+        int seq = beginPublish();
+        writeOrientation(timestamp, yaw, pitch, roll, compass_heading);
+        endPublish(seq);
+        yaw_history.add(timestamp, yaw);
+    }
+
+    /**
+     * Starts publishing an update packet.  Until endPublish() is called,
+     * getSnapshot() callers wait, so a subclass may write values of its 
+     * own here and have them published together with the orientation.
+     * Only the IMU thread may call this.
+     * @return The sequence number to pass to endPublish().
+     */
+    protected final int beginPublish() {
+
+        int seq = orientation_sequence;
+        orientation_sequence = seq + 1;
+        return seq;
+    }
+
+    /**
+     * Writes the orientation values; only call this between beginPublish()
+     * and endPublish().  The yaw history is not updated.
+     */
+    protected final void writeOrientation(double timestamp, float yaw, float pitch, float roll, float compass_heading) {
+
         this.yaw = yaw;
         this.pitch = pitch;
         this.roll = roll;
         this.compass_heading = compass_heading;
-
-        updateYawHistory(this.yaw);
+        last_update_time = timestamp;
     }
 
-    protected void updateYawHistory(float curr_yaw) {
+    /**
+     * Finishes publishing the update packet started by beginPublish().
+     * @param seq The value returned by beginPublish().
+     */
+    protected final void endPublish(int seq) {
 
-        if (next_yaw_history_index >= YAW_HISTORY_LENGTH) {
-            next_yaw_history_index = 0;
-        }
-        yaw_history[next_yaw_history_index] = curr_yaw;
-        last_update_time = Timer.getFPGATimestamp();
-        next_yaw_history_index++;
+        orientation_sequence = seq + 2;
     }
 
     private double getAverageFromYawHistory() {
 
-        double yaw_history_sum = 0.0;
-        for (int i = 0; i < YAW_HISTORY_LENGTH; i++) {
-            yaw_history_sum += yaw_history[i];
-        }
-        double yaw_history_avg = yaw_history_sum / YAW_HISTORY_LENGTH;
-        return yaw_history_avg;
+        return yaw_history.getMean();
     }
 
     /**
@@ -211,6 +274,42 @@ public class IMU extends SensorBase implements PIDSource, LiveWindowSendable, Ru
         return calculated_yaw;
     }
 
+    /**
+     * Returns the current rate of change of yaw (in degrees per second),
+     * based upon the two most recent update packets.  Positive values 
+     * indicate that the yaw value is increasing.
+     * @return The current yaw rate in degrees per second.
+     */
+    public float getYawRate() {
+        return (float) yaw_history.getLatestRate();
+    }
+
+    /**
+     * Returns the yaw value (in degrees, from -180 to 180) at a 
+     * recent point in time, interpolated between the update packets 
+     * received on either side of it.  This allows a measurement taken 
+     * at a known time to be compensated for the latency between nav6
+     * update packets.
+     * 
+     * Only the last few update packets are retained; times older than 
+     * the oldest retained packet return that packet's yaw, and times 
+     * newer than the latest packet return the current yaw.  As with 
+     * getYaw(), the user-specified yaw offset is applied.
+     * @param fpga_timestamp The time (in seconds, from 
+     * RobotClock.getTimestamp()) of interest.
+     * @return The yaw value in degrees (-180 to 180) at that time.
+     */
+    public float getYawAt(double fpga_timestamp) {
+        float calculated_yaw = (float) (yaw_history.valueAt(fpga_timestamp) - user_yaw_offset);
+        if (calculated_yaw < -180) {
+            calculated_yaw += 360;
+        }
+        if (calculated_yaw > 180) {
+            calculated_yaw -= 360;
+        }
+        return calculated_yaw;
+    }
+
     /**
      * Returns the current tilt-compensated compass heading 
      * value (in degrees, from 0 to 360) reported by the nav6 IMU.
@@ -224,6 +323,56 @@ public class IMU extends SensorBase implements PIDSource, LiveWindowSendable, Ru
         return compass_heading;
     }
 
+    /**
+     * Copies the yaw, pitch, roll and compass heading from the most recent
+     * update packet into the caller's snapshot, along with the time the 
+     * packet was received and its sequence number.  All values are 
+     * guaranteed to come from the same packet.
+     * 
+     * This method takes no locks and allocates nothing, so it may be 
+     * called from PID controller threads.  If an update is being published
+     * concurrently, the copy is simply retried.
+     * @param snapshot The snapshot to fill in.
+     * @return The snapshot passed in.
+     */
+    public OrientationSnapshot getSnapshot(OrientationSnapshot snapshot) {
+        int seq;
+        do {
+            seq = orientation_sequence;
+            while ((seq & 1) != 0) {
+                Thread.yield();
+                seq = orientation_sequence;
+            }
+            snapshot.yaw = this.yaw;
+            snapshot.pitch = this.pitch;
+            snapshot.roll = this.roll;
+            snapshot.compass_heading = this.compass_heading;
+            snapshot.timestamp = this.last_update_time;
+            copyPublishedValues(snapshot);
+        } while (seq != orientation_sequence);
+
+        float calculated_yaw = (float) (snapshot.yaw - user_yaw_offset);
+        if (calculated_yaw < -180) {
+            calculated_yaw += 360;
+        }
+        if (calculated_yaw > 180) {
+            calculated_yaw -= 360;
+        }
+        snapshot.yaw = calculated_yaw;
+        snapshot.sequence = seq >>> 1;
+        return snapshot;
+    }
+
+    /**
+     * Called by getSnapshot() while it copies one packet's values, so a 
+     * subclass which publishes values of its own between beginPublish() 
+     * and endPublish() can copy them into a snapshot subclass.  Must not 
+     * block or allocate; it may be called again if the copy is retried.
+     * @param snapshot The snapshot being filled in.
+     */
+    protected void copyPublishedValues(OrientationSnapshot snapshot) {
+    }
+
     /**
      * Sets the user-specified yaw offset to the current
      * yaw value reported by the nav6 IMU.
@@ -244,7 +393,7 @@ public class IMU extends SensorBase implements PIDSource, LiveWindowSendable, Ru
      * @return Returns true if a valid update has been received within the last second.
      */
     public boolean isConnected() {
-        double time_since_last_update = Timer.getFPGATimestamp() - this.last_update_time;
+        double time_since_last_update = RobotClock.getTimestamp() - this.last_update_time;
         return time_since_last_update <= 1.0;
     }
 
@@ -363,7 +512,7 @@ public class IMU extends SensorBase implements PIDSource, LiveWindowSendable, Ru
             serial_port.reset();
             serial_port.write( stream_command, cmd_packet_length );
             serial_port.flush();
-            last_stream_command_sent_timestamp = Timer.getFPGATimestamp();
+            last_stream_command_sent_timestamp = RobotClock.getTimestamp();
         } catch (RuntimeException ex) {
                 ex.printStackTrace();
         }
@@ -371,44 +520,29 @@ public class IMU extends SensorBase implements PIDSource, LiveWindowSendable, Ru
         while (!stop) {
             try {
 
-                // Wait, with delays to conserve CPU resources, until
-                // bytes have arrived.
-                
-                while ( !stop && ( serial_port.getBytesReceived() < 1 ) ) {
-                    Timer.delay(0.1);
-                }
+                // Block until a terminator arrives (or the port times out);
+                // termination is enabled on '\n', so each read normally
+                // returns as soon as a complete packet has been received.
+                // Any partial packet is held by the framer until the rest
+                // of it arrives on a later read.
 
                 int packets_received = 0;
                 byte[] received_data = serial_port.read(256);
                 int bytes_read = received_data.length;
                 if (bytes_read > 0) {
                     byte_count += bytes_read;
-                    int i = 0;
-                    // Scan the buffer looking for valid packets
-                    while (i < bytes_read) {
-                                                
-                        // Attempt to decode a packet
-                        
-                        int bytes_remaining = bytes_read - i;
-                        int packet_length = decodePacketHandler(received_data,i,bytes_remaining);
-                        if (packet_length > 0) {
+                    framer.append(received_data, bytes_read);
+                    byte[] packet = framer.getPacket();
+                    int packet_length;
+                    while ((packet_length = framer.nextPacket()) > 0) {
+                        if (decodePacketHandler(packet,0,packet_length) > 0) {
                             packets_received++;
                             update_count++;
-                            i += packet_length;
                         } 
-                        else 
-                        {
-                            packet_length = IMUProtocol.decodeStreamResponse(received_data, i, bytes_remaining, response);
-                            if (packet_length > 0) {
-                                packets_received++;
-                                setStreamResponse(response);
-                                stream_response_received = true;
-                                i += packet_length;
-                            }
-                            else {
-                                // current index is not the start of a valid packet; increment
-                                i++;
-                            }
+                        else if (IMUProtocol.decodeStreamResponse(packet, 0, packet_length, response) > 0) {
+                            packets_received++;
+                            setStreamResponse(response);
+                            stream_response_received = true;
                         }
                     }
                 
@@ -418,27 +552,22 @@ public class IMU extends SensorBase implements PIDSource, LiveWindowSendable, Ru
                         // condition occurs in the Java SerialPort.  In this case,
                         // reset the serial port.
                         serial_port.reset();
+                        framer.reset();
                     }
+                }
                     
-                    // If a stream configuration response has not been received within three seconds
-                    // of operation, (re)send a stream configuration request
-                    
-                    if ( !stream_response_received && ((Timer.getFPGATimestamp() - last_stream_command_sent_timestamp ) > 3.0 ) ) {
-                        cmd_packet_length = IMUProtocol.encodeStreamCommand( stream_command, update_type, update_rate_hz ); 
-                        try {
-                            last_stream_command_sent_timestamp = Timer.getFPGATimestamp();
-                            serial_port.write( stream_command, cmd_packet_length );
-                            serial_port.flush();
-                        } catch (RuntimeException ex2) {
-                                ex2.printStackTrace();
-                        }                                                    
-                    }
-                    else {                        
-                        // If no bytes remain in the buffer, and not awaiting a response, sleep a bit
-                        if ( stream_response_received && ( serial_port.getBytesReceived() == 0 ) ) {
-                            Timer.delay(1.0/update_rate_hz);
-                        }        
-                    }
+                // If a stream configuration response has not been received within three seconds
+                // of operation, (re)send a stream configuration request
+                
+                if ( !stream_response_received && ((RobotClock.getTimestamp() - last_stream_command_sent_timestamp ) > 3.0 ) ) {
+                    cmd_packet_length = IMUProtocol.encodeStreamCommand( stream_command, update_type, update_rate_hz ); 
+                    try {
+                        last_stream_command_sent_timestamp = RobotClock.getTimestamp();
+                        serial_port.write( stream_command, cmd_packet_length );
+                        serial_port.flush();
+                    } catch (RuntimeException ex2) {
+                            ex2.printStackTrace();
+                    }                                                    
                 }
             } catch (RuntimeException ex) {
                 // This exception typically indicates a Timeout
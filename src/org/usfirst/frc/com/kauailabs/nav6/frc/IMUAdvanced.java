@@ -9,9 +9,8 @@
 /*----------------------------------------------------------------------------*/
 
 package org.usfirst.frc.com.kauailabs.nav6.frc;
-import java.util.Arrays;
-
 import org.usfirst.frc.com.kauailabs.nav6.IMUProtocol;
+import org.usfirst.frc.team2485.util.RobotClock;
 
 import edu.wpi.first.wpilibj.SerialPort;
 
@@ -23,6 +22,10 @@ import edu.wpi.first.wpilibj.SerialPort;
  * as well as key orientation information (yaw, pitch, roll, compass heading).
  * Additionally, the IMUAdvanced class also provides access to extended information
  * including linear acceleration, motion detection, and sensor temperature.
+ * 
+ * The linear acceleration and temperature are published together with the
+ * orientation, so getSnapshot() given a MotionSnapshot returns all of them
+ * from the same update packet.
  * @author Scott
  */public class IMUAdvanced extends IMU {
 
@@ -31,9 +34,7 @@ import edu.wpi.first.wpilibj.SerialPort;
     volatile float world_linear_accel_y;
     volatile float world_linear_accel_z;
     volatile float temp_c;
-    float world_linear_accel_history[];
-    int   next_world_linear_accel_history_index;
-    float world_linear_acceleration_recent_avg;
+    SensorHistory world_linear_accel_history;
     
     static final int WORLD_LINEAR_ACCEL_HISTORY_LENGTH = 10;
 
@@ -66,6 +67,18 @@ import edu.wpi.first.wpilibj.SerialPort;
         this(serial_port, DEFAULT_UPDATE_RATE_HZ);
     }
 
+    /**
+     * Constructs the IMUAdvanced class without a serial port, for 
+     * subclasses which feed it update packets themselves (e.g. a 
+     * simulated IMU).  No serial thread is started.
+     */
+    protected IMUAdvanced() {
+        super();
+        quaternion_update_data = new IMUProtocol.QuaternionUpdate();
+        update_type = IMUProtocol.MSGID_QUATERNION_UPDATE;
+        world_linear_accel_history = new SensorHistory(WORLD_LINEAR_ACCEL_HISTORY_LENGTH);
+    }
+
     //@Override
     protected int decodePacketHandler(byte[] received_data, int offset, int bytes_remaining) {
         
@@ -148,184 +161,146 @@ import edu.wpi.first.wpilibj.SerialPort;
     {
         return this.temp_c;
     }
+
+    /**
+     * Also copies the world linear acceleration and temperature when the 
+     * snapshot passed to getSnapshot() is a MotionSnapshot.
+     */
+    //@Override
+    protected void copyPublishedValues(OrientationSnapshot snapshot) {
+        if (snapshot instanceof MotionSnapshot) {
+            MotionSnapshot motion = (MotionSnapshot) snapshot;
+            motion.world_linear_accel_x = this.world_linear_accel_x;
+            motion.world_linear_accel_y = this.world_linear_accel_y;
+            motion.world_linear_accel_z = this.world_linear_accel_z;
+            motion.temp_c = this.temp_c;
+        }
+    }
     
     //@Override
     protected void initIMU() {
         super.initIMU();
-        world_linear_accel_history = new float[WORLD_LINEAR_ACCEL_HISTORY_LENGTH];
-        initWorldLinearAccelHistory();
+        world_linear_accel_history = new SensorHistory(WORLD_LINEAR_ACCEL_HISTORY_LENGTH);
     }
 
-    private void initWorldLinearAccelHistory(){
-        Arrays.fill(world_linear_accel_history,0);
-        next_world_linear_accel_history_index = 0;
-        world_linear_acceleration_recent_avg = (float) 0.0;
-    }
-    
-    private void updateWorldLinearAccelHistory( float x, float y, float z ){
-        if (next_world_linear_accel_history_index >= WORLD_LINEAR_ACCEL_HISTORY_LENGTH) {
-            next_world_linear_accel_history_index = 0;
-        }
-        world_linear_accel_history[next_world_linear_accel_history_index] = Math.abs(x) + Math.abs(y);
-        next_world_linear_accel_history_index++;
+    private void updateWorldLinearAccelHistory( double timestamp, float x, float y, float z ){
+        world_linear_accel_history.add(timestamp, Math.abs(x) + Math.abs(y));
     }
     
     public float getAverageFromWorldLinearAccelHistory(){
-        float world_linear_accel_history_sum = (float) 0.0;
-        for (int i = 0; i < WORLD_LINEAR_ACCEL_HISTORY_LENGTH; i++) {
-            world_linear_accel_history_sum += world_linear_accel_history[i];
-        }
-        return world_linear_accel_history_sum / WORLD_LINEAR_ACCEL_HISTORY_LENGTH;
+        return (float) world_linear_accel_history.getMean();
     }
 
     private void setQuaternion(IMUProtocol.QuaternionUpdate raw_update) {
-        synchronized (this) { // synchronized block
-            
-            float[] q = new float[4];
-            float[] gravity = new float[3];
-            //float[] euler = new float[3];
-            float[] ypr = new float[3];
-            float yaw_degrees;
-            float pitch_degrees;
-            float roll_degrees;
-            float linear_acceleration_x;
-            float linear_acceleration_y;
-            float linear_acceleration_z;
-            float q2[] = new float[4];
-            float q_product[] = new float[4];
-            float world_linear_acceleration_x;
-            float world_linear_acceleration_y;
-            float world_linear_acceleration_z;
-                       
-            q[0] = ((float)raw_update.q1) / 16384.0f;
-            q[1] = ((float)raw_update.q2) / 16384.0f;
-            q[2] = ((float)raw_update.q3) / 16384.0f;
-            q[3] = ((float)raw_update.q4) / 16384.0f;
-            for (int i = 0; i < 4; i++) if (q[i] >= 2) q[i] = -4 + q[i]; // Range-check quaterions
-            
-            // below calculations are necessary for calculation of yaw/pitch/roll, 
-            // and tilt-compensated compass heading
-            
-            // calculate gravity vector
-            gravity[0] = 2 * (q[1]*q[3] - q[0]*q[2]);
-            gravity[1] = 2 * (q[0]*q[1] + q[2]*q[3]);
-            gravity[2] = q[0]*q[0] - q[1]*q[1] - q[2]*q[2] + q[3]*q[3];
-  
-            // calculate Euler angles
-            // This code is here for reference, and is commented out for performance reasons
-           
-            //euler[0] = (float) MathUtils.atan2(2*q[1]*q[2] - 2*q[0]*q[3], 2*q[0]*q[0] + 2*q[1]*q[1] - 1);
-            //euler[1] = (float) -MathUtils.asin(2*q[1]*q[3] + 2*q[0]*q[2]);
-            //euler[2] = (float) MathUtils.atan2(2*q[2]*q[3] - 2*q[0]*q[1], 2*q[0]*q[0] + 2*q[3]*q[3] - 1);
-  
-            // calculate yaw/pitch/roll angles
-            ypr[0] = (float) Math.atan2(2*q[1]*q[2] - 2*q[0]*q[3], 2*q[0]*q[0] + 2*q[1]*q[1] - 1);
-            ypr[1] = (float) Math.atan(gravity[0] / Math.sqrt(gravity[1]*gravity[1] + gravity[2]*gravity[2]));
-            ypr[2] = (float) Math.atan(gravity[1] / Math.sqrt(gravity[0]*gravity[0] + gravity[2]*gravity[2]));
-             
-            yaw_degrees = (float) (ypr[0] * (180.0/Math.PI)); 
-            pitch_degrees = (float) (ypr[1] * (180.0/Math.PI)); 
-            roll_degrees = (float) (ypr[2] * (180.0/Math.PI)); 
-             
-            // Subtract nav6 offset, and handle potential 360 degree wrap-around
-            yaw_degrees -= nav6_yaw_offset_degrees;
-            if ( yaw_degrees < -180 ) yaw_degrees += 360;
-            if ( yaw_degrees > 180 ) yaw_degrees -= 360;
-             
-            // calculate linear acceleration by 
-            // removing the gravity component (+1g = +4096 in standard DMP FIFO packet)
-             
-            linear_acceleration_x = (float) ((((float)raw_update.accel_x) / (32768.0 / accel_fsr_g)) - gravity[0]);
-            linear_acceleration_y = (float) ((((float)raw_update.accel_y) / (32768.0 / accel_fsr_g)) - gravity[1]);
-            linear_acceleration_z = (float) ((((float)raw_update.accel_z) / (32768.0 / accel_fsr_g)) - gravity[2]); 
-            
-            // Calculate world-frame acceleration
-            
-            q2[0] = 0;
-            q2[1] = linear_acceleration_x;
-            q2[2] = linear_acceleration_y;
-            q2[3] = linear_acceleration_z;
-            
-            // Rotate linear acceleration so that it's relative to the world reference frame
-            
-            // http://www.cprogramming.com/tutorial/3d/quaternions.html
-            // http://www.euclideanspace.com/maths/algebra/realNormedAlgebra/quaternions/transforms/index.htm
-            // http://content.gpwiki.org/index.php/OpenGL:Tutorials:Using_Quaternions_to_represent_rotation
-            // ^ or: http://webcache.googleusercontent.com/search?q=cache:xgJAp3bDNhQJ:content.gpwiki.org/index.php/OpenGL:Tutorials:Using_Quaternions_to_represent_rotation&hl=en&gl=us&strip=1
-        
-            // P_out = q * P_in * conj(q)
-            // - P_out is the output vector
-            // - q is the orientation quaternion
-            // - P_in is the input vector (a*aReal)
-            // - conj(q) is the conjugate of the orientation quaternion (q=[w,x,y,z], q*=[w,-x,-y,-z])
-
-            
-            // calculate quaternion product
-            // Quaternion multiplication is defined by:
-            //     (Q1 * Q2).w = (w1w2 - x1x2 - y1y2 - z1z2)
-            //     (Q1 * Q2).x = (w1x2 + x1w2 + y1z2 - z1y2)
-            //     (Q1 * Q2).y = (w1y2 - x1z2 + y1w2 + z1x2)
-            //     (Q1 * Q2).z = (w1z2 + x1y2 - y1x2 + z1w2
-            
-            q_product[0] = q[0]*q2[0] - q[1]*q2[1] - q[2]*q2[2] - q[3]*q2[3];  // new w
-            q_product[1] = q[0]*q2[1] + q[1]*q2[0] + q[2]*q2[3] - q[3]*q2[2];  // new x
-            q_product[2] = q[0]*q2[2] - q[1]*q2[3] + q[2]*q2[0] + q[3]*q2[1];  // new y 
-            q_product[3] = q[0]*q2[3] + q[1]*q2[2] - q[2]*q2[1] + q[3]*q2[0];  // new z
-
-            float[] q_conjugate = new float[4];
-            
-            q_conjugate[0] = q[0];            
-            q_conjugate[1] = -q[1];            
-            q_conjugate[2] = -q[2];            
-            q_conjugate[3] = -q[3];            
-
-            float[] q_final = new float[4];
-            
-            q_final[0] = q_product[0]*q_conjugate[0] - q_product[1]*q_conjugate[1] - q_product[2]*q_conjugate[2] - q_product[3]*q_conjugate[3];  // new w
-            q_final[1] = q_product[0]*q_conjugate[1] + q_product[1]*q_conjugate[0] + q_product[2]*q_conjugate[3] - q_product[3]*q_conjugate[2];  // new x
-            q_final[2] = q_product[0]*q_conjugate[2] - q_product[1]*q_conjugate[3] + q_product[2]*q_conjugate[0] + q_product[3]*q_conjugate[1];  // new y 
-            q_final[3] = q_product[0]*q_conjugate[3] + q_product[1]*q_conjugate[2] - q_product[2]*q_conjugate[1] + q_product[3]*q_conjugate[0];  // new z
-
-            world_linear_acceleration_x = q_final[1];
-            world_linear_acceleration_y = q_final[2];
-            world_linear_acceleration_z = q_final[3];
-             
-            updateWorldLinearAccelHistory(world_linear_acceleration_x,world_linear_acceleration_y, world_linear_acceleration_z);
-             
-            // Calculate tilt-compensated compass heading
-            
-            float inverted_pitch = -ypr[1];
-            float roll_radians = ypr[2];
-            
-            float cos_roll = (float) Math.cos(roll_radians);
-            float sin_roll = (float) Math.sin(roll_radians);
-            float cos_pitch = (float) Math.cos(inverted_pitch);
-            float sin_pitch = (float) Math.sin(inverted_pitch);
-            
-            float MAG_X = raw_update.mag_x * cos_pitch + raw_update.mag_z * sin_pitch;
-            float MAG_Y = raw_update.mag_x * sin_roll * sin_pitch + raw_update.mag_y * cos_roll - raw_update.mag_z * sin_roll * cos_pitch;
-            float tilt_compensated_heading_radians = (float) Math.atan2(MAG_Y,MAG_X);
-            float tilt_compensated_heading_degrees = (float) (tilt_compensated_heading_radians * (180.0 / Math.PI));
-            
-            // Adjust compass for board orientation,
-            // and modify range from -180-180 to
-            // 0-360 degrees
-          
-            tilt_compensated_heading_degrees -= 90.0;
-            if ( tilt_compensated_heading_degrees < 0 ) {
-              tilt_compensated_heading_degrees += 360; 
-            }
-            
-            this.yaw = yaw_degrees;
-            this.pitch = pitch_degrees;
-            this.roll = roll_degrees;
-            this.compass_heading = tilt_compensated_heading_degrees;
-            
-            this.world_linear_accel_x = world_linear_acceleration_x;
-            this.world_linear_accel_y = world_linear_acceleration_y;
-            this.world_linear_accel_z = world_linear_acceleration_z;
-            this.temp_c = raw_update.temp_c;
-            updateYawHistory(this.yaw);            
+        // This runs once per packet on the IMU thread, so the math below is
+        // kept to scalar locals: no arrays are allocated and no monitor is
+        // taken.  Orientation, acceleration and temperature are published 
+        // under the IMU seqlock so that getSnapshot() readers never see 
+        // values from two packets.
+
+        float qw = ((float)raw_update.q1) / 16384.0f;
+        float qx = ((float)raw_update.q2) / 16384.0f;
+        float qy = ((float)raw_update.q3) / 16384.0f;
+        float qz = ((float)raw_update.q4) / 16384.0f;
+        // Range-check quaterions
+        if (qw >= 2) qw = -4 + qw;
+        if (qx >= 2) qx = -4 + qx;
+        if (qy >= 2) qy = -4 + qy;
+        if (qz >= 2) qz = -4 + qz;
+
+        // below calculations are necessary for calculation of yaw/pitch/roll, 
+        // and tilt-compensated compass heading
+
+        // calculate gravity vector
+        float gravity_x = 2 * (qx*qz - qw*qy);
+        float gravity_y = 2 * (qw*qx + qy*qz);
+        float gravity_z = qw*qw - qx*qx - qy*qy + qz*qz;
+
+        // calculate yaw/pitch/roll angles
+        float yaw_radians = (float) Math.atan2(2*qx*qy - 2*qw*qz, 2*qw*qw + 2*qx*qx - 1);
+        float pitch_radians = (float) Math.atan(gravity_x / Math.sqrt(gravity_y*gravity_y + gravity_z*gravity_z));
+        float roll_radians = (float) Math.atan(gravity_y / Math.sqrt(gravity_x*gravity_x + gravity_z*gravity_z));
+
+        float yaw_degrees = (float) (yaw_radians * (180.0/Math.PI)); 
+        float pitch_degrees = (float) (pitch_radians * (180.0/Math.PI)); 
+        float roll_degrees = (float) (roll_radians * (180.0/Math.PI)); 
+
+        // Subtract nav6 offset, and handle potential 360 degree wrap-around
+        yaw_degrees -= nav6_yaw_offset_degrees;
+        if ( yaw_degrees < -180 ) yaw_degrees += 360;
+        if ( yaw_degrees > 180 ) yaw_degrees -= 360;
+
+        // calculate linear acceleration by 
+        // removing the gravity component (+1g = +4096 in standard DMP FIFO packet)
+
+        float linear_acceleration_x = (float) ((((float)raw_update.accel_x) / (32768.0 / accel_fsr_g)) - gravity_x);
+        float linear_acceleration_y = (float) ((((float)raw_update.accel_y) / (32768.0 / accel_fsr_g)) - gravity_y);
+        float linear_acceleration_z = (float) ((((float)raw_update.accel_z) / (32768.0 / accel_fsr_g)) - gravity_z); 
+
+        // Rotate linear acceleration so that it's relative to the world reference frame
+
+        // http://www.cprogramming.com/tutorial/3d/quaternions.html
+        // http://www.euclideanspace.com/maths/algebra/realNormedAlgebra/quaternions/transforms/index.htm
+        // http://content.gpwiki.org/index.php/OpenGL:Tutorials:Using_Quaternions_to_represent_rotation
+
+        // P_out = q * P_in * conj(q)
+        // - P_out is the output vector
+        // - q is the orientation quaternion
+        // - P_in is the input vector (a*aReal), a pure quaternion [0, x, y, z]
+        // - conj(q) is the conjugate of the orientation quaternion (q=[w,x,y,z], q*=[w,-x,-y,-z])
+
+        // calculate quaternion product q * P_in
+        // Quaternion multiplication is defined by:
+        //     (Q1 * Q2).w = (w1w2 - x1x2 - y1y2 - z1z2)
+        //     (Q1 * Q2).x = (w1x2 + x1w2 + y1z2 - z1y2)
+        //     (Q1 * Q2).y = (w1y2 - x1z2 + y1w2 + z1x2)
+        //     (Q1 * Q2).z = (w1z2 + x1y2 - y1x2 + z1w2
+        // with w2 = 0 for the pure input vector
+
+        float pw = - qx*linear_acceleration_x - qy*linear_acceleration_y - qz*linear_acceleration_z;
+        float px = qw*linear_acceleration_x + qy*linear_acceleration_z - qz*linear_acceleration_y;
+        float py = qw*linear_acceleration_y - qx*linear_acceleration_z + qz*linear_acceleration_x;
+        float pz = qw*linear_acceleration_z + qx*linear_acceleration_y - qy*linear_acceleration_x;
+
+        // multiply by conj(q); only the vector part is needed
+
+        float world_linear_acceleration_x = - pw*qx + px*qw - py*qz + pz*qy;
+        float world_linear_acceleration_y = - pw*qy + px*qz + py*qw - pz*qx;
+        float world_linear_acceleration_z = - pw*qz - px*qy + py*qx + pz*qw;
+
+        // Calculate tilt-compensated compass heading
+
+        float inverted_pitch = -pitch_radians;
+
+        float cos_roll = (float) Math.cos(roll_radians);
+        float sin_roll = (float) Math.sin(roll_radians);
+        float cos_pitch = (float) Math.cos(inverted_pitch);
+        float sin_pitch = (float) Math.sin(inverted_pitch);
+
+        float MAG_X = raw_update.mag_x * cos_pitch + raw_update.mag_z * sin_pitch;
+        float MAG_Y = raw_update.mag_x * sin_roll * sin_pitch + raw_update.mag_y * cos_roll - raw_update.mag_z * sin_roll * cos_pitch;
+        float tilt_compensated_heading_radians = (float) Math.atan2(MAG_Y,MAG_X);
+        float tilt_compensated_heading_degrees = (float) (tilt_compensated_heading_radians * (180.0 / Math.PI));
+
+        // Adjust compass for board orientation,
+        // and modify range from -180-180 to
+        // 0-360 degrees
+
+        tilt_compensated_heading_degrees -= 90.0;
+        if ( tilt_compensated_heading_degrees < 0 ) {
+          tilt_compensated_heading_degrees += 360; 
         }
+
+        double timestamp = RobotClock.getTimestamp();
+        int seq = beginPublish();
+        writeOrientation(timestamp, yaw_degrees, pitch_degrees, roll_degrees, tilt_compensated_heading_degrees);
+        this.world_linear_accel_x = world_linear_acceleration_x;
+        this.world_linear_accel_y = world_linear_acceleration_y;
+        this.world_linear_accel_z = world_linear_acceleration_z;
+        this.temp_c = raw_update.temp_c;
+        endPublish(seq);
+        // the histories take locks, so they're updated outside the seqlock window
+        yaw_history.add(timestamp, yaw_degrees);
+        updateWorldLinearAccelHistory(timestamp, world_linear_acceleration_x,world_linear_acceleration_y, world_linear_acceleration_z);
     }
 }
@@ -0,0 +1,214 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) Kauai Labs 2013. All Rights Reserved.                        */
+/*                                                                            */
+/* Created in support of Team 2465 (Kauaibots).  Go Thunderchicken!           */
+/*                                                                            */
+/* Open Source Software - may be modified and shared by FRC teams. Any        */
+/* modifications to this code must be accompanied by the nav6_License.txt file*/
+/* in the root directory of the project.                                      */
+/*----------------------------------------------------------------------------*/
+
+package org.usfirst.frc.com.kauailabs.nav6.frc;
+
+import org.usfirst.frc.com.kauailabs.nav6.IMUProtocol;
+import org.usfirst.frc.team2485.util.RobotClock;
+
+import edu.wpi.first.wpilibj.SerialPort;
+
+/**
+ * The IMUGyroStream class places the KauaiLabs nav6 IMU into its raw
+ * gyro/accelerometer/magnetometer streaming mode, and computes yaw on the
+ * host by integrating the z-axis gyro rate.
+ *
+ * Compared to the fused yaw reported by the IMU and IMUAdvanced classes,
+ * the integrated yaw is available with less latency, and the yaw rate is
+ * measured directly rather than differenced from successive yaw values.
+ * This makes it well suited to deciding when a rotation has settled.
+ * However, the integrated yaw will drift slowly over time, since it is
+ * not corrected by the nav6 sensor fusion.
+ *
+ * Pitch and roll are computed from the direction of gravity sensed by the
+ * accelerometer, and so are only accurate while the robot is not
+ * accelerating.
+ *
+ * The gyro bias is measured over the first second of updates, during which
+ * time the nav6 IMU should be held still; isCalibrating() returns true
+ * until this completes.
+ */
+public class IMUGyroStream extends IMU {
+
+    static final byte   MAX_UPDATE_RATE_HZ          = 100;
+    static final double BIAS_CALIBRATION_SECONDS    = 1.0;
+
+    private IMUProtocol.GyroUpdate gyro_update_data;
+
+    volatile float yaw_rate;
+    volatile float temp_c;
+    volatile boolean bias_calibrated;
+
+    // Integration state; only accessed by the IMU thread
+    private double integrated_yaw;
+    private double last_yaw_rate;
+    private double last_sample_time;
+    private double gyro_bias_sum;
+    private int gyro_bias_samples;
+    private double gyro_bias;
+
+    /**
+     * Constructs the IMUGyroStream class, overriding the default update
+     * rate with a custom rate which may be from 4 to 100, representing
+     * the number of updates per second sent by the nav6 IMU.
+     *
+     * Higher update rates reduce the error in the integrated yaw.
+     * @param serial_port BufferingSerialPort object to use
+     * @param update_rate_hz Custom Update Rate (Hz)
+     */
+    public IMUGyroStream(SerialPort serial_port, byte update_rate_hz) {
+        super(serial_port, update_rate_hz);
+    }
+
+    /**
+     * Constructs the IMUGyroStream class, using the maximum update rate
+     * supported by the nav6 IMU.
+     * @param serial_port BufferingSerialPort object to use
+     */
+    public IMUGyroStream(SerialPort serial_port) {
+        this(serial_port, MAX_UPDATE_RATE_HZ);
+    }
+
+    /**
+     * Constructs the IMUGyroStream class without a serial port, for
+     * subclasses which feed it update packets themselves (e.g. a
+     * simulated IMU).  No serial thread is started.
+     */
+    protected IMUGyroStream() {
+        super();
+        initGyroStream();
+    }
+
+    //@Override
+    protected void initIMU() {
+        // Invoked from the IMU constructor, before the IMU thread is
+        // started, so that the first stream command requests gyro updates.
+        initGyroStream();
+        super.initIMU();
+    }
+
+    private void initGyroStream() {
+        gyro_update_data = new IMUProtocol.GyroUpdate();
+        update_type = IMUProtocol.MSGID_GYRO_UPDATE;
+        integrated_yaw = 0.0;
+        last_yaw_rate = 0.0;
+        last_sample_time = 0.0;
+        gyro_bias_sum = 0.0;
+        gyro_bias_samples = 0;
+        gyro_bias = 0.0;
+        bias_calibrated = false;
+    }
+
+    //@Override
+    protected int decodePacketHandler(byte[] received_data, int offset, int bytes_remaining) {
+
+        int packet_length = IMUProtocol.decodeGyroUpdate(received_data, offset, bytes_remaining, gyro_update_data);
+        if (packet_length > 0) {
+            setGyroUpdate(gyro_update_data);
+        }
+        return packet_length;
+    }
+
+    private void setGyroUpdate(IMUProtocol.GyroUpdate raw_update) {
+
+        double timestamp = RobotClock.getTimestamp();
+
+        // The nav6 yaw increases clockwise (viewed from above), which is
+        // a negative rotation about the gyro z axis.
+        double raw_yaw_rate = -raw_update.gyro_z * (gyro_fsr_dps / 32768.0);
+
+        if (!bias_calibrated) {
+            if (gyro_bias_samples == 0) {
+                last_sample_time = timestamp;
+            }
+            gyro_bias_sum += raw_yaw_rate;
+            gyro_bias_samples++;
+            if (timestamp - last_sample_time >= BIAS_CALIBRATION_SECONDS) {
+                gyro_bias = gyro_bias_sum / gyro_bias_samples;
+                bias_calibrated = true;
+                last_yaw_rate = 0.0;
+                last_sample_time = timestamp;
+            }
+            return;
+        }
+
+        double current_yaw_rate = raw_yaw_rate - gyro_bias;
+
+        // Integrate using the trapezoidal rule.  If packets were missed
+        // for longer than a few update periods, assume a single period
+        // rather than integrating across the gap.
+        double dt = timestamp - last_sample_time;
+        double nominal_dt = 1.0 / update_rate_hz;
+        if ((dt <= 0.0) || (dt > 4 * nominal_dt)) {
+            dt = nominal_dt;
+        }
+        integrated_yaw += (current_yaw_rate + last_yaw_rate) * 0.5 * dt;
+        if (integrated_yaw > 180.0) integrated_yaw -= 360.0;
+        if (integrated_yaw < -180.0) integrated_yaw += 360.0;
+        last_yaw_rate = current_yaw_rate;
+        last_sample_time = timestamp;
+
+        // Tilt, from the direction of gravity
+        float accel_x = raw_update.accel_x;
+        float accel_y = raw_update.accel_y;
+        float accel_z = raw_update.accel_z;
+        double pitch_radians = Math.atan2(accel_x, Math.sqrt(accel_y*accel_y + accel_z*accel_z));
+        double roll_radians = Math.atan2(accel_y, Math.sqrt(accel_x*accel_x + accel_z*accel_z));
+
+        // Tilt-compensated compass heading, as in IMUAdvanced
+        double inverted_pitch = -pitch_radians;
+        double cos_roll = Math.cos(roll_radians);
+        double sin_roll = Math.sin(roll_radians);
+        double cos_pitch = Math.cos(inverted_pitch);
+        double sin_pitch = Math.sin(inverted_pitch);
+        double MAG_X = raw_update.mag_x * cos_pitch + raw_update.mag_z * sin_pitch;
+        double MAG_Y = raw_update.mag_x * sin_roll * sin_pitch + raw_update.mag_y * cos_roll - raw_update.mag_z * sin_roll * cos_pitch;
+        double tilt_compensated_heading_degrees = Math.atan2(MAG_Y,MAG_X) * (180.0 / Math.PI) - 90.0;
+        if ( tilt_compensated_heading_degrees < 0 ) {
+            tilt_compensated_heading_degrees += 360;
+        }
+
+        this.yaw_rate = (float) current_yaw_rate;
+        this.temp_c = raw_update.temp_c;
+        publishOrientation(timestamp, (float) integrated_yaw,
+                (float) (pitch_radians * (180.0 / Math.PI)),
+                (float) (roll_radians * (180.0 / Math.PI)),
+                (float) tilt_compensated_heading_degrees);
+    }
+
+    /**
+     * Returns the current yaw rate (in degrees per second), as measured
+     * directly by the nav6 gyro with the calibrated bias removed.
+     * Positive values indicate that the yaw value is increasing.
+     * @return The current yaw rate in degrees per second.
+     */
+    public float getYawRate() {
+        return yaw_rate;
+    }
+
+    /**
+     * Returns true until the gyro bias has been measured.  The nav6 IMU
+     * should be held still during this time.
+     * @return Returns true if the gyro bias is still being measured.
+     */
+    public boolean isCalibrating() {
+        return !bias_calibrated;
+    }
+
+    /**
+     * Returns the current temperature (in degrees centigrade) reported by
+     * the nav6 gyro/accelerometer circuit.
+     * @return The current temperature (in degrees centigrade).
+     */
+    public float getTempC()
+    {
+        return this.temp_c;
+    }
+}
@@ -0,0 +1,28 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) Kauai Labs 2013. All Rights Reserved.                        */
+/*                                                                            */
+/* Created in support of Team 2465 (Kauaibots).  Go Thunderchicken!           */
+/*                                                                            */
+/* Open Source Software - may be modified and shared by FRC teams. Any        */
+/* modifications to this code must be accompanied by the nav6_License.txt file*/
+/* in the root directory of the project.                                      */
+/*----------------------------------------------------------------------------*/
+
+package org.usfirst.frc.com.kauailabs.nav6.frc;
+
+/**
+ * An orientation snapshot which also holds the world linear acceleration
+ * and temperature from the same update packet.  Only IMUAdvanced fills in
+ * these values; other IMUs leave them unchanged.
+ */
+public class MotionSnapshot extends OrientationSnapshot {
+
+    /** World linear acceleration in the x-axis (in g). */
+    public float world_linear_accel_x;
+    /** World linear acceleration in the y-axis (in g). */
+    public float world_linear_accel_y;
+    /** World linear acceleration in the z-axis (in g). */
+    public float world_linear_accel_z;
+    /** Temperature in degrees centigrade. */
+    public float temp_c;
+}
@@ -0,0 +1,33 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) Kauai Labs 2013. All Rights Reserved.                        */
+/*                                                                            */
+/* Created in support of Team 2465 (Kauaibots).  Go Thunderchicken!           */
+/*                                                                            */
+/* Open Source Software - may be modified and shared by FRC teams. Any        */
+/* modifications to this code must be accompanied by the nav6_License.txt file*/
+/* in the root directory of the project.                                      */
+/*----------------------------------------------------------------------------*/
+
+package org.usfirst.frc.com.kauailabs.nav6.frc;
+
+/**
+ * A consistent copy of the orientation values from a single nav6 update
+ * packet.  Instances are filled in by IMU.getSnapshot(), so a caller that
+ * polls the IMU periodically should allocate one snapshot up front and
+ * reuse it.
+ */
+public class OrientationSnapshot {
+
+    /** Yaw in degrees (-180 to 180), with the user yaw offset applied. */
+    public float yaw;
+    /** Pitch in degrees (-180 to 180). */
+    public float pitch;
+    /** Roll in degrees (-180 to 180). */
+    public float roll;
+    /** Tilt-compensated compass heading in degrees (0 to 360). */
+    public float compass_heading;
+    /** FPGA timestamp (seconds) at which the packet was received. */
+    public double timestamp;
+    /** Count of orientation updates published, including this one. */
+    public int sequence;
+}
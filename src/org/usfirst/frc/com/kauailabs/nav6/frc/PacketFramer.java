@@ -0,0 +1,158 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) Kauai Labs 2013. All Rights Reserved.                        */
+/*                                                                            */
+/* Created in support of Team 2465 (Kauaibots).  Go Thunderchicken!           */
+/*                                                                            */
+/* Open Source Software - may be modified and shared by FRC teams. Any        */
+/* modifications to this code must be accompanied by the nav6_License.txt file*/
+/* in the root directory of the project.                                      */
+/*----------------------------------------------------------------------------*/
+
+package org.usfirst.frc.com.kauailabs.nav6.frc;
+
+import org.usfirst.frc.com.kauailabs.nav6.IMUProtocol;
+
+/**
+ * Splits the nav6 serial byte stream into candidate packets.
+ *
+ * Received bytes are appended to a circular buffer, so a packet which
+ * arrives split across two serial reads is reassembled rather than lost.
+ * Each candidate packet (from a PACKET_START_CHAR through the following
+ * STREAM_MSG_TERMINATION_CHAR) is copied to the start of a scratch array,
+ * which is where the IMUProtocol decoders expect it (their checksums are
+ * computed from index 0).  The scan position is kept between calls, so
+ * bytes already examined are not examined again while waiting for the
+ * rest of a packet.
+ *
+ * All buffers are allocated at construction.  This class is not thread
+ * safe; the IMU only uses it from the IMU thread.  It has no hardware
+ * dependencies, so tools may replay recorded or synthetic streams through it.
+ */
+public class PacketFramer {
+
+    static final int BUFFER_SIZE            = 1024;     // Must be a power of two
+    static final int MAX_PACKET_LENGTH      = 64;
+
+    private final byte buffer[] = new byte[BUFFER_SIZE];
+    private final byte packet[] = new byte[MAX_PACKET_LENGTH];
+
+    // Free-running positions; the buffer index is (position & (BUFFER_SIZE-1))
+    private int read_position;
+    private int write_position;
+    private int scan_position;
+    private int discarded_byte_count;
+
+    /**
+     * Discards all buffered bytes.
+     */
+    public void reset() {
+        read_position = write_position;
+        scan_position = write_position;
+    }
+
+    /**
+     * Appends received bytes.  If the buffer would overflow, the oldest
+     * buffered bytes are discarded.
+     * @param data Received bytes
+     * @param length Number of bytes in data to append
+     */
+    public void append(byte[] data, int length) {
+        int start = 0;
+        if (length > BUFFER_SIZE) {
+            start = length - BUFFER_SIZE;
+            discarded_byte_count += start;
+        }
+        int overflow = (write_position - read_position) + (length - start) - BUFFER_SIZE;
+        if (overflow > 0) {
+            discard(overflow);
+        }
+        for (int i = start; i < length; i++) {
+            buffer[write_position & (BUFFER_SIZE - 1)] = data[i];
+            write_position++;
+        }
+    }
+
+    /**
+     * Extracts the next candidate packet, if a complete one is buffered.
+     * The packet is copied to the start of the array returned by
+     * getPacket().  Bytes preceding the packet which are not part of
+     * any packet are discarded.
+     * @return The packet length, or 0 if no complete packet is buffered.
+     */
+    public int nextPacket() {
+        while (true) {
+            // Skip to the next start-of-packet character
+            while ((read_position != write_position) &&
+                   (buffer[read_position & (BUFFER_SIZE - 1)] != IMUProtocol.PACKET_START_CHAR)) {
+                read_position++;
+                discarded_byte_count++;
+            }
+            if (read_position == write_position) {
+                scan_position = read_position;
+                return 0;
+            }
+            if (scan_position - read_position < 1) {
+                scan_position = read_position + 1;
+            }
+
+            // Look for the terminator, resuming where the last call left off
+            while (scan_position != write_position) {
+                byte b = buffer[scan_position & (BUFFER_SIZE - 1)];
+                if (b == IMUProtocol.STREAM_MSG_TERMINATION_CHAR) {
+                    break;
+                }
+                if (b == IMUProtocol.PACKET_START_CHAR) {
+                    // The previous start was a fragment; restart here
+                    discard(scan_position - read_position);
+                }
+                scan_position++;
+                if (scan_position - read_position >= MAX_PACKET_LENGTH) {
+                    break;
+                }
+            }
+            if (scan_position == write_position) {
+                // Partial packet; wait for more bytes
+                return 0;
+            }
+            int length = scan_position - read_position + 1;
+            if ((length > MAX_PACKET_LENGTH) ||
+                (buffer[scan_position & (BUFFER_SIZE - 1)] != IMUProtocol.STREAM_MSG_TERMINATION_CHAR)) {
+                // Too long to be a valid packet; resync at the next start character
+                discard(1);
+                continue;
+            }
+            for (int i = 0; i < length; i++) {
+                packet[i] = buffer[(read_position + i) & (BUFFER_SIZE - 1)];
+            }
+            read_position += length;
+            scan_position = read_position;
+            return length;
+        }
+    }
+
+    /**
+     * Returns the scratch array holding the packet found by the last
+     * call to nextPacket(), starting at index 0.
+     * @return The packet scratch array.
+     */
+    public byte[] getPacket() {
+        return packet;
+    }
+
+    /**
+     * Returns the number of received bytes which were not part of a
+     * candidate packet, or which were dropped due to buffer overflow.
+     * @return The number of discarded bytes.
+     */
+    public int getDiscardedByteCount() {
+        return discarded_byte_count;
+    }
+
+    private void discard(int count) {
+        read_position += count;
+        discarded_byte_count += count;
+        if (scan_position - read_position < 0) {
+            scan_position = read_position;
+        }
+    }
+}
@@ -0,0 +1,236 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) Kauai Labs 2013. All Rights Reserved.                        */
+/*                                                                            */
+/* Created in support of Team 2465 (Kauaibots).  Go Thunderchicken!           */
+/*                                                                            */
+/* Open Source Software - may be modified and shared by FRC teams. Any        */
+/* modifications to this code must be accompanied by the nav6_License.txt file*/
+/* in the root directory of the project.                                      */
+/*----------------------------------------------------------------------------*/
+
+package org.usfirst.frc.com.kauailabs.nav6.frc;
+
+/**
+ * A fixed-capacity ring buffer of timestamped sensor samples.
+ *
+ * The mean and variance of the buffered samples are maintained as running
+ * sums, so reading them costs the same regardless of the buffer length.
+ * The value at a past time may be looked up by linear interpolation
+ * between the two samples which bracket it; this allows a reading taken
+ * at a known FPGA time to be compared against the sensor state at that
+ * time rather than the (later) state when the reading is processed.
+ *
+ * Samples are stored in primitive arrays allocated once at construction.
+ */
+public class SensorHistory {
+
+    private final float values[];
+    private final double timestamps[];
+    private final boolean wrap_degrees;
+    private int next_index;
+    private int count;
+    private double sum;
+    private double sum_of_squares;
+
+    /**
+     * Constructs a history holding the specified number of samples.
+     * @param capacity Maximum number of samples retained
+     */
+    public SensorHistory(int capacity) {
+        this(capacity, false);
+    }
+
+    /**
+     * Constructs a history holding the specified number of samples.
+     *
+     * If wrap_degrees is true, the samples are treated as angles in the
+     * range -180 to 180 degrees, and interpolation takes the shortest
+     * path across the 180 degree boundary.
+     * @param capacity Maximum number of samples retained
+     * @param wrap_degrees True if samples are angles (-180 to 180 degrees)
+     */
+    public SensorHistory(int capacity, boolean wrap_degrees) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be at least 1");
+        }
+        values = new float[capacity];
+        timestamps = new double[capacity];
+        this.wrap_degrees = wrap_degrees;
+        clear();
+    }
+
+    /**
+     * Discards all samples.
+     */
+    public synchronized void clear() {
+        next_index = 0;
+        count = 0;
+        sum = 0.0;
+        sum_of_squares = 0.0;
+    }
+
+    /**
+     * Adds a sample, replacing the oldest sample if the history is full.
+     * Timestamps are expected to be non-decreasing.
+     * @param timestamp FPGA time (seconds) at which the sample was taken
+     * @param value The sample value
+     */
+    public synchronized void add(double timestamp, float value) {
+        if (count == values.length) {
+            float oldest = values[next_index];
+            sum -= oldest;
+            sum_of_squares -= (double) oldest * oldest;
+        } else {
+            count++;
+        }
+        values[next_index] = value;
+        timestamps[next_index] = timestamp;
+        sum += value;
+        sum_of_squares += (double) value * value;
+        next_index++;
+        if (next_index >= values.length) {
+            next_index = 0;
+            // Recompute the running sums once per pass through the buffer,
+            // so that rounding error from the subtractions can't accumulate.
+            recalculateSums();
+        }
+    }
+
+    private void recalculateSums() {
+        double new_sum = 0.0;
+        double new_sum_of_squares = 0.0;
+        for (int i = 0; i < count; i++) {
+            new_sum += values[i];
+            new_sum_of_squares += (double) values[i] * values[i];
+        }
+        sum = new_sum;
+        sum_of_squares = new_sum_of_squares;
+    }
+
+    /**
+     * Returns the number of samples currently held.
+     * @return The number of samples (0 to capacity).
+     */
+    public synchronized int size() {
+        return count;
+    }
+
+    /**
+     * Returns the mean of the samples currently held, or 0 if empty.
+     * @return The mean sample value.
+     */
+    public synchronized double getMean() {
+        return (count == 0) ? 0.0 : sum / count;
+    }
+
+    /**
+     * Returns the (population) variance of the samples currently held,
+     * or 0 if empty.
+     * @return The sample variance.
+     */
+    public synchronized double getVariance() {
+        if (count == 0) {
+            return 0.0;
+        }
+        double mean = sum / count;
+        double variance = (sum_of_squares / count) - (mean * mean);
+        return (variance < 0.0) ? 0.0 : variance;
+    }
+
+    /**
+     * Returns the most recently added sample, or 0 if empty.
+     * @return The newest sample value.
+     */
+    public synchronized float getLatest() {
+        return (count == 0) ? 0.0f : values[physicalIndex(count - 1)];
+    }
+
+    /**
+     * Returns the timestamp of the most recently added sample, or 0 if empty.
+     * @return The newest sample's FPGA timestamp (seconds).
+     */
+    public synchronized double getLatestTimestamp() {
+        return (count == 0) ? 0.0 : timestamps[physicalIndex(count - 1)];
+    }
+
+    /**
+     * Returns the rate of change (per second) between the two most
+     * recently added samples, or 0 if fewer than two samples are held.
+     * @return The most recent rate of change.
+     */
+    public synchronized double getLatestRate() {
+        if (count < 2) {
+            return 0.0;
+        }
+        int newest = physicalIndex(count - 1);
+        int previous = physicalIndex(count - 2);
+        double interval = timestamps[newest] - timestamps[previous];
+        if (interval <= 0.0) {
+            return 0.0;
+        }
+        double delta = values[newest] - values[previous];
+        if (wrap_degrees) {
+            if (delta > 180.0) delta -= 360.0;
+            if (delta < -180.0) delta += 360.0;
+        }
+        return delta / interval;
+    }
+
+    /**
+     * Returns the value at the specified time, linearly interpolated
+     * between the samples on either side of it.  Times before the oldest
+     * sample return the oldest sample; times after the newest sample
+     * return the newest sample.  Returns 0 if the history is empty.
+     * @param timestamp FPGA time (seconds)
+     * @return The interpolated value at that time.
+     */
+    public synchronized float valueAt(double timestamp) {
+        if (count == 0) {
+            return 0.0f;
+        }
+        int newest = physicalIndex(count - 1);
+        if (timestamp >= timestamps[newest]) {
+            return values[newest];
+        }
+        int oldest = physicalIndex(0);
+        if (timestamp <= timestamps[oldest]) {
+            return values[oldest];
+        }
+
+        // Binary search (over logical indices, oldest = 0) for the last
+        // sample taken at or before the requested time.
+        int low = 0;
+        int high = count - 1;
+        while (high - low > 1) {
+            int mid = (low + high) >>> 1;
+            if (timestamps[physicalIndex(mid)] <= timestamp) {
+                low = mid;
+            } else {
+                high = mid;
+            }
+        }
+        int before = physicalIndex(low);
+        int after = physicalIndex(high);
+        double interval = timestamps[after] - timestamps[before];
+        if (interval <= 0.0) {
+            return values[after];
+        }
+        double fraction = (timestamp - timestamps[before]) / interval;
+        double delta = values[after] - values[before];
+        if (wrap_degrees) {
+            if (delta > 180.0) delta -= 360.0;
+            if (delta < -180.0) delta += 360.0;
+        }
+        double value = values[before] + fraction * delta;
+        if (wrap_degrees) {
+            if (value < -180.0) value += 360.0;
+            if (value > 180.0) value -= 360.0;
+        }
+        return (float) value;
+    }
+
+    private int physicalIndex(int logical_index) {
+        int index = next_index - count + logical_index;
+        return (index < 0) ? index + values.length : index;
+    }
+}
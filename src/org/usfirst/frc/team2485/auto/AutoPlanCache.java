@@ -0,0 +1,73 @@
+package org.usfirst.frc.team2485.auto;
+
+import org.usfirst.frc.team2485.util.RobotClock;
+
+/**
+ * Builds the autonomous {@code Sequencer} ahead of time, so auto starts running on its first periodic loop
+ * instead of building it in {@code autonomousInit()}. <p>
+ *
+ * The plan is keyed by auto type and wall offset. {@code prepare()} can be called every disabled loop: it only
+ * rebuilds when the auto type changes, or the offset moves by at least {@code OFFSET_TOLERANCE}, so sensor
+ * noise doesn't rebuild it every loop. Sequenced items keep their own state, so a plan is only run once;
+ * {@code take()} hands it over and the next {@code prepare()} builds a fresh one.
+ *
+ * @see SequencerFactory#createAuto(int, double)
+ */
+public class AutoPlanCache {
+
+	public static final double OFFSET_TOLERANCE = 1.0; // inches
+
+	private Sequencer plan;
+	private int autoType;
+	private double offsetToWall;
+
+	private double lastBuildTime;
+	private int buildCount;
+
+	/**
+	 * Makes sure a plan for this auto type and wall offset is ready.
+	 * @param autoType one of the {@code SequencerFactory} auto types
+	 * @param offsetToWall the ultrasonic sensor's distance to the wall, in inches
+	 */
+	public void prepare(int autoType, double offsetToWall) {
+		if (plan != null && autoType == this.autoType && Math.abs(offsetToWall - this.offsetToWall) < OFFSET_TOLERANCE)
+			return;
+
+		long start = RobotClock.nanoTime();
+		plan = SequencerFactory.createAuto(autoType, offsetToWall);
+		lastBuildTime = (RobotClock.nanoTime() - start) / 1e9;
+		buildCount++;
+
+		this.autoType = autoType;
+		this.offsetToWall = offsetToWall;
+	}
+
+	/**
+	 * Hands over the plan for this auto type and wall offset, building it now if it isn't ready.
+	 * @return a sequence which hasn't been run
+	 */
+	public Sequencer take(int autoType, double offsetToWall) {
+		prepare(autoType, offsetToWall);
+		Sequencer taken = plan;
+		plan = null;
+		return taken;
+	}
+
+	public boolean isReady() {
+		return plan != null;
+	}
+
+	/**
+	 * @return how long the last plan took to build, in seconds
+	 */
+	public double getLastBuildTime() {
+		return lastBuildTime;
+	}
+
+	/**
+	 * @return how many plans have been built
+	 */
+	public int getBuildCount() {
+		return buildCount;
+	}
+}
@@ -2,13 +2,14 @@ package org.usfirst.frc.team2485.auto;
 
 /**
  * Runs a {@code Sequencer} as a {@code SequencedItem}.
- * The sequenced item runs until the sequencer has finished.
+ * The sequenced item runs until the sequencer has finished, and requires
+ * whatever the sequencer's items require.
  * @author Bryce Matsumori
  *
  * @see Sequencer
  * @see SequencedItem
  */
-public final class InnerSequencer implements SequencedItem {
+public final class InnerSequencer extends SequencedCommand implements RequiresSubsystems {
     private final Sequencer sequencer;
     private boolean finished = false;
 
@@ -20,18 +21,43 @@ public final class InnerSequencer implements SequencedItem {
         this.sequencer = sequencer;
     }
 
+    /**
+     * Starts the sequencer from its first item.
+     */
+    public void initialize() {
+        finished = false;
+        sequencer.reset();
+    }
+
     /**
      * Runs the sequencer.
      */
-    public void run() {
+    public void execute() {
         finished = sequencer.run();
     }
 
     /**
-     * Returns {@code 0} if the sequencer is finished, otherwise an indefinite value.
-     * @return a double
+     * Cancels the sequencer if this item is interrupted, so the item it's
+     * running cleans up too.
+     */
+    public void end(boolean interrupted) {
+        if (interrupted)
+            sequencer.cancel();
+    }
+
+    /**
+     * Returns {@code true} once the sequencer has finished.
+     * @return a boolean
+     */
+    public boolean isFinished() {
+        return finished;
+    }
+
+    /**
+     * Gets the subsystems the sequencer's items require.
+     * @return the requirements, OR'd together
      */
-    public double duration() {
-        return finished ? 0 : Double.MAX_VALUE;
+    public int getRequirements() {
+        return sequencer.getRequirements();
     }
-}
\ No newline at end of file
+}
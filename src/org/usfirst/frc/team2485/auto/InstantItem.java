@@ -0,0 +1,16 @@
+package org.usfirst.frc.team2485.auto;
+
+/**
+ * A {@code SequencedItem} which does all of its work in a single {@code run()}, such as setting a solenoid,
+ * a motor speed or PID gains. The {@code Sequencer} runs it exactly once and moves on to the next item in the
+ * same call, so a chain of instant items costs no loop time. Its {@code duration()} isn't used, and should
+ * return 0. <p>
+ * 
+ * Nothing waits for what an instant item starts: if the next item needs a solenoid to have finished moving, 
+ * put a {@code SequencedPause} between them.
+ *
+ * @see Sequencer
+ * @see SequencedPause
+ */
+public interface InstantItem extends SequencedItem {
+}
@@ -0,0 +1,48 @@
+package org.usfirst.frc.team2485.auto;
+
+/**
+ * An item with an explicit lifecycle. The {@code Sequencer} calls {@code initialize()} on the item's first 
+ * tick, then {@code execute()} every tick until either {@code isFinished()} returns {@code true} after an 
+ * {@code execute()} or {@code timeout()} seconds have passed since it started. Either way, {@code end()} is 
+ * called exactly once. If the sequence is cancelled, or the item's group is done without it, 
+ * {@code end(true)} is called instead, in the same tick. <p>
+ * 
+ * Commands to mechanisms (setpoints, gains, enabling a PID) belong in {@code initialize()}, so they aren't 
+ * repeated every tick, and anything which must be undone belongs in {@code end()}, so it's undone even 
+ * when the item times out. An item which drives a motor or enables a PID should stop it when it's 
+ * interrupted, since nothing after it will.
+ *
+ * @see SequencedCommand
+ * @see LegacyItemAdapter
+ */
+public interface ItemLifecycle {
+
+	/**
+	 * Called once, on the item's first tick, before its first {@code execute()}.
+	 */
+	public void initialize();
+
+	/**
+	 * Called every tick while the item is running. It should be non-blocking and exit quickly.
+	 */
+	public void execute();
+
+	/**
+	 * Checked after every {@code execute()}.
+	 * @return {@code true} once the item has done its job
+	 */
+	public boolean isFinished();
+
+	/**
+	 * Called once when the item stops running.
+	 * @param interrupted {@code true} if the item was cancelled or cut off by its group, 
+	 * {@code false} if it finished or timed out
+	 */
+	public void end(boolean interrupted);
+
+	/**
+	 * @return seconds after starting at which the item is ended even if it hasn't finished, 
+	 * or {@code Double.MAX_VALUE} for never
+	 */
+	public double timeout();
+}
@@ -0,0 +1,50 @@
+package org.usfirst.frc.team2485.auto;
+
+/**
+ * Runs a plain {@code SequencedItem} through the {@code ItemLifecycle} calls: {@code execute()} runs it, 
+ * its {@code duration()} is the timeout, and an {@code InstantItem} finishes after its one run. 
+ * Initializing and ending do nothing.
+ *
+ * @see ItemLifecycle
+ */
+public final class LegacyItemAdapter implements ItemLifecycle {
+
+	private final SequencedItem item;
+
+	/**
+	 * @return the item itself if it already has a lifecycle, otherwise an adapter for it
+	 */
+	public static ItemLifecycle adapt(SequencedItem item) {
+		if (item == null)
+			throw new IllegalArgumentException("Can't sequence a null item");
+		if (item instanceof ItemLifecycle)
+			return (ItemLifecycle) item;
+		return new LegacyItemAdapter(item);
+	}
+
+	public LegacyItemAdapter(SequencedItem item) {
+		this.item = item;
+	}
+
+	public SequencedItem getItem() {
+		return item;
+	}
+
+	public void initialize() {
+	}
+
+	public void execute() {
+		item.run();
+	}
+
+	public boolean isFinished() {
+		return item instanceof InstantItem;
+	}
+
+	public void end(boolean interrupted) {
+	}
+
+	public double timeout() {
+		return item.duration();
+	}
+}
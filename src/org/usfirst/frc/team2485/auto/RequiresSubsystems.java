@@ -0,0 +1,29 @@
+package org.usfirst.frc.team2485.auto;
+
+/**
+ * A sequenced item which commands one or more of the robot's subsystems. <p>
+ *
+ * Requirements are bits, OR'd together, so checking whether two sequences need the same subsystem is a
+ * single {@code &}. Items which only read sensors or shared state, like the tote counter, require nothing.
+ * Items which don't implement this interface are treated as requiring nothing.
+ *
+ * @see SequenceExecutor
+ * @see Sequencer#getRequirements()
+ */
+public interface RequiresSubsystems {
+
+	public static final int
+			NONE         = 0,
+			DRIVE        = 1 << 0,
+			CLAPPER      = 1 << 1,
+			CLAW         = 1 << 2,
+			ROLLERS      = 1 << 3,
+			RATCHET      = 1 << 4,
+			STRONGBACK   = 1 << 5,
+			COMMANDEERER = 1 << 6;
+
+	/**
+	 * @return the subsystems this item commands, OR'd together
+	 */
+	public int getRequirements();
+}
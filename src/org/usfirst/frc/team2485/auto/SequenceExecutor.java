@@ -0,0 +1,163 @@
+package org.usfirst.frc.team2485.auto;
+
+/**
+ * Runs several {@code Sequencer}s side by side, as long as they don't command the same subsystems. <p>
+ *
+ * Each sequence holds the subsystems its items require (see {@link Sequencer#getRequirements()}).
+ * Scheduling a sequence preempts only the running sequences which hold any of the same subsystems, so
+ * for example a claw routine and a drive routine run together, but a second claw routine replaces the
+ * first. Sequences are run in the order they were scheduled and dropped once they finish. Preempted and
+ * cancelled sequences are {@link Sequencer#cancel() cancelled} on the spot, so their items stop what they
+ * were driving before the next sequence runs. <p>
+ *
+ * Scheduling and running allocate nothing once the executor has grown to hold the most sequences it has run
+ * at once. Only one thread may use an executor, normally the periodic loop.
+ *
+ * @see RequiresSubsystems
+ */
+public class SequenceExecutor {
+
+	private static final int INITIAL_CAPACITY = 4;
+
+	private Sequencer[] running = new Sequencer[INITIAL_CAPACITY];
+	private int[] requirements = new int[INITIAL_CAPACITY];
+	private int size;
+
+	/**
+	 * Starts running a sequence, preempting any running sequences which require the same subsystems.
+	 * Scheduling a sequence which is already running cancels it and starts it over.
+	 * @param sequence the sequence to run, or null to do nothing
+	 * @return true if the sequence was scheduled
+	 */
+	public boolean schedule(Sequencer sequence) {
+		if (sequence == null)
+			return false;
+
+		int required = sequence.getRequirements();
+		if (remove(sequence))
+			sequence.cancel();
+		cancel(required);
+
+		if (size == running.length)
+			grow();
+		sequence.reset();
+		running[size] = sequence;
+		requirements[size] = required;
+		size++;
+		return true;
+	}
+
+	/**
+	 * Runs every sequence once, and drops the ones which have finished.
+	 */
+	public void run() {
+		int kept = 0;
+		for (int i = 0; i < size; i++) {
+			if (running[i].run())
+				continue;
+			running[kept] = running[i];
+			requirements[kept] = requirements[i];
+			kept++;
+		}
+		truncate(kept);
+	}
+
+	/**
+	 * Cancels every running sequence which requires any of the given subsystems.
+	 * @param subsystems {@code RequiresSubsystems} bits, OR'd together
+	 * @return how many sequences were stopped
+	 */
+	public int cancel(int subsystems) {
+		int kept = 0;
+		for (int i = 0; i < size; i++) {
+			if ((requirements[i] & subsystems) != 0) {
+				running[i].cancel();
+				continue;
+			}
+			running[kept] = running[i];
+			requirements[kept] = requirements[i];
+			kept++;
+		}
+		int cancelled = size - kept;
+		truncate(kept);
+		return cancelled;
+	}
+
+	/**
+	 * Cancels every running sequence.
+	 * @return how many sequences were stopped
+	 */
+	public int cancelAll() {
+		int cancelled = size;
+		for (int i = 0; i < size; i++)
+			running[i].cancel();
+		truncate(0);
+		return cancelled;
+	}
+
+	public boolean isRunning(Sequencer sequence) {
+		return indexOf(sequence) >= 0;
+	}
+
+	/**
+	 * @return whether any running sequence requires any of the given subsystems
+	 */
+	public boolean isBusy(int subsystems) {
+		return (getRequirements() & subsystems) != 0;
+	}
+
+	/**
+	 * @return the subsystems held by running sequences, OR'd together
+	 */
+	public int getRequirements() {
+		int held = RequiresSubsystems.NONE;
+		for (int i = 0; i < size; i++)
+			held |= requirements[i];
+		return held;
+	}
+
+	public int getRunningCount() {
+		return size;
+	}
+
+	/**
+	 * @param index 0 for the sequence scheduled longest ago, up to {@code getRunningCount() - 1}
+	 */
+	public Sequencer get(int index) {
+		if (index < 0 || index >= size)
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		return running[index];
+	}
+
+	private int indexOf(Sequencer sequence) {
+		for (int i = 0; i < size; i++)
+			if (running[i] == sequence)
+				return i;
+		return -1;
+	}
+
+	private boolean remove(Sequencer sequence) {
+		int index = indexOf(sequence);
+		if (index < 0)
+			return false;
+		System.arraycopy(running, index + 1, running, index, size - index - 1);
+		System.arraycopy(requirements, index + 1, requirements, index, size - index - 1);
+		truncate(size - 1);
+		return true;
+	}
+
+	private void truncate(int newSize) {
+		for (int i = newSize; i < size; i++)
+			running[i] = null;
+		size = newSize;
+	}
+
+	private void grow() {
+		Sequencer[] grownRunning = new Sequencer[running.length * 2];
+		System.arraycopy(running, 0, grownRunning, 0, size);
+		running = grownRunning;
+		int[] grownRequirements = new int[requirements.length * 2];
+		System.arraycopy(requirements, 0, grownRequirements, 0, size);
+		requirements = grownRequirements;
+	}
+}
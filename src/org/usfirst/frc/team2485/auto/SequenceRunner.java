@@ -1,5 +1,7 @@
 package org.usfirst.frc.team2485.auto;
 
+import org.usfirst.frc.team2485.util.RobotClock;
+
 /**
  * Runs a {@code Sequencer} in a separate {@code Thread}.
  *
@@ -10,7 +12,7 @@ package org.usfirst.frc.team2485.auto;
  */
 public class SequenceRunner extends Thread {
     private final Sequencer sequencer;
-    private long intervalMillis;
+    private long intervalNanos;
     private boolean finished = false, stopped = false;
 
     /**
@@ -21,7 +23,7 @@ public class SequenceRunner extends Thread {
      */
     public SequenceRunner(Sequencer sequencer, double interval) {
         this.sequencer      = sequencer;
-        this.intervalMillis = (long)(interval * 1000);
+        this.intervalNanos  = (long)(interval * 1e9);
     }
 
     /**
@@ -35,7 +37,7 @@ public class SequenceRunner extends Thread {
         while (!stopped && !sequencer.run()) {
             try {
                 // pause for interval
-                Thread.sleep(intervalMillis);
+                RobotClock.sleep(intervalNanos);
             } catch (InterruptedException e) { }
         }
         if (!stopped) finished = true;
@@ -54,7 +56,7 @@ public class SequenceRunner extends Thread {
      * @return the interval, in seconds
      */
     public double getInterval() {
-        return intervalMillis * 0.001;
+        return intervalNanos / 1e9;
     }
 
     /**
@@ -62,7 +64,7 @@ public class SequenceRunner extends Thread {
      * @param interval the interval, in seconds
      */
     public void setInterval(double interval) {
-        this.intervalMillis = (long)(interval * 1000);
+        this.intervalNanos = (long)(interval * 1e9);
     }
 
     /**
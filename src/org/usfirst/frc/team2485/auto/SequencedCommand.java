@@ -0,0 +1,54 @@
+package org.usfirst.frc.team2485.auto;
+
+/**
+ * Base class for sequenced items written against {@code ItemLifecycle}. Subclasses implement 
+ * {@code execute()} and {@code isFinished()}, and override {@code initialize()}, {@code end()} and 
+ * {@code timeout()} as needed; there's no timeout by default. <p>
+ * 
+ * The {@code Sequencer} and {@code SequencedMultipleItem} call the lifecycle directly. {@code run()} and 
+ * {@code duration()} are only for code which knows nothing but {@code SequencedItem}; through them, 
+ * {@code end()} is only called when the item finishes, and a {@code run()} after that starts the item 
+ * over from {@code initialize()}.
+ *
+ * @see ItemLifecycle
+ */
+public abstract class SequencedCommand implements SequencedItem, ItemLifecycle {
+
+	private boolean initialized, ended;
+
+	public void initialize() {
+	}
+
+	public abstract void execute();
+
+	public abstract boolean isFinished();
+
+	public void end(boolean interrupted) {
+	}
+
+	public double timeout() {
+		return Double.MAX_VALUE;
+	}
+
+	public final void run() {
+		if (ended) {
+			// it's being reused
+			initialized = false;
+			ended = false;
+		}
+		if (!initialized) {
+			initialized = true;
+			initialize();
+		}
+
+		execute();
+		if (isFinished()) {
+			ended = true;
+			end(false);
+		}
+	}
+
+	public final double duration() {
+		return ended ? 0 : timeout();
+	}
+}
@@ -6,7 +6,8 @@ package org.usfirst.frc.team2485.auto;
  * The item has a duration, which represents a period during which the item's
  * {@code run()} method will be invoked.
  * 
- * If the item should only be run once, the duration should be set to -1.
+ * If the item should only be run once, implement {@code InstantItem} instead, so the
+ * next item can start in the same loop.
  * @author Bryce Matsumori
  *
  * @see Sequencer
@@ -1,13 +1,14 @@
 package org.usfirst.frc.team2485.auto.SequencedItems;
 
-import org.usfirst.frc.team2485.auto.SequencedItem;
+import org.usfirst.frc.team2485.auto.InstantItem;
+import org.usfirst.frc.team2485.auto.RequiresSubsystems;
 import org.usfirst.frc.team2485.robot.Robot;
 
 /**
  * @author Patrick Wamsley
  */
 
-public class ClampOutputRangeDriveStraightPID implements SequencedItem {
+public class ClampOutputRangeDriveStraightPID implements InstantItem, RequiresSubsystems {
 
 	private double min, max; 
 	
@@ -22,8 +23,11 @@ public class ClampOutputRangeDriveStraightPID implements SequencedItem {
 
 	@Override
 	public double duration() {
-		return 0.05;
+		return 0;
 	}
 
-	
+	@Override
+	public int getRequirements() {
+		return DRIVE;
+	}
 }
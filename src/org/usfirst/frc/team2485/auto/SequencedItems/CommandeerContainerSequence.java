@@ -1,13 +1,14 @@
 package org.usfirst.frc.team2485.auto.SequencedItems;
 
-import org.usfirst.frc.team2485.auto.SequencedItem;
+import org.usfirst.frc.team2485.auto.InstantItem;
+import org.usfirst.frc.team2485.auto.RequiresSubsystems;
 import org.usfirst.frc.team2485.robot.Robot;
 
 /**
  * @author Aidan Fay
  */
 
-public class CommandeerContainerSequence implements SequencedItem {
+public class CommandeerContainerSequence implements InstantItem, RequiresSubsystems {
 	
 	private int	direction;
 	
@@ -48,7 +49,11 @@ public class CommandeerContainerSequence implements SequencedItem {
 
 	@Override
 	public double duration() {
-		return 0.1;
+		return 0;
 	}
 
+	@Override
+	public int getRequirements() {
+		return COMMANDEERER;
+	}
 }
@@ -1,13 +1,14 @@
 package org.usfirst.frc.team2485.auto.SequencedItems;
 
-import org.usfirst.frc.team2485.auto.SequencedItem;
+import org.usfirst.frc.team2485.auto.InstantItem;
+import org.usfirst.frc.team2485.auto.RequiresSubsystems;
 import org.usfirst.frc.team2485.robot.Robot;
 
 /**
  * @author Aidan Fay
  */
 
-public class DisableClawPID implements SequencedItem {
+public class DisableClawPID implements InstantItem, RequiresSubsystems {
 
 	@Override
 	public void run() {
@@ -16,7 +17,11 @@ public class DisableClawPID implements SequencedItem {
 
 	@Override
 	public double duration() {
-		return 0.05;
+		return 0;
 	}
 
+	@Override
+	public int getRequirements() {
+		return CLAW;
+	}
 }
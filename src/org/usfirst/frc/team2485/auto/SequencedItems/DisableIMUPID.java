@@ -1,9 +1,10 @@
 package org.usfirst.frc.team2485.auto.SequencedItems;
 
-import org.usfirst.frc.team2485.auto.SequencedItem;
+import org.usfirst.frc.team2485.auto.InstantItem;
+import org.usfirst.frc.team2485.auto.RequiresSubsystems;
 import org.usfirst.frc.team2485.robot.Robot;
 
-public class DisableIMUPID implements SequencedItem {
+public class DisableIMUPID implements InstantItem, RequiresSubsystems {
 
 	@Override
 	public void run() {
@@ -13,7 +14,11 @@ public class DisableIMUPID implements SequencedItem {
 
 	@Override
 	public double duration() {
-		return 0.03;
+		return 0;
 	}
 
+	@Override
+	public int getRequirements() {
+		return DRIVE;
+	}
 }
@@ -1,9 +1,10 @@
 package org.usfirst.frc.team2485.auto.SequencedItems;
 
-import org.usfirst.frc.team2485.auto.SequencedItem;
+import org.usfirst.frc.team2485.auto.InstantItem;
+import org.usfirst.frc.team2485.auto.RequiresSubsystems;
 import org.usfirst.frc.team2485.robot.Robot;
 
-public class DisableStrafePID implements SequencedItem {
+public class DisableStrafePID implements InstantItem, RequiresSubsystems {
 
 	@Override
 	public void run() {
@@ -14,6 +15,11 @@ public class DisableStrafePID implements SequencedItem {
 	
 	@Override
 	public double duration() {
-		return 0.05; 
+		return 0;
+	}
+
+	@Override
+	public int getRequirements() {
+		return DRIVE;
 	}
 }
@@ -1,9 +1,10 @@
 package org.usfirst.frc.team2485.auto.SequencedItems;
 
-import org.usfirst.frc.team2485.auto.SequencedItem;
+import org.usfirst.frc.team2485.auto.InstantItem;
+import org.usfirst.frc.team2485.auto.RequiresSubsystems;
 import org.usfirst.frc.team2485.robot.Robot;
 
-public class DisableStrongbackPID implements SequencedItem {
+public class DisableStrongbackPID implements InstantItem, RequiresSubsystems {
 
 	@Override
 	public void run() {
@@ -12,7 +13,11 @@ public class DisableStrongbackPID implements SequencedItem {
 
 	@Override
 	public double duration() {
-		return 0.05;
+		return 0;
 	}
 
+	@Override
+	public int getRequirements() {
+		return STRONGBACK;
+	}
 }
@@ -1,13 +1,14 @@
 package org.usfirst.frc.team2485.auto.SequencedItems;
 
-import org.usfirst.frc.team2485.auto.SequencedItem;
+import org.usfirst.frc.team2485.auto.RequiresSubsystems;
+import org.usfirst.frc.team2485.auto.SequencedCommand;
 import org.usfirst.frc.team2485.robot.Robot;
 
 /**
  * @author Patrick Wamsley
  */
 
-public class DriveAtSetSpeed implements SequencedItem {
+public class DriveAtSetSpeed extends SequencedCommand implements RequiresSubsystems {
 	
 	private double power, time; 
 	
@@ -17,15 +18,29 @@ public class DriveAtSetSpeed implements SequencedItem {
 	}
 	
 	@Override
-	public void run() {
+	public void execute() {
 		Robot.drive.setMotors(power, power , 0);
 	}
 
 	@Override
-	public double duration() {
+	public boolean isFinished() {
+		return false;
+	}
+
+	@Override
+	public void end(boolean interrupted) {
+		// timing out is the normal finish, and the next item takes over the motors
+		if (interrupted)
+			Robot.drive.stop();
+	}
+
+	@Override
+	public double timeout() {
 		return time; 
 	}
-	
-	
 
+	@Override
+	public int getRequirements() {
+		return DRIVE;
+	}
 }
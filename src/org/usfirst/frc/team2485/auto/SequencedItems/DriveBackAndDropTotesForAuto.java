@@ -1,17 +1,36 @@
 package org.usfirst.frc.team2485.auto.SequencedItems;
 
-import org.usfirst.frc.team2485.auto.SequencedItem;
+import org.usfirst.frc.team2485.auto.RequiresSubsystems;
+import org.usfirst.frc.team2485.auto.SequencedCommand;
 import org.usfirst.frc.team2485.robot.Robot;
 import org.usfirst.frc.team2485.subsystems.Clapper;
+import org.usfirst.frc.team2485.subsystems.DriveTrain;
+import org.usfirst.frc.team2485.util.EventLog;
 
 /**
  * @author Patrick Wamsley
  */
 
-public class DriveBackAndDropTotesForAuto implements SequencedItem {
+public class DriveBackAndDropTotesForAuto extends SequencedCommand implements RequiresSubsystems {
+	
+	private static final double DRIVE_BACK_DISTANCE = 155;
+	private static final EventLog.Site LOG_ERROR = EventLog.site("error in DriveBackAndDropTotesForAuto = {}", 0.25);
 	
 	private boolean finished = false;
 	private double speed, error, timeout; 
+	private boolean profiled = false;
+	private double maxAcceleration;
+	
+	/**
+	 * Drives back along a motion profile instead of at fixed speeds, accelerating no faster than is safe for
+	 * the totes being carried.
+	 * @param maxSpeed fraction of the profile's maximum velocity to cruise at
+	 */
+	public DriveBackAndDropTotesForAuto(double maxSpeed, double timeout, int totesCarried) {
+		this(maxSpeed, timeout);
+		this.profiled = true;
+		this.maxAcceleration = DriveTrain.getMaxSafeAcceleration(totesCarried);
+	}
 	
 	public DriveBackAndDropTotesForAuto(double maxSpeed, double timeout) {
 		this.speed = maxSpeed;
@@ -24,34 +43,73 @@ public class DriveBackAndDropTotesForAuto implements SequencedItem {
 	}
 	
 	@Override
-	public void run() {
+	public void initialize() {
+		// start from a fresh profile, even if a previous drive left the PIDs enabled
+		Robot.drive.disableDriveStraightPID();
+		finished = false;
+	}
+
+	@Override
+	public void execute() {
+		
+		error = Math.abs(Robot.drive.getDistanceFromEncoders() + DRIVE_BACK_DISTANCE); 
 		
-		error = Math.abs(Robot.drive.getDistanceFromEncoders() + 155); 
+		LOG_ERROR.log(error);
 		
-		System.out.println("error in DriveBackAndDropTotesForAuto = " + error);
+		if (profiled && !finished)
+			Robot.drive.driveToProfiled(-DRIVE_BACK_DISTANCE, Math.abs(speed) * DriveTrain.PROFILE_MAX_VELOCITY, maxAcceleration);
 		
 		if (error > 70) {
-			Robot.drive.setLeftRight(speed, speed);
+			drive(speed);
 			Robot.ratchet.retractRatchet();
 		} else if (error > 35) {
-			Robot.drive.setLeftRight(speed, speed);
+			drive(speed);
 			Robot.clapper.setSetpoint(Clapper.ABOVE_RATCHET_SETPOINT + 20);
 		} else if (error > 15) {
-			Robot.drive.setLeftRight(-.5, -.5);
+			drive(-.5);
 			Robot.clapper.setSetpoint(Clapper.LOADING_SETPOINT);
 		} else if (error > 7) {
 			Robot.rollers.reverseTote(.5); 
 		} else if (error > 0) {
-			Robot.drive.setLeftRight(-.3, -.3);
+			if (profiled)
+				Robot.drive.disableDriveStraightPID();
+			drive(-.3);
 			Robot.clapper.openClapper(); 
 			finished = true; 
 		} else 
-			Robot.drive.setLeftRight(0, 0); //happiness
+			drive(0); //happiness
+	}
+	
+	/**
+	 * Sets the drive speed, unless following the motion profile.
+	 */
+	private void drive(double speed) {
+		if (!profiled)
+			Robot.drive.setLeftRight(speed, speed);
+	}
+
+	@Override
+	public boolean isFinished() {
+		return finished;
 	}
 
 	@Override
-	public double duration() {
-		return finished ? .1 : timeout;
+	public void end(boolean interrupted) {
+		// however it ends, don't leave the profile's PID driving after the sequence moves on
+		Robot.drive.stop();
+		if (interrupted) {
+			Robot.clapper.stop();
+			Robot.rollers.stop();
+		}
 	}
 
+	@Override
+	public double timeout() {
+		return timeout;
+	}
+
+	@Override
+	public int getRequirements() {
+		return DRIVE | CLAPPER | ROLLERS | RATCHET;
+	}
 }
@@ -1,20 +1,33 @@
 package org.usfirst.frc.team2485.auto.SequencedItems;
 
-import org.usfirst.frc.team2485.auto.SequencedItem;
+import org.usfirst.frc.team2485.auto.RequiresSubsystems;
+import org.usfirst.frc.team2485.auto.SequencedCommand;
 import org.usfirst.frc.team2485.robot.Robot;
+import org.usfirst.frc.team2485.subsystems.DriveTrain;
 
 /**
  * @author Patrick Wamsley
  */
 
-public class DriveStraight implements SequencedItem {
+public class DriveStraight extends SequencedCommand implements RequiresSubsystems {
 
 	private double inches, yawSetpoint; 
 	private boolean finished; 
 	private boolean customHeading;
+	private boolean profiled;
+	private double maxAcceleration;
 	
 	private double timeout; 
 	 
+	/**
+	 * Drives along a motion profile, accelerating no faster than is safe for the totes being carried.
+	 */
+	public DriveStraight(double inches, double timeout, double yawSetpoint, int totesCarried) {
+		this(inches, timeout, yawSetpoint);
+		profiled = true;
+		maxAcceleration = DriveTrain.getMaxSafeAcceleration(totesCarried);
+	}
+	
 	public DriveStraight(double inches, double timeout, double yawSetpoint) {
 		this.inches = inches;
 		this.timeout = timeout;
@@ -34,16 +47,41 @@ public class DriveStraight implements SequencedItem {
 	}
 	
 	@Override
-	public void run() {
-		if(customHeading)
+	public void initialize() {
+		// start from a fresh setpoint, even if a previous drive left the PIDs enabled
+		Robot.drive.disableDriveStraightPID();
+		finished = false;
+	}
+
+	@Override
+	public void execute() {
+		if (profiled)
+			finished = Robot.drive.driveToProfiled(inches, yawSetpoint, DriveTrain.PROFILE_MAX_VELOCITY, maxAcceleration);
+		else if(customHeading)
 			finished = Robot.drive.driveTo(inches, yawSetpoint); 
 		else
 			finished = Robot.drive.driveTo(inches);
 	}
 
 	@Override
-	public double duration() {
-		return finished ? 0 : timeout; 
+	public boolean isFinished() {
+		return finished;
 	}
 
+	@Override
+	public double timeout() {
+		return timeout; 
+	}
+
+	@Override
+	public void end(boolean interrupted) {
+		// cancelled mid-drive: the PIDs would keep driving the wheels
+		if (interrupted)
+			Robot.drive.stop();
+	}
+
+	@Override
+	public int getRequirements() {
+		return DRIVE;
+	}
 }
@@ -1,13 +1,17 @@
 package org.usfirst.frc.team2485.auto.SequencedItems;
 
-import org.usfirst.frc.team2485.auto.SequencedItem;
+import org.usfirst.frc.team2485.auto.RequiresSubsystems;
+import org.usfirst.frc.team2485.auto.SequencedCommand;
 import org.usfirst.frc.team2485.robot.Robot;
+import org.usfirst.frc.team2485.util.EventLog;
 
 /**
  * @author Patrick Wamsley
  */
 
-public class DriveStraightLowAcceleration implements SequencedItem {
+public class DriveStraightLowAcceleration extends SequencedCommand implements RequiresSubsystems {
+	
+	private static final EventLog.Site LOG_FINISHED = EventLog.site("DriveStraightLowAcceleration finished at {} in");
 	
 	private boolean finished;
 	private double distance; 
@@ -15,8 +19,6 @@ public class DriveStraightLowAcceleration implements SequencedItem {
 	public DriveStraightLowAcceleration(double inches) {
 		finished = false;
 		distance = inches; 
-		
-		Robot.drive.driveStraightPID.setOutputRange(-.5, .5); 
 	}
 	
 	public DriveStraightLowAcceleration(double feet, double inches) {
@@ -24,19 +26,40 @@ public class DriveStraightLowAcceleration implements SequencedItem {
 	}
 
 	@Override
-	public void run() {
-		if (Robot.drive.driveTo(distance)) {
-			finished = true; 
-			System.out.println("Run finished");
-			Robot.drive.driveStraightPID.setOutputRange(-1, 1); 
-		}
+	public void initialize() {
+		// clamp when the drive starts, not when the sequence is built
+		Robot.drive.disableDriveStraightPID();
+		Robot.drive.setOutputRange(-.5, .5);
+		finished = false;
 	}
 
 	@Override
-	public double duration() {
-		return finished ? 0 : 4; 
-	} 
-	
-	
+	public void execute() {
+		finished = Robot.drive.driveTo(distance);
+	}
+
+	@Override
+	public boolean isFinished() {
+		return finished;
+	}
 
+	@Override
+	public void end(boolean interrupted) {
+		// unclamp even if the drive timed out
+		Robot.drive.setOutputRange(-1, 1); 
+		if (interrupted)
+			Robot.drive.stop();
+		if (finished)
+			LOG_FINISHED.log(distance);
+	}
+
+	@Override
+	public double timeout() {
+		return 4; 
+	}
+
+	@Override
+	public int getRequirements() {
+		return DRIVE;
+	}
 }
@@ -1,13 +1,13 @@
 package org.usfirst.frc.team2485.auto.SequencedItems;
 
-import org.usfirst.frc.team2485.auto.SequencedItem;
+import org.usfirst.frc.team2485.auto.InstantItem;
 import org.usfirst.frc.team2485.robot.Robot;
 
 /**
  * @author Ben Clark
  */
 
-public class IncrementToteCount implements SequencedItem {
+public class IncrementToteCount implements InstantItem {
 
 	private int amount; 
 	private boolean finished; 
@@ -30,7 +30,7 @@ public class IncrementToteCount implements SequencedItem {
 
 	@Override
 	public double duration() {
-		return .03;
+		return 0;
 	}
 
 }
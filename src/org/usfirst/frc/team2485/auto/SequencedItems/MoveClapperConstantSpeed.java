@@ -1,6 +1,7 @@
 package org.usfirst.frc.team2485.auto.SequencedItems;
 
-import org.usfirst.frc.team2485.auto.SequencedItem;
+import org.usfirst.frc.team2485.auto.InstantItem;
+import org.usfirst.frc.team2485.auto.RequiresSubsystems;
 import org.usfirst.frc.team2485.robot.Robot;
 
 /**
@@ -10,7 +11,7 @@ import org.usfirst.frc.team2485.robot.Robot;
  * @see org.usfirst.frc.team2485.auto.SequencedItems.MoveClawConstantSpeed 
  */
 
-public class MoveClapperConstantSpeed implements SequencedItem {
+public class MoveClapperConstantSpeed implements InstantItem, RequiresSubsystems {
 	
 	private double speed; 
 
@@ -25,7 +26,11 @@ public class MoveClapperConstantSpeed implements SequencedItem {
 
 	@Override
 	public double duration() {
-		return .03; 
+		return 0;
 	}
 
+	@Override
+	public int getRequirements() {
+		return CLAPPER;
+	}
 }
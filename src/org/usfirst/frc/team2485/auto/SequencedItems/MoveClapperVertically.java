@@ -1,16 +1,16 @@
 package org.usfirst.frc.team2485.auto.SequencedItems;
 
-import org.usfirst.frc.team2485.auto.SequencedItem;
+import org.usfirst.frc.team2485.auto.RequiresSubsystems;
+import org.usfirst.frc.team2485.auto.SequencedCommand;
 import org.usfirst.frc.team2485.robot.Robot;
 
 /**
  * @author Patrick Wamsley
  */
 
-public class MoveClapperVertically implements SequencedItem {
+public class MoveClapperVertically extends SequencedCommand implements RequiresSubsystems {
 
 	private final double setpoint; 
-	private boolean finished = false; 
 	
 	private double timeout; 
 	
@@ -28,15 +28,34 @@ public class MoveClapperVertically implements SequencedItem {
 	}
 
 	@Override
-	public void run() {
+	public void initialize() {
 		Robot.clapper.setSetpoint(setpoint); 
-		finished = Robot.clapper.isPIDOnTarget();
-		
 	}
 
 	@Override
-	public double duration() {
-		return finished ? 0.03 : timeout;
+	public void execute() {
+		// the clapper PID does the work
 	}
 
+	@Override
+	public boolean isFinished() {
+		return Robot.clapper.isPIDOnTarget();
+	}
+
+	@Override
+	public double timeout() {
+		return timeout;
+	}
+
+	@Override
+	public void end(boolean interrupted) {
+		// cancelled: don't leave the PID lifting toward the setpoint
+		if (interrupted)
+			Robot.clapper.stop();
+	}
+
+	@Override
+	public int getRequirements() {
+		return CLAPPER;
+	}
 }
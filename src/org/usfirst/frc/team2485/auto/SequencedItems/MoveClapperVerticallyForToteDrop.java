@@ -1,16 +1,16 @@
 package org.usfirst.frc.team2485.auto.SequencedItems;
 
-import org.usfirst.frc.team2485.auto.SequencedItem;
+import org.usfirst.frc.team2485.auto.RequiresSubsystems;
+import org.usfirst.frc.team2485.auto.SequencedCommand;
 import org.usfirst.frc.team2485.robot.Robot;
 
 /**
  * @author Patrick Wamsley
  */
 
-public class MoveClapperVerticallyForToteDrop implements SequencedItem {
+public class MoveClapperVerticallyForToteDrop extends SequencedCommand implements RequiresSubsystems {
 
 	private final double setpoint; 
-	private boolean finished = false; 
 
 	/**
 	 * @param setpoint. use a public static field from Clapper class
@@ -21,16 +21,33 @@ public class MoveClapperVerticallyForToteDrop implements SequencedItem {
 	}
 
 	@Override
-	public void run() {
+	public void initialize() {
 		Robot.clapper.setSetpoint(setpoint); 
-		finished = Robot.clapper.isPIDOnTarget();
+	}
 
+	@Override
+	public void execute() {
+		// the clapper PID does the work
 	}
 
 	@Override
-	public double duration() {
-		return finished ? 0.03 : 0.5;
+	public boolean isFinished() {
+		return Robot.clapper.isPIDOnTarget();
 	}
 
-}
+	@Override
+	public double timeout() {
+		return 0.5;
+	}
 
+	@Override
+	public void end(boolean interrupted) {
+		if (interrupted)
+			Robot.clapper.stop();
+	}
+
+	@Override
+	public int getRequirements() {
+		return CLAPPER;
+	}
+}
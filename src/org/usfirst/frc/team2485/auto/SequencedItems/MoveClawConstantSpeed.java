@@ -1,6 +1,7 @@
 package org.usfirst.frc.team2485.auto.SequencedItems;
 
-import org.usfirst.frc.team2485.auto.SequencedItem;
+import org.usfirst.frc.team2485.auto.InstantItem;
+import org.usfirst.frc.team2485.auto.RequiresSubsystems;
 import org.usfirst.frc.team2485.robot.Robot;
 
 /**
@@ -9,7 +10,7 @@ import org.usfirst.frc.team2485.robot.Robot;
  * @author Patrick Wamsley
  * @see org.usfirst.frc.team2485.auto.SequencedItemsMoveClapperVertically
  */
-public class MoveClawConstantSpeed implements SequencedItem {
+public class MoveClawConstantSpeed implements InstantItem, RequiresSubsystems {
 	
 	private int speed;
 	
@@ -24,7 +25,11 @@ public class MoveClawConstantSpeed implements SequencedItem {
 
 	@Override
 	public double duration() {
-		return .05; 
+		return 0;
+	}
+
+	@Override
+	public int getRequirements() {
+		return CLAW;
 	}
-	
 }
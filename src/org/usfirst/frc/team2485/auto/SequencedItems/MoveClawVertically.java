@@ -1,16 +1,15 @@
 package org.usfirst.frc.team2485.auto.SequencedItems;
 
-import org.usfirst.frc.team2485.auto.SequencedItem;
+import org.usfirst.frc.team2485.auto.RequiresSubsystems;
+import org.usfirst.frc.team2485.auto.SequencedCommand;
 import org.usfirst.frc.team2485.robot.Robot;
-import org.usfirst.frc.team2485.subsystems.Claw;
 
 /**
  * @author Patrick Wamsley
  */
 
-public class MoveClawVertically implements SequencedItem {
+public class MoveClawVertically extends SequencedCommand implements RequiresSubsystems {
 	
-	private boolean finished = false; 
 	private final double setpoint; 
 	
 	public MoveClawVertically(double setpoint) {
@@ -18,18 +17,34 @@ public class MoveClawVertically implements SequencedItem {
 	}
 
 	@Override
-	public void run() {
-		
-		Claw claw = Robot.claw; 
-		
-		claw.setSetpoint(setpoint);
-		claw.updateWinchPeriodic();
-		finished = claw.isPidOnTarget(); 
+	public void initialize() {
+		Robot.claw.setSetpoint(setpoint);
 	}
 
 	@Override
-	public double duration() {
-		return finished ? 0 : 1.5; 
+	public void execute() {
+		Robot.claw.updateWinchPeriodic();
 	}
-	
-}
\ No newline at end of file
+
+	@Override
+	public boolean isFinished() {
+		return Robot.claw.isPidOnTarget(); 
+	}
+
+	@Override
+	public double timeout() {
+		return 1.5; 
+	}
+
+	@Override
+	public void end(boolean interrupted) {
+		// cancelled: don't leave the PID winching toward the setpoint
+		if (interrupted)
+			Robot.claw.stop();
+	}
+
+	@Override
+	public int getRequirements() {
+		return CLAW;
+	}
+}
@@ -1,6 +1,7 @@
 package org.usfirst.frc.team2485.auto.SequencedItems;
 
-import org.usfirst.frc.team2485.auto.SequencedItem;
+import org.usfirst.frc.team2485.auto.RequiresSubsystems;
+import org.usfirst.frc.team2485.auto.SequencedCommand;
 import org.usfirst.frc.team2485.robot.Robot;
 import org.usfirst.frc.team2485.subsystems.Claw;
 
@@ -9,7 +10,7 @@ import org.usfirst.frc.team2485.subsystems.Claw;
  * @author Patrick Wamsley
  * @author Anoushka Bose
  */
-public class MoveClawWithClapper implements SequencedItem {
+public class MoveClawWithClapper extends SequencedCommand implements RequiresSubsystems {
 
 	private static final double SLOPE_FOR_OUTPUT_RAMP = 0.6; 
 	private static final double 
@@ -33,16 +34,23 @@ public class MoveClawWithClapper implements SequencedItem {
 	}
 	
 	@Override
-	public void run() {
+	public void initialize() {
+		finished = false;
+		
+		// with a short stack the claw just rests, and its PID holds it there
+		if (Robot.toteCounter.getCount() <= 2)
+			claw.setSetpoint(Claw.ONE_AND_TWO_TOTE_RESTING_POS);
+	}
+	
+	@Override
+	public void execute() {
 		
 		int toteCount = Robot.toteCounter.getCount();
 
 		finished = Robot.clapper.isPIDOnTarget();
 		
-		if (toteCount == 0 || toteCount == 1 || toteCount == 2) { 
-			claw.setSetpoint(Claw.ONE_AND_TWO_TOTE_RESTING_POS);
+		if (toteCount == 0 || toteCount == 1 || toteCount == 2)
 			return;
-		}
 	
 		if (!finished) {
 			
@@ -93,7 +101,23 @@ public class MoveClawWithClapper implements SequencedItem {
 	}
 
 	@Override
-	public double duration() {
-		return finished ? 0.03 : 1.5;	
+	public boolean isFinished() {
+		return finished;
+	}
+
+	@Override
+	public double timeout() {
+		return 1.5;	
+	}
+
+	@Override
+	public void end(boolean interrupted) {
+		if (interrupted)
+			claw.stop();
+	}
+
+	@Override
+	public int getRequirements() {
+		return CLAW;
 	}
-}
\ No newline at end of file
+}
@@ -1,13 +1,14 @@
 package org.usfirst.frc.team2485.auto.SequencedItems;
 
-import org.usfirst.frc.team2485.auto.SequencedItem;
+import org.usfirst.frc.team2485.auto.InstantItem;
+import org.usfirst.frc.team2485.auto.RequiresSubsystems;
 import org.usfirst.frc.team2485.robot.Robot;
 
 /**
  * @author Patrick Wamsley
  */
 
-public class OpenClaw implements SequencedItem {
+public class OpenClaw implements InstantItem, RequiresSubsystems {
 
 	@Override
 	public void run() {
@@ -16,8 +17,11 @@ public class OpenClaw implements SequencedItem {
 
 	@Override
 	public double duration() {
-		return 0.1;
+		return 0;
 	}
 
-	
+	@Override
+	public int getRequirements() {
+		return CLAW;
+	}
 }
@@ -1,12 +1,13 @@
 package org.usfirst.frc.team2485.auto.SequencedItems;
 
-import org.usfirst.frc.team2485.auto.SequencedItem;
+import org.usfirst.frc.team2485.auto.InstantItem;
+import org.usfirst.frc.team2485.auto.RequiresSubsystems;
 import org.usfirst.frc.team2485.robot.Robot;
 
 /**
  * @author Aidan Fay
  */
-public class ResetCommandeerer implements SequencedItem{
+public class ResetCommandeerer implements InstantItem, RequiresSubsystems {
 
 	@Override
 	public void run() {
@@ -15,7 +16,11 @@ public class ResetCommandeerer implements SequencedItem{
 
 	@Override
 	public double duration() {
-		return 0.1;
+		return 0;
 	}
 
+	@Override
+	public int getRequirements() {
+		return COMMANDEERER;
+	}
 }
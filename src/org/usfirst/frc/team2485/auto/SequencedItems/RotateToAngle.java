@@ -1,13 +1,14 @@
 package org.usfirst.frc.team2485.auto.SequencedItems;
 
-import org.usfirst.frc.team2485.auto.SequencedItem;
+import org.usfirst.frc.team2485.auto.RequiresSubsystems;
+import org.usfirst.frc.team2485.auto.SequencedCommand;
 import org.usfirst.frc.team2485.robot.Robot;
 
 /**
  * @author Patrick Wamsley
  */
 
-public class RotateToAngle implements SequencedItem {
+public class RotateToAngle extends SequencedCommand implements RequiresSubsystems {
 	
 	private final double angle; 
 	private boolean finished;
@@ -25,12 +26,35 @@ public class RotateToAngle implements SequencedItem {
 	}
 
 	@Override
-	public void run() {
+	public void initialize() {
+		// start from a fresh setpoint, with the rotating gains
+		Robot.drive.disableIMUPID();
+		finished = false;
+	}
+
+	@Override
+	public void execute() {
 		finished = Robot.drive.rotateTo(angle); 
 	}
 
 	@Override
-	public double duration() {
-		return finished ? 0 : timeout; 
+	public boolean isFinished() {
+		return finished;
+	}
+
+	@Override
+	public double timeout() {
+		return timeout; 
+	}
+
+	@Override
+	public void end(boolean interrupted) {
+		if (interrupted)
+			Robot.drive.stop();
+	}
+
+	@Override
+	public int getRequirements() {
+		return DRIVE;
 	}
 }
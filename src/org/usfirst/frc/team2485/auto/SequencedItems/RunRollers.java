@@ -1,6 +1,7 @@
 package org.usfirst.frc.team2485.auto.SequencedItems;
 
-import org.usfirst.frc.team2485.auto.SequencedItem;
+import org.usfirst.frc.team2485.auto.InstantItem;
+import org.usfirst.frc.team2485.auto.RequiresSubsystems;
 import org.usfirst.frc.team2485.robot.Robot;
 
 /**
@@ -13,7 +14,7 @@ import org.usfirst.frc.team2485.robot.Robot;
  * @author Ben Clark
  */
 
-public class RunRollers implements SequencedItem {
+public class RunRollers implements InstantItem, RequiresSubsystems {
 
 	private double speed; 
 	
@@ -28,7 +29,11 @@ public class RunRollers implements SequencedItem {
 
 	@Override
 	public double duration() {
-		return .03; 
+		return 0;
 	}
 
+	@Override
+	public int getRequirements() {
+		return ROLLERS;
+	}
 }
@@ -1,13 +1,14 @@
 package org.usfirst.frc.team2485.auto.SequencedItems;
 
-import org.usfirst.frc.team2485.auto.SequencedItem;
+import org.usfirst.frc.team2485.auto.InstantItem;
+import org.usfirst.frc.team2485.auto.RequiresSubsystems;
 import org.usfirst.frc.team2485.robot.Robot;
 
 /**
  * @author Aidan Fay
  */
 
-public class SetClapperPID implements SequencedItem {
+public class SetClapperPID implements InstantItem, RequiresSubsystems {
 	
 	private double kP;
 	private double kI;
@@ -26,7 +27,11 @@ public class SetClapperPID implements SequencedItem {
 
 	@Override
 	public double duration() {
-		return 0.05;
+		return 0;
 	}
 
+	@Override
+	public int getRequirements() {
+		return CLAPPER;
+	}
 }
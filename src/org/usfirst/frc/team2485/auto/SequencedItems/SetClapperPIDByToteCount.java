@@ -1,25 +1,27 @@
 package org.usfirst.frc.team2485.auto.SequencedItems;
 
-import org.usfirst.frc.team2485.auto.SequencedItem;
+import org.usfirst.frc.team2485.auto.InstantItem;
+import org.usfirst.frc.team2485.auto.RequiresSubsystems;
 import org.usfirst.frc.team2485.robot.Robot;
 
 /**
  * @author Anoushka Bose
  */
 
-public class SetClapperPIDByToteCount implements SequencedItem {
+public class SetClapperPIDByToteCount implements InstantItem, RequiresSubsystems {
 
-	private boolean done = false;
-	
 	@Override
 	public void run() {
 		Robot.clapper.updateToteCount(Robot.toteCounter.getCount());
-		done = true;
 	}
 
 	@Override
 	public double duration() {
-		return done ? 0 : .03;
+		return 0;
 	}
 
+	@Override
+	public int getRequirements() {
+		return CLAPPER;
+	}
 }
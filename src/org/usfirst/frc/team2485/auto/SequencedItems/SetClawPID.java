@@ -1,13 +1,14 @@
 package org.usfirst.frc.team2485.auto.SequencedItems;
 
-import org.usfirst.frc.team2485.auto.SequencedItem;
+import org.usfirst.frc.team2485.auto.InstantItem;
+import org.usfirst.frc.team2485.auto.RequiresSubsystems;
 import org.usfirst.frc.team2485.robot.Robot;
 
 /**
  * @author Aidan Fay
  */
 
-public class SetClawPID implements SequencedItem {
+public class SetClawPID implements InstantItem, RequiresSubsystems {
 	
 	private double kP;
 	private double kI;
@@ -27,7 +28,11 @@ public class SetClawPID implements SequencedItem {
 
 	@Override
 	public double duration() {
-		return 0.05;
+		return 0;
 	}
 
+	@Override
+	public int getRequirements() {
+		return CLAW;
+	}
 }
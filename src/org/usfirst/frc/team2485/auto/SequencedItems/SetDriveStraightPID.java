@@ -1,9 +1,10 @@
 package org.usfirst.frc.team2485.auto.SequencedItems;
 
-import org.usfirst.frc.team2485.auto.SequencedItem;
+import org.usfirst.frc.team2485.auto.InstantItem;
+import org.usfirst.frc.team2485.auto.RequiresSubsystems;
 import org.usfirst.frc.team2485.robot.Robot;
 
-public class SetDriveStraightPID implements SequencedItem {
+public class SetDriveStraightPID implements InstantItem, RequiresSubsystems {
 
 	private double kP;
 	
@@ -17,7 +18,11 @@ public class SetDriveStraightPID implements SequencedItem {
 
 	@Override
 	public double duration() {
-		return 0.03;
+		return 0;
 	}
 
+	@Override
+	public int getRequirements() {
+		return DRIVE;
+	}
 }
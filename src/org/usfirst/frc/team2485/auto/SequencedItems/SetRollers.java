@@ -1,13 +1,14 @@
 package org.usfirst.frc.team2485.auto.SequencedItems;
 
-import org.usfirst.frc.team2485.auto.SequencedItem;
+import org.usfirst.frc.team2485.auto.InstantItem;
+import org.usfirst.frc.team2485.auto.RequiresSubsystems;
 import org.usfirst.frc.team2485.robot.Robot;
 
 /**
  * @author Patrick Wamsley
  */
 
-public class SetRollers implements SequencedItem {
+public class SetRollers implements InstantItem, RequiresSubsystems {
 
 	public static final int INTAKE = 0, REVERSE = 1, OFF = 2, LEFT = 3, RIGHT = 4; 
 	private int type; 
@@ -41,7 +42,11 @@ public class SetRollers implements SequencedItem {
 
 	@Override
 	public double duration() {
-		return .05;
+		return 0;
 	}
 
+	@Override
+	public int getRequirements() {
+		return ROLLERS;
+	}
 }
@@ -1,13 +1,14 @@
 package org.usfirst.frc.team2485.auto.SequencedItems;
 
-import org.usfirst.frc.team2485.auto.SequencedItem;
+import org.usfirst.frc.team2485.auto.RequiresSubsystems;
+import org.usfirst.frc.team2485.auto.SequencedCommand;
 import org.usfirst.frc.team2485.robot.Robot;
 
 /**
  * @author Patrick Wamsley
  */
 
-public class StrafeTo implements SequencedItem {
+public class StrafeTo extends SequencedCommand implements RequiresSubsystems {
 
 	private double inches, yawSetpoint; 
 	private boolean finished; 
@@ -33,7 +34,15 @@ public class StrafeTo implements SequencedItem {
 	}
 	
 	@Override
-	public void run() {
+	public void initialize() {
+		// start from a fresh setpoint, even if a previous strafe left the PIDs enabled
+		Robot.drive.disableSonicStrafePID();
+		Robot.drive.disableIMUPID();
+		finished = false;
+	}
+
+	@Override
+	public void execute() {
 		
 		if (customHeading)
 			finished = Robot.drive.strafeToUsingSonicSensor(inches);  
@@ -42,8 +51,23 @@ public class StrafeTo implements SequencedItem {
 	}
 
 	@Override
-	public double duration() {
-		return finished ? 0.03 : timeout; 
+	public boolean isFinished() {
+		return finished;
+	}
+
+	@Override
+	public double timeout() {
+		return timeout; 
 	}
 
+	@Override
+	public void end(boolean interrupted) {
+		if (interrupted)
+			Robot.drive.stop();
+	}
+
+	@Override
+	public int getRequirements() {
+		return DRIVE;
+	}
 }
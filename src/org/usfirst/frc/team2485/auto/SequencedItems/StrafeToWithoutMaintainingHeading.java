@@ -1,12 +1,13 @@
 package org.usfirst.frc.team2485.auto.SequencedItems;
 
-import org.usfirst.frc.team2485.auto.SequencedItem;
+import org.usfirst.frc.team2485.auto.RequiresSubsystems;
+import org.usfirst.frc.team2485.auto.SequencedCommand;
 import org.usfirst.frc.team2485.robot.Robot;
 
 /**
  * @author Patrick Wamsley
  */
-public class StrafeToWithoutMaintainingHeading implements SequencedItem {
+public class StrafeToWithoutMaintainingHeading extends SequencedCommand implements RequiresSubsystems {
 
 	private final double distance; 
 	private boolean finished; 
@@ -16,13 +17,34 @@ public class StrafeToWithoutMaintainingHeading implements SequencedItem {
 		finished = false; 
 	}
 	@Override
-	public void run() {
+	public void initialize() {
+		Robot.drive.disableStrafePID();
+		finished = false;
+	}
+
+	@Override
+	public void execute() {
 		finished = Robot.drive.strafeToWithoutMaintainingHeading(distance);  
 	}
 
 	@Override
-	public double duration() {
-		return finished ? 0 : 3; 
+	public boolean isFinished() {
+		return finished;
+	}
+
+	@Override
+	public double timeout() {
+		return 3; 
 	}
 
+	@Override
+	public void end(boolean interrupted) {
+		if (interrupted)
+			Robot.drive.stop();
+	}
+
+	@Override
+	public int getRequirements() {
+		return DRIVE;
+	}
 }
@@ -1,12 +1,13 @@
 package org.usfirst.frc.team2485.auto.SequencedItems;
 
-import org.usfirst.frc.team2485.auto.SequencedItem;
+import org.usfirst.frc.team2485.auto.InstantItem;
+import org.usfirst.frc.team2485.auto.RequiresSubsystems;
 import org.usfirst.frc.team2485.robot.Robot;
 
 /**
  * @autor Anoushka Bose
  */
-public class TiltStrongback implements SequencedItem {
+public class TiltStrongback implements InstantItem, RequiresSubsystems {
 
 	private double setpoint;
 	
@@ -23,7 +24,11 @@ public class TiltStrongback implements SequencedItem {
 
 	@Override
 	public double duration() {
-		return .05;
+		return 0;
 	}
 
+	@Override
+	public int getRequirements() {
+		return STRONGBACK;
+	}
 }
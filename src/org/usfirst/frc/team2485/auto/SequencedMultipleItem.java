@@ -1,32 +1,138 @@
 package org.usfirst.frc.team2485.auto;
 
+import org.usfirst.frc.team2485.util.RobotClock;
+
 /**
  * Contains an array of sequenced items, which are all run in parallel. <p>
- * 
- * WARNING: All items are run until the longest one finishes.
+ *
+ * Each item runs through its own lifecycle, the same way it would in a {@code Sequencer}, timed from when
+ * the group started, so an item which times out is ended normally. Finished items are no longer run.
+ * When the group is done depends on its completion rule:
+ * <ul>
+ * <li>{@link #ALL} - when every item has finished (the default)</li>
+ * <li>{@link #RACE} - when any item has finished</li>
+ * <li>{@link #DEADLINE} - when the first item has finished</li>
+ * </ul>
+ * Items still running when the group is done, or when the group itself is ended early, are cut off with
+ * {@code end(true)}. The group requires every subsystem any of its items requires.
  * @author W.A.R.Lords
  */
-public class SequencedMultipleItem implements SequencedItem {
-    private final SequencedItem[] items;
+public class SequencedMultipleItem extends SequencedCommand implements RequiresSubsystems {
+
+    public static final int
+            ALL = 0,
+            RACE = 1,
+            DEADLINE = 2;
+
+    private final ItemLifecycle[] items;
+    private final boolean[] started, finished;
+    private final int completion, requirements;
+
+    private boolean complete = false;
+    private long startTime;
 
 //    public SequencedMultipleItem(SequencedItem[] items) {
 //        this.items = items;
 //    }
     public SequencedMultipleItem(SequencedItem... items) {
-    	this.items = items; 
+        this(ALL, items);
+    }
+
+    /**
+     * @param completion when the group is done: {@code ALL}, {@code RACE} or {@code DEADLINE}
+     * @param items the items to run in parallel
+     */
+    public SequencedMultipleItem(int completion, SequencedItem... items) {
+        if (completion != ALL && completion != RACE && completion != DEADLINE)
+            throw new IllegalArgumentException("Unknown completion rule: " + completion);
+        if (completion == DEADLINE && items.length == 0)
+            throw new IllegalArgumentException("A deadline group needs at least one item");
+
+        this.items = new ItemLifecycle[items.length];
+        for (int i = 0; i < items.length; i++)
+            this.items[i] = LegacyItemAdapter.adapt(items[i]);
+        this.started = new boolean[items.length];
+        this.finished = new boolean[items.length];
+        this.completion = completion;
+        this.requirements = Sequencer.requirementsOf(items);
+    }
+
+    public void initialize() {
+        complete = false;
+        startTime = RobotClock.nanoTime();
+        for (int i = 0; i < items.length; i++) {
+            started[i] = false;
+            finished[i] = false;
+        }
+    }
+
+    public void execute() {
+        final double elapsed = (RobotClock.nanoTime() - startTime) / 1e9;
+
+        for (int i = 0; i < items.length; i++) {
+            if (finished[i])
+                continue;
+
+            final ItemLifecycle item = items[i];
+            if (!started[i]) {
+                item.initialize();
+                started[i] = true;
+            } else if (elapsed > item.timeout()) {
+                finish(i, false);
+                continue;
+            }
+
+            item.execute();
+            if (item.isFinished())
+                finish(i, false);
+            else if (elapsed >= item.timeout())
+                finish(i, false);
+        }
+
+        int finishedCount = 0;
+        for (int i = 0; i < items.length; i++)
+            if (finished[i])
+                finishedCount++;
+
+        switch (completion) {
+            case ALL:
+                complete = finishedCount == items.length;
+                break;
+            case RACE:
+                complete = finishedCount > 0 || items.length == 0;
+                break;
+            case DEADLINE:
+                complete = finished[0];
+                break;
+        }
+
+        if (complete)
+            cutOff();
+    }
+
+    public boolean isFinished() {
+        return complete;
+    }
+
+    public void end(boolean interrupted) {
+        cutOff();
+    }
+
+    private void finish(int i, boolean interrupted) {
+        finished[i] = true;
+        items[i].end(interrupted);
     }
 
-    public void run() {
-        for (int i = 0; i < items.length; i++) 
-            items[i].run(); 
+    public int getRequirements() {
+        return requirements;
     }
 
-    public double duration() {
-        double max = 0;
-        for (int i = 0; i < items.length; i++) 
-            if (items[i].duration() > max)
-                max = items[i].duration();
-   
-        return max;
+    /**
+     * Ends every item which is still running.
+     */
+    private void cutOff() {
+        for (int i = 0; i < items.length; i++)
+            if (started[i] && !finished[i])
+                finish(i, true);
     }
-}
\ No newline at end of file
+}
@@ -1,8 +1,7 @@
 package org.usfirst.frc.team2485.auto;
 
-import java.util.Vector;
-
 import org.usfirst.frc.team2485.auto.SequencedPause;
+import org.usfirst.frc.team2485.util.RobotClock;
 
 /**
  * Provides a utility to sequence events and actions.
@@ -11,13 +10,26 @@ import org.usfirst.frc.team2485.auto.SequencedPause;
  * @see SequencedItem
  */
 public class Sequencer {
-    private final Vector sequenced = new Vector();
+    private static final int INITIAL_CAPACITY = 8;
+
+    // Durations at or above this (e.g. Double.MAX_VALUE) never expire
+    private static final double MAX_DURATION_SECONDS = 1.0e9;
+    private static final long   NEVER_NANOS = Long.MAX_VALUE / 2;
+
+    private SequencedItem[] sequenced = new SequencedItem[INITIAL_CAPACITY];
+    private ItemLifecycle[] lifecycles = new ItemLifecycle[INITIAL_CAPACITY];
+    private int size = 0;
     private boolean started = false;
     private long startTime;
     private int currIndex;
     private long currIndexStartTime;
+    private double currDuration;
+    private long currDeadline;
+    private boolean currItemRun;
 
-    private static Vector sequencers = new Vector();
+    // replaced whole by auto(), so runAll() can loop over it by index, without an
+    // iterator or a lock, while sequences are enabled or disabled
+    private static volatile Sequencer[] sequencers = new Sequencer[0];
 
     /**
      * Creates a new {@code Sequencer} with no sequenced items.
@@ -40,7 +52,7 @@ public class Sequencer {
      * @see SequencedPause
      */
     public Sequencer(SequencedItem initial) {
-        sequenced.addElement(initial);
+        add(initial);
     }
 
     /**
@@ -51,8 +63,7 @@ public class Sequencer {
      * @see SequencedPause
      */
     public Sequencer(SequencedItem[] initial) {
-        for (int i = 0; i < initial.length; i++) 
-            sequenced.addElement(initial[i]);
+        add(initial);
     }
 
     /**
@@ -62,8 +73,8 @@ public class Sequencer {
      * @see SequencedItem
      */
     public SequencedItem[] asArray() {
-        SequencedItem[] export = new SequencedItem[sequenced.size()];
-        sequenced.copyInto(export);
+        SequencedItem[] export = new SequencedItem[size];
+        System.arraycopy(sequenced, 0, export, 0, size);
         return export;
     }
 
@@ -76,7 +87,9 @@ public class Sequencer {
      * @see SequencedPause
      */
     public Sequencer add(SequencedItem item) {
-        sequenced.addElement(item);
+        ensureCapacity(size + 1);
+        lifecycles[size] = LegacyItemAdapter.adapt(item);
+        sequenced[size++] = item;
         return this;
     }
 
@@ -90,11 +103,31 @@ public class Sequencer {
      * @see SequencedPause
      */
     public Sequencer add(SequencedItem[] items) {
-        for (int i = 0; i < items.length; i++) 
-            sequenced.addElement(items[i]);
+        ensureCapacity(size + items.length);
+        for (int i = 0; i < items.length; i++)
+            lifecycles[size + i] = LegacyItemAdapter.adapt(items[i]);
+        System.arraycopy(items, 0, sequenced, size, items.length);
+        size += items.length;
         return this;
     }
 
+    /**
+     * Grows the item array (by doubling) to hold at least the specified number of items.
+     * @param capacity the number of items needed
+     */
+    private void ensureCapacity(int capacity) {
+        if (capacity <= sequenced.length) return;
+
+        int newCapacity = sequenced.length * 2;
+        if (newCapacity < capacity) newCapacity = capacity;
+        SequencedItem[] grown = new SequencedItem[newCapacity];
+        System.arraycopy(sequenced, 0, grown, 0, size);
+        sequenced = grown;
+        ItemLifecycle[] grownLifecycles = new ItemLifecycle[newCapacity];
+        System.arraycopy(lifecycles, 0, grownLifecycles, 0, size);
+        lifecycles = grownLifecycles;
+    }
+
     /**
      * Gets the {@code SequencedItem} scheduled at the specified index.
      * @param index the index of the item
@@ -104,7 +137,9 @@ public class Sequencer {
      * @see SequencedItem
      */
     public SequencedItem get(int index) {
-        return (SequencedItem)sequenced.elementAt(index);
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        return sequenced[index];
     }
 
     /**
@@ -114,7 +149,48 @@ public class Sequencer {
      * @see SequencedItem
      */
     public int count() {
-        return sequenced.size();
+        return size;
+    }
+
+    /**
+     * Gets the index of the {@code SequencedItem} currently being run.
+     * @return the index, or {@code count()} if finished
+     */
+    public int getCurrentIndex() {
+        return currIndex;
+    }
+
+    /**
+     * Gets the subsystems this sequence's items require, OR'd together.
+     * Two sequences can run at the same time if their requirements don't overlap.
+     * @return the requirements
+     *
+     * @see RequiresSubsystems
+     * @see SequenceExecutor
+     */
+    public int getRequirements() {
+        int requirements = RequiresSubsystems.NONE;
+        for (int i = 0; i < size; i++)
+            requirements |= requirementsOf(sequenced[i]);
+        return requirements;
+    }
+
+    /**
+     * Gets the subsystems an item requires.
+     * @return the requirements, or {@code NONE} if the item doesn't declare any
+     */
+    static int requirementsOf(SequencedItem item) {
+        return item instanceof RequiresSubsystems ? ((RequiresSubsystems)item).getRequirements() : RequiresSubsystems.NONE;
+    }
+
+    /**
+     * Gets the subsystems some items require, OR'd together.
+     */
+    static int requirementsOf(SequencedItem[] items) {
+        int requirements = RequiresSubsystems.NONE;
+        for (int i = 0; i < items.length; i++)
+            requirements |= requirementsOf(items[i]);
+        return requirements;
     }
 
     /**
@@ -125,7 +201,11 @@ public class Sequencer {
      * @see SequencedItem
      */
     public Sequencer clear() {
-        sequenced.removeAllElements();
+        for (int i = 0; i < size; i++) {
+            sequenced[i] = null;
+            lifecycles[i] = null;
+        }
+        size = 0;
         return this;
     }
 
@@ -134,52 +214,121 @@ public class Sequencer {
      */
     private void start() {
         started = true;
-        startTime = System.currentTimeMillis();
+        startTime = RobotClock.nanoTime();
         currIndex = 0;
-        currIndexStartTime = startTime;
+        startItem(startTime);
+    }
+
+    /**
+     * Marks the current item as starting at the specified time.
+     * Its deadline is computed when it's next checked.
+     */
+    private void startItem(long time) {
+        currIndexStartTime = time;
+        currDuration = Double.NaN;
+        currItemRun = false;
+    }
+
+    /**
+     * Gets whether the current item has timed out, recomputing its deadline
+     * if it reports a new timeout.
+     * @param orAt whether a deadline of exactly now counts as timed out
+     */
+    private boolean expired(ItemLifecycle item, long currTime, boolean orAt) {
+        // the deadline only needs recomputing when the item reports a new timeout
+        final double duration = item.timeout();
+        if (duration != currDuration) {
+            currDuration = duration;
+            currDeadline = currIndexStartTime + (duration >= MAX_DURATION_SECONDS ? 
+                    NEVER_NANOS : (long)(duration * 1e9));
+        }
+        final long overrun = currTime - currDeadline;
+        return overrun > 0 || (orAt && overrun == 0);
     }
 
     /**
-     * Runs the sequenced items in order according to their durations.
+     * Runs the sequenced items in order according to their lifecycles.
      * This does not need to be run in a precise interval, but it should be run
-     * frequently enough for maximum timing accuracy.
+     * frequently enough for maximum timing accuracy. <p>
+     * 
+     * Each item is initialized on its first tick and executed every tick until it
+     * finishes or times out, then ended. Timing out is a normal end, not an interruption. Plain {@code SequencedItem}s time out after
+     * their {@code duration()}. The next item starts in the same call, so a chain of
+     * {@code InstantItem}s, or of items which finish on their first tick, takes a single call.
      *
-     * @see SequencedItem
+     * @see ItemLifecycle
+     * @see InstantItem
      * @return {@code true} when finished, otherwise {@code false}.
      */
     public boolean run() {
         if (!started) start();
 
-        if (currIndex >= sequenced.size())
-            return true; // finished
+        final long currTime = RobotClock.nanoTime();
+
+        while (currIndex < size) {
+            final ItemLifecycle currItem = lifecycles[currIndex];
 
-        final long currTime = System.currentTimeMillis();
-        final SequencedItem currItem = (SequencedItem)sequenced.elementAt(currIndex);
-        final long currIndexTime = currTime - currIndexStartTime;
+            if (!currItemRun) {
+                currItem.initialize();
+            } else if (expired(currItem, currTime, false)) {
+                // timed out since the last tick, continue to next
+                currItem.end(false);
+                next(currTime);
+                continue;
+            }
 
-        // check if time is greater than duration (convert to ms from s)
-        if (currIndexTime > (long)(currItem.duration()*1000)) {
-            // current duration exceeded, continue to next
-            currIndex++;
-            currIndexStartTime = currTime;
+            currItem.execute();
+            currItemRun = true;
 
-            if (currIndex >= sequenced.size())
-                return true; // finished
+            // done already, so don't spend a loop waiting to find out
+            if (currItem.isFinished()) {
+                currItem.end(false);
+                next(currTime);
+                continue;
+            }
+            if (expired(currItem, currTime, true)) {
+                currItem.end(false);
+                next(currTime);
+                continue;
+            }
 
-            // execute next
-            ((SequencedItem)sequenced.elementAt(currIndex)).run();
+            return false;
         }
-        else 
-            currItem.run();
-        
-        return false;
+
+        return true; // finished
+    }
+
+    private void next(long currTime) {
+        currIndex++;
+        startItem(currTime);
+    }
+
+    /**
+     * Cancels the run. The item being run is ended with {@code end(true)} in this call,
+     * which in turn cancels whatever it is running itself, so groups and inner sequences
+     * clean up all the way down. The remaining items are skipped, and {@code run()}
+     * returns {@code true} until the sequence is {@code reset()}. Does nothing to a
+     * sequence which has finished.
+     * @return {@code true} if an item was ended
+     */
+    public boolean cancel() {
+        boolean ended = false;
+        if (started && currIndex < size && currItemRun) {
+            lifecycles[currIndex].end(true);
+            ended = true;
+        }
+        started = true;
+        currIndex = size;
+        return ended;
     }
 
     /**
      * Resets the currently executing sequence so that this {@code Sequencer}
-     * starts executing at the first {@code SequencedItem}.
+     * starts executing at the first {@code SequencedItem}. An item still running
+     * is cancelled first, so it's ended with {@code end(true)}.
      */
     public void reset() {
+        cancel();
         start();
     }
 
@@ -188,7 +337,7 @@ public class Sequencer {
      * @return the time, in seconds
      */
     public double elapsedTime() {
-        return (System.currentTimeMillis() - startTime) / 1000.0;
+        return (RobotClock.nanoTime() - startTime) / 1e9;
     }
 
     /**
@@ -197,8 +346,24 @@ public class Sequencer {
      * @return A reference to this {@code Sequencer} for method chaining.
      */
     public Sequencer auto(boolean enabled) {
-        if (enabled) if (!sequencers.contains(this)) sequencers.addElement(this);
-        else sequencers.removeElement(this);
+        synchronized (Sequencer.class) {
+            final Sequencer[] current = sequencers;
+            int index = -1;
+            for (int i = 0; i < current.length; i++)
+                if (current[i] == this) index = i;
+
+            if (enabled && index < 0) {
+                Sequencer[] added = new Sequencer[current.length + 1];
+                System.arraycopy(current, 0, added, 0, current.length);
+                added[current.length] = this;
+                sequencers = added;
+            } else if (!enabled && index >= 0) {
+                Sequencer[] removed = new Sequencer[current.length - 1];
+                System.arraycopy(current, 0, removed, 0, index);
+                System.arraycopy(current, index + 1, removed, index, current.length - index - 1);
+                sequencers = removed;
+            }
+        }
         return this;
     }
 
@@ -216,9 +381,8 @@ public class Sequencer {
      * Use this instead of {@code run()}ning each {@code Sequencer} individually.
      */
     public static void runAll() {
-        for (int i = 0; i < sequencers.size(); i++) {
-            Object e = sequencers.elementAt(i);
-            if (e != null) ((Sequencer)e).run();
-        }
+        final Sequencer[] all = sequencers;
+        for (int i = 0; i < all.length; i++)
+            all[i].run();
     }
 }
@@ -25,8 +25,22 @@ public class SequencerFactory {
 			THREE_TOTE = 3,
 			DO_NOTHING = 4;
 	
+	/**
+	 * Solenoid items are instant, so nothing waits for the solenoid to move. Sequences pause for this long
+	 * after one when the next step needs it finished, such as gripping before a lift.
+	 */
+	private static final double PNEUMATIC_ACTUATION_TIME = 0.1;
+	
 			
 	public static Sequencer createAuto(int autoType) {
+		return createAuto(autoType, Robot.getAutoWallSonicOffset());
+	}
+
+	/**
+	 * @param autoType one of the auto types above
+	 * @param offsetToWall the ultrasonic sensor's distance to the wall at the start of auto, in inches
+	 */
+	public static Sequencer createAuto(int autoType, double offsetToWall) {
 
 		switch (autoType) {
 		
@@ -47,6 +61,7 @@ public class SequencerFactory {
 						new OpenClapper(), 
 						new SetClawPID(Claw.kP_LOCK_POSITION_IN_PLACE, Robot.claw.getI(), Robot.claw.getD()),
 						new CloseClaw(),
+						new SequencedPause(PNEUMATIC_ACTUATION_TIME),
 						new MoveClawVertically(Claw.ONE_AND_TWO_TOTE_RESTING_POS),
 						new MoveClawConstantSpeed(0), 
 						new RotateToAngle(-90),
@@ -61,7 +76,7 @@ public class SequencerFactory {
 				return new Sequencer(new SequencedItem[] {
 						new DriveAtSetSpeed(-0.4, 0.03),
 						new CommandeerContainerSequence(CommandeerContainerSequence.BOTH),
-						new SequencedPause(.05),
+						new SequencedPause(PNEUMATIC_ACTUATION_TIME + .05), // keep backing up while the arms deploy
 						new DriveAtSetSpeed(0, 0.03),
 						new SequencedPause(.85), 
 						new CommandeerContainerSequence(CommandeerContainerSequence.RETRACT_BOTH),
@@ -77,13 +92,13 @@ public class SequencerFactory {
 			case THREE_TOTE: 
 				double MIN_TIME_BETWEEN_MOVEMENT_TYPES = .05;
 				double ANGLE_TO_ROTATE_AT_END = -80;
-				double offsetToWall = Robot.getAutoWallSonicOffset();
 				return new Sequencer(new SequencedItem[] {
 						
 						//Lift tote and drive around container dance...starts here...
 						new SequencedMultipleItem(
 								new CloseClapper(),
-								new DropCenterWheel(true)
+								new DropCenterWheel(true),
+								new SequencedPause(PNEUMATIC_ACTUATION_TIME)
 							),
 						new StrafeTo(offsetToWall + 25, 1.45, 0), 
 						new SequencedMultipleItem(
@@ -125,7 +140,7 @@ public class SequencerFactory {
 						new RunRollers(0),
 							
 						//Lift tote and drive around container dance again. 
-						new StrafeTo(Robot.getAutoWallSonicOffset() + 25, 1.35, 0),  
+						new StrafeTo(offsetToWall + 25, 1.35, 0),  
 						new SequencedMultipleItem( 
 								new ResetLastStrafeValue(),
 								new DisableStrafePID(),
@@ -142,7 +157,7 @@ public class SequencerFactory {
 								new SequencedPause(MIN_TIME_BETWEEN_MOVEMENT_TYPES)
 							),	
 						new SequencedMultipleItem(
-								new StrafeTo(Robot.getAutoWallSonicOffset() + 8, 1.0, 0), //center up...non-zero # is to compensate for error
+								new StrafeTo(offsetToWall + 8, 1.0, 0), //center up...non-zero # is to compensate for error
 								new InnerSequencer(createAutoToteLiftRoutinePartTwo())
 							),
 						//now drive up to the next tote, clappers open, rollers running
@@ -172,7 +187,7 @@ public class SequencerFactory {
 						new DisableDriveStraightPID(),
 						new RotateToAngle(ANGLE_TO_ROTATE_AT_END, 1.25),
 						new ResetDriveEncoders(),
-						new DriveBackAndDropTotesForAuto(-1, 3), //encoderes were returning a positive error; proof of concept here is solid. 
+						new DriveBackAndDropTotesForAuto(-1, 3, 3), //encoderes were returning a positive error; proof of concept here is solid. 
 						new RunRollers(0), 
 						new DriveAtSetSpeed(-.3, .03), 
 						new SequencedPause(.25), 
@@ -192,6 +207,7 @@ public class SequencerFactory {
 						new ExtendRatchet(), 
 						new RunRollers(0.6),
 						new IncrementToteCount(),
+						new SequencedPause(PNEUMATIC_ACTUATION_TIME),
 						new RunRollers(0),
 						new SetClapperPIDByToteCount(),
 						new SetClawPID(Claw.kP_LOCK_POSITION_IN_PLACE, Robot.claw.getI(), Robot.claw.getD()),
@@ -223,7 +239,8 @@ public class SequencerFactory {
 							new CloseClapper(),
 							new ExtendRatchet(), 
 							new RunRollers(0.6),
-							new IncrementToteCount()
+							new IncrementToteCount(),
+							new SequencedPause(PNEUMATIC_ACTUATION_TIME)
 						),
 						new RunRollers(0),
 						new SetClapperPIDByToteCount(),
@@ -294,6 +311,7 @@ public class SequencerFactory {
 							new SetClawPID(Claw.kP_LOCK_POSITION_IN_PLACE, Robot.claw.getI(), Robot.claw.getD()),
 							new CloseClapper(),
 							new RetractRatchet(),
+							new SequencedPause(PNEUMATIC_ACTUATION_TIME),
 							new SetClapperPIDByToteCount(),
 							new SequencedMultipleItem(
 									new MoveClapperVertically(
@@ -303,6 +321,7 @@ public class SequencerFactory {
 									),
 							new SequencedPause(.25), 
 							new OpenClaw(), 
+							new SequencedPause(PNEUMATIC_ACTUATION_TIME),
 							new SequencedMultipleItem(
 									new MoveClapperVertically(Clapper.LOADING_SETPOINT),
 									new MoveClawVertically(clawSetpoint)
@@ -322,6 +341,7 @@ public class SequencerFactory {
 							new MoveClapperVertically(Clapper.HOLDING_TOTE_SETPOINT)
 						),
 					new CloseClapper(),
+					new SequencedPause(PNEUMATIC_ACTUATION_TIME),
 					new SequencedMultipleItem(
 							new MoveClapperVerticallyForToteDrop(Clapper.ABOVE_RATCHET_SETPOINT + 20),
 							new MoveClawVertically(Claw.HIGHEST_POS - Claw.POTS_PER_INCH * .5
@@ -329,6 +349,7 @@ public class SequencerFactory {
 								),					
 					new RetractRatchet(),
 					new OpenClaw(),
+					new SequencedPause(PNEUMATIC_ACTUATION_TIME),
 					new SequencedMultipleItem(
 							new MoveClapperVertically(Clapper.LOADING_SETPOINT), 
 							new MoveClawVertically(clawSetpoint)),
@@ -363,6 +384,7 @@ public class SequencerFactory {
 		
 		return new Sequencer(new SequencedItem[] {
 				new RetractRatchet(),
+				new SequencedPause(PNEUMATIC_ACTUATION_TIME),
 				new SequencedMultipleItem(
 						new MoveClapperVertically(clapperSetpoint),
 						new MoveClawVertically(Claw.HIGHEST_POS - 10)
@@ -457,9 +479,10 @@ public class SequencerFactory {
 				new MoveClawVertically(Claw.CONTAINER_ADJUSTMANT_POS),
 				new SequencedPause(.25), 
 				new OpenClaw(), 
+				new SequencedPause(PNEUMATIC_ACTUATION_TIME),
 				new MoveClawVertically(Claw.TWO_TOTE_PLACEMENT_POS), 
 				new CloseClaw(),
-				new SequencedPause(.05),
+				new SequencedPause(PNEUMATIC_ACTUATION_TIME),
 				new MoveClawVertically(Claw.TWO_TOTE_PLACEMENT_POS + Claw.POTS_PER_INCH * 4),
 				new SequencedPause(.05),
 				new MoveClawVertically(Claw.TWO_TOTE_PLACEMENT_POS + Claw.POTS_PER_INCH * 1)
@@ -478,6 +501,7 @@ public class SequencerFactory {
 				new OpenClapper(), 
 				new CloseClaw(),
 				new RetractRatchet(), 
+				new SequencedPause(PNEUMATIC_ACTUATION_TIME),
 				new SetClawPID(Claw.kP_STANDARD, Robot.claw.getI(), Robot.claw.getD()),		
 				new SequencedMultipleItem(						
 						new MoveClawVertically(Claw.LOWEST_POS + 5),
@@ -1,6 +1,13 @@
 package org.usfirst.frc.team2485.robot;
 
+import java.io.File;
+
+import org.usfirst.frc.com.kauailabs.nav6.frc.IMU;
 import org.usfirst.frc.com.kauailabs.nav6.frc.IMUAdvanced;
+import org.usfirst.frc.com.kauailabs.nav6.frc.IMUGyroStream;
+import org.usfirst.frc.team2485.auto.AutoPlanCache;
+import org.usfirst.frc.team2485.auto.RequiresSubsystems;
+import org.usfirst.frc.team2485.auto.SequenceExecutor;
 import org.usfirst.frc.team2485.auto.Sequencer;
 import org.usfirst.frc.team2485.auto.SequencerFactory;
 import org.usfirst.frc.team2485.subsystems.*;
@@ -9,7 +16,6 @@ import org.usfirst.frc.team2485.util.*;
 import edu.wpi.first.wpilibj.*; 
 import edu.wpi.first.wpilibj.Ultrasonic.Unit;
 import edu.wpi.first.wpilibj.livewindow.LiveWindow;
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 
 /**
  * @author Anoushka Bose
@@ -49,7 +55,9 @@ public class Robot extends IterativeRobot {
 	// Sensors
 	private Encoder leftEnc, rightEnc, centerEnc;
 
-	private IMUAdvanced imu;
+	private IMU imu;
+	// Integrate the raw gyro stream on the roboRIO instead of using the nav6's fused yaw
+	private static final boolean USE_IMU_GYRO_STREAM = false;
 
 	private DigitalInput clapperSafetyLimitSwitch;
 	private DigitalInput toteDetectorLimitSwitch;
@@ -61,20 +69,37 @@ public class Robot extends IterativeRobot {
 	private AnalogPotentiometer clapperPot;
 	private AnalogPotentiometer clawPot;
 
-	// Tote Count
-	private long timeLastToteCountProcessed;
-	private long BUTTON_MULTIPLE_CLICK_MIN_DELAY = 250;
-	
 	// Coopertition
-	private long timeLastDecreaseCoopStackProcessed;
-	private long timeLastIncreaseCoopStackProcessed;
 	private int numberOfTotesOnStep = 0;
 
 	// Sequences && Auto
-	private Sequencer autoSequence, currTeleopSequence, adjustContainerSequence;
+	private Sequencer autoSequence;
+	// teleop routines run side by side unless they need the same subsystems
+	private final SequenceExecutor teleopSequences = new SequenceExecutor();
+	private final AutoPlanCache autoPlans = new AutoPlanCache();
 	
 	private static double AUTO_WALL_SONIC_OFFSET; 
 
+	// Loop profiling
+	private static final int 
+		PHASE_INPUT 		= 0, 
+		PHASE_DRIVE 		= 1, 
+		PHASE_OPERATOR 		= 2, 
+		PHASE_SUBSYSTEMS 	= 3, 
+		PHASE_SEQUENCES 	= 4, 
+		PHASE_DASHBOARD 	= 5;
+	private static final String[] LOOP_PHASES = { "Input", "Drive", "Operator", "Subsystems", "Sequences", "Dashboard" };
+	private static final double LOOP_BUDGET = 0.02; // driver station packets arrive every 20 ms
+	private static final double LOOP_PROFILE_PERIOD = 1.0;
+	private final LoopProfiler loopProfiler = new LoopProfiler(LOOP_PHASES, LOOP_BUDGET);
+	private double lastLoopProfilePublish;
+	
+	private static final EventLog.Site
+		LOG_KILL 			= EventLog.site("Killing all the things", 1.0),
+		LOG_STALE_SEQUENCE 	= EventLog.site("{} teleop sequences still running in disabledPeriodic"),
+		LOG_AUTO_BUILT 		= EventLog.site("Built auto for wall offset {} in {} ms"),
+		LOG_OVERRUN 		= EventLog.site("Loop overrun: {} ms, {} overruns so far", 1.0);
+
 	// Data
 	private double curPos, lastPos;
 	private static double currVelocity;
@@ -84,9 +109,28 @@ public class Robot extends IterativeRobot {
 
 	// Other needed variables
 	private Relay compressorSpike;
+	private ControlLoopScheduler controlLoopScheduler;
+	
+	// Telemetry
+	private static final String[] TELEMETRY_CHANNELS = {
+		"Drive Distance", "Drive Rate", "Ultrasonic", "Yaw", "Roll", 
+		"Clapper Pot", "Claw Pot", "Clapper Error", "Clapper Output", "Claw Error", "Claw Output", 
+		"Drive Straight Error", "Drive Straight Output", "IMU PID Error", "IMU PID Output", 
+		"Sonic Strafe Error", "Strongback Error", "Tote Count", "Auto Sequence Index", "Teleop Sequence Index", 
+		"Pose X", "Pose Y", "Ultrasonic Raw", "Ultrasonic Confidence"
+	};
+	private static final int TELEMETRY_FRAMES_PER_FILE = 3000; // one minute of periodic loops
+	private static final int TELEMETRY_FILES_KEPT = 20;
+	private TelemetryRecorder telemetry;
+	private final float[] telemetryFrame = new float[TELEMETRY_CHANNELS.length];
+	private final Pose telemetryPose = new Pose();
+	private DashboardPublisher dashboard;
 
 	public void robotInit() {
 
+		 // before anything starts timing, so every timestamp comes from the FPGA clock
+		 RobotClock.setSource(RobotClock.FPGA);
+
 		 leftDrive 			= new CombinedSpeedController(new VictorSP(14), new VictorSP(15));
 		 rightDrive 		= new CombinedSpeedController(new VictorSP(0), new VictorSP(1));
 		 centerDrive 		= new CombinedSpeedController(new VictorSP(11), new VictorSP(7)); 
@@ -117,9 +161,13 @@ public class Robot extends IterativeRobot {
 			 centerEnc.setDistancePerPulse(0.03066181);
 
 		 try {
-			byte update_rate_hz = 50;
 			SerialPort sp = new SerialPort(57600, SerialPort.Port.kUSB);
-			imu = new IMUAdvanced(sp, update_rate_hz);
+			if (USE_IMU_GYRO_STREAM) {
+				imu = new IMUGyroStream(sp); 
+			} else {
+				byte update_rate_hz = 50;
+				imu = new IMUAdvanced(sp, update_rate_hz);
+			}
 		} catch (Exception ex) {
 			System.out.println("imu failed to init");
 			ex.printStackTrace();
@@ -150,14 +198,26 @@ public class Robot extends IterativeRobot {
 									toteDetectorLimitSwitch, clapperSafetyLimitSwitch);
 		claw	 				= new Claw(clawMotor, clawSolenoid, clawPot);
 		rollers 				= new Rollers(leftRoller, rightRoller);
-		strongback				= new Strongback(strongbackMotor, imu);
+		strongback				= new Strongback(strongbackMotor, imu, drive.getDualEncoder());
 		ratchet 				= new RatchetSystem(ratchetLatchActuator);
 		containerCommandeerer 	= new ContainerCommandeerer(commandeererSolenoidLeft, commandeererSolenoidRight);
 		toteCounter 			= new ToteCounter();
 		
 		drive.setImu(imu);
+		
+		// all subsystem PIDs run together on one thread, in this order
+		controlLoopScheduler = new ControlLoopScheduler(); 
+		drive.registerControlLoops(controlLoopScheduler);
+		clapper.registerControlLoops(controlLoopScheduler);
+		claw.registerControlLoops(controlLoopScheduler);
+		strongback.registerControlLoops(controlLoopScheduler);
+		controlLoopScheduler.start();
+		
+		telemetry = new TelemetryRecorder(new File("/home/lvuser/telemetry"), "telemetry-" + System.currentTimeMillis(), 
+				TELEMETRY_CHANNELS, TELEMETRY_FRAMES_PER_FILE, TELEMETRY_FILES_KEPT);
+		dashboard = new DashboardPublisher();
 
-		Controllers.set(new Joystick(0), new Joystick(1), new Joystick(2), new Joystick(3));
+		Controllers.set(0, 1, 2, 3);
 
 		System.out.println("initialized");
 	}
@@ -169,31 +229,49 @@ public class Robot extends IterativeRobot {
 		imu.zeroYaw();
 		drive.resetEncoders();
 		
+		// normally built while disabled; only built here if auto starts without a disabled loop first
+		int autonomousType = chooseAutoType();
+		autoSequence = autoPlans.take(autonomousType, AUTO_WALL_SONIC_OFFSET);
+	}
+
+	/**
+	 * Picks the auto mode and the wall offset for it, from the sonic sensor's current reading.
+	 * @return the auto type to run
+	 */
+	private int chooseAutoType() {
+		
 //		 int autonomousType = (int) SmartDashboard.getNumber("autoMode", SequencerFactory.DRIVE_TO_AUTO_ZONE);
 		 int autonomousType = SequencerFactory.CONTAINER_STEAL;
 //		 int autonomousType = SequencerFactory.ONE_CONTAINER;
 		
-		 
 		//---3 tote auto and sonic sensor checks---// 
-		AUTO_WALL_SONIC_OFFSET = Robot.getAutoWallSonicOffset(); 
+		AUTO_WALL_SONIC_OFFSET = drive.getUltrasonicDistance(); 
+		boolean sonicTrusted = drive.getUltrasonicConfidence() >= DriveTrain.MIN_SONIC_CONFIDENCE && 
+				Math.abs(AUTO_WALL_SONIC_OFFSET - 30) <= 10;
 		
-		if (Math.abs(AUTO_WALL_SONIC_OFFSET - 30) > 10 && autonomousType == SequencerFactory.THREE_TOTE) // if Sonic's value is bad
+		if (!sonicTrusted && autonomousType == SequencerFactory.THREE_TOTE) { // if Sonic's value is bad
 			autonomousType = SequencerFactory.DO_NOTHING; 
 			AUTO_WALL_SONIC_OFFSET = 32;
+		}
 		
-		if (AUTO_WALL_SONIC_OFFSET < 1)
+		if (Double.isNaN(AUTO_WALL_SONIC_OFFSET) || AUTO_WALL_SONIC_OFFSET < 1) // no reading yet
 			AUTO_WALL_SONIC_OFFSET = 30;
 		
-		autoSequence = SequencerFactory.createAuto(autonomousType);
+		return autonomousType;
 	}
 
 	public void autonomousPeriodic() {
 
+		loopProfiler.startLoop();
+		
 		if (autoSequence != null) 
 			if (autoSequence.run()) 
 				autoSequence = null;
+		loopProfiler.mark(PHASE_SEQUENCES);
 		
 		updateDashboard();
+		loopProfiler.mark(PHASE_DASHBOARD);
+		endLoopProfile();
 	}
 
 	public void teleopInit() {
@@ -202,11 +280,16 @@ public class Robot extends IterativeRobot {
 		strongback.setSetpoint(Strongback.STANDARD_SETPOINT);
 		containerCommandeerer.resetSol();
 		
-		currTeleopSequence = null; 
+		teleopSequences.cancelAll();
 	}
 
 	public void teleopPeriodic() {
     
+		loopProfiler.startLoop();
+		
+		Controllers.update();
+		loopProfiler.mark(PHASE_INPUT);
+		
 		/*
 		 * Drive train controls
 		 */
@@ -234,6 +317,7 @@ public class Robot extends IterativeRobot {
         		Controllers.getDriverLeftJoystickAxis(Controllers.JOYSTICK_AXIS_X, 0),
 				Controllers.getDriverLeftJoystickAxis(Controllers.JOYSTICK_AXIS_Y, 0),
     			Controllers.getDriverRightJoystickAxis(Controllers.JOYSTICK_AXIS_Z, 0));
+        loopProfiler.mark(PHASE_DRIVE);
 
        	/*
        	 * Rollers Controls
@@ -252,45 +336,27 @@ public class Robot extends IterativeRobot {
 		/*
 		 * Tote counter logic
 		 */
-    	long currTime = System.currentTimeMillis();
-    	
-    	if (Controllers.getOperatorLeftJoystickButton(9) && 
-    			currTime - timeLastToteCountProcessed > BUTTON_MULTIPLE_CLICK_MIN_DELAY) {
+    	if (Controllers.getOperatorLeftJoystickButtonPressed(9))
     		toteCounter.addTote(); 
-    		timeLastToteCountProcessed = currTime;
-    	}
-    	if (Controllers.getOperatorLeftJoystickButton(11) &&
-    			currTime - timeLastToteCountProcessed > BUTTON_MULTIPLE_CLICK_MIN_DELAY) {
+    	if (Controllers.getOperatorLeftJoystickButtonPressed(11))
     		toteCounter.subtractTote();
-    		timeLastToteCountProcessed = currTime;
-    	}
     	if (Controllers.getOperatorLeftJoystickButton(7))
     		toteCounter.resetCount(); 
     	
     	/*
     	 * Coopertition logic
     	 */
-    	if (Controllers.getOperatorLeftJoystickButton(5) &&
-    			currTime - timeLastDecreaseCoopStackProcessed > BUTTON_MULTIPLE_CLICK_MIN_DELAY &&
-    			numberOfTotesOnStep > 0) {
+    	if (Controllers.getOperatorLeftJoystickButtonPressed(5) && numberOfTotesOnStep > 0)
     		numberOfTotesOnStep--;
-    		timeLastDecreaseCoopStackProcessed = currTime;
-    	}
     	
-    	if (Controllers.getOperatorLeftJoystickButton(6) &&
-    			currTime - timeLastIncreaseCoopStackProcessed > BUTTON_MULTIPLE_CLICK_MIN_DELAY &&
-    			numberOfTotesOnStep < 2) {
+    	if (Controllers.getOperatorLeftJoystickButtonPressed(6) && numberOfTotesOnStep < 2)
     		numberOfTotesOnStep++;
-    		timeLastIncreaseCoopStackProcessed = currTime;
-    	}
     	
-    	if (Controllers.getOperatorLeftJoystickButton(2) && currTeleopSequence == null) {
-    		currTeleopSequence = SequencerFactory.createPrepareCoopertitionStack(numberOfTotesOnStep);
-    	}
+    	if (Controllers.getOperatorLeftJoystickButtonPressed(2))
+    		teleopSequences.schedule(SequencerFactory.createPrepareCoopertitionStack(numberOfTotesOnStep));
     	
-    	if (Controllers.getOperatorLeftJoystickButton(8) && currTeleopSequence == null) {
-    		currTeleopSequence = SequencerFactory.createCoopertitionStackRoutine();
-    	}
+    	if (Controllers.getOperatorLeftJoystickButtonPressed(8))
+    		teleopSequences.schedule(SequencerFactory.createCoopertitionStackRoutine());
     	
         /*
          * Clapper and intake sequence controls
@@ -302,21 +368,21 @@ public class Robot extends IterativeRobot {
     		
        	clapper.updateToteCount(toteCounter.getCount());
        	
-       	if (Controllers.getOperatorLeftJoystickButton(1) && currTeleopSequence == null && toteCounter.getCount() < 5) 
-       		currTeleopSequence = SequencerFactory.createToteLiftRoutine(); 	
+       	if (Controllers.getOperatorLeftJoystickButtonPressed(1) && toteCounter.getCount() < 5) 
+       		teleopSequences.schedule(SequencerFactory.createToteLiftRoutine());
        	if (Controllers.getOperatorLeftJoystickButton(3) || Controllers.getDriverRightJoystickButton(5))
        		clapper.openClapper();
        	if (Controllers.getOperatorLeftJoystickButton(4) || Controllers.getDriverRightJoystickButton(6))
        		clapper.closeClapper();
        	
-       	if (Controllers.getOperatorRightJoystickButton(5) && currTeleopSequence == null)
-       		currTeleopSequence = SequencerFactory.createContainerRightingRoutine(); 
+       	if (Controllers.getOperatorRightJoystickButtonPressed(5))
+       		teleopSequences.schedule(SequencerFactory.createContainerRightingRoutine());
        	
        	if (Controllers.getOperatorLeftJoystickButton(5)) 
        		clapper.setSetpoint(Clapper.RIGHTING_CONTAINER_PRE_POS);
        	
-       	if (Controllers.getOperatorRightJoystickButton(8) && currTeleopSequence == null)
-       		currTeleopSequence = SequencerFactory.createPrepareForContainerRightingRoutine();
+       	if (Controllers.getOperatorRightJoystickButtonPressed(8))
+       		teleopSequences.schedule(SequencerFactory.createPrepareForContainerRightingRoutine());
        	
        	
        	/*
@@ -337,17 +403,14 @@ public class Robot extends IterativeRobot {
     		claw.setSetpoint(claw.getPotValue());
        	}
        	
-       	if (Controllers.getOperatorRightJoystickButton(1) && currTeleopSequence == null)
-       		currTeleopSequence = SequencerFactory.createContainerPickupRoutine();
-       	
-       	if (Controllers.getOperatorRightJoystickButton(2) && currTeleopSequence == null)
-       		currTeleopSequence = SequencerFactory.createPrepareForContainerLiftRoutine();
+       	if (Controllers.getOperatorRightJoystickButtonPressed(1))
+       		teleopSequences.schedule(SequencerFactory.createContainerPickupRoutine());
        	
-       	if (Controllers.getOperatorRightJoystickButton(6) && adjustContainerSequence == null)
-       		adjustContainerSequence = SequencerFactory.createAdjustClawOnContainerRoutine(); 
+       	if (Controllers.getOperatorRightJoystickButtonPressed(2))
+       		teleopSequences.schedule(SequencerFactory.createPrepareForContainerLiftRoutine());
        	
-       	if (Controllers.getOperatorRightJoystickButton(5) && currTeleopSequence == null) 
-       		currTeleopSequence = SequencerFactory.createContainerRightingRoutine();
+       	if (Controllers.getOperatorRightJoystickButtonPressed(6))
+       		teleopSequences.schedule(SequencerFactory.createAdjustClawOnContainerRoutine());
        	
     	if (Controllers.getOperatorRightJoystickButton(3))
        		claw.open();
@@ -361,11 +424,12 @@ public class Robot extends IterativeRobot {
        	else 
        		strongbackMotor.set(0);
        	
-       	if (Controllers.getOperatorRightJoystickButton(12) && currTeleopSequence == null) 
-       		currTeleopSequence = SequencerFactory.createDropToteStackRoutine(true); // totes on the ratchet and one underneath
+       	if (Controllers.getOperatorRightJoystickButtonPressed(12)) 
+       		teleopSequences.schedule(SequencerFactory.createDropToteStackRoutine(true)); // totes on the ratchet and one underneath
 
-       	if (Controllers.getOperatorRightJoystickButton(11) && currTeleopSequence == null) 
-       		currTeleopSequence = SequencerFactory.createDropToteStackRoutine(false); // only totes on the ratchet
+       	if (Controllers.getOperatorRightJoystickButtonPressed(11)) 
+       		teleopSequences.schedule(SequencerFactory.createDropToteStackRoutine(false)); // only totes on the ratchet
+       	loopProfiler.mark(PHASE_OPERATOR);
        	
        	/*
        	 * Safety section and periodic updates. For example, the claw PID uses a fake speed controller
@@ -375,31 +439,26 @@ public class Robot extends IterativeRobot {
        	
    		if ((Controllers.getOperatorLeftJoystickAxis(Controllers.JOYSTICK_AXIS_THROTTLE) > 0) ||
    				Controllers.getOperatorRightJoystickAxis(Controllers.JOYSTICK_AXIS_THROTTLE) > 0) {
-   			if (currTeleopSequence != null) {
-   				currTeleopSequence.clear();
-   				currTeleopSequence = null;
-   			}
-   			System.out.println("Killing all the things");
+   			int held = teleopSequences.getRequirements();
+   			teleopSequences.cancelAll();
+   			stopOutputs(held);
+   			LOG_KILL.log();
    		}
 	
        	claw.updateWinchPeriodic();
     	clapper.updateLastHeight();     	
     	strongback.checkSafety();
+    	loopProfiler.mark(PHASE_SUBSYSTEMS);
     	
     	/*
-    	 * Run the current sequence if there is one...null it when done.
+    	 * Run the teleop sequences, which drops them when they're done.
     	 */
-    	if (currTeleopSequence != null) 
-    		if (currTeleopSequence.run())
-    			currTeleopSequence = null;
-    	
-    	
-    	if (adjustContainerSequence != null) 
-    		if (adjustContainerSequence.run())
-    			adjustContainerSequence = null;
+    	teleopSequences.run();
+    	loopProfiler.mark(PHASE_SEQUENCES);
     	
     	updateDashboard();
-	
+    	loopProfiler.mark(PHASE_DASHBOARD);
+    	endLoopProfile();
 	}
 
 	public void disabledInit() {
@@ -408,13 +467,25 @@ public class Robot extends IterativeRobot {
 
 	public void disabledPeriodic() {
 
-		if (currTeleopSequence != null) {
-			System.out.println("teleopSequence not null in disabledPeriodic");
-			currTeleopSequence.clear();
-			currTeleopSequence = null;
-		}
+		loopProfiler.startLoop();
+		
+		// keep the snapshot current, so teleop's first loop doesn't see stale presses
+		Controllers.update();
+		loopProfiler.mark(PHASE_INPUT);
+		
+		if (teleopSequences.getRunningCount() > 0)
+			LOG_STALE_SEQUENCE.log(teleopSequences.cancelAll());
+		
+		// build auto now, while nothing is on the clock
+		int buildCount = autoPlans.getBuildCount();
+		autoPlans.prepare(chooseAutoType(), AUTO_WALL_SONIC_OFFSET);
+		if (autoPlans.getBuildCount() != buildCount)
+			LOG_AUTO_BUILT.log(AUTO_WALL_SONIC_OFFSET, autoPlans.getLastBuildTime() * 1000);
+		loopProfiler.mark(PHASE_SEQUENCES);
 		
 		updateDashboard();
+		loopProfiler.mark(PHASE_DASHBOARD);
+		endLoopProfile();
 	}
 	
 	public void testInit() {
@@ -433,7 +504,11 @@ public class Robot extends IterativeRobot {
 
 	private void resetAndDisableSystems() {
 
-		currTeleopSequence = null;
+		if (autoSequence != null) {
+			autoSequence.cancel();
+			autoSequence = null;
+		}
+		teleopSequences.cancelAll();
 
 		drive.setMaintainHeading(false);
 		drive.dropCenterWheel(false);
@@ -457,6 +532,48 @@ public class Robot extends IterativeRobot {
 //		containerCommandeerer.resetSol();
 	}
 
+	/**
+	 * Stops the motors of the given subsystems. Cancelling a sequence stops whatever its current item
+	 * was driving; this also stops what earlier instant items left running, like the rollers. The 
+	 * strongback's PID is disabled and its setpoint set back to level, as when the robot is disabled, 
+	 * which undoes a <code>TiltStrongback</code>. <p>
+	 * 
+	 * <code>RATCHET</code> and <code>COMMANDEERER</code> are solenoids, which hold where they are and 
+	 * can't run away, so they're left alone: retracting the ratchet under a stack would drop it, and 
+	 * moving the commandeerer arms mid-steal would swing them into the container.
+	 * @param subsystems {@code RequiresSubsystems} bits, OR'd together
+	 */
+	public static void stopOutputs(int subsystems) {
+		if ((subsystems & RequiresSubsystems.DRIVE) != 0)
+			drive.stop();
+		if ((subsystems & RequiresSubsystems.CLAPPER) != 0)
+			clapper.stop();
+		if ((subsystems & RequiresSubsystems.CLAW) != 0)
+			claw.stop();
+		if ((subsystems & RequiresSubsystems.ROLLERS) != 0)
+			rollers.stop();
+		if ((subsystems & RequiresSubsystems.STRONGBACK) != 0) {
+			strongback.resetSetpoint();
+			strongback.disablePid();
+		}
+	}
+
+	/**
+	 * Ends the loop's profile, and publishes the profile once a second.
+	 */
+	private void endLoopProfile() {
+		if (loopProfiler.endLoop())
+			LOG_OVERRUN.log(loopProfiler.getLastOverrun() * 1000, loopProfiler.getTotalOverruns());
+		
+		double now = RobotClock.getTimestamp();
+		if (now - lastLoopProfilePublish >= LOOP_PROFILE_PERIOD) {
+			loopProfiler.publish(dashboard);
+			dashboard.putNumber("Log Dropped", EventLog.getDropped());
+			loopProfiler.reset();
+			lastLoopProfilePublish = now;
+		}
+	}
+
 	public static double getCurrVelocity() {
 		return currVelocity;
 	}
@@ -465,34 +582,46 @@ public class Robot extends IterativeRobot {
 		return AUTO_WALL_SONIC_OFFSET; 
 	}
 	
+	/**
+	 * Records a telemetry frame every loop, and updates the dashboard at the publisher's rate.
+	 */
 	public void updateDashboard() {
-		 SmartDashboard.putString("Clapper and Container",
+		
+		recordTelemetry();
+		
+		if (!dashboard.isDue())
+			return;
+		
+		dashboard.putString("Clapper and Container",
 		 clapper.getPercentHeight() + "," + (int)claw.getPotValue() + ","+
 		 claw.getPercentHeight()+ "," + (int)clapper.getPotValue() + "," + -1
 		 * strongback.getIMURoll());
 		// // SmartDashboard.putString("Clapper and Container",
 		// clapper.getPercentHeight() + ","+ claw.getPercentHeight() + "," +
 		// strongback.getIMURoll());
-		SmartDashboard.putNumber("IPS", (int) drive.getAbsoluteRate());
-		SmartDashboard.putNumber("Battery", DriverStation.getInstance()
+		dashboard.putNumber("IPS", (int) drive.getAbsoluteRate());
+		dashboard.putNumber("Battery", DriverStation.getInstance()
 				.getBatteryVoltage());
 //		SmartDashboard.putNumber("IMU PID Setpoint", drive.imuPID.getSetpoint());
-		SmartDashboard.putNumber("IMU PID Error", drive.imuPID.getError());
+		dashboard.putNumber("IMU PID Error", drive.getErrorFromImuPID());
 //		SmartDashboard.putNumber("IMU PID output", drive.imuPID.get());
 //		SmartDashboard.putNumber("IMU yaw", drive.imu.getYaw());
 		// SmartDashboard.putBoolean("Disabled",
 		// DriverStation.getInstance().isDisabled());
-		SmartDashboard.putNumber("Claw Pot", claw.getPotValue());
+		dashboard.putNumber("Claw Pot", claw.getPotValue());
 //		SmartDash`board.putNumber("CenterEncoderDistance", drive.getDistanceFromCenterEncoders());
 //		SmartDashboard.putNumber("Center encoder error", drive.getErrorFromStrafePID());
 //		SmartDashboard.putNumber("Encoder error", drive.getErrorFromDriveStraightPID());
 //		SmartDashboard.putNumber("Encoder distance reported", drive.getDistanceFromEncoders());
 		
 		// // System.out.println(claw.getPotValue());
-		SmartDashboard.putNumber("Clapper Pot", clapper.getPotValue());
-		SmartDashboard.putNumber("Tote Count", toteCounter.getCount());//HUGE!
+		dashboard.putNumber("Clapper Pot", clapper.getPotValue());
+		dashboard.putNumber("Tote Count", toteCounter.getCount());//HUGE!
 //		SmartDashboard.putNumber("Error from Claw", claw.getError()); 
-		SmartDashboard.putNumber("IMU Roll", imu.getRoll());
+		dashboard.putNumber("IMU Roll", imu.getRoll());
+		dashboard.putNumber("Control Loop Max Jitter", controlLoopScheduler.getMaxJitter());
+		dashboard.putNumber("Control Loop Overruns", controlLoopScheduler.getOverrunCount());
+		dashboard.putNumber("Telemetry Dropped Frames", telemetry.getDroppedFrames());
 		// SmartDashboard.putNumber("Claw kP", claw.getP());
 		// //SmartDashboard.putBoolean("Clapper is manual: ",
 		// clapper.isManual());
@@ -505,11 +634,49 @@ public class Robot extends IterativeRobot {
 		// clapper.toteDetected());
 		 
 //		SmartDashboard.putBoolean("Strongback enabled", strongback.isPIDEnabled());
-		SmartDashboard.putNumber("Step", numberOfTotesOnStep);
-		SmartDashboard.putNumber("Ultrasonic wrapper dist", drive.getUltrasonicDistance());
-		SmartDashboard.putNumber("Ultrasonic PID error", drive.sonicStrafePID.getError());
-		SmartDashboard.putNumber("Ultrasonic PID setpoint", drive.sonicStrafePID.getSetpoint());
+		dashboard.putNumber("Step", numberOfTotesOnStep);
+		dashboard.putNumber("Ultrasonic wrapper dist", drive.getUltrasonicDistance());
+		dashboard.putNumber("Ultrasonic PID error", drive.getErrorFromSonicStrafePID());
+		dashboard.putNumber("Ultrasonic PID setpoint", drive.getSonicStrafePIDSetpoint());
 //		System.out.println("Sonic: " + drive.getUltrasonicDistance());
 		
 	}
+	
+	/**
+	 * Fills in and records one telemetry frame, in the order of TELEMETRY_CHANNELS.
+	 */
+	private void recordTelemetry() {
+		
+		float[] frame = telemetryFrame;
+		int i = 0;
+		
+		frame[i++] = (float) drive.getDistanceFromEncoders();
+		frame[i++] = (float) drive.getRate();
+		frame[i++] = (float) drive.getUltrasonicDistance();
+		frame[i++] = imu.getYaw();
+		frame[i++] = imu.getRoll();
+		frame[i++] = (float) clapper.getPotValue();
+		frame[i++] = (float) claw.getPotValue();
+		frame[i++] = (float) clapper.getError();
+		frame[i++] = (float) clapper.getMotorOutput();
+		frame[i++] = (float) claw.getError();
+		frame[i++] = (float) claw.getMotorOutput();
+		frame[i++] = (float) drive.getErrorFromDriveStraightPID();
+		frame[i++] = (float) drive.getDriveStraightPIDOutput();
+		frame[i++] = (float) drive.getErrorFromImuPID();
+		frame[i++] = (float) drive.getImuPIDOutput();
+		frame[i++] = (float) drive.getErrorFromSonicStrafePID();
+		frame[i++] = (float) strongback.getError();
+		frame[i++] = toteCounter.getCount();
+		frame[i++] = autoSequence != null ? autoSequence.getCurrentIndex() : -1;
+		int teleopCount = teleopSequences.getRunningCount();
+		frame[i++] = teleopCount > 0 ? teleopSequences.get(teleopCount - 1).getCurrentIndex() : -1;
+		drive.getPoseEstimator().getPose(telemetryPose);
+		frame[i++] = (float) telemetryPose.x;
+		frame[i++] = (float) telemetryPose.y;
+		frame[i++] = (float) drive.getRawUltrasonicDistance();
+		frame[i++] = (float) drive.getUltrasonicConfidence();
+		
+		telemetry.record(RobotClock.nanoTime(), frame);
+	}
 }
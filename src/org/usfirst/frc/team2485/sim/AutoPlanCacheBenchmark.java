@@ -0,0 +1,150 @@
+package org.usfirst.frc.team2485.sim;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.Arrays;
+
+import org.usfirst.frc.team2485.auto.AutoPlanCache;
+import org.usfirst.frc.team2485.auto.Sequencer;
+import org.usfirst.frc.team2485.auto.SequencerFactory;
+
+/**
+ * Measures what {@link AutoPlanCache#prepare(int, double)} costs for every auto type, and how much memory a
+ * prepared plan holds. <p>
+ *
+ * The subsystems are built on a {@link SimulationHarness} first, so the cold build is each type's first build in
+ * this JVM, which is mostly loading its item classes. Types are built in order, so a class shared with an earlier
+ * type is already loaded. The warm build is timed over many rebuilds, moving the wall offset past the tolerance
+ * each time so every call builds. The cached path is <code>prepare()</code> with an unchanged key, which is what
+ * <code>disabledPeriodic()</code> does every loop. The retained size is the growth of the heap after collection
+ * with many plans of a type held at once, divided by their number. Exits with status 1 if the cached path
+ * rebuilds or allocates.
+ */
+public class AutoPlanCacheBenchmark {
+
+	private static final int[] AUTO_TYPES = {
+			SequencerFactory.DRIVE_TO_AUTO_ZONE, SequencerFactory.ONE_CONTAINER, SequencerFactory.CONTAINER_STEAL,
+			SequencerFactory.THREE_TOTE, SequencerFactory.DO_NOTHING };
+	private static final String[] NAMES = { "DRIVE_TO_AUTO_ZONE", "ONE_CONTAINER", "CONTAINER_STEAL", "THREE_TOTE", "DO_NOTHING" };
+
+	private static final double OFFSET = SimulationHarness.STARTING_WALL_DISTANCE;
+	private static final int BUILDS = 5000, WARMUP_BUILDS = 5000;
+	private static final int CACHED_CALLS = 1000000, WARMUP_CACHED_CALLS = 1000000;
+	private static final int RETAINED_PLANS = 20000; // enough that the heap's own noise, a few hundred KB, is a few bytes per plan
+
+	private static final com.sun.management.ThreadMXBean threads =
+			(com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+	private static volatile Object sink; // so the plans aren't optimized away
+
+	/**
+	 * @return nanoseconds for the first prepare of this type
+	 */
+	private static long timeCold(int autoType) {
+		AutoPlanCache plans = new AutoPlanCache();
+		long start = System.nanoTime();
+		plans.prepare(autoType, OFFSET);
+		long nanos = System.nanoTime() - start;
+		sink = plans.take(autoType, OFFSET);
+		return nanos;
+	}
+
+	/**
+	 * @return { median ns per build, 99th percentile ns per build, bytes allocated per build }
+	 */
+	private static double[] timeWarm(int autoType) {
+		AutoPlanCache plans = new AutoPlanCache();
+		long thread = Thread.currentThread().getId();
+		long[] nanos = new long[BUILDS];
+		long allocated = 0;
+
+		for (int n = 0; n < WARMUP_BUILDS + BUILDS; n++) {
+			double offset = OFFSET + (n % 2) * 2 * AutoPlanCache.OFFSET_TOLERANCE;
+			long allocatedBefore = threads.getThreadAllocatedBytes(thread);
+			long start = System.nanoTime();
+			plans.prepare(autoType, offset);
+			long elapsed = System.nanoTime() - start;
+			if (n >= WARMUP_BUILDS) {
+				nanos[n - WARMUP_BUILDS] = elapsed;
+				allocated += threads.getThreadAllocatedBytes(thread) - allocatedBefore;
+			}
+		}
+		sink = plans.take(autoType, OFFSET);
+
+		Arrays.sort(nanos);
+		return new double[] { nanos[BUILDS / 2], nanos[BUILDS * 99 / 100], allocated / (double) BUILDS };
+	}
+
+	/**
+	 * @return { ns per call, bytes allocated per call, plans built during the calls }
+	 */
+	private static double[] timeCached(int autoType) {
+		AutoPlanCache plans = new AutoPlanCache();
+		long thread = Thread.currentThread().getId();
+		plans.prepare(autoType, OFFSET);
+
+		for (int n = 0; n < WARMUP_CACHED_CALLS; n++)
+			plans.prepare(autoType, OFFSET + (n % 2) * AutoPlanCache.OFFSET_TOLERANCE / 2);
+
+		int builds = plans.getBuildCount();
+		long allocatedBefore = threads.getThreadAllocatedBytes(thread);
+		long start = System.nanoTime();
+		for (int n = 0; n < CACHED_CALLS; n++)
+			plans.prepare(autoType, OFFSET + (n % 2) * AutoPlanCache.OFFSET_TOLERANCE / 2);
+		long nanos = System.nanoTime() - start;
+		long allocated = threads.getThreadAllocatedBytes(thread) - allocatedBefore;
+		sink = plans.take(autoType, OFFSET);
+
+		return new double[] { nanos / (double) CACHED_CALLS, allocated / (double) CACHED_CALLS, plans.getBuildCount() - builds };
+	}
+
+	/**
+	 * @return bytes of heap held per plan of this type
+	 */
+	private static double retainedSize(int autoType) {
+		MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+		Sequencer[] held = new Sequencer[RETAINED_PLANS];
+		sink = null; // let the last type's plans go
+
+		long before = usedAfterCollection(memory);
+		for (int n = 0; n < RETAINED_PLANS; n++) {
+			AutoPlanCache plans = new AutoPlanCache();
+			plans.prepare(autoType, OFFSET);
+			held[n] = plans.take(autoType, OFFSET);
+		}
+		long after = usedAfterCollection(memory);
+		sink = held;
+		return (after - before) / (double) RETAINED_PLANS;
+	}
+
+	private static long usedAfterCollection(MemoryMXBean memory) {
+		for (int n = 0; n < 3; n++)
+			System.gc();
+		return memory.getHeapMemoryUsage().getUsed();
+	}
+
+	public static void main(String[] args) {
+
+		new SimulationHarness();
+
+		boolean failed = false;
+		long[] cold = new long[AUTO_TYPES.length];
+		for (int i = 0; i < AUTO_TYPES.length; i++)
+			cold[i] = timeCold(AUTO_TYPES[i]);
+
+		for (int i = 0; i < AUTO_TYPES.length; i++) {
+			double[] warm = timeWarm(AUTO_TYPES[i]);
+			double[] cached = timeCached(AUTO_TYPES[i]);
+			double retained = retainedSize(AUTO_TYPES[i]);
+
+			System.out.println(NAMES[i] + ": cold " + cold[i] / 1e6 + " ms, warm median " + warm[0] / 1e3 + " us, p99 "
+					+ warm[1] / 1e3 + " us, " + warm[2] + " bytes allocated per build, cached " + cached[0] + " ns and "
+					+ cached[1] + " bytes per call, retains " + retained + " bytes per plan");
+			if (cached[1] > 0 || cached[2] > 0)
+				failed = true;
+		}
+
+		if (failed)
+			System.exit(1);
+	}
+}
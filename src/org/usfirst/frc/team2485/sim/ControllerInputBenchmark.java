@@ -0,0 +1,252 @@
+package org.usfirst.frc.team2485.sim;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+import org.usfirst.frc.team2485.util.Controllers;
+import org.usfirst.frc.team2485.util.RobotClock;
+
+/**
+ * Measures what reading the controllers costs per teleop loop, before and after input was snapshotted. <p>
+ *
+ * Before, every getter call in <code>teleopPeriodic()</code> validated its arguments and went through
+ * <code>Joystick</code> to a synchronized <code>DriverStation</code> read, up to 45 of them a loop. Now
+ * {@link Controllers#update()} reads each stick once and the getters read the snapshot. WPILib's driver station
+ * can't be built off the robot (its JNI library is ARM only), so both paths read a stand-in with the same
+ * synchronized, range checked methods. The before path makes the old loop's 45 calls the old way, the after path
+ * makes an update and the same 45 calls through <code>Controllers</code>. The buttons and axes change randomly
+ * every loop, and every value the two paths read is compared. Exits with status 1 if any differs or the snapshot
+ * allocates.
+ */
+public class ControllerInputBenchmark {
+
+	private static final int LOOPS = 2000000, WARMUP_LOOPS = 500000;
+	private static final int PACKETS = 4096; // random, replayed in a cycle
+	private static final double PERIOD = SimulationHarness.PERIODIC_PERIOD;
+
+	// sticks, as Robot sets them
+	private static final int DRIVER_LEFT = 0, DRIVER_RIGHT = 1, OPERATOR_LEFT = 2, OPERATOR_RIGHT = 3, STICKS = 4;
+	private static final int BUTTON_COUNT = 12, AXIS_COUNT = 4;
+
+	/**
+	 * The old teleop loop's reads, in order: { stick, button, or -1 - axis }.
+	 */
+	private static final int[][] READS = {
+		{ DRIVER_LEFT, 6 }, { DRIVER_LEFT, 1 }, { DRIVER_LEFT, 3 }, { DRIVER_LEFT, 4 },
+		{ DRIVER_RIGHT, -1 - Controllers.JOYSTICK_AXIS_THROTTLE },
+		{ DRIVER_LEFT, -1 - Controllers.JOYSTICK_AXIS_X }, { DRIVER_LEFT, -1 - Controllers.JOYSTICK_AXIS_Y },
+		{ DRIVER_RIGHT, -1 - Controllers.JOYSTICK_AXIS_Z },
+		{ DRIVER_RIGHT, 2 }, { DRIVER_RIGHT, 1 }, { DRIVER_RIGHT, 3 }, { DRIVER_RIGHT, 4 },
+		{ OPERATOR_LEFT, 9 }, { OPERATOR_LEFT, 11 }, { OPERATOR_LEFT, 7 }, { OPERATOR_LEFT, 5 },
+		{ OPERATOR_LEFT, 6 }, { OPERATOR_LEFT, 2 }, { OPERATOR_LEFT, 8 },
+		{ OPERATOR_LEFT, -1 - Controllers.JOYSTICK_AXIS_Y }, { OPERATOR_LEFT, -1 - Controllers.JOYSTICK_AXIS_Y },
+		{ OPERATOR_LEFT, 1 }, { OPERATOR_LEFT, 3 }, { DRIVER_RIGHT, 5 }, { OPERATOR_LEFT, 4 }, { DRIVER_RIGHT, 6 },
+		{ OPERATOR_RIGHT, 5 }, { OPERATOR_LEFT, 5 }, { OPERATOR_RIGHT, 8 }, { OPERATOR_LEFT, 10 }, { OPERATOR_LEFT, 12 },
+		{ OPERATOR_RIGHT, -1 - Controllers.JOYSTICK_AXIS_Y }, { OPERATOR_RIGHT, -1 - Controllers.JOYSTICK_AXIS_Y },
+		{ OPERATOR_RIGHT, 1 }, { OPERATOR_RIGHT, 2 }, { OPERATOR_RIGHT, 6 }, { OPERATOR_RIGHT, 5 },
+		{ OPERATOR_RIGHT, 3 }, { OPERATOR_RIGHT, 4 }, { OPERATOR_RIGHT, 9 }, { OPERATOR_RIGHT, 7 },
+		{ OPERATOR_RIGHT, 12 }, { OPERATOR_RIGHT, 11 },
+		{ OPERATOR_LEFT, -1 - Controllers.JOYSTICK_AXIS_THROTTLE }, { OPERATOR_RIGHT, -1 - Controllers.JOYSTICK_AXIS_THROTTLE }
+	};
+
+	private static volatile double sink; // so the reads aren't optimized away
+
+	/**
+	 * Stands in for WPILib's <code>DriverStation</code>, with its joystick reads: synchronized, range checked,
+	 * and axes kept as the signed bytes the driver station sends.
+	 */
+	static class SimulatedDriverStation implements Controllers.Source {
+
+		private static final int PORTS = 6, MAX_AXES = 12;
+
+		private final short[][] axes = new short[PORTS][AXIS_COUNT];
+		private final int[] buttons = new int[PORTS];
+		private final byte[] buttonCounts = new byte[PORTS];
+
+		SimulatedDriverStation() {
+			for (int port = 0; port < STICKS; port++)
+				buttonCounts[port] = BUTTON_COUNT;
+		}
+
+		synchronized void set(int port, int buttonBits, byte[] axisValues) {
+			buttons[port] = buttonBits;
+			for (int a = 0; a < AXIS_COUNT; a++)
+				axes[port][a] = axisValues[a];
+		}
+
+		public synchronized double getStickAxis(int port, int axis) {
+			if (port < 0 || port >= PORTS)
+				throw new RuntimeException("Joystick index is out of range, should be 0-5");
+			if (axis < 0 || axis >= MAX_AXES)
+				throw new RuntimeException("Joystick axis is out of range");
+			if (axis >= axes[port].length)
+				return 0;
+			byte value = (byte) axes[port][axis];
+			return value < 0 ? value / 128.0 : value / 127.0;
+		}
+
+		public synchronized int getStickAxisCount(int port) {
+			if (port < 0 || port >= PORTS)
+				throw new RuntimeException("Joystick index is out of range, should be 0-5");
+			return axes[port].length;
+		}
+
+		public synchronized int getStickButtons(int port) {
+			if (port < 0 || port >= PORTS)
+				throw new RuntimeException("Joystick index is out of range, should be 0-3");
+			return buttons[port];
+		}
+
+		public synchronized boolean getStickButton(int port, byte button) {
+			if (port < 0 || port >= PORTS)
+				throw new RuntimeException("Joystick index is out of range, should be 0-3");
+			if (button > buttonCounts[port] || button <= 0)
+				return false;
+			return ((1 << (button - 1)) & buttons[port]) != 0;
+		}
+	}
+
+	/**
+	 * What one of the old getters did: check the stick and argument, then <code>Joystick.getRawButton()</code>
+	 * or <code>getRawAxis()</code>, each a driver station call.
+	 */
+	static double pollOldWay(SimulatedDriverStation ds, int stick, int read) {
+		if (ds == null)
+			throw new IllegalStateException("controller is null");
+		if (read > 0) {
+			if (read > 22)
+				throw new IllegalArgumentException("Joystick button number (" + read + ") is invalid");
+			return ds.getStickButton(stick, (byte) read) ? 1 : 0;
+		}
+		int axis = -1 - read;
+		if (axis > 6)
+			throw new IllegalArgumentException("Joystick axis (" + axis + ") is invalid.");
+		return (float) ds.getStickAxis(stick, axis);
+	}
+
+	static double readSnapshot(int stick, int read) {
+		if (read > 0) {
+			boolean down;
+			switch (stick) {
+				case DRIVER_LEFT: 	down = Controllers.getDriverLeftJoystickButton(read); break;
+				case DRIVER_RIGHT: 	down = Controllers.getDriverRightJoystickButton(read); break;
+				case OPERATOR_LEFT: down = Controllers.getOperatorLeftJoystickButton(read); break;
+				default: 			down = Controllers.getOperatorRightJoystickButton(read); break;
+			}
+			return down ? 1 : 0;
+		}
+		int axis = -1 - read;
+		switch (stick) {
+			case DRIVER_LEFT: 	return Controllers.getDriverLeftJoystickAxis(axis);
+			case DRIVER_RIGHT: 	return Controllers.getDriverRightJoystickAxis(axis);
+			case OPERATOR_LEFT: return Controllers.getOperatorLeftJoystickAxis(axis);
+			default: 			return Controllers.getOperatorRightJoystickAxis(axis);
+		}
+	}
+
+	private final SimulatedDriverStation ds = new SimulatedDriverStation();
+	private final SimulatedTimer timer = new SimulatedTimer();
+	private final int[][] packetButtons = new int[PACKETS][STICKS];
+	private final byte[][][] packetAxes = new byte[PACKETS][STICKS][AXIS_COUNT];
+	private final double[] polled = new double[READS.length];
+	private int packet, mismatches;
+
+	public ControllerInputBenchmark() {
+		Random random = new Random(2485);
+		for (int k = 0; k < PACKETS; k++) {
+			for (int port = 0; port < STICKS; port++) {
+				packetButtons[k][port] = random.nextInt(1 << BUTTON_COUNT);
+				random.nextBytes(packetAxes[k][port]);
+			}
+		}
+
+		RobotClock.setSource(timer);
+		Controllers.setSource(ds);
+		Controllers.set(DRIVER_LEFT, DRIVER_RIGHT, OPERATOR_LEFT, OPERATOR_RIGHT);
+	}
+
+	/**
+	 * Moves the sticks, as the driver station's next packet would.
+	 */
+	private void nextPacket() {
+		timer.advance(PERIOD);
+		packet = (packet + 1) % PACKETS;
+		for (int port = 0; port < STICKS; port++)
+			ds.set(port, packetButtons[packet][port], packetAxes[packet][port]);
+	}
+
+	/**
+	 * Reads the same packets both ways and compares every value.
+	 * @return how many loops were compared
+	 */
+	int compare(int loops) {
+		for (int n = 0; n < loops; n++) {
+			nextPacket();
+			for (int r = 0; r < READS.length; r++)
+				polled[r] = pollOldWay(ds, READS[r][0], READS[r][1]);
+			Controllers.update();
+			for (int r = 0; r < READS.length; r++) {
+				if (readSnapshot(READS[r][0], READS[r][1]) != polled[r]) {
+					if (mismatches < 10)
+						System.out.println("MISMATCH: stick " + READS[r][0] + " read " + READS[r][1] + " polled "
+								+ polled[r] + ", snapshot " + readSnapshot(READS[r][0], READS[r][1]));
+					mismatches++;
+				}
+			}
+		}
+		return loops;
+	}
+
+	/**
+	 * @return { nanoseconds per loop, bytes allocated per loop }, for the packets alone, polling the old way,
+	 *         and updating and reading the snapshot
+	 */
+	double[][] time() {
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		long thread = Thread.currentThread().getId();
+		double[][] results = new double[3][];
+
+		for (int pass = 0; pass < 2; pass++) { // the first is warmup
+			int loops = pass == 0 ? WARMUP_LOOPS : LOOPS;
+			for (int path = 0; path < 3; path++) {
+				double total = 0;
+				long allocatedBefore = threads.getThreadAllocatedBytes(thread);
+				long start = System.nanoTime();
+				for (int n = 0; n < loops; n++) {
+					nextPacket();
+					if (path == 1) {
+						for (int r = 0; r < READS.length; r++)
+							total += pollOldWay(ds, READS[r][0], READS[r][1]);
+					} else if (path == 2) {
+						Controllers.update();
+						for (int r = 0; r < READS.length; r++)
+							total += readSnapshot(READS[r][0], READS[r][1]);
+					}
+				}
+				long nanos = System.nanoTime() - start;
+				long allocated = threads.getThreadAllocatedBytes(thread) - allocatedBefore;
+				sink = total;
+				results[path] = new double[] { nanos / (double) loops, allocated / (double) loops };
+			}
+		}
+		return results;
+	}
+
+	public static void main(String[] args) {
+
+		ControllerInputBenchmark benchmark = new ControllerInputBenchmark();
+		int compared = benchmark.compare(100000);
+		System.out.println(compared + " loops compared, " + READS.length + " reads each, " + benchmark.mismatches
+				+ " mismatched");
+
+		double[][] results = benchmark.time();
+		double before = results[1][0] - results[0][0], after = results[2][0] - results[0][0];
+		System.out.println("Per-call polling: " + before + " ns/loop, " + READS.length + " driver station calls");
+		System.out.println("Snapshot: " + after + " ns/loop, " + STICKS * (2 + AXIS_COUNT) + " driver station calls, "
+				+ (results[2][1] - results[0][1]) + " bytes/loop");
+		System.out.println("(generating each loop's packet took " + results[0][0] + " ns, not counted)");
+
+		if (benchmark.mismatches > 0 || results[2][1] - results[0][1] > 0)
+			System.exit(1);
+	}
+}
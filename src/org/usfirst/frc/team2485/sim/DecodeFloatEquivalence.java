@@ -0,0 +1,130 @@
+package org.usfirst.frc.team2485.sim;
+
+import java.util.Locale;
+import java.util.Random;
+
+import org.usfirst.frc.com.kauailabs.nav6.IMUProtocol;
+
+/**
+ * Checks that <code>IMUProtocol.decodeProtocolFloat()</code> returns exactly the bits of the
+ * <code>Float.parseFloat()</code> reference, <code>decodeProtocolFloatSlow()</code>, and times the two. <p>
+ *
+ * Fields are 7 characters, right aligned with leading spaces. Every layout of up to 5 digits, with or without a
+ * sign and a decimal point anywhere, is checked, as is every value the nav6 sends (2 decimal places, up to 6
+ * digits). Passing <code>all</code> checks every layout of up to 7 digits too, which takes a few minutes. Random
+ * strings of digits, signs, points, spaces and exponents check that malformed fields throw the same way.
+ * Exits with status 1 on any mismatch.
+ */
+public class DecodeFloatEquivalence {
+
+	public static final int WIDTH = 7;
+	private static final int RANDOM_FIELDS = 1000000;
+	private static final byte[] ALPHABET = " -+.0123456789eE".getBytes();
+	private static final int MAX_REPORTED = 10;
+
+	private final byte[] field = new byte[WIDTH];
+	private long checked, mismatched;
+	private static volatile float sink; // so the timed decodes aren't optimized away
+
+	/**
+	 * Checks every field with the given number of digits, sign and decimal point position.
+	 * @param point how many digits come before the point, or -1 for no point
+	 */
+	void checkLayout(int digits, boolean negative, int point) {
+		int length = digits + (negative ? 1 : 0) + (point >= 0 ? 1 : 0);
+		if (length > WIDTH)
+			return;
+
+		int count = 1;
+		for (int i = 0; i < digits; i++)
+			count *= 10;
+		int pad = WIDTH - length;
+		for (int i = 0; i < pad; i++)
+			field[i] = ' ';
+		for (int mantissa = 0; mantissa < count; mantissa++) {
+			int i = pad;
+			if (negative)
+				field[i++] = '-';
+			for (int d = 0, place = count / 10; d < digits; d++, place /= 10) {
+				if (d == point)
+					field[i++] = '.';
+				field[i++] = (byte) ('0' + mantissa / place % 10);
+			}
+			if (point == digits)
+				field[i++] = '.';
+			check();
+		}
+	}
+
+	void checkRandom(Random random, int fields) {
+		for (int n = 0; n < fields; n++) {
+			for (int i = 0; i < WIDTH; i++)
+				field[i] = ALPHABET[random.nextInt(ALPHABET.length)];
+			check();
+		}
+	}
+
+	private void check() {
+		checked++;
+		String fast = decode(true), slow = decode(false);
+		if (!fast.equals(slow)) {
+			if (mismatched < MAX_REPORTED)
+				System.out.println("\"" + new String(field) + "\": fast " + fast + ", reference " + slow);
+			mismatched++;
+		}
+	}
+
+	private String decode(boolean fast) {
+		try {
+			float value = fast ? IMUProtocol.decodeProtocolFloat(field, 0) : IMUProtocol.decodeProtocolFloatSlow(field, 0);
+			return Integer.toHexString(Float.floatToRawIntBits(value));
+		} catch (NumberFormatException ex) {
+			return "NumberFormatException";
+		}
+	}
+
+	/**
+	 * @return nanoseconds per field to decode a run of nav6 style fields
+	 */
+	static double time(boolean fast, int fields) {
+		byte[] buffer = new byte[fields * WIDTH];
+		for (int n = 0; n < fields; n++) {
+			String text = String.format(Locale.ROOT, "%7.2f", (n % 200000 - 100000) / 100.0 * 1.01);
+			for (int i = 0; i < WIDTH; i++)
+				buffer[n * WIDTH + i] = (byte) text.charAt(i);
+		}
+		float total = 0;
+		long start = 0;
+		for (int pass = 0; pass < 3; pass++) { // the first two are warmup
+			start = System.nanoTime();
+			for (int n = 0; n < fields; n++)
+				total += fast ? IMUProtocol.decodeProtocolFloat(buffer, n * WIDTH) : IMUProtocol.decodeProtocolFloatSlow(buffer, n * WIDTH);
+		}
+		long took = System.nanoTime() - start;
+		sink = total;
+		return took / (double) fields;
+	}
+
+	/**
+	 * Usage: <code>DecodeFloatEquivalence [all]</code>.
+	 */
+	public static void main(String[] args) {
+
+		int maxDigits = args.length > 0 && args[0].equals("all") ? WIDTH : 5;
+		DecodeFloatEquivalence equivalence = new DecodeFloatEquivalence();
+
+		for (int digits = 1; digits <= maxDigits; digits++)
+			for (int point = -1; point <= digits; point++) {
+				equivalence.checkLayout(digits, false, point);
+				equivalence.checkLayout(digits, true, point);
+			}
+		if (maxDigits < 6)
+			equivalence.checkLayout(6, false, 4); // the rest of the nav6's "%7.2f" values
+		equivalence.checkRandom(new Random(2485), RANDOM_FIELDS);
+
+		System.out.println(equivalence.checked + " fields checked, " + equivalence.mismatched + " mismatched");
+		System.out.println("decodeProtocolFloat: " + time(true, 1000000) + " ns/field, reference: " + time(false, 1000000) + " ns/field");
+		if (equivalence.mismatched > 0)
+			System.exit(1);
+	}
+}
@@ -0,0 +1,159 @@
+package org.usfirst.frc.team2485.sim;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+
+import org.usfirst.frc.team2485.util.EventLog;
+
+/**
+ * Measures what logging a message from a control loop costs, before and after {@link EventLog}, and checks that
+ * the log keeps each thread's messages in order and accounts for every message it drops. <p>
+ *
+ * The before path is the old <code>driveTo</code> message, concatenated and printed with <code>println</code>
+ * on the calling thread. The after path logs the same message through an <code>EventLog.Site</code>. Both print
+ * to the same temporary file, so the cost includes real output for the old path. Log calls are timed in batches
+ * that fit in the ring, and the log is flushed between batches, so none are dropped and the drain thread's work
+ * isn't counted against the caller. <p>
+ *
+ * The check has several threads log numbered messages at once, first few enough that all of them fit in the
+ * ring, then a flood that overruns it. Every printed message is parsed back. Exits with status 1 if a thread's
+ * messages come out of order or duplicated, if messages that fit are dropped, if printed plus dropped messages
+ * don't add up to the number logged, or if <code>Site.log</code> allocates.
+ */
+public class EventLogBenchmark {
+
+	private static final int BATCH = EventLog.CAPACITY / 2;
+	private static final int BATCHES = 400, WARMUP_BATCHES = 100;
+	private static final int PRODUCERS = 4;
+	private static final int FITTING_MESSAGES = EventLog.CAPACITY / PRODUCERS - 1, FLOOD_MESSAGES = 50000;
+	private static final double FLUSH_TIMEOUT = 10; // seconds
+
+	private static final EventLog.Site DRIVE_TO = EventLog.site("Enabling driveStraight PID in driveTo {} , {}");
+	private static final EventLog.Site NUMBERED = EventLog.site("producer {} message {}");
+
+	private static volatile double sink; // so the concatenated strings aren't optimized away
+
+	/**
+	 * @return { median ns per call, 99th percentile ns per call, bytes allocated per call }
+	 */
+	private static double[] timeCalls(boolean eventLog, PrintStream out) {
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		long thread = Thread.currentThread().getId();
+		long[] nanos = new long[BATCH * BATCHES];
+		long allocated = 0;
+		double distance = 0, inches = 120;
+
+		for (int batch = 0; batch < WARMUP_BATCHES + BATCHES; batch++) {
+			boolean timed = batch >= WARMUP_BATCHES;
+			long allocatedBefore = threads.getThreadAllocatedBytes(thread);
+			for (int n = 0; n < BATCH; n++) {
+				distance += 0.37;
+				long start = System.nanoTime();
+				if (eventLog) {
+					DRIVE_TO.log(distance, inches);
+				} else {
+					String line = "Enabling driveStraight PID in driveTo " + distance + " , " + inches;
+					out.println(line);
+					sink += line.length();
+				}
+				long elapsed = System.nanoTime() - start;
+				if (timed)
+					nanos[(batch - WARMUP_BATCHES) * BATCH + n] = elapsed;
+			}
+			if (timed)
+				allocated += threads.getThreadAllocatedBytes(thread) - allocatedBefore;
+			if (eventLog)
+				EventLog.flush(FLUSH_TIMEOUT);
+		}
+
+		Arrays.sort(nanos);
+		return new double[] { nanos[nanos.length / 2], nanos[nanos.length * 99 / 100], allocated / (double) nanos.length };
+	}
+
+	/**
+	 * Has every producer log <code>messages</code> numbered messages at once, and parses what gets printed.
+	 * @return { messages printed, messages dropped, messages out of order or duplicated }
+	 */
+	private static long[] checkOrdering(final int messages) throws InterruptedException {
+		ByteArrayOutputStream captured = new ByteArrayOutputStream();
+		EventLog.setOutput(new PrintStream(captured, true));
+		long droppedBefore = EventLog.getDropped();
+
+		final CountDownLatch start = new CountDownLatch(1);
+		Thread[] producers = new Thread[PRODUCERS];
+		for (int p = 0; p < PRODUCERS; p++) {
+			final int producer = p;
+			producers[p] = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						start.await();
+					} catch (InterruptedException e) {
+						return;
+					}
+					for (int n = 0; n < messages; n++)
+						NUMBERED.log(producer, n);
+				}
+			}, "Producer " + p);
+			producers[p].start();
+		}
+		start.countDown();
+		for (Thread producer : producers)
+			producer.join();
+
+		boolean flushed = EventLog.flush(FLUSH_TIMEOUT);
+		long dropped = EventLog.getDropped() - droppedBefore;
+
+		long printed = 0, misordered = flushed ? 0 : 1;
+		int[] last = new int[PRODUCERS];
+		Arrays.fill(last, -1);
+		for (String line : captured.toString().split("\n")) {
+			String[] words = line.trim().split(" ");
+			if (words.length != 5 || !words[1].equals("producer"))
+				continue; // the drop count, or an empty last line
+			int producer = Integer.parseInt(words[2]), n = Integer.parseInt(words[4]);
+			if (n <= last[producer])
+				misordered++;
+			last[producer] = n;
+			printed++;
+		}
+		return new long[] { printed, dropped, misordered };
+	}
+
+	public static void main(String[] args) throws IOException, InterruptedException {
+
+		File file = File.createTempFile("eventlog", ".txt");
+		file.deleteOnExit();
+		PrintStream out = new PrintStream(new BufferedOutputStream(new FileOutputStream(file)), true);
+		EventLog.setOutput(out);
+
+		double[] before = timeCalls(false, out);
+		System.out.println("Concatenating println: median " + before[0] + " ns, p99 " + before[1] + " ns, "
+				+ before[2] + " bytes per call");
+		double[] after = timeCalls(true, out);
+		System.out.println("EventLog.Site.log: median " + after[0] + " ns, p99 " + after[1] + " ns, "
+				+ after[2] + " bytes per call");
+		out.close();
+
+		boolean failed = after[2] > 0;
+		int[] counts = { FITTING_MESSAGES, FLOOD_MESSAGES };
+		for (int i = 0; i < counts.length; i++) {
+			long[] result = checkOrdering(counts[i]);
+			long logged = (long) PRODUCERS * counts[i];
+			System.out.println(PRODUCERS + " threads logging " + counts[i] + " messages each: " + result[0]
+					+ " printed, " + result[1] + " dropped, " + result[2] + " out of order");
+			if (result[2] > 0 || result[0] + result[1] != logged || (i == 0 && result[1] > 0))
+				failed = true;
+		}
+
+		if (failed)
+			System.exit(1);
+	}
+}
@@ -0,0 +1,147 @@
+package org.usfirst.frc.team2485.sim;
+
+import edu.wpi.first.wpilibj.PIDOutput;
+import edu.wpi.first.wpilibj.PIDSource;
+
+/**
+ * A mechanism whose speed follows its motor output with a first order lag, plus a constant offset for
+ * gravity or friction: the speed approaches <code>gain * output + offset</code> with the given time constant. <p>
+ * 
+ * {@link #fit(long[], float[], float[])} estimates the parameters from recorded positions and outputs by
+ * least squares, so a controller can be replayed against a model of the real mechanism.
+ */
+public class FirstOrderPlant implements PIDSource, PIDOutput {
+
+	private final double gain, offset, timeConstant;
+
+	private double position, speed, output;
+
+	/**
+	 * @param gain speed per unit of output, once settled
+	 * @param offset speed at 0 output, once settled
+	 * @param timeConstant seconds for the speed to reach 63% of a new target
+	 */
+	public FirstOrderPlant(double gain, double offset, double timeConstant) {
+		if (timeConstant < 0)
+			throw new IllegalArgumentException("time constant can't be negative");
+		this.gain = gain;
+		this.offset = offset;
+		this.timeConstant = timeConstant;
+	}
+
+	/**
+	 * Fits a plant to recorded data, regressing each speed on the previous speed and output:
+	 * <code>v[i+1] = a * v[i] + b * u[i] + c</code>.
+	 * @param timestamps nanoseconds
+	 * @param positions position at each timestamp
+	 * @param outputs motor output at each timestamp
+	 */
+	public static FirstOrderPlant fit(long[] timestamps, float[] positions, float[] outputs) {
+
+		int n = timestamps.length;
+		if (n < 4)
+			throw new IllegalArgumentException("need at least 4 samples to fit a plant");
+
+		// normal equations for [a b c]
+		double[][] m = new double[3][4];
+		double totalDt = 0;
+		int samples = 0;
+
+		for (int i = 0; i + 2 < n; i++) {
+			double dt0 = (timestamps[i + 1] - timestamps[i]) / 1e9;
+			double dt1 = (timestamps[i + 2] - timestamps[i + 1]) / 1e9;
+			if (dt0 <= 0 || dt1 <= 0)
+				continue;
+
+			double v0 = (positions[i + 1] - positions[i]) / dt0;
+			double v1 = (positions[i + 2] - positions[i + 1]) / dt1;
+			double[] x = { v0, outputs[i + 1], 1 };
+
+			for (int r = 0; r < 3; r++) {
+				for (int c = 0; c < 3; c++)
+					m[r][c] += x[r] * x[c];
+				m[r][3] += x[r] * v1;
+			}
+			totalDt += dt1;
+			samples++;
+		}
+		if (samples < 3)
+			throw new IllegalArgumentException("not enough samples with increasing timestamps");
+
+		double[] p = solve(m);
+		double a = p[0], b = p[1], c = p[2];
+		double dt = totalDt / samples;
+
+		if (a >= 1 || a <= 0) // no measurable lag (or an unstable fit); treat the speed as following directly
+			return new FirstOrderPlant(b, c, 0);
+
+		return new FirstOrderPlant(b / (1 - a), c / (1 - a), -dt / Math.log(a));
+	}
+
+	/**
+	 * Solves a 3x3 system, given as an augmented matrix, by Gaussian elimination with partial pivoting.
+	 */
+	private static double[] solve(double[][] m) {
+		for (int col = 0; col < 3; col++) {
+			int pivot = col;
+			for (int r = col + 1; r < 3; r++)
+				if (Math.abs(m[r][col]) > Math.abs(m[pivot][col]))
+					pivot = r;
+			double[] tmp = m[col];
+			m[col] = m[pivot];
+			m[pivot] = tmp;
+
+			if (Math.abs(m[col][col]) < 1e-12)
+				throw new IllegalArgumentException("recorded data doesn't determine the plant (was the motor ever driven?)");
+
+			for (int r = col + 1; r < 3; r++) {
+				double f = m[r][col] / m[col][col];
+				for (int c = col; c < 4; c++)
+					m[r][c] -= f * m[col][c];
+			}
+		}
+
+		double[] x = new double[3];
+		for (int r = 2; r >= 0; r--) {
+			double sum = m[r][3];
+			for (int c = r + 1; c < 3; c++)
+				sum -= m[r][c] * x[c];
+			x[r] = sum / m[r][r];
+		}
+		return x;
+	}
+
+	public void step(double dt) {
+		double targetSpeed = gain * output + offset;
+		speed += (targetSpeed - speed) * dt / (timeConstant + dt);
+		position += speed * dt;
+	}
+
+	public void reset(double position) {
+		this.position = position;
+		this.speed = 0;
+		this.output = 0;
+	}
+
+	@Override
+	public double pidGet() {
+		return position;
+	}
+
+	@Override
+	public void pidWrite(double output) {
+		this.output = output;
+	}
+
+	public double getGain() {
+		return gain;
+	}
+
+	public double getOffset() {
+		return offset;
+	}
+
+	public double getTimeConstant() {
+		return timeConstant;
+	}
+}
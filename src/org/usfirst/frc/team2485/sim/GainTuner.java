@@ -0,0 +1,265 @@
+package org.usfirst.frc.team2485.sim;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import org.usfirst.frc.team2485.util.ControlLoopScheduler;
+import org.usfirst.frc.team2485.util.ScheduledPIDController;
+
+/**
+ * Replays recorded telemetry against alternate PID gains, to tune gains off the robot. <p>
+ * 
+ * A {@link FirstOrderPlant} is fitted to the recorded positions and motor outputs. The recorded setpoint 
+ * (position plus error) is then played back into a <code>ScheduledPIDController</code> driving that plant,
+ * once per candidate set of gains, and each run is scored. Candidates are evaluated in parallel on a
+ * fork-join pool. <p>
+ * 
+ * The whole recording is replayed as if the controller were enabled throughout, so pick a recording (or
+ * telemetry file) where the mechanism was under PID control.
+ */
+public class GainTuner {
+
+	public static final double STEP = ControlLoopScheduler.DEFAULT_PERIOD;
+	private static final int CANDIDATES_PER_TASK = 4;
+
+	private final long[] timestamps;
+	private final float[] setpoints;
+	private final double startPosition;
+	private final FirstOrderPlant plant;
+	private final double tolerance, minOutput, maxOutput;
+
+	/**
+	 * The scores for one set of gains.
+	 */
+	public static class Result {
+
+		public final double p, i, d;
+
+		/** mean seconds from a setpoint change until the error stays within tolerance */
+		public double settlingTime;
+		/** how many setpoint changes never settled; each counts its whole length towards settlingTime */
+		public int unsettledSteps;
+		/** the furthest the position went past a new setpoint, in position units */
+		public double maxOvershoot;
+		/** fraction of the run spent within tolerance */
+		public double onTargetFraction;
+
+		public Result(double p, double i, double d) {
+			this.p = p;
+			this.i = i;
+			this.d = d;
+		}
+
+		public String toString() {
+			return String.format("kP %.4f kI %.4f kD %.4f: settling %.3f s (%d unsettled), overshoot %.2f, on target %.1f%%", 
+					p, i, d, settlingTime, unsettledSteps, maxOvershoot, onTargetFraction * 100);
+		}
+	}
+
+	/**
+	 * Ranks results by settling time, then overshoot.
+	 */
+	public static final Comparator<Result> BY_SETTLING_TIME = new Comparator<Result>() {
+		public int compare(Result a, Result b) {
+			if (a.unsettledSteps != b.unsettledSteps)
+				return a.unsettledSteps - b.unsettledSteps;
+			if (a.settlingTime != b.settlingTime)
+				return Double.compare(a.settlingTime, b.settlingTime);
+			return Double.compare(a.maxOvershoot, b.maxOvershoot);
+		}
+	};
+
+	/**
+	 * @param log recorded telemetry
+	 * @param positionChannel the PID's input, e.g. "Clapper Pot"
+	 * @param errorChannel the PID's error
+	 * @param outputChannel the motor output
+	 * @param tolerance absolute tolerance, as set on the controller
+	 * @param minOutput the controller's minimum output
+	 * @param maxOutput the controller's maximum output
+	 */
+	public GainTuner(TelemetryReader log, String positionChannel, String errorChannel, String outputChannel, 
+			double tolerance, double minOutput, double maxOutput) {
+
+		float[] positions = log.getChannel(positionChannel);
+		float[] errors = log.getChannel(errorChannel);
+
+		this.timestamps = log.getTimestamps();
+		this.setpoints = new float[positions.length];
+		for (int i = 0; i < positions.length; i++)
+			setpoints[i] = positions[i] + errors[i];
+
+		this.startPosition = positions[0];
+		this.plant = FirstOrderPlant.fit(timestamps, positions, log.getChannel(outputChannel));
+		this.tolerance = tolerance;
+		this.minOutput = minOutput;
+		this.maxOutput = maxOutput;
+	}
+
+	public FirstOrderPlant getPlant() {
+		return plant;
+	}
+
+	/**
+	 * Evaluates every combination of the given gains in parallel.
+	 * @return one result per combination, best first
+	 */
+	public Result[] search(double[] kPs, double[] kIs, double[] kDs) {
+
+		List<Result> candidates = new ArrayList<Result>();
+		for (double p : kPs)
+			for (double i : kIs)
+				for (double d : kDs)
+					candidates.add(new Result(p, i, d));
+
+		Result[] results = candidates.toArray(new Result[candidates.size()]);
+		ForkJoinPool.commonPool().invoke(new Search(results, 0, results.length));
+		Arrays.sort(results, BY_SETTLING_TIME);
+		return results;
+	}
+
+	private class Search extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final Result[] results;
+		private final int from, to;
+
+		Search(Result[] results, int from, int to) {
+			this.results = results;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= CANDIDATES_PER_TASK) {
+				for (int i = from; i < to; i++)
+					evaluate(results[i]);
+			} else {
+				int mid = (from + to) >>> 1;
+				invokeAll(new Search(results, from, mid), new Search(results, mid, to));
+			}
+		}
+	}
+
+	/**
+	 * Replays the recording with one set of gains and fills in its scores.
+	 */
+	public void evaluate(Result result) {
+
+		FirstOrderPlant plant = new FirstOrderPlant(this.plant.getGain(), this.plant.getOffset(), this.plant.getTimeConstant());
+		plant.reset(startPosition);
+
+		ScheduledPIDController pid = new ScheduledPIDController(result.p, result.i, result.d, plant, plant);
+		pid.setOutputRange(minOutput, maxOutput);
+		pid.setAbsoluteTolerance(tolerance);
+		pid.setSetpoint(setpoints[0]);
+		pid.enable();
+
+		long start = timestamps[0];
+		double end = (timestamps[timestamps.length - 1] - start) / 1e9;
+
+		int frame = 0;
+		double setpoint = setpoints[0];
+		double stepStart = 0, lastOutside = 0, direction = 0, overshoot = 0;
+		double totalSettling = 0, onTarget = 0;
+		int steps = 0, unsettled = 0;
+
+		for (double t = 0; t < end; t += STEP) {
+
+			// hold each recorded setpoint until the next frame
+			while (frame + 1 < timestamps.length && (timestamps[frame + 1] - start) / 1e9 <= t)
+				frame++;
+
+			if (Math.abs(setpoints[frame] - setpoint) > tolerance) {
+				// new setpoint: close out the last one
+				if (direction != 0) {
+					totalSettling += lastOutside - stepStart;
+					if (lastOutside >= t - STEP)
+						unsettled++;
+					steps++;
+				}
+				setpoint = setpoints[frame];
+				pid.setSetpoint(setpoint);
+				direction = Math.signum(setpoint - plant.pidGet());
+				stepStart = t;
+				lastOutside = t;
+			}
+
+			pid.sample();
+			pid.calculate(STEP);
+			pid.write();
+			plant.step(STEP);
+
+			double error = setpoint - plant.pidGet();
+			if (Math.abs(error) < tolerance)
+				onTarget += STEP;
+			else
+				lastOutside = t + STEP;
+
+			if (direction != 0)
+				overshoot = Math.max(overshoot, -direction * error);
+		}
+
+		if (direction != 0) {
+			totalSettling += lastOutside - stepStart;
+			if (lastOutside >= end - STEP)
+				unsettled++;
+			steps++;
+		}
+
+		result.settlingTime = steps > 0 ? totalSettling / steps : 0;
+		result.unsettledSteps = unsettled;
+		result.maxOvershoot = overshoot;
+		result.onTargetFraction = end > 0 ? onTarget / end : 0;
+	}
+
+	/**
+	 * Evenly spaced values from min to max, inclusive.
+	 */
+	public static double[] range(double min, double max, int count) {
+		if (count < 1)
+			throw new IllegalArgumentException("need at least one value");
+		double[] values = new double[count];
+		for (int i = 0; i < count; i++)
+			values[i] = count == 1 ? min : min + (max - min) * i / (count - 1);
+		return values;
+	}
+
+	/**
+	 * Usage: <code>GainTuner file positionChannel errorChannel outputChannel tolerance minOutput maxOutput
+	 * kPMin kPMax kIMax kDMax steps</code>. Prints the fitted plant and the ten best gains.
+	 */
+	public static void main(String[] args) throws IOException {
+
+		if (args.length != 12) {
+			System.out.println("usage: GainTuner file positionChannel errorChannel outputChannel tolerance " + 
+					"minOutput maxOutput kPMin kPMax kIMax kDMax steps");
+			return;
+		}
+
+		TelemetryReader log = new TelemetryReader(new File(args[0]));
+		GainTuner tuner = new GainTuner(log, args[1], args[2], args[3], Double.parseDouble(args[4]), 
+				Double.parseDouble(args[5]), Double.parseDouble(args[6]));
+
+		FirstOrderPlant plant = tuner.getPlant();
+		System.out.println("Plant: gain " + plant.getGain() + ", offset " + plant.getOffset() + 
+				", time constant " + plant.getTimeConstant() + " s");
+
+		int steps = Integer.parseInt(args[11]);
+		Result[] results = tuner.search(
+				range(Double.parseDouble(args[7]), Double.parseDouble(args[8]), steps), 
+				range(0, Double.parseDouble(args[9]), steps), 
+				range(0, Double.parseDouble(args[10]), steps));
+
+		for (int i = 0; i < results.length && i < 10; i++)
+			System.out.println(results[i]);
+	}
+}
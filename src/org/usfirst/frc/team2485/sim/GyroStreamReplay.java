@@ -0,0 +1,148 @@
+package org.usfirst.frc.team2485.sim;
+
+import java.util.Random;
+
+import org.usfirst.frc.com.kauailabs.nav6.IMUProtocol;
+import org.usfirst.frc.com.kauailabs.nav6.frc.IMUGyroStream;
+import org.usfirst.frc.team2485.util.RobotClock;
+
+/**
+ * Feeds an {@link IMUGyroStream} a synthetic stream of gyro packets and measures how well it tracks the true yaw
+ * and yaw rate. <p>
+ *
+ * The robot sits still for the bias calibration, then turns +90 degrees, turns -270 degrees through the 180 degree
+ * wrap, and spins slowly for ten seconds. Rates ramp rather than step, so the trapezoidal integration should be
+ * exact apart from noise. Packets come at 100 Hz with jittered timing. The gyro has a bias, noise and 16 bit
+ * quantization. A few packets are dropped at random, and a 100 ms gap falls while the robot is still. Exits with
+ * status 1 if calibration is late, the yaw or rate errors are too large, or the temperature doesn't come through.
+ */
+public class GyroStreamReplay {
+
+	private static final double
+		RATE_HZ 		= 100,
+		JITTER 			= 0.001,	// seconds, either way
+		DROP_CHANCE 	= 0.02,
+		BIAS 			= 1.3,		// degrees per second
+		NOISE 			= 0.2,		// degrees per second
+		GYRO_FSR_DPS 	= 2000,		// the nav6 default
+		GAP_START 		= 3.2,		// seconds; the robot is still then
+		GAP_LENGTH 		= 0.1,
+		TURN_STOPS 		= 5.5,		// seconds; the end of the -270
+		SETTLED_RATE 	= 1;		// degrees per second
+
+	private static final double MAX_YAW_ERROR = 1, MAX_RATE_RMS_ERROR = 0.5, MAX_CALIBRATION_TIME = 1.05;
+
+	/**
+	 * (time, rate) breakpoints of the true yaw rate, in seconds and degrees per second, linear in between.
+	 */
+	private static final double[][] PROFILE = {
+		{ 0, 0 }, { 1.5, 0 },
+		{ 1.75, 180 }, { 2.25, 180 }, { 2.5, 0 },	// +90
+		{ 4, 0 },
+		{ 4.5, -360 }, { 5, -360 }, { 5.5, 0 },		// -270
+		{ 6.5, 0 }, { 7, 10 }, { 16.5, 10 }, { 17, 0 }, // +97.5
+		{ 18, 0 }
+	};
+
+	/**
+	 * An IMUGyroStream which is handed its packets instead of reading the serial port.
+	 */
+	static class PacketFedGyroStream extends IMUGyroStream {
+
+		int receive(byte[] packet, int length) {
+			return decodePacketHandler(packet, 0, length);
+		}
+	}
+
+	static double rateAt(double time) {
+		for (int i = 1; i < PROFILE.length; i++) {
+			if (time <= PROFILE[i][0]) {
+				double fraction = (time - PROFILE[i - 1][0]) / (PROFILE[i][0] - PROFILE[i - 1][0]);
+				return PROFILE[i - 1][1] + fraction * (PROFILE[i][1] - PROFILE[i - 1][1]);
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * @return the integral of the rate from 0 to the given time, exact for the piecewise linear profile
+	 */
+	static double yawAt(double time) {
+		double yaw = 0;
+		for (int i = 1; i < PROFILE.length && PROFILE[i - 1][0] < time; i++) {
+			double end = Math.min(time, PROFILE[i][0]);
+			yaw += (rateAt(PROFILE[i - 1][0]) + rateAt(end)) / 2 * (end - PROFILE[i - 1][0]);
+		}
+		return yaw;
+	}
+
+	static double wrap(double degrees) {
+		degrees %= 360;
+		if (degrees > 180)
+			degrees -= 360;
+		else if (degrees < -180)
+			degrees += 360;
+		return degrees;
+	}
+
+	public static void main(String[] args) {
+
+		SimulatedTimer timer = new SimulatedTimer();
+		RobotClock.setSource(timer);
+		PacketFedGyroStream imu = new PacketFedGyroStream();
+		Random random = new Random(2485);
+
+		IMUProtocol.GyroUpdate update = new IMUProtocol.GyroUpdate();
+		update.accel_z = 16384;
+		update.mag_x = 100;
+		update.temp_c = 30;
+		byte[] packet = new byte[Nav6Packets.GYRO_UPDATE_LENGTH];
+
+		double end = PROFILE[PROFILE.length - 1][0];
+		double calibratedAt = Double.NaN, maxYawError = 0, rateSquaredError = 0, lastYawError = 0;
+		double settledAt = Double.NaN;
+		int sent = 0, dropped = 0, compared = 0;
+
+		for (int n = 1; n / RATE_HZ <= end; n++) {
+			double time = n / RATE_HZ + JITTER * (2 * random.nextDouble() - 1);
+			if (random.nextDouble() < DROP_CHANCE || (time >= GAP_START && time < GAP_START + GAP_LENGTH)) {
+				dropped++;
+				continue;
+			}
+			timer.advance(time - timer.get());
+
+			// the nav6 yaw increases clockwise, a negative rotation about the gyro's z axis
+			double measured = rateAt(time) + BIAS + NOISE * random.nextGaussian();
+			update.gyro_z = (short) Math.round(-measured * 32768 / GYRO_FSR_DPS);
+			imu.receive(packet, Nav6Packets.encodeGyroUpdate(packet, update));
+			sent++;
+
+			if (imu.isCalibrating())
+				continue;
+			if (Double.isNaN(calibratedAt))
+				calibratedAt = time;
+
+			// the integrated yaw starts from zero when calibration finishes, while the robot is still
+			lastYawError = wrap(imu.getYaw() - yawAt(time));
+			maxYawError = Math.max(maxYawError, Math.abs(lastYawError));
+			double rateError = imu.getYawRate() - rateAt(time);
+			rateSquaredError += rateError * rateError;
+			compared++;
+			if (time > TURN_STOPS && Double.isNaN(settledAt) && Math.abs(imu.getYawRate()) < SETTLED_RATE)
+				settledAt = time;
+		}
+
+		double rateRmsError = Math.sqrt(rateSquaredError / compared);
+		System.out.println(sent + " packets sent, " + dropped + " dropped; calibrated at " + calibratedAt + " s");
+		System.out.println("Yaw error: max " + maxYawError + ", final " + lastYawError + " degrees; "
+				+ yawAt(end) + " degrees net");
+		System.out.println("Yaw rate RMS error: " + rateRmsError + " degrees/s; temperature " + imu.getTempC() + " C, sent "
+				+ update.temp_c + " C");
+		System.out.println("Rate under " + SETTLED_RATE + " degrees/s " + Math.round((settledAt - TURN_STOPS) * 1000)
+				+ " ms after the -270 degree turn stopped");
+
+		if (!(calibratedAt <= MAX_CALIBRATION_TIME) || maxYawError > MAX_YAW_ERROR || rateRmsError > MAX_RATE_RMS_ERROR
+				|| imu.getTempC() != update.temp_c)
+			System.exit(1);
+	}
+}
@@ -0,0 +1,105 @@
+package org.usfirst.frc.team2485.sim;
+
+import org.usfirst.frc.team2485.util.SolenoidOutput;
+
+import edu.wpi.first.wpilibj.SpeedController;
+
+/**
+ * Kinematics of the H-drive: a left and right side for driving and turning, and a center wheel on a
+ * suspension for strafing. <p>
+ * 
+ * Each side's speed (and the center wheel's) is proportional to its output, with a first order lag. The
+ * center wheel only moves the robot while the suspension has it dropped. The robot is assumed to stay
+ * parallel to the wall in front of the ultrasonic sensor, so strafing changes the wall distance directly. <p>
+ * 
+ * Signs follow the wiring in <code>DriveTrain</code>: the right side's motors are reversed, and the left
+ * encoder counts backwards, so <code>DualEncoder</code> reads positive driving forward.
+ */
+public class HDriveModel {
+
+	public static final double
+		SIDE_SPEED_AT_FULL_OUTPUT 	= 130, 	// in/s
+		CENTER_SPEED_AT_FULL_OUTPUT = 70, 	// in/s
+		TRACK_WIDTH 				= 26, 	// in
+		TIME_CONSTANT 				= 0.12; // s
+
+	private final SpeedController leftDrive, rightDrive, centerDrive;
+	private final SolenoidOutput suspension;
+	private final SimulatedEncoder leftEnc, rightEnc, centerEnc;
+
+	private double leftSpeed, rightSpeed, centerSpeed;
+	private double x, y, heading, wallDistance;
+
+	public HDriveModel(SpeedController leftDrive, SpeedController rightDrive, SpeedController centerDrive, 
+			SolenoidOutput suspension, SimulatedEncoder leftEnc, SimulatedEncoder rightEnc, SimulatedEncoder centerEnc, 
+			double wallDistance) {
+		this.leftDrive = leftDrive;
+		this.rightDrive = rightDrive;
+		this.centerDrive = centerDrive;
+		this.suspension = suspension;
+		this.leftEnc = leftEnc;
+		this.rightEnc = rightEnc;
+		this.centerEnc = centerEnc;
+		this.wallDistance = wallDistance;
+	}
+
+	public void step(double dt) {
+
+		double lag = dt / (TIME_CONSTANT + dt);
+
+		double leftTarget = leftDrive.get() * SIDE_SPEED_AT_FULL_OUTPUT;
+		double rightTarget = -rightDrive.get() * SIDE_SPEED_AT_FULL_OUTPUT;
+		double centerTarget = suspension.get() ? centerDrive.get() * CENTER_SPEED_AT_FULL_OUTPUT : 0;
+
+		leftSpeed += (leftTarget - leftSpeed) * lag;
+		rightSpeed += (rightTarget - rightSpeed) * lag;
+		centerSpeed += (centerTarget - centerSpeed) * lag;
+
+		double forward = (leftSpeed + rightSpeed) / 2 * dt;
+		double strafe = centerSpeed * dt;
+		double turn = Math.toDegrees((leftSpeed - rightSpeed) * dt / TRACK_WIDTH); // clockwise, like the nav6
+
+		double headingRadians = Math.toRadians(heading + turn / 2);
+		x += forward * Math.sin(headingRadians) + strafe * Math.cos(headingRadians);
+		y += forward * Math.cos(headingRadians) - strafe * Math.sin(headingRadians);
+		heading += turn;
+		wallDistance += strafe;
+
+		leftEnc.move(-leftSpeed * dt, dt);
+		rightEnc.move(rightSpeed * dt, dt);
+		if (centerEnc != null)
+			centerEnc.move(strafe, dt);
+	}
+
+	/**
+	 * @return degrees clockwise from the starting heading, not wrapped
+	 */
+	public double getHeading() {
+		return heading;
+	}
+
+	/**
+	 * @return inches to the right of the starting position, in field coordinates
+	 */
+	public double getX() {
+		return x;
+	}
+
+	/**
+	 * @return inches forward of the starting position, in field coordinates
+	 */
+	public double getY() {
+		return y;
+	}
+
+	public double getWallDistance() {
+		return wallDistance;
+	}
+
+	/**
+	 * @return inches per second along the robot's forward axis
+	 */
+	public double getForwardSpeed() {
+		return (leftSpeed + rightSpeed) / 2;
+	}
+}
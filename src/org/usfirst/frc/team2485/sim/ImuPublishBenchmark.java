@@ -0,0 +1,169 @@
+package org.usfirst.frc.team2485.sim;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.concurrent.locks.LockSupport;
+
+import org.usfirst.frc.com.kauailabs.nav6.IMUProtocol;
+import org.usfirst.frc.com.kauailabs.nav6.frc.IMUAdvanced;
+import org.usfirst.frc.com.kauailabs.nav6.frc.MotionSnapshot;
+
+/**
+ * Feeds an {@link IMUAdvanced} quaternion packets at 200 Hz, twice the nav6's fastest rate, and measures what
+ * decoding and publishing each one costs the IMU thread: bytes allocated and the p50, p99 and slowest time. <p>
+ *
+ * Meanwhile a reader takes a {@link MotionSnapshot} every millisecond, as a control loop would. Packet k has a
+ * temperature of k degrees and a yaw of {@link #yawFor(int)}, so a snapshot whose temperature and yaw came from
+ * different packets is counted as torn. Exits with status 1 if publishing allocates or any snapshot is torn.
+ */
+public class ImuPublishBenchmark {
+
+	public static final int RATE_HZ = 200;
+	public static final double DEFAULT_DURATION = 5; // seconds
+	private static final double WARMUP = 1; // seconds
+	private static final int PACKETS = 200;
+	private static final long READ_PERIOD = 1000000L; // nanoseconds
+
+	/**
+	 * An IMUAdvanced which is handed its packets instead of reading the serial port.
+	 */
+	static class PacketFedIMU extends IMUAdvanced {
+
+		int receive(byte[] packet, int length) {
+			return decodePacketHandler(packet, 0, length);
+		}
+
+		@Override
+		public boolean isCalibrating() {
+			return false;
+		}
+	}
+
+	private final PacketFedIMU imu = new PacketFedIMU();
+	private final byte[][] packets = new byte[PACKETS][];
+	private volatile boolean running = true;
+
+	private long[] publishNanos, snapshotNanos;
+	private int snapshots, torn;
+	private long allocatedBytes;
+
+	public ImuPublishBenchmark() {
+		IMUProtocol.QuaternionUpdate update = new IMUProtocol.QuaternionUpdate();
+		for (int k = 0; k < PACKETS; k++) {
+			// a rotation about z by -yaw; the nav6 reports quaternions scaled by 16384
+			double halfAngle = Math.toRadians(-yawFor(k)) / 2;
+			update.q1 = (short) Math.round(Math.cos(halfAngle) * 16384);
+			update.q4 = (short) Math.round(Math.sin(halfAngle) * 16384);
+			update.accel_x = (short) (k * 16);
+			update.accel_z = 16384; // 1 g at the default 2 g range
+			update.temp_c = k;
+			packets[k] = new byte[Nav6Packets.QUATERNION_UPDATE_LENGTH];
+			Nav6Packets.encodeQuaternionUpdate(packets[k], update);
+		}
+	}
+
+	/**
+	 * @return the yaw, in degrees, published by packet k
+	 */
+	static double yawFor(int k) {
+		return k * 1.5 - 150;
+	}
+
+	/**
+	 * @param duration seconds to measure for, after a second of warmup
+	 */
+	public void run(double duration) throws InterruptedException {
+
+		final int warmupUpdates = (int) (WARMUP * RATE_HZ);
+		final int updates = (int) (duration * RATE_HZ);
+		publishNanos = new long[updates];
+		snapshotNanos = new long[(int) (duration * 1e9 / READ_PERIOD) * 2 + 1000];
+
+		Thread publisher = new Thread() {
+			@Override
+			public void run() {
+				com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+				long period = 1000000000L / RATE_HZ;
+				long next = System.nanoTime();
+				long allocatedBefore = 0;
+				for (int n = 0; n < warmupUpdates + updates; n++) {
+					if (n == warmupUpdates)
+						allocatedBefore = threads.getThreadAllocatedBytes(getId());
+
+					next += period;
+					long remaining;
+					while ((remaining = next - System.nanoTime()) > 0)
+						LockSupport.parkNanos(remaining);
+
+					byte[] packet = packets[n % PACKETS];
+					long start = System.nanoTime();
+					imu.receive(packet, Nav6Packets.QUATERNION_UPDATE_LENGTH);
+					long took = System.nanoTime() - start;
+					if (n >= warmupUpdates)
+						publishNanos[n - warmupUpdates] = took;
+				}
+				allocatedBytes = threads.getThreadAllocatedBytes(getId()) - allocatedBefore;
+				running = false;
+			}
+		};
+
+		Thread reader = new Thread() {
+			@Override
+			public void run() {
+				MotionSnapshot snapshot = new MotionSnapshot();
+				while (running) {
+					long start = System.nanoTime();
+					imu.getSnapshot(snapshot);
+					long took = System.nanoTime() - start;
+					if (snapshots < snapshotNanos.length)
+						snapshotNanos[snapshots++] = took;
+
+					if (snapshot.sequence > 0) {
+						int k = Math.round(snapshot.temp_c);
+						if (Math.abs(snapshot.yaw - yawFor(k)) > 0.5)
+							torn++;
+					}
+					LockSupport.parkNanos(READ_PERIOD);
+				}
+			}
+		};
+
+		publisher.start();
+		reader.start();
+		publisher.join();
+		reader.join();
+	}
+
+	static double percentile(long[] sorted, int count, double fraction) {
+		if (count == 0)
+			return 0;
+		return sorted[Math.min(count - 1, (int) (fraction * count))] / 1000.0;
+	}
+
+	/**
+	 * Usage: <code>ImuPublishBenchmark [seconds]</code>.
+	 */
+	public static void main(String[] args) throws InterruptedException {
+
+		double duration = args.length > 0 ? Double.parseDouble(args[0]) : DEFAULT_DURATION;
+
+		ImuPublishBenchmark benchmark = new ImuPublishBenchmark();
+		benchmark.run(duration);
+
+		long[] publish = benchmark.publishNanos.clone();
+		Arrays.sort(publish);
+		long[] snapshot = Arrays.copyOf(benchmark.snapshotNanos, benchmark.snapshots);
+		Arrays.sort(snapshot);
+
+		double bytesPerUpdate = benchmark.allocatedBytes / (double) publish.length;
+		System.out.println(publish.length + " updates at " + RATE_HZ + " Hz, " + benchmark.snapshots + " snapshots");
+		System.out.println("Allocated per update: " + bytesPerUpdate + " bytes");
+		System.out.println("Publish p50 " + percentile(publish, publish.length, 0.5) + " us, p99 "
+				+ percentile(publish, publish.length, 0.99) + " us, slowest " + percentile(publish, publish.length, 1) + " us");
+		System.out.println("Snapshot p50 " + percentile(snapshot, snapshot.length, 0.5) + " us, p99 "
+				+ percentile(snapshot, snapshot.length, 0.99) + " us");
+		System.out.println("Torn snapshots: " + benchmark.torn);
+		if (bytesPerUpdate >= 1 || benchmark.torn > 0)
+			System.exit(1);
+	}
+}
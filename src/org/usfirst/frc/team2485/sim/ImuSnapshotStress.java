@@ -0,0 +1,136 @@
+package org.usfirst.frc.team2485.sim;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.usfirst.frc.com.kauailabs.nav6.frc.OrientationSnapshot;
+
+/**
+ * Hammers <code>IMU.getSnapshot()</code> from several threads while another publishes updates as fast as it can,
+ * and counts snapshots whose values came from different updates. <p>
+ *
+ * Every update publishes the same angle as yaw, pitch and roll, and encodes that angle in its timestamp, so a
+ * snapshot is torn if any of them disagree. One more thread keeps reading the yaw history, which takes its
+ * lock, to check that doesn't hold up the snapshots. The slowest single <code>getSnapshot()</code> is reported
+ * too: it should stay in the microseconds, however busy the history is, as long as there are more cores than
+ * threads. Otherwise it includes time a reader spent descheduled.
+ */
+public class ImuSnapshotStress {
+
+	public static final double DEFAULT_DURATION = 2; // seconds
+
+	private final SimulatedIMU imu = new SimulatedIMU();
+	private final AtomicBoolean running = new AtomicBoolean(true);
+
+	private volatile long updates;
+	private volatile double historySink; // so the history reads aren't optimized away
+
+	/**
+	 * The angle published by the update with the given timestamp, always in -90 to 89 degrees so yaw doesn't wrap.
+	 */
+	static float angleFor(double timestamp) {
+		return (float) ((long) timestamp % 180 - 90);
+	}
+
+	/**
+	 * A thread which checks snapshots until told to stop.
+	 */
+	class Reader extends Thread {
+
+		long reads, torn, slowestNanos;
+
+		@Override
+		public void run() {
+			OrientationSnapshot snapshot = new OrientationSnapshot();
+			while (running.get()) {
+				long start = System.nanoTime();
+				imu.getSnapshot(snapshot);
+				long took = System.nanoTime() - start;
+				if (took > slowestNanos)
+					slowestNanos = took;
+
+				if (snapshot.sequence > 0) {
+					float expected = angleFor(snapshot.timestamp);
+					if (snapshot.yaw != expected || snapshot.pitch != expected || snapshot.roll != expected)
+						torn++;
+				}
+				reads++;
+			}
+		}
+	}
+
+	/**
+	 * @param readers how many threads read snapshots
+	 * @param duration seconds to run for
+	 * @return the readers, with their counts
+	 */
+	public Reader[] run(int readers, double duration) throws InterruptedException {
+
+		Thread writer = new Thread() {
+			@Override
+			public void run() {
+				long n = 0;
+				while (running.get()) {
+					n++;
+					float angle = angleFor(n);
+					imu.update(n, angle, angle, angle);
+				}
+				updates = n;
+			}
+		};
+
+		Thread historyReader = new Thread() {
+			@Override
+			public void run() {
+				while (running.get())
+					historySink += imu.getYawAt(0) + imu.getYawRate();
+			}
+		};
+
+		Reader[] threads = new Reader[readers];
+		for (int i = 0; i < readers; i++)
+			threads[i] = new Reader();
+
+		writer.start();
+		historyReader.start();
+		for (Reader reader : threads)
+			reader.start();
+
+		Thread.sleep((long) (duration * 1000));
+		running.set(false);
+
+		writer.join();
+		historyReader.join();
+		for (Reader reader : threads)
+			reader.join();
+		return threads;
+	}
+
+	public long getUpdates() {
+		return updates;
+	}
+
+	/**
+	 * Usage: <code>ImuSnapshotStress [readers] [seconds]</code>.
+	 */
+	public static void main(String[] args) throws InterruptedException {
+
+		int readers = args.length > 0 ? Integer.parseInt(args[0]) : Math.max(2, Runtime.getRuntime().availableProcessors() - 2);
+		double duration = args.length > 1 ? Double.parseDouble(args[1]) : DEFAULT_DURATION;
+
+		ImuSnapshotStress stress = new ImuSnapshotStress();
+		Reader[] results = stress.run(readers, duration);
+
+		long reads = 0, torn = 0, slowest = 0;
+		for (Reader reader : results) {
+			reads += reader.reads;
+			torn += reader.torn;
+			slowest = Math.max(slowest, reader.slowestNanos);
+		}
+
+		System.out.println(stress.getUpdates() + " updates, " + reads + " snapshots by " + readers + " readers in " + duration + " s");
+		System.out.println("Torn snapshots: " + torn);
+		System.out.println("Slowest snapshot: " + slowest / 1000.0 + " us");
+		if (torn > 0)
+			System.exit(1);
+	}
+}
@@ -0,0 +1,67 @@
+package org.usfirst.frc.team2485.sim;
+
+import edu.wpi.first.wpilibj.SpeedController;
+
+/**
+ * A motor-driven mechanism moving between two hard stops, e.g. the clapper lift, the claw winch or the
+ * strongback's lead screw. <p>
+ * 
+ * Speed is proportional to motor output, with a first order lag for the motor and load to spin up.
+ * There's no gravity or backdrive: with 0 output the mechanism coasts to a stop and stays there.
+ */
+public class LiftModel {
+
+	private final SpeedController motor;
+	private final double speedAtFullOutput, timeConstant;
+	private final double min, max;
+
+	private double position, speed;
+
+	/**
+	 * @param motor drives the mechanism
+	 * @param speedAtFullOutput position units per second at an output of 1 (negative if positive output 
+	 * moves the position down)
+	 * @param timeConstant seconds for the speed to reach 63% of a new output
+	 * @param min lower hard stop
+	 * @param max upper hard stop
+	 * @param position starting position
+	 */
+	public LiftModel(SpeedController motor, double speedAtFullOutput, double timeConstant, 
+			double min, double max, double position) {
+		if (min > max)
+			throw new IllegalArgumentException("Lower stop is above upper stop");
+		this.motor = motor;
+		this.speedAtFullOutput = speedAtFullOutput;
+		this.timeConstant = timeConstant;
+		this.min = min;
+		this.max = max;
+		this.position = position;
+	}
+
+	public void step(double dt) {
+		double targetSpeed = motor.get() * speedAtFullOutput;
+		speed += (targetSpeed - speed) * dt / (timeConstant + dt);
+		position += speed * dt;
+
+		if (position > max) {
+			position = max;
+			speed = 0;
+		} else if (position < min) {
+			position = min;
+			speed = 0;
+		}
+	}
+
+	public double getPosition() {
+		return position;
+	}
+
+	public void setPosition(double position) {
+		this.position = position;
+		this.speed = 0;
+	}
+
+	public double getSpeed() {
+		return speed;
+	}
+}
@@ -0,0 +1,108 @@
+package org.usfirst.frc.team2485.sim;
+
+import java.util.Locale;
+
+import org.usfirst.frc.com.kauailabs.nav6.IMUProtocol;
+
+/**
+ * Encodes nav6 update packets, the inverse of the <code>IMUProtocol</code> decoders, so tools can feed the IMU
+ * classes the same bytes the serial port would. <p>
+ *
+ * Floats are written in the nav6's fixed width of 7 characters, with two decimal places, except the gyro packet's
+ * temperature, which only has room for the first 4 of them. Encoding allocates, so
+ * tools which time decoding should encode their packets up front.
+ */
+public class Nav6Packets {
+
+	public static final int
+		YPR_UPDATE_LENGTH 			= 34,
+		QUATERNION_UPDATE_LENGTH 	= 53,
+		GYRO_UPDATE_LENGTH 			= 46;
+
+	private static final int FLOAT_LENGTH = 7, GYRO_TEMP_LENGTH = 4;
+
+	private Nav6Packets() {
+	}
+
+	/**
+	 * @return the packet length, {@link #YPR_UPDATE_LENGTH}
+	 */
+	public static int encodeYPRUpdate(byte[] buffer, IMUProtocol.YPRUpdate update) {
+		int i = start(buffer, IMUProtocol.MSGID_YPR_UPDATE);
+		i = putFloat(buffer, i, update.yaw);
+		i = putFloat(buffer, i, update.pitch);
+		i = putFloat(buffer, i, update.roll);
+		i = putFloat(buffer, i, update.compass_heading);
+		return finish(buffer, i, YPR_UPDATE_LENGTH);
+	}
+
+	/**
+	 * @return the packet length, {@link #QUATERNION_UPDATE_LENGTH}
+	 */
+	public static int encodeQuaternionUpdate(byte[] buffer, IMUProtocol.QuaternionUpdate update) {
+		int i = start(buffer, IMUProtocol.MSGID_QUATERNION_UPDATE);
+		i = putUint16(buffer, i, update.q1);
+		i = putUint16(buffer, i, update.q2);
+		i = putUint16(buffer, i, update.q3);
+		i = putUint16(buffer, i, update.q4);
+		i = putUint16(buffer, i, update.accel_x);
+		i = putUint16(buffer, i, update.accel_y);
+		i = putUint16(buffer, i, update.accel_z);
+		i = putUint16(buffer, i, update.mag_x);
+		i = putUint16(buffer, i, update.mag_y);
+		i = putUint16(buffer, i, update.mag_z);
+		i = putFloat(buffer, i, update.temp_c);
+		return finish(buffer, i, QUATERNION_UPDATE_LENGTH);
+	}
+
+	/**
+	 * @return the packet length, {@link #GYRO_UPDATE_LENGTH}
+	 */
+	public static int encodeGyroUpdate(byte[] buffer, IMUProtocol.GyroUpdate update) {
+		int i = start(buffer, IMUProtocol.MSGID_GYRO_UPDATE);
+		i = putUint16(buffer, i, update.gyro_x);
+		i = putUint16(buffer, i, update.gyro_y);
+		i = putUint16(buffer, i, update.gyro_z);
+		i = putUint16(buffer, i, update.accel_x);
+		i = putUint16(buffer, i, update.accel_y);
+		i = putUint16(buffer, i, update.accel_z);
+		i = putUint16(buffer, i, update.mag_x);
+		i = putUint16(buffer, i, update.mag_y);
+		i = putUint16(buffer, i, update.mag_z);
+		i = putFloat(buffer, i, update.temp_c, GYRO_TEMP_LENGTH);
+		return finish(buffer, i, GYRO_UPDATE_LENGTH);
+	}
+
+	private static int start(byte[] buffer, byte messageId) {
+		buffer[0] = IMUProtocol.PACKET_START_CHAR;
+		buffer[1] = messageId;
+		return 2;
+	}
+
+	private static int finish(byte[] buffer, int contentLength, int length) {
+		IMUProtocol.encodeTermination(buffer, length, contentLength);
+		return length;
+	}
+
+	private static int putUint16(byte[] buffer, int offset, short value) {
+		IMUProtocol.byteToHex((byte) (value >> 8), buffer, offset);
+		IMUProtocol.byteToHex((byte) value, buffer, offset + 2);
+		return offset + 4;
+	}
+
+	private static int putFloat(byte[] buffer, int offset, float value) {
+		return putFloat(buffer, offset, value, FLOAT_LENGTH);
+	}
+
+	/**
+	 * Writes the first <code>length</code> characters of the 7 character field.
+	 */
+	private static int putFloat(byte[] buffer, int offset, float value, int length) {
+		String text = String.format(Locale.ROOT, "%7.2f", value);
+		if (text.length() != FLOAT_LENGTH)
+			throw new IllegalArgumentException(value + " doesn't fit in " + FLOAT_LENGTH + " characters");
+		for (int i = 0; i < length; i++)
+			buffer[offset + i] = (byte) text.charAt(i);
+		return offset + length;
+	}
+}
@@ -0,0 +1,190 @@
+package org.usfirst.frc.team2485.sim;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.usfirst.frc.com.kauailabs.nav6.IMUProtocol;
+import org.usfirst.frc.com.kauailabs.nav6.frc.PacketFramer;
+
+/**
+ * Replays a synthetic nav6 stream through a {@link PacketFramer}, cut into serial reads at random points, and
+ * reports how many packets per second it frames and decodes, how long a packet takes to come out once the read
+ * holding its last byte returns, and how many packets are lost. <p>
+ *
+ * The stream is YPR update packets, numbered through their yaw. Reads are 1 to 2 packets long, so most packets
+ * are split across two reads. With line noise, random bytes are inserted between packets and single bytes within
+ * packets are corrupted. Only a corrupted packet may be lost: losing any other packet, or decoding packets out of
+ * order, fails the replay with status 1.
+ */
+public class PacketFramerReplay {
+
+	public static final int DEFAULT_PACKETS = 100000;
+	public static final double DEFAULT_NOISE = 0.01;
+	private static final int IDS = 3000; // distinct yaws, 0.1 degrees apart
+	private static final int READ_BUFFER = 256;
+
+	private final byte[] stream;
+	private final int[] packetStart, packetEnd;
+	private final boolean[] corrupted;
+	private final int[] readEnds;
+
+	private int decoded, lost, unexpectedlyLost, outOfOrder, split, discarded;
+	private double processingSeconds;
+	private long[] latencyNanos;
+
+	/**
+	 * @param seed for the random reads and noise
+	 * @param packets how many packets to send
+	 * @param noise chance of garbage before each packet, and separately of a corrupted byte within it
+	 */
+	public PacketFramerReplay(long seed, int packets, double noise) {
+		Random random = new Random(seed);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		packetStart = new int[packets];
+		packetEnd = new int[packets];
+		corrupted = new boolean[packets];
+
+		IMUProtocol.YPRUpdate update = new IMUProtocol.YPRUpdate();
+		byte[] packet = new byte[Nav6Packets.YPR_UPDATE_LENGTH];
+		for (int k = 0; k < packets; k++) {
+			if (random.nextDouble() < noise) {
+				int garbage = 1 + random.nextInt(8);
+				for (int i = 0; i < garbage; i++)
+					out.write(random.nextInt(256));
+			}
+
+			update.yaw = yawFor(k);
+			update.pitch = update.roll = update.compass_heading = 0;
+			int length = Nav6Packets.encodeYPRUpdate(packet, update);
+			if (random.nextDouble() < noise) {
+				int index = random.nextInt(length);
+				packet[index] ^= 1 + random.nextInt(255);
+				corrupted[k] = true;
+			}
+
+			packetStart[k] = out.size();
+			out.write(packet, 0, length);
+			packetEnd[k] = out.size() - 1;
+		}
+		stream = out.toByteArray();
+
+		// cut the stream into reads
+		int[] ends = new int[stream.length];
+		int reads = 0, position = 0;
+		while (position < stream.length) {
+			position = Math.min(stream.length, position + 1 + random.nextInt(2 * Nav6Packets.YPR_UPDATE_LENGTH));
+			ends[reads++] = position;
+		}
+		readEnds = Arrays.copyOf(ends, reads);
+	}
+
+	/**
+	 * @return the yaw which numbers packet k, in degrees
+	 */
+	static float yawFor(int k) {
+		return (k % IDS) * 0.1f - 150;
+	}
+
+	static int idFor(float yaw) {
+		return Math.round((yaw + 150) * 10);
+	}
+
+	public void run() {
+
+		PacketFramer framer = new PacketFramer();
+		IMUProtocol.YPRUpdate update = new IMUProtocol.YPRUpdate();
+		byte[] received = new byte[READ_BUFFER];
+		byte[] packet = framer.getPacket();
+		latencyNanos = new long[packetStart.length];
+
+		int last = -1, readStart = 0, nextToSplit = 0;
+		long processingNanos = 0;
+		for (int r = 0; r < readEnds.length; r++) {
+			int length = readEnds[r] - readStart;
+			System.arraycopy(stream, readStart, received, 0, length);
+			while (nextToSplit < packetStart.length && packetEnd[nextToSplit] < readEnds[r]) {
+				if (packetStart[nextToSplit] < readStart)
+					split++;
+				nextToSplit++;
+			}
+			readStart = readEnds[r];
+
+			long start = System.nanoTime();
+			framer.append(received, length);
+			int packetLength;
+			while ((packetLength = framer.nextPacket()) > 0) {
+				if (IMUProtocol.decodeYPRUpdate(packet, 0, packetLength, update) == 0)
+					continue;
+				long now = System.nanoTime();
+
+				int id = idFor(update.yaw);
+				int k = last + 1 + Math.floorMod(id - (last + 1), IDS);
+				if (k >= packetStart.length || idFor(yawFor(k)) != id) {
+					outOfOrder++;
+					continue;
+				}
+				countLost(last + 1, k);
+				latencyNanos[decoded++] = now - start;
+				last = k;
+			}
+			processingNanos += System.nanoTime() - start;
+		}
+		countLost(last + 1, packetStart.length);
+
+		discarded = framer.getDiscardedByteCount();
+		processingSeconds = processingNanos / 1e9;
+	}
+
+	private void countLost(int from, int to) {
+		for (int k = from; k < to; k++) {
+			lost++;
+			if (!corrupted[k])
+				unexpectedlyLost++;
+		}
+	}
+
+	private int countCorrupted() {
+		int count = 0;
+		for (boolean c : corrupted)
+			if (c)
+				count++;
+		return count;
+	}
+
+	/**
+	 * @return whether only corrupted packets were lost, and nothing came out of order
+	 */
+	public boolean report(String name) {
+		long[] latency = Arrays.copyOf(latencyNanos, decoded);
+		Arrays.sort(latency);
+		double p50 = decoded == 0 ? 0 : latency[decoded / 2] / 1000.0;
+		double p99 = decoded == 0 ? 0 : latency[Math.min(decoded - 1, (int) (0.99 * decoded))] / 1000.0;
+
+		System.out.println(name + ": " + packetStart.length + " packets in " + readEnds.length + " reads, " + split
+				+ " split across reads, " + countCorrupted() + " corrupted");
+		System.out.println("  decoded " + decoded + ", lost " + lost + " (" + unexpectedlyLost + " not corrupted), "
+				+ outOfOrder + " out of order, " + discarded + " bytes discarded");
+		System.out.println("  " + Math.round(decoded / processingSeconds) + " packets/s, latency p50 " + p50
+				+ " us, p99 " + p99 + " us");
+		return unexpectedlyLost == 0 && outOfOrder == 0;
+	}
+
+	/**
+	 * Usage: <code>PacketFramerReplay [packets] [noise]</code>. Replays a clean stream, then a noisy one.
+	 */
+	public static void main(String[] args) {
+
+		int packets = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PACKETS;
+		double noise = args.length > 1 ? Double.parseDouble(args[1]) : DEFAULT_NOISE;
+
+		PacketFramerReplay clean = new PacketFramerReplay(2485, packets, 0);
+		clean.run();
+		PacketFramerReplay noisy = new PacketFramerReplay(2485, packets, noise);
+		noisy.run();
+
+		boolean passed = clean.report("Clean") & noisy.report("Noise " + noise);
+		if (!passed)
+			System.exit(1);
+	}
+}
@@ -0,0 +1,168 @@
+package org.usfirst.frc.team2485.sim;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+import org.usfirst.frc.team2485.util.DualEncoder;
+import org.usfirst.frc.team2485.util.RobotClock;
+import org.usfirst.frc.team2485.util.RollEstimator;
+
+/**
+ * Replays roll and drive rate traces through a fresh {@link RollEstimator}, and reports how closely it tracks the
+ * roll and what each update costs. <p>
+ *
+ * Traces come from a telemetry file's "Roll" and "Drive Rate" channels, or from a synthetic run in which the robot
+ * drives back and forth while the lift tips it and it rides onto the scoring platform. The IMU senses roll from
+ * gravity, so in the synthetic run its roll also picks up the tilt of the robot's acceleration, plus noise, and a
+ * packet only arrives every other frame. For the synthetic run the error is measured against the true roll, and
+ * the replay exits with status 1 unless, while accelerating, the estimate's RMS error is under half the raw IMU
+ * roll's, and, while not accelerating, it is no worse than the raw roll's. A recording has no truth, so the
+ * estimate is compared with the raw roll instead, separately for frames when the robot is and isn't accelerating.
+ */
+public class RollEstimatorReplay {
+
+	public static final String ROLL_CHANNEL = "Roll", RATE_CHANNEL = "Drive Rate";
+
+	private static final double PERIOD = 0.01; // seconds, as for the control loop scheduler
+	private static final double GRAVITY = 386.09; // inches per second^2
+	private static final double ACCELERATING = 10; // inches per second^2
+	private static final int WARMUP_REPLAYS = 20; // so the cost is measured on compiled code
+
+	private final long[] timestamps;
+	private final float[] roll, rate, reference;
+	private final double[] estimate;
+	private long updateNanos;
+
+	/**
+	 * @param roll the IMU's roll per frame; a new packet whenever it changes
+	 * @param reference what the estimate should match per frame
+	 */
+	public RollEstimatorReplay(long[] timestamps, float[] roll, float[] rate, float[] reference) {
+		if (timestamps.length != roll.length || roll.length != rate.length || rate.length != reference.length)
+			throw new IllegalArgumentException("traces must be the same length");
+		this.timestamps = timestamps;
+		this.roll = roll;
+		this.rate = rate;
+		this.reference = reference;
+		this.estimate = new double[roll.length];
+
+		SimulatedTimer timer = new SimulatedTimer();
+		RobotClock.setSource(timer);
+		SimulatedIMU imu = new SimulatedIMU();
+		SimulatedEncoder left = new SimulatedEncoder(), right = new SimulatedEncoder();
+		RollEstimator estimator = new RollEstimator(imu, new DualEncoder(left, right));
+
+		for (int i = 0; i < roll.length; i++) {
+			double dt = i == 0 ? 0 : (timestamps[i] - timestamps[i - 1]) / 1e9;
+			timer.advance(dt);
+			if (i == 0 || roll[i] != roll[i - 1])
+				imu.update(timer.get(), 0, 0, roll[i]);
+			// the drive rate is the average of the right encoder and the negated left one
+			left.move(-rate[i] * dt, dt);
+			right.move(rate[i] * dt, dt);
+
+			long start = System.nanoTime();
+			estimate[i] = estimator.update();
+			updateNanos += System.nanoTime() - start;
+		}
+	}
+
+	public double getNanosPerUpdate() {
+		return roll.length == 0 ? 0 : updateNanos / (double) roll.length;
+	}
+
+	/**
+	 * @param accelerating true for frames when the drive is accelerating, false for frames when it isn't, or null
+	 *            for every frame
+	 * @return { RMS error of the estimate, RMS error of the raw roll, largest error of the estimate }
+	 */
+	public double[] errors(Boolean accelerating) {
+		double estimateSquares = 0, rawSquares = 0, max = 0;
+		int n = 0;
+		for (int i = 1; i < roll.length; i++) {
+			if (accelerating != null && isAccelerating(i) != accelerating)
+				continue;
+			double error = estimate[i] - reference[i];
+			estimateSquares += error * error;
+			rawSquares += (roll[i] - reference[i]) * (roll[i] - reference[i]);
+			max = Math.max(max, Math.abs(error));
+			n++;
+		}
+		if (n == 0)
+			return new double[] { 0, 0, 0 };
+		return new double[] { Math.sqrt(estimateSquares / n), Math.sqrt(rawSquares / n), max };
+	}
+
+	private boolean isAccelerating(int i) {
+		double dt = (timestamps[i] - timestamps[i - 1]) / 1e9;
+		return dt > 0 && Math.abs(rate[i] - rate[i - 1]) / dt > ACCELERATING;
+	}
+
+	/**
+	 * Twelve seconds of driving back and forth at 40 in/s^2, while the lift tips the robot 2 degrees and it rides
+	 * up onto the scoring platform, another 4 degrees, and off again.
+	 * @return { IMU roll, drive rate, true roll } per frame
+	 */
+	public static float[][] syntheticRun(int frames, long seed) {
+		Random random = new Random(seed);
+		float[] imuRoll = new float[frames], driveRate = new float[frames], truth = new float[frames];
+		double velocity = 0, held = 0;
+		for (int i = 0; i < frames; i++) {
+			double t = i * PERIOD;
+
+			// 1 s speeding up, 1 s cruising, 1 s slowing down, 1 s stopped, alternating direction
+			double phase = t % 4, direction = (int) (t / 4) % 2 == 0 ? 1 : -1;
+			double accel = phase < 1 ? 40 * direction : phase < 2 ? 0 : phase < 3 ? -40 * direction : 0;
+			velocity = phase >= 3 ? 0 : velocity + accel * PERIOD;
+
+			double lift = t < 2 ? 0 : t < 3 ? 2 * (t - 2) : t < 6 ? 2 : t < 7 ? 2 * (7 - t) : 0;
+			double platform = t >= 8 && t < 10 ? 4 : 0;
+			truth[i] = (float) (lift + platform);
+
+			if (i % 2 == 0) // the IMU sends 50 packets a second
+				held = truth[i] + Math.toDegrees(Math.atan2(accel, GRAVITY)) + 0.1 * random.nextGaussian();
+			imuRoll[i] = (float) held;
+			driveRate[i] = (float) velocity;
+		}
+		return new float[][] { imuRoll, driveRate, truth };
+	}
+
+	private static String format(double[] errors) {
+		return "estimate RMS " + errors[0] + ", max " + errors[2] + "; raw roll RMS " + errors[1] + " degrees";
+	}
+
+	/**
+	 * Usage: <code>RollEstimatorReplay [telemetry file]</code>. Without a file, replays a synthetic run.
+	 */
+	public static void main(String[] args) throws IOException {
+
+		if (args.length > 0) {
+			TelemetryReader log = new TelemetryReader(new File(args[0]));
+			float[] roll = log.getChannel(ROLL_CHANNEL), rate = log.getChannel(RATE_CHANNEL);
+			RollEstimatorReplay replay = null;
+			for (int pass = 0; pass <= WARMUP_REPLAYS; pass++)
+				replay = new RollEstimatorReplay(log.getTimestamps(), roll, rate, roll);
+			System.out.println("Against the raw roll, accelerating: " + format(replay.errors(true)));
+			System.out.println("Against the raw roll, not accelerating: " + format(replay.errors(false)));
+			System.out.println("Cost: " + replay.getNanosPerUpdate() + " ns per update");
+			return;
+		}
+
+		float[][] run = syntheticRun(1200, 2485);
+		long[] timestamps = new long[run[0].length];
+		for (int i = 0; i < timestamps.length; i++)
+			timestamps[i] = (long) (i * PERIOD * 1e9);
+		RollEstimatorReplay replay = null;
+		for (int pass = 0; pass <= WARMUP_REPLAYS; pass++)
+			replay = new RollEstimatorReplay(timestamps, run[0], run[1], run[2]);
+
+		double[] accelerating = replay.errors(true), steady = replay.errors(false);
+		System.out.println("Synthetic run: " + format(replay.errors(null)));
+		System.out.println("  accelerating: " + format(accelerating));
+		System.out.println("  not accelerating: " + format(steady));
+		System.out.println("Cost: " + replay.getNanosPerUpdate() + " ns per update");
+		if (accelerating[0] >= accelerating[1] / 2 || steady[0] > steady[1])
+			System.exit(1);
+	}
+}
@@ -0,0 +1,153 @@
+package org.usfirst.frc.team2485.sim;
+
+import java.util.Random;
+
+import org.usfirst.frc.com.kauailabs.nav6.frc.SensorHistory;
+
+/**
+ * Checks {@link SensorHistory} against synthetic streams, and times it against the array loops it replaced. <p>
+ *
+ * The running mean and variance are compared with sums recomputed over the window after every sample, for noisy
+ * streams far from zero where the subtractions lose the most precision. Interpolation and rate are checked on
+ * ramps with jittered sample times, including yaw ramps which wrap past 180 degrees. The old code kept the same
+ * samples in a plain array and summed all of them for every mean. Exits with status 1 if any check fails.
+ */
+public class SensorHistoryCheck {
+
+	private static final int SAMPLES = 200000;
+	private static final double MEAN_TOLERANCE = 1e-9, VARIANCE_TOLERANCE = 1e-12; // relative to the scale, squared for the variance
+	private static final double INTERPOLATION_TOLERANCE = 1e-3; // degrees, about float precision at 180
+
+	private final Random random = new Random(2485);
+	private int checks, failures;
+	private static volatile double sink; // so the timed loops aren't optimized away
+
+	private void check(boolean passed, String what) {
+		checks++;
+		if (!passed) {
+			if (failures < 10)
+				System.out.println("FAILED: " + what);
+			failures++;
+		}
+	}
+
+	void checkStatistics(int capacity, double offset, double noise) {
+		SensorHistory history = new SensorHistory(capacity);
+		float[] window = new float[capacity];
+		for (int n = 0; n < SAMPLES; n++) {
+			float value = (float) (offset + noise * random.nextGaussian());
+			history.add(n * 0.01, value);
+			window[n % capacity] = value;
+
+			int count = Math.min(n + 1, capacity);
+			double sum = 0;
+			for (int i = 0; i < count; i++)
+				sum += window[i];
+			double mean = sum / count;
+			double squares = 0;
+			for (int i = 0; i < count; i++)
+				squares += (window[i] - mean) * (window[i] - mean);
+			double variance = squares / count;
+
+			double scale = Math.abs(offset) + noise;
+			check(Math.abs(history.getMean() - mean) <= MEAN_TOLERANCE * scale,
+					"mean " + history.getMean() + " != " + mean + " after " + n + " samples, capacity " + capacity);
+			check(Math.abs(history.getVariance() - variance) <= VARIANCE_TOLERANCE * scale * scale,
+					"variance " + history.getVariance() + " != " + variance + " after " + n + " samples, capacity " + capacity);
+		}
+	}
+
+	/**
+	 * Samples a ramp at jittered times and checks the value halfway between, and past either end of, the samples.
+	 */
+	void checkInterpolation(boolean wrap, double start, double slope) {
+		int capacity = 10;
+		SensorHistory history = new SensorHistory(capacity, wrap);
+		double time = 0, lastTime = 0;
+		for (int n = 0; n < SAMPLES / 10; n++) {
+			lastTime = time;
+			time += 0.02 * (0.5 + random.nextDouble()); // 50 Hz, give or take
+			history.add(time, (float) ramp(wrap, start, slope, time));
+
+			if (n >= 1) {
+				double between = (lastTime + time) / 2;
+				check(angleError(wrap, history.valueAt(between), ramp(wrap, start, slope, between)) <= INTERPOLATION_TOLERANCE,
+						"valueAt(" + between + ") = " + history.valueAt(between) + ", expected " + ramp(wrap, start, slope, between));
+				check(Math.abs(history.getLatestRate() - slope) <= 0.01 * Math.abs(slope),
+						"rate " + history.getLatestRate() + ", expected " + slope);
+			}
+			check(history.valueAt(time + 1) == (float) ramp(wrap, start, slope, time), "valueAt after the newest sample");
+			if (n >= capacity)
+				check(history.valueAt(0) == history.valueAt(-1), "valueAt before the oldest sample");
+		}
+	}
+
+	static double ramp(boolean wrap, double start, double slope, double time) {
+		double value = start + slope * time;
+		if (wrap) {
+			value %= 360;
+			if (value > 180)
+				value -= 360;
+			else if (value < -180)
+				value += 360;
+		}
+		return value;
+	}
+
+	static double angleError(boolean wrap, double a, double b) {
+		double error = Math.abs(a - b);
+		return wrap ? Math.min(error, 360 - error) : error;
+	}
+
+	/**
+	 * @return nanoseconds for an add and a mean with the ring buffer, then with the old array loop
+	 */
+	static double[] time(int capacity, int operations) {
+		SensorHistory history = new SensorHistory(capacity);
+		float[] array = new float[capacity];
+		int index = 0;
+		double total = 0;
+		long historyNanos = 0, arrayNanos = 0;
+		for (int pass = 0; pass < 3; pass++) { // the first two are warmup
+			long start = System.nanoTime();
+			for (int n = 0; n < operations; n++) {
+				history.add(n, n & 255);
+				total += history.getMean();
+			}
+			historyNanos = System.nanoTime() - start;
+
+			start = System.nanoTime();
+			for (int n = 0; n < operations; n++) {
+				array[index] = n & 255;
+				if (++index >= capacity)
+					index = 0;
+				double sum = 0;
+				for (int i = 0; i < capacity; i++)
+					sum += array[i];
+				total += sum / capacity;
+			}
+			arrayNanos = System.nanoTime() - start;
+		}
+		sink = total;
+		return new double[] { historyNanos / (double) operations, arrayNanos / (double) operations };
+	}
+
+	public static void main(String[] args) {
+
+		SensorHistoryCheck check = new SensorHistoryCheck();
+		check.checkStatistics(10, 0, 1);
+		check.checkStatistics(10, 1000, 0.01); // the worst case for the running sums
+		check.checkStatistics(37, -180, 5);
+		check.checkInterpolation(false, -3, 0.7);
+		check.checkInterpolation(true, 170, 45); // wraps past 180 every 8 seconds
+		check.checkInterpolation(true, -170, -45);
+
+		System.out.println(check.checks + " checks, " + check.failures + " failed");
+		for (int capacity : new int[] { 10, 100 }) {
+			double[] nanos = time(capacity, 2000000);
+			System.out.println("Capacity " + capacity + ": add and mean " + nanos[0] + " ns, array loop " + nanos[1] + " ns");
+		}
+		if (check.failures > 0)
+			System.exit(1);
+	}
+}
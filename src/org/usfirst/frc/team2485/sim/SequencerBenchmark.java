@@ -0,0 +1,223 @@
+package org.usfirst.frc.team2485.sim;
+
+import java.lang.management.ManagementFactory;
+
+import org.usfirst.frc.team2485.auto.InnerSequencer;
+import org.usfirst.frc.team2485.auto.InstantItem;
+import org.usfirst.frc.team2485.auto.ItemLifecycle;
+import org.usfirst.frc.team2485.auto.SequencedItem;
+import org.usfirst.frc.team2485.auto.SequencedMultipleItem;
+import org.usfirst.frc.team2485.auto.SequencedPause;
+import org.usfirst.frc.team2485.auto.Sequencer;
+import org.usfirst.frc.team2485.auto.SequencerFactory;
+import org.usfirst.frc.team2485.util.RobotClock;
+
+/**
+ * Measures what a {@link Sequencer} tick costs, in nanoseconds and bytes allocated. <p>
+ *
+ * The first measurement runs a tree shaped like <code>SequencerFactory.createAuto(THREE_TOTE)</code>: the same
+ * groups, inner sequences, pauses and instant items, nested the same way, with the movements replaced by items
+ * which finish after a fixed number of ticks. It does nothing else, so the cost is the sequencer's own, and it is
+ * reset and run again whenever it finishes, for millions of ticks at 50 Hz on a simulated clock. The second runs
+ * the real THREE_TOTE sequence in the {@link SimulationHarness}, timing only <code>run()</code>, so the figure
+ * includes what the items themselves do. Exits with status 1 if ticking the shaped tree allocates.
+ */
+public class SequencerBenchmark {
+
+	private static final double PERIOD = SimulationHarness.PERIODIC_PERIOD;
+	private static final int TICKS = 5000000, WARMUP_TICKS = 1000000;
+	private static final int HARNESS_RUNS = 20, HARNESS_WARMUP_RUNS = 5;
+
+	private static volatile double sink; // so the stand-in items' work isn't optimized away
+
+	/**
+	 * Stands in for an instant item such as <code>OpenClapper</code>.
+	 */
+	static class Instant implements InstantItem {
+
+		public void run() {
+			sink++;
+		}
+
+		public double duration() {
+			return 0;
+		}
+	}
+
+	/**
+	 * Stands in for a movement such as <code>DriveStraight</code>: finishes after a number of ticks, or times out.
+	 */
+	static class Movement implements SequencedItem, ItemLifecycle {
+
+		private final int ticks;
+		private final double timeout;
+		private int executed;
+
+		Movement(int ticks, double timeout) {
+			this.ticks = ticks;
+			this.timeout = timeout;
+		}
+
+		public void initialize() {
+			executed = 0;
+		}
+
+		public void execute() {
+			executed++;
+		}
+
+		public boolean isFinished() {
+			return executed >= ticks;
+		}
+
+		public void end(boolean interrupted) {
+			sink += executed;
+		}
+
+		public double timeout() {
+			return timeout;
+		}
+
+		public void run() {
+			execute();
+		}
+
+		public double duration() {
+			return timeout;
+		}
+	}
+
+	private static SequencedItem group(SequencedItem... items) {
+		return new SequencedMultipleItem(items);
+	}
+
+	private static SequencedItem instant() {
+		return new Instant();
+	}
+
+	private static Sequencer liftPartOne() {
+		return new Sequencer(new SequencedItem[] {
+				group(instant(), instant(), instant(), instant(), new SequencedPause(0.1)),
+				instant(),
+				instant(),
+				new Movement(40, Double.MAX_VALUE)
+		});
+	}
+
+	private static Sequencer liftPartTwo() {
+		return new Sequencer(new SequencedItem[] {
+				group(instant(), instant(), new Movement(10, 0.25)),
+				instant(),
+				new Movement(30, 0.03)
+		});
+	}
+
+	/**
+	 * @return a sequence nested like THREE_TOTE, with movements that take about as many ticks as the real ones
+	 */
+	static Sequencer createThreeToteShape() {
+		double pause = 0.05;
+		return new Sequencer(new SequencedItem[] {
+				group(instant(), instant(), new SequencedPause(0.1)),
+				new Movement(60, 1.45),
+				group(instant(), instant(), instant(), new SequencedPause(pause)),
+				group(instant(), new Movement(50, 1.25), new InnerSequencer(liftPartOne())),
+				group(instant(), new SequencedPause(pause)),
+				group(new Movement(40, 1.0), new InnerSequencer(liftPartTwo())),
+				group(instant(), instant(), instant(), instant(), new SequencedPause(pause), instant(), instant()),
+				new Movement(80, 3),
+				group(instant(), new SequencedPause(pause + 0.25), instant()),
+				instant(),
+				new Movement(60, 1.35),
+				group(instant(), instant(), instant(), instant(), new SequencedPause(pause)),
+				group(new Movement(50, 1.25), new InnerSequencer(liftPartOne())),
+				group(instant(), new SequencedPause(pause)),
+				group(new Movement(40, 1.0), new InnerSequencer(liftPartTwo())),
+				group(instant(), instant(), instant(), instant(), instant(), new SequencedPause(pause), instant()),
+				new Movement(110, 3),
+				group(instant(), new SequencedPause(pause + 0.25), instant()),
+				instant(),
+				instant(),
+				instant(),
+				new Movement(50, 1.25),
+				instant(),
+				new Movement(100, 3),
+				instant(),
+				new Movement(2, 0.03),
+				new SequencedPause(0.25),
+				new Movement(15, 0.3)
+		});
+	}
+
+	/**
+	 * @return { nanoseconds per tick, bytes allocated per tick, runs completed }
+	 */
+	static double[] timeShapedTree() {
+		SimulatedTimer timer = new SimulatedTimer();
+		RobotClock.setSource(timer);
+		Sequencer sequence = createThreeToteShape();
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		long thread = Thread.currentThread().getId();
+
+		for (int n = 0; n < WARMUP_TICKS; n++) {
+			timer.advance(PERIOD);
+			if (sequence.run())
+				sequence.reset();
+		}
+
+		int runs = 0;
+		long allocatedBefore = threads.getThreadAllocatedBytes(thread);
+		long start = System.nanoTime();
+		for (int n = 0; n < TICKS; n++) {
+			timer.advance(PERIOD);
+			if (sequence.run()) {
+				sequence.reset();
+				runs++;
+			}
+		}
+		long nanos = System.nanoTime() - start;
+		long allocated = threads.getThreadAllocatedBytes(thread) - allocatedBefore;
+		return new double[] { nanos / (double) TICKS, allocated / (double) TICKS, runs };
+	}
+
+	/**
+	 * @return { nanoseconds per run() call, ticks per run }
+	 */
+	static double[] timeHarness() {
+		long nanos = 0;
+		int ticks = 0;
+		for (int n = 0; n < HARNESS_WARMUP_RUNS + HARNESS_RUNS; n++) {
+			SimulationHarness harness = new SimulationHarness();
+			Sequencer sequence = SequencerFactory.createAuto(SequencerFactory.THREE_TOTE, SimulationHarness.STARTING_WALL_DISTANCE);
+			boolean timed = n >= HARNESS_WARMUP_RUNS;
+			double start = harness.getTime();
+			while (harness.getTime() - start < SimulationHarness.AUTO_LENGTH) {
+				long before = System.nanoTime();
+				boolean finished = sequence.run();
+				if (timed) {
+					nanos += System.nanoTime() - before;
+					ticks++;
+				}
+				if (finished)
+					break;
+				for (double t = 0; t < PERIOD - SimulationHarness.STEP / 2; t += SimulationHarness.STEP)
+					harness.step();
+			}
+		}
+		return new double[] { nanos / (double) ticks, ticks / (double) HARNESS_RUNS };
+	}
+
+	public static void main(String[] args) {
+
+		double[] shaped = timeShapedTree();
+		System.out.println("THREE_TOTE-shaped tree: " + shaped[0] + " ns/tick, " + shaped[1] + " bytes/tick, over "
+				+ TICKS + " ticks, " + (int) shaped[2] + " runs");
+
+		double[] real = timeHarness();
+		System.out.println("THREE_TOTE in the harness: " + real[0] + " ns/tick with the items' own work, "
+				+ real[1] + " ticks per run");
+
+		if (shaped[1] > 0)
+			System.exit(1);
+	}
+}
@@ -0,0 +1,37 @@
+package org.usfirst.frc.team2485.sim;
+
+import org.usfirst.frc.team2485.util.DistanceEncoder;
+
+/**
+ * An encoder moved by a model. Distances are already scaled, as if <code>setDistancePerPulse()</code>
+ * had been called on a real encoder.
+ */
+public class SimulatedEncoder implements DistanceEncoder {
+
+	private double distance, rate;
+
+	/**
+	 * Moves the encoder.
+	 * @param delta distance moved during this step
+	 * @param dt length of the step, in seconds
+	 */
+	public void move(double delta, double dt) {
+		distance += delta;
+		rate = dt > 0 ? delta / dt : 0;
+	}
+
+	@Override
+	public double getDistance() {
+		return distance;
+	}
+
+	@Override
+	public double getRate() {
+		return rate;
+	}
+
+	@Override
+	public void reset() {
+		distance = 0;
+	}
+}
@@ -0,0 +1,40 @@
+package org.usfirst.frc.team2485.sim;
+
+import org.usfirst.frc.com.kauailabs.nav6.frc.IMU;
+
+/**
+ * A nav6 IMU fed by a model instead of the serial port. Readings go through the same path as real
+ * update packets, so yaw history, snapshots and <code>zeroYaw()</code> behave the same.
+ */
+public class SimulatedIMU extends IMU {
+
+	public SimulatedIMU() {
+		super();
+	}
+
+	/**
+	 * Publishes one update, as if a packet had been received.
+	 * @param timestamp FPGA time of the update, in seconds
+	 * @param yaw degrees, any range (wrapped to -180 to 180)
+	 * @param pitch degrees
+	 * @param roll degrees
+	 */
+	public void update(double timestamp, double yaw, double pitch, double roll) {
+		float wrappedYaw = (float) wrapDegrees(yaw);
+		publishOrientation(timestamp, wrappedYaw, (float) pitch, (float) roll, wrappedYaw < 0 ? wrappedYaw + 360 : wrappedYaw);
+	}
+
+	@Override
+	public boolean isCalibrating() {
+		return false;
+	}
+
+	static double wrapDegrees(double degrees) {
+		degrees %= 360;
+		if (degrees > 180)
+			degrees -= 360;
+		else if (degrees <= -180)
+			degrees += 360;
+		return degrees;
+	}
+}
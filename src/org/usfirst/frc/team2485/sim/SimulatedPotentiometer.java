@@ -0,0 +1,26 @@
+package org.usfirst.frc.team2485.sim;
+
+import edu.wpi.first.wpilibj.interfaces.Potentiometer;
+
+/**
+ * A potentiometer set by a model, reporting the same 0 to 1 range as an <code>AnalogPotentiometer</code>
+ * constructed with the default scale.
+ */
+public class SimulatedPotentiometer implements Potentiometer {
+
+	private double value;
+
+	public void set(double value) {
+		this.value = value;
+	}
+
+	@Override
+	public double get() {
+		return value;
+	}
+
+	@Override
+	public double pidGet() {
+		return value;
+	}
+}
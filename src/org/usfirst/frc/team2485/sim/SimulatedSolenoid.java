@@ -0,0 +1,18 @@
+package org.usfirst.frc.team2485.sim;
+
+import org.usfirst.frc.team2485.util.SolenoidOutput;
+
+public class SimulatedSolenoid implements SolenoidOutput {
+
+	private boolean on;
+
+	@Override
+	public void set(boolean on) {
+		this.on = on;
+	}
+
+	@Override
+	public boolean get() {
+		return on;
+	}
+}
@@ -0,0 +1,40 @@
+package org.usfirst.frc.team2485.sim;
+
+import edu.wpi.first.wpilibj.SpeedController;
+
+/**
+ * A speed controller which only remembers the last value set, for the models to read.
+ */
+public class SimulatedSpeedController implements SpeedController {
+
+	private double output;
+
+	@Override
+	public double get() {
+		return output;
+	}
+
+	@Override
+	public void set(double speed, byte syncGroup) {
+		set(speed);
+	}
+
+	@Override
+	public void set(double speed) {
+		if (speed > 1)
+			speed = 1;
+		else if (speed < -1)
+			speed = -1;
+		output = speed;
+	}
+
+	@Override
+	public void disable() {
+		output = 0;
+	}
+
+	@Override
+	public void pidWrite(double output) {
+		set(output);
+	}
+}
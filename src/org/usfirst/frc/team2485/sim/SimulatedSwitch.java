@@ -0,0 +1,17 @@
+package org.usfirst.frc.team2485.sim;
+
+import org.usfirst.frc.team2485.util.DigitalSwitch;
+
+public class SimulatedSwitch implements DigitalSwitch {
+
+	private boolean value;
+
+	public void set(boolean value) {
+		this.value = value;
+	}
+
+	@Override
+	public boolean get() {
+		return value;
+	}
+}
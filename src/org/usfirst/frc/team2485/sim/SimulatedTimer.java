@@ -0,0 +1,96 @@
+package org.usfirst.frc.team2485.sim;
+
+import org.usfirst.frc.team2485.util.RobotClock;
+
+import edu.wpi.first.wpilibj.Timer;
+
+/**
+ * Simulated time, which only moves when {@link #advance(double)} is called. <p>
+ * 
+ * Install it with <code>RobotClock.setSource()</code> for the robot program's own timing, and with
+ * <code>Timer.SetImplementation()</code> so <code>Timer.getFPGATimestamp()</code> works off the robot. 
+ * Sleeping threads wake once the simulation has advanced past their wake time.
+ */
+public class SimulatedTimer implements RobotClock.Source, Timer.StaticInterface {
+
+	private volatile long nanos;
+
+	public synchronized void advance(double dt) {
+		nanos += (long) (dt * 1e9);
+		notifyAll();
+	}
+
+	/**
+	 * @return seconds since the simulation started
+	 */
+	public double get() {
+		return nanos / 1e9;
+	}
+
+	@Override
+	public long nanoTime() {
+		return nanos;
+	}
+
+	@Override
+	public synchronized void sleep(long duration) throws InterruptedException {
+		long wakeTime = nanos + duration;
+		while (nanos - wakeTime < 0)
+			wait();
+	}
+
+	@Override
+	public double getFPGATimestamp() {
+		return get();
+	}
+
+	@Override
+	public double getMatchTime() {
+		return get();
+	}
+
+	@Override
+	public void delay(double seconds) {
+		try {
+			sleep((long) (seconds * 1e9));
+		} catch (InterruptedException e) {
+			e.printStackTrace();
+		}
+	}
+
+	@Override
+	public Timer.Interface newTimer() {
+		return new Timer.Interface() {
+
+			private double startTime, accumulated;
+			private boolean running;
+
+			public double get() {
+				return running ? accumulated + SimulatedTimer.this.get() - startTime : accumulated;
+			}
+
+			public void reset() {
+				accumulated = 0;
+				startTime = SimulatedTimer.this.get();
+			}
+
+			public void start() {
+				startTime = SimulatedTimer.this.get();
+				running = true;
+			}
+
+			public void stop() {
+				accumulated = get();
+				running = false;
+			}
+
+			public boolean hasPeriodPassed(double period) {
+				if (get() > period) {
+					startTime += period;
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+}
@@ -0,0 +1,39 @@
+package org.usfirst.frc.team2485.sim;
+
+import org.usfirst.frc.team2485.util.UltrasonicFilter;
+
+import edu.wpi.first.wpilibj.PIDSource;
+
+/**
+ * An ultrasonic sensor set by a model, reporting its range in inches. Like a real one in automatic mode, 
+ * {@link #ping(double, double)} only changes the range once per ping, and reads in between repeat it.
+ */
+public class SimulatedUltrasonic implements PIDSource {
+
+	private double rangeInches;
+	private double lastPingTime = Double.NEGATIVE_INFINITY;
+
+	/**
+	 * Measures a new range if a ping is due.
+	 * @param time in seconds
+	 */
+	public void ping(double rangeInches, double time) {
+		if (time - lastPingTime < UltrasonicFilter.PING_PERIOD)
+			return;
+		this.rangeInches = rangeInches;
+		lastPingTime = time;
+	}
+
+	public void setRangeInches(double rangeInches) {
+		this.rangeInches = rangeInches;
+	}
+
+	public double getRangeInches() {
+		return rangeInches;
+	}
+
+	@Override
+	public double pidGet() {
+		return rangeInches;
+	}
+}
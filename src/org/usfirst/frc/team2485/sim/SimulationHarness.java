@@ -0,0 +1,318 @@
+package org.usfirst.frc.team2485.sim;
+
+import org.usfirst.frc.team2485.auto.AutoPlanCache;
+import org.usfirst.frc.team2485.auto.Sequencer;
+import org.usfirst.frc.team2485.auto.SequencerFactory;
+import org.usfirst.frc.team2485.robot.Robot;
+import org.usfirst.frc.team2485.subsystems.*;
+import org.usfirst.frc.team2485.util.CombinedSpeedController;
+import org.usfirst.frc.team2485.util.ControlLoopScheduler;
+import org.usfirst.frc.team2485.util.Pose;
+import org.usfirst.frc.team2485.util.RobotClock;
+
+import edu.wpi.first.wpilibj.Timer;
+
+/**
+ * Runs the robot program's subsystems and sequences against simulated hardware, off the robot. <p>
+ * 
+ * Every subsystem is built on simulated speed controllers, solenoids and sensors and installed in 
+ * <code>Robot</code>'s static fields, where the sequenced items find them. Each step advances the models,
+ * publishes their sensor values and ticks the control loops, the same way the scheduler thread would.
+ * Everything reads the simulated clock, so runs are deterministic and go as fast as the CPU allows. <p>
+ * 
+ * <code>Robot</code> itself can't be constructed off the robot (<code>IterativeRobot</code> connects to the
+ * driver station), so {@link #runAuto(int, double)} does what <code>autonomousInit()</code> and 
+ * <code>autonomousPeriodic()</code> do. Run <code>main()</code> to print how long each autonomous mode takes,
+ * how far the pose estimate ends up from where the robot really is, and how long the motors take to stop when
+ * a mode is cancelled partway through.
+ */
+public class SimulationHarness {
+
+	public static final double PERIODIC_PERIOD = 0.02; // how often IterativeRobot calls the periodic methods
+	public static final double STEP = ControlLoopScheduler.DEFAULT_PERIOD;
+
+	public static final double AUTO_LENGTH = 15;
+	public static final double STARTING_WALL_DISTANCE = 30; // inches
+	public static final double SETTLE_TIME = 1; // seconds the sensors get before auto starts
+
+	// Model speeds, in the units the subsystems use: scaled pot values, and degrees of roll
+	private static final double
+		CLAPPER_SPEED 		= 210, 	// LOWEST_POS to HIGHEST_POS in about 1.5 s
+		CLAW_SPEED 			= 240, 	// LOWEST_POS to HIGHEST_POS in about 3 s
+		STRONGBACK_SPEED 	= 8,
+		LIFT_TIME_CONSTANT	= 0.08;
+
+	private final SimulatedTimer timer;
+	private final ControlLoopScheduler scheduler;
+
+	private final SimulatedSpeedController leftDrive, rightDrive, centerDrive;
+	private final SimulatedSpeedController clapperLifter, clawMotor, strongbackMotor;
+	private final SimulatedSpeedController leftRoller, rightRoller;
+	private final SimulatedSolenoid suspension, ratchetLatch, commandeererLeft, commandeererRight;
+	private final SimulatedSolenoid clapperActuator, clawSolenoid;
+	private final SimulatedEncoder leftEnc, rightEnc;
+	private final SimulatedPotentiometer clapperPot, clawPot;
+	private final SimulatedUltrasonic sonic;
+	private final SimulatedIMU imu;
+
+	private final HDriveModel driveModel;
+	private final LiftModel clapperModel, clawModel, strongbackModel;
+
+	private boolean realTime = false;
+
+	public SimulationHarness() {
+
+		timer = new SimulatedTimer();
+		RobotClock.setSource(timer);
+		Timer.SetImplementation(timer);
+
+		leftDrive 		= new SimulatedSpeedController();
+		rightDrive 		= new SimulatedSpeedController();
+		centerDrive 	= new SimulatedSpeedController();
+		clapperLifter 	= new SimulatedSpeedController();
+		clawMotor 		= new SimulatedSpeedController();
+		strongbackMotor = new SimulatedSpeedController();
+		leftRoller 		= new SimulatedSpeedController();
+		rightRoller 	= new SimulatedSpeedController();
+
+		suspension 			= new SimulatedSolenoid();
+		ratchetLatch 		= new SimulatedSolenoid();
+		commandeererLeft 	= new SimulatedSolenoid();
+		commandeererRight 	= new SimulatedSolenoid();
+		clapperActuator 	= new SimulatedSolenoid();
+		clawSolenoid 		= new SimulatedSolenoid();
+
+		leftEnc 	= new SimulatedEncoder();
+		rightEnc 	= new SimulatedEncoder();
+		clapperPot 	= new SimulatedPotentiometer();
+		clawPot 	= new SimulatedPotentiometer();
+		sonic 		= new SimulatedUltrasonic();
+		imu 		= new SimulatedIMU();
+
+		driveModel 		= new HDriveModel(leftDrive, rightDrive, centerDrive, suspension, 
+								leftEnc, rightEnc, null, STARTING_WALL_DISTANCE);
+		clapperModel 	= new LiftModel(clapperLifter, CLAPPER_SPEED, LIFT_TIME_CONSTANT, 
+								Clapper.LOWEST_POS - 5, Clapper.HIGHEST_POS + 5, Clapper.LOWEST_POS);
+		clawModel 		= new LiftModel(clawMotor, CLAW_SPEED, LIFT_TIME_CONSTANT, 
+								Claw.LOWEST_POS - 5, Claw.HIGHEST_POS + 5, Claw.LOWEST_POS);
+		strongbackModel = new LiftModel(strongbackMotor, STRONGBACK_SPEED, LIFT_TIME_CONSTANT, 
+								-10, 20, Strongback.STANDARD_SETPOINT);
+		publishSensors();
+
+		Robot.toteCounter 			= new ToteCounter();
+		Robot.drive 				= new DriveTrain(new CombinedSpeedController(leftDrive), new CombinedSpeedController(rightDrive), 
+										new CombinedSpeedController(centerDrive), suspension, imu, leftEnc, rightEnc, null, sonic);
+		Robot.clapper 				= new Clapper(new CombinedSpeedController(clapperLifter), clapperActuator, clapperPot, null, null);
+		Robot.claw 					= new Claw(clawMotor, clawSolenoid, clawPot);
+		Robot.rollers 				= new Rollers(leftRoller, rightRoller);
+		Robot.strongback 			= new Strongback(strongbackMotor, imu, Robot.drive.getDualEncoder());
+		Robot.ratchet 				= new RatchetSystem(ratchetLatch);
+		Robot.containerCommandeerer = new ContainerCommandeerer(commandeererLeft, commandeererRight);
+
+		scheduler = new ControlLoopScheduler(STEP);
+		Robot.drive.registerControlLoops(scheduler);
+		Robot.clapper.registerControlLoops(scheduler);
+		Robot.claw.registerControlLoops(scheduler);
+		Robot.strongback.registerControlLoops(scheduler);
+	}
+
+	/**
+	 * Sets whether steps are paced to the wall clock, e.g. to watch a run on the dashboard. Off by default.
+	 */
+	public void setRealTime(boolean realTime) {
+		this.realTime = realTime;
+	}
+
+	/**
+	 * Advances the models and the control loops by one step.
+	 */
+	public void step() {
+		driveModel.step(STEP);
+		clapperModel.step(STEP);
+		clawModel.step(STEP);
+		strongbackModel.step(STEP);
+		timer.advance(STEP);
+		publishSensors();
+		scheduler.tick(STEP);
+	}
+
+	private void publishSensors() {
+		clapperPot.set(clapperModel.getPosition() / 1000);		// ScaledPot
+		clawPot.set(1 - clawModel.getPosition() / 1000);		// InvertedScaledPot
+		sonic.ping(driveModel.getWallDistance(), timer.get());
+		imu.update(timer.get(), driveModel.getHeading(), 0, strongbackModel.getPosition());
+	}
+
+	/**
+	 * Advances the simulation by one periodic loop.
+	 */
+	private void stepPeriodic(long wallStart, double simStart) {
+		for (double t = 0; t < PERIODIC_PERIOD - STEP / 2; t += STEP)
+			step();
+
+		if (realTime) {
+			long ahead = (long) ((timer.get() - simStart) * 1e9) - (System.nanoTime() - wallStart);
+			if (ahead > 0) {
+				try {
+					Thread.sleep(ahead / 1000000, (int) (ahead % 1000000));
+				} catch (InterruptedException e) {
+					e.printStackTrace();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Runs an autonomous mode until its sequence finishes.
+	 * @param autoType one of the <code>SequencerFactory</code> auto types
+	 * @param timeout seconds to give up after
+	 * @return seconds the sequence took, or <code>Double.NaN</code> if it didn't finish in time
+	 */
+	public double runAuto(int autoType, double timeout) {
+
+		Sequencer autoSequence = prepareAuto(autoType);
+
+		long wallStart = System.nanoTime();
+		double start = timer.get();
+		while (timer.get() - start < timeout) {
+			if (autoSequence.run())
+				return timer.get() - start;
+			stepPeriodic(wallStart, start);
+		}
+		return Double.NaN;
+	}
+
+	/**
+	 * Runs an autonomous mode, then cancels it partway through the way the kill switch does: the sequence is
+	 * cancelled and the motors of the subsystems it holds are stopped.
+	 * @param autoType one of the <code>SequencerFactory</code> auto types
+	 * @param cancelAt seconds into the mode to cancel it
+	 * @return seconds from the cancel until every motor is at 0 and stays there, so 0 if they all stopped in
+	 * the same loop, or <code>Double.NaN</code> if they were still running a second later or the mode finished
+	 * before the cancel
+	 */
+	public double measureCancel(int autoType, double cancelAt) {
+
+		Sequencer autoSequence = prepareAuto(autoType);
+
+		long wallStart = System.nanoTime();
+		double start = timer.get();
+		while (timer.get() - start < cancelAt) {
+			if (autoSequence.run())
+				return Double.NaN;
+			stepPeriodic(wallStart, start);
+		}
+
+		int held = autoSequence.getRequirements();
+		autoSequence.cancel();
+		Robot.stopOutputs(held);
+
+		double cancelled = timer.get();
+		double stoppedAfter = Double.NaN;
+		while (timer.get() - cancelled < 1) {
+			if (!motorsStopped())
+				stoppedAfter = Double.NaN;
+			else if (Double.isNaN(stoppedAfter))
+				stoppedAfter = timer.get() - cancelled;
+			step();
+		}
+		return motorsStopped() ? stoppedAfter : Double.NaN;
+	}
+
+	/**
+	 * Resets the robot and builds an autonomous mode's sequence, before the clock starts, as Robot does
+	 * while disabled. Steps until the ultrasonic filter trusts its range first, for up to <code>SETTLE_TIME</code>.
+	 */
+	private Sequencer prepareAuto(int autoType) {
+
+		Robot.toteCounter.resetCount();
+		imu.zeroYaw();
+		Robot.drive.resetEncoders();
+
+		double start = timer.get();
+		while (Robot.drive.getUltrasonicConfidence() < DriveTrain.MIN_SONIC_CONFIDENCE && timer.get() - start < SETTLE_TIME)
+			step();
+
+		AutoPlanCache plans = new AutoPlanCache();
+		plans.prepare(autoType, Robot.drive.getUltrasonicDistance());
+		return plans.take(autoType, Robot.drive.getUltrasonicDistance());
+	}
+
+	/**
+	 * @return whether every motor a sequence can drive is at 0; the strongback levels itself, so it's left out
+	 */
+	private boolean motorsStopped() {
+		return leftDrive.get() == 0 && rightDrive.get() == 0 && centerDrive.get() == 0 && 
+				clapperLifter.get() == 0 && clawMotor.get() == 0 && leftRoller.get() == 0 && rightRoller.get() == 0;
+	}
+
+	public HDriveModel getDriveModel() {
+		return driveModel;
+	}
+
+	public LiftModel getClapperModel() {
+		return clapperModel;
+	}
+
+	public LiftModel getClawModel() {
+		return clawModel;
+	}
+
+	public LiftModel getStrongbackModel() {
+		return strongbackModel;
+	}
+
+	public double getTime() {
+		return timer.get();
+	}
+
+	/**
+	 * Gets where the drive model really is, in the pose estimator's frame: x forward from the start, and y the
+	 * distance from the wall. The model's own x is to the right and its y forward, from the starting position.
+	 * @param pose filled in with the true pose
+	 * @return the pose passed in
+	 */
+	public Pose getTruePose(Pose pose) {
+		pose.x = driveModel.getY();
+		pose.y = STARTING_WALL_DISTANCE + driveModel.getX();
+		pose.heading = driveModel.getHeading();
+		pose.timestamp = timer.get();
+		return pose;
+	}
+
+	/**
+	 * Runs every autonomous mode on a fresh robot and prints how long each took, and the pose estimate's error.
+	 */
+	public static void main(String[] args) {
+
+		int[] autoTypes = { 
+				SequencerFactory.DRIVE_TO_AUTO_ZONE, SequencerFactory.ONE_CONTAINER, SequencerFactory.CONTAINER_STEAL, 
+				SequencerFactory.THREE_TOTE, SequencerFactory.DO_NOTHING };
+		String[] names = { "DRIVE_TO_AUTO_ZONE", "ONE_CONTAINER", "CONTAINER_STEAL", "THREE_TOTE", "DO_NOTHING" };
+
+		double[] times = new double[autoTypes.length];
+		for (int i = 0; i < autoTypes.length; i++) {
+			SimulationHarness harness = new SimulationHarness();
+			double time = harness.runAuto(autoTypes[i], AUTO_LENGTH);
+			times[i] = Double.isNaN(time) ? AUTO_LENGTH : time;
+			Pose truth = harness.getTruePose(new Pose());
+			Pose estimate = Robot.drive.getPoseEstimator().getPose(new Pose());
+
+			System.out.println(names[i] + ": " + (Double.isNaN(time) ? "did not finish in " + AUTO_LENGTH + " s" : time + " s") + 
+					", ended at " + truth + ", estimated " + estimate + ", off by " + 
+					Math.hypot(estimate.x - truth.x, estimate.y - truth.y) + " in and " + 
+					Math.abs(estimate.heading - truth.heading) + " degrees");
+		}
+
+		double[] cancelTimes = { 0.5, 2, 4, 7, 10 };
+		for (int i = 0; i < autoTypes.length; i++) {
+			for (int j = 0; j < cancelTimes.length; j++) {
+				if (cancelTimes[j] >= times[i])
+					break; // finished by then, nothing to cancel
+				double stoppedAfter = new SimulationHarness().measureCancel(autoTypes[i], cancelTimes[j]);
+				System.out.println(names[i] + " cancelled at " + cancelTimes[j] + " s: " + (Double.isNaN(stoppedAfter) ? 
+						"motors still running" : "motors stopped after " + stoppedAfter + " s"));
+			}
+		}
+	}
+}
@@ -0,0 +1,78 @@
+package org.usfirst.frc.team2485.sim;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.usfirst.frc.team2485.util.TelemetryRecorder;
+
+/**
+ * Reads a file written by {@link TelemetryRecorder} into memory, one array per channel.
+ */
+public class TelemetryReader {
+
+	private final String[] channels;
+	private final long[] timestamps;
+	private final float[][] values;
+
+	public TelemetryReader(File file) throws IOException {
+
+		DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+		try {
+			if (in.readInt() != TelemetryRecorder.MAGIC)
+				throw new IOException(file + " isn't a telemetry file");
+			int version = in.readInt();
+			if (version != TelemetryRecorder.VERSION)
+				throw new IOException(file + " is telemetry version " + version + ", expected " + TelemetryRecorder.VERSION);
+
+			int channelCount = in.readInt();
+			int frameCount = in.readInt();
+
+			channels = new String[channelCount];
+			for (int i = 0; i < channelCount; i++) {
+				byte[] name = new byte[in.readUnsignedShort()];
+				in.readFully(name);
+				channels[i] = new String(name, StandardCharsets.UTF_8);
+			}
+
+			timestamps = new long[frameCount];
+			values = new float[channelCount][frameCount];
+			for (int frame = 0; frame < frameCount; frame++) {
+				timestamps[frame] = in.readLong();
+				for (int i = 0; i < channelCount; i++)
+					values[i][frame] = in.readFloat();
+			}
+		} finally {
+			in.close();
+		}
+	}
+
+	public String[] getChannels() {
+		return channels.clone();
+	}
+
+	public int getFrameCount() {
+		return timestamps.length;
+	}
+
+	/**
+	 * @return each frame's <code>RobotClock</code> time, in nanoseconds
+	 */
+	public long[] getTimestamps() {
+		return timestamps;
+	}
+
+	/**
+	 * @return each frame's value for the channel
+	 * @throws IllegalArgumentException if there's no channel with that name
+	 */
+	public float[] getChannel(String name) {
+		for (int i = 0; i < channels.length; i++)
+			if (channels[i].equals(name))
+				return values[i];
+		throw new IllegalArgumentException("No telemetry channel named " + name);
+	}
+}
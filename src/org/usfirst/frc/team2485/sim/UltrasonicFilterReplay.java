@@ -0,0 +1,163 @@
+package org.usfirst.frc.team2485.sim;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+import org.usfirst.frc.team2485.subsystems.DriveTrain;
+import org.usfirst.frc.team2485.util.ControlLoopScheduler;
+import org.usfirst.frc.team2485.util.UltrasonicFilter;
+
+/**
+ * Replays an ultrasonic trace through a fresh {@link UltrasonicFilter} and measures how far the filtered range
+ * lags behind, which limits how fast the sonic strafe PID can close. <p>
+ *
+ * Traces come from a telemetry file's "Ultrasonic Raw" channel, or from a synthetic strafe with noise, spikes
+ * and dropouts. Either way each frame is one read of the sensor, which repeats the last ping until the next
+ * one, and goes through {@link UltrasonicFilter#sample(double, double)} the way the robot's wrapper does. Lag is the time shift of the reference which best matches the filtered range. For a recording
+ * the reference is the raw trace itself, so the match is only as good as the recording is clean; for the
+ * synthetic trace it's the true range.
+ */
+public class UltrasonicFilterReplay {
+
+	public static final String RAW_CHANNEL = "Ultrasonic Raw";
+	private static final int MAX_SHIFT = 50; // frames
+
+	private final long[] timestamps;
+	private final float[] raw, reference;
+	private final double[] filtered, confidence;
+
+	public UltrasonicFilterReplay(long[] timestamps, float[] raw, float[] reference) {
+		if (timestamps.length != raw.length || raw.length != reference.length)
+			throw new IllegalArgumentException("traces must be the same length");
+		this.timestamps = timestamps;
+		this.raw = raw;
+		this.reference = reference;
+		this.filtered = new double[raw.length];
+		this.confidence = new double[raw.length];
+
+		UltrasonicFilter filter = new UltrasonicFilter();
+		for (int i = 0; i < raw.length; i++) {
+			filtered[i] = filter.sample(raw[i], timestamps[i] / 1e9);
+			confidence[i] = filter.getConfidence();
+		}
+	}
+
+	/**
+	 * @return frames the reference is delayed by to best match the filtered range
+	 */
+	public int getLagFrames() {
+		int best = 0;
+		double bestError = Double.MAX_VALUE;
+		for (int shift = 0; shift <= MAX_SHIFT && shift < raw.length; shift++) {
+			double error = meanAbsoluteError(shift);
+			if (error < bestError) {
+				bestError = error;
+				best = shift;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * @return the lag in seconds, from the average time between frames
+	 */
+	public double getLag() {
+		if (raw.length < 2)
+			return 0;
+		double period = (timestamps[timestamps.length - 1] - timestamps[0]) / 1e9 / (timestamps.length - 1);
+		return getLagFrames() * period;
+	}
+
+	/**
+	 * @param shift frames to delay the reference by
+	 * @return mean absolute difference between the filtered range and the delayed reference
+	 */
+	public double meanAbsoluteError(int shift) {
+		double total = 0;
+		int n = 0;
+		for (int i = shift; i < raw.length; i++) {
+			if (Double.isNaN(filtered[i]))
+				continue;
+			total += Math.abs(filtered[i] - reference[i - shift]);
+			n++;
+		}
+		return n == 0 ? Double.NaN : total / n;
+	}
+
+	/**
+	 * @return fraction of frames with confidence under the given minimum
+	 */
+	public double getUntrustedFraction(double minConfidence) {
+		int n = 0;
+		for (int i = 0; i < confidence.length; i++)
+			if (confidence[i] < minConfidence)
+				n++;
+		return confidence.length == 0 ? 0 : n / (double) confidence.length;
+	}
+
+	/**
+	 * A strafe away from the wall, as in the three tote auto, read by a sensor which pings every 
+	 * <code>PING_PERIOD</code>, with gaussian noise, occasional spikes, and dropouts to 0. Frames in between
+	 * repeat the last ping, as the robot sees when it reads the sensor every control loop tick.
+	 * @param period seconds between frames, e.g. <code>ControlLoopScheduler.DEFAULT_PERIOD</code>
+	 * @return { raw, true range } per frame
+	 */
+	public static float[][] syntheticStrafe(int frames, double period, long seed) {
+		Random random = new Random(seed);
+		float[] raw = new float[frames];
+		float[] truth = new float[frames];
+		double held = 30;
+		for (int i = 0; i < frames; i++) {
+			double t = i * period;
+			// 30 in, out to 55 in at 50 in/s, hold, then back
+			double range = t < 0.5 ? 30 : t < 1.0 ? 30 + 50 * (t - 0.5) : t < 2.0 ? 55 : t < 2.5 ? 55 - 50 * (t - 2.0) : 30;
+			truth[i] = (float) range;
+
+			if (i % Math.max(1, (int) Math.round(UltrasonicFilter.PING_PERIOD / period)) == 0) {
+				double r = random.nextDouble();
+				if (r < 0.05)
+					held = 0; // no echo
+				else if (r < 0.10)
+					held = range + 20 + 40 * random.nextDouble(); // echo off something else
+				else
+					held = range + 0.5 * random.nextGaussian();
+			}
+			raw[i] = (float) held;
+		}
+		return new float[][] { raw, truth };
+	}
+
+	/**
+	 * Usage: <code>UltrasonicFilterReplay [telemetry file]</code>. Without a file, replays a synthetic strafe.
+	 */
+	public static void main(String[] args) throws IOException {
+
+		UltrasonicFilterReplay replay;
+		if (args.length > 0) {
+			TelemetryReader log = new TelemetryReader(new File(args[0]));
+			float[] raw = log.getChannel(RAW_CHANNEL);
+			replay = new UltrasonicFilterReplay(log.getTimestamps(), raw, raw);
+		} else {
+			double period = ControlLoopScheduler.DEFAULT_PERIOD;
+			float[][] trace = syntheticStrafe(300, period, 2485);
+			long[] timestamps = new long[trace[0].length];
+			for (int i = 0; i < timestamps.length; i++)
+				timestamps[i] = (long) (i * period * 1e9);
+			replay = new UltrasonicFilterReplay(timestamps, trace[0], trace[1]);
+			System.out.println("Synthetic strafe, unfiltered error " + meanAbsoluteError(trace[0], trace[1]) + " in");
+		}
+
+		System.out.println("Lag: " + replay.getLag() + " s (" + replay.getLagFrames() + " frames)");
+		System.out.println("Mean error at that lag: " + replay.meanAbsoluteError(replay.getLagFrames()) + " in");
+		System.out.println("Mean error with no lag: " + replay.meanAbsoluteError(0) + " in");
+		System.out.println("Untrusted: " + replay.getUntrustedFraction(DriveTrain.MIN_SONIC_CONFIDENCE) * 100 + "% of frames");
+	}
+
+	private static double meanAbsoluteError(float[] raw, float[] truth) {
+		double total = 0;
+		for (int i = 0; i < raw.length; i++)
+			total += Math.abs(raw[i] - truth[i]);
+		return raw.length == 0 ? 0 : total / raw.length;
+	}
+}
@@ -1,15 +1,21 @@
 package org.usfirst.frc.team2485.subsystems;
 
 import org.usfirst.frc.team2485.util.CombinedSpeedController;
+import org.usfirst.frc.team2485.util.ControlLoopScheduler;
+import org.usfirst.frc.team2485.util.DigitalSwitch;
+import org.usfirst.frc.team2485.util.EventLog;
+import org.usfirst.frc.team2485.util.HardwareAdapters;
 import org.usfirst.frc.team2485.util.InvertedScaledPot;
 import org.usfirst.frc.team2485.util.ScaledPot;
+import org.usfirst.frc.team2485.util.ScheduledPIDController;
+import org.usfirst.frc.team2485.util.SolenoidOutput;
 
 import edu.wpi.first.wpilibj.AnalogPotentiometer;
 import edu.wpi.first.wpilibj.DigitalInput;
 import edu.wpi.first.wpilibj.DoubleSolenoid;
-import edu.wpi.first.wpilibj.PIDController;
 import edu.wpi.first.wpilibj.Solenoid;
 import edu.wpi.first.wpilibj.VictorSP;
+import edu.wpi.first.wpilibj.interfaces.Potentiometer;
 
 /**
  * @author Ben Clark
@@ -21,10 +27,10 @@ import edu.wpi.first.wpilibj.VictorSP;
 public class Clapper {
 
 	private CombinedSpeedController clapperLifter;
-	private Solenoid clapperActuator;
-	public PIDController clapperPID;
+	private SolenoidOutput clapperActuator;
+	public ScheduledPIDController clapperPID;
 	private ScaledPot potScaled;
-	private DigitalInput toteDetectorLimitSwitch, bottomSafetyLimitSwitch;
+	private DigitalSwitch toteDetectorLimitSwitch, bottomSafetyLimitSwitch;
 
 	private boolean automatic;
 	private double lastHeight;
@@ -33,6 +39,7 @@ public class Clapper {
 								HIGHEST_POS	= 525;	
 	
 	private static final double POT_RANGE = HIGHEST_POS - LOWEST_POS; 
+	private static final EventLog.Site LOG_MANUAL = EventLog.site("in lift manually, adjustSpeed is {}", 0.5);
 	
 	public static final double POT_TOLERANCE = 18;
 	
@@ -87,12 +94,19 @@ public class Clapper {
 	public Clapper(CombinedSpeedController clapperLifter, Solenoid clapperActuator2, AnalogPotentiometer pot, 
 			DigitalInput toteDetectorLimitSwitch, DigitalInput bottomSafetyLimitSwitch) {
 
+		this(clapperLifter, HardwareAdapters.wrap(clapperActuator2), pot, 
+				HardwareAdapters.wrap(toteDetectorLimitSwitch), HardwareAdapters.wrap(bottomSafetyLimitSwitch));
+	}
+	
+	public Clapper(CombinedSpeedController clapperLifter, SolenoidOutput clapperActuator2, Potentiometer pot, 
+			DigitalSwitch toteDetectorLimitSwitch, DigitalSwitch bottomSafetyLimitSwitch) {
+
 		this.clapperLifter			= clapperLifter; 
 		this.clapperActuator		= clapperActuator2;
 		
 		this.potScaled				= new ScaledPot(pot);
 		
-		this.clapperPID = new PIDController(kP_DEFAULT, kI_DEFAULT, kD_DEFAULT, potScaled, clapperLifter);
+		this.clapperPID = new ScheduledPIDController(kP_DEFAULT, kI_DEFAULT, kD_DEFAULT, potScaled, clapperLifter);
 		this.clapperPID.setAbsoluteTolerance(POT_TOLERANCE);
 		
 		pidOutputMin = pidOutputMinNormal;
@@ -108,12 +122,12 @@ public class Clapper {
 		lastHeight = getPotValue(); 
 	}
 	
-	public Clapper(CombinedSpeedController clapperLifter, AnalogPotentiometer pot) {
+	public Clapper(CombinedSpeedController clapperLifter, Potentiometer pot) {
 
 		this.clapperLifter			= clapperLifter; 		
 		this.potScaled				= new ScaledPot(pot);
 		
-		this.clapperPID = new PIDController(kP_DEFAULT, kI_DEFAULT, kD_DEFAULT, potScaled, clapperLifter);
+		this.clapperPID = new ScheduledPIDController(kP_DEFAULT, kI_DEFAULT, kD_DEFAULT, potScaled, clapperLifter);
 		this.clapperPID.setAbsoluteTolerance(POT_TOLERANCE);
 		
 		pidOutputMin = pidOutputMinNormal;
@@ -249,10 +263,18 @@ public class Clapper {
 			speed = -1;
 		
 		
-		System.out.println("in lift manually, adjustSpeed is " + speed);
+		LOG_MANUAL.log(speed);
 		clapperLifter.set(speed);
 	}
 
+	/**
+	 * Takes the lifter off PID and stops it.
+	 */
+	public void stop() {
+		setManual();
+		clapperLifter.set(0);
+	}
+
 	public double getMotorOutput() {
 		return clapperPID.get(); 
 	}
@@ -293,4 +315,8 @@ public class Clapper {
 	public void enablePID() {
 		clapperPID.enable();
 	}
-}
\ No newline at end of file
+	
+	public void registerControlLoops(ControlLoopScheduler scheduler) {
+		scheduler.add(clapperPID);
+	}
+}
@@ -2,14 +2,18 @@ package org.usfirst.frc.team2485.subsystems;
 
 import org.usfirst.frc.team2485.robot.Robot;
 import org.usfirst.frc.team2485.util.CombinedSpeedController;
+import org.usfirst.frc.team2485.util.ControlLoopScheduler;
 import org.usfirst.frc.team2485.util.DummyOutput;
+import org.usfirst.frc.team2485.util.HardwareAdapters;
 import org.usfirst.frc.team2485.util.InvertedScaledPot;
+import org.usfirst.frc.team2485.util.ScheduledPIDController;
+import org.usfirst.frc.team2485.util.SolenoidOutput;
 import org.usfirst.frc.team2485.util.ThresholdHandler;
 
 import edu.wpi.first.wpilibj.AnalogPotentiometer;
 import edu.wpi.first.wpilibj.SpeedController;
-import edu.wpi.first.wpilibj.PIDController;
 import edu.wpi.first.wpilibj.Solenoid;
+import edu.wpi.first.wpilibj.interfaces.Potentiometer;
 
 /**
  * @author Aidan Fay
@@ -28,7 +32,7 @@ public class Claw {
 	public static final double kP_LOCK_POSITION_IN_PLACE = 0.01;
 //	public static final double kP_TEMP_AGGRESSIVE = 0.005;
 	private SpeedController winchMotor;
-	private Solenoid actuator;
+	private SolenoidOutput actuator;
 //	private ScaledPot potScaled; 
 	private InvertedScaledPot potScaled;
 	private DummyOutput dummyWinch;
@@ -56,17 +60,21 @@ public class Claw {
 						DROP_SEQ_POS_5					= LOWEST_POS + 486, //CHECK
 						DROP_SEQ_POS_6					= HIGHEST_POS - (POTS_PER_INCH * .5); 
 	 
-	public PIDController elevationPID;
+	public ScheduledPIDController elevationPID;
 	
 	private boolean automatic = true;
 
 	public Claw(SpeedController clawMotor, Solenoid clawSolenoid, AnalogPotentiometer pot) {
+		this(clawMotor, HardwareAdapters.wrap(clawSolenoid), pot);
+	}
+	
+	public Claw(SpeedController clawMotor, SolenoidOutput clawSolenoid, Potentiometer pot) {
 		this.winchMotor = new CombinedSpeedController(clawMotor);
 		this.actuator 	= clawSolenoid;
 		this.potScaled	= new InvertedScaledPot(pot); 
 		this.dummyWinch = new DummyOutput();
 		
-		elevationPID = new PIDController(kP_STANDARD, kI, kD, potScaled, this.dummyWinch);
+		elevationPID = new ScheduledPIDController(kP_STANDARD, kI, kD, potScaled, this.dummyWinch);
 		elevationPID.setAbsoluteTolerance(POT_TOLERANCE);
 		elevationPID.setOutputRange(-0.5,  0.5);
 	}
@@ -185,13 +193,28 @@ public class Claw {
 		return elevationPID.getError();
 	}
 	
+	public double getMotorOutput() {
+		return elevationPID.get();
+	}
+	
 	public void setWinch(double input) {        
 		winchMotor.set(input); 
 	}
 	
+	/**
+	 * Takes the winch off PID and stops it.
+	 */
+	public void stop() {
+		setManual();
+		winchMotor.set(0);
+	}
+	
 	public boolean isClawAboutToCollideWithRachet(double speedInput){
 		return ((getPotValue() < MANUAL_SAFETY_ABOVE_RACHET_POS) && 
 				(speedInput < 0) && Robot.ratchet.isExtended());
 	}
+	
+	public void registerControlLoops(ControlLoopScheduler scheduler) {
+		scheduler.add(elevationPID);
+	}
 }
-
@@ -1,5 +1,8 @@
 package org.usfirst.frc.team2485.subsystems;
 
+import org.usfirst.frc.team2485.util.HardwareAdapters;
+import org.usfirst.frc.team2485.util.SolenoidOutput;
+
 import edu.wpi.first.wpilibj.Solenoid;
 
 /**
@@ -8,13 +11,17 @@ import edu.wpi.first.wpilibj.Solenoid;
 
 public class ContainerCommandeerer {
 
-	private Solenoid solRight, solLeft;
+	private SolenoidOutput solRight, solLeft;
 
-	public ContainerCommandeerer(Solenoid solRight, Solenoid solLeft) {
+	public ContainerCommandeerer(SolenoidOutput solRight, SolenoidOutput solLeft) {
 		this.solRight = solRight;
 		this.solLeft  = solLeft;
 	}
 
+	public ContainerCommandeerer(Solenoid solRight, Solenoid solLeft) {
+		this(HardwareAdapters.wrap(solRight), HardwareAdapters.wrap(solLeft));
+	}
+
 	public void liberateRight() {
 		solRight.set(true);
 	}
@@ -4,15 +4,24 @@ package org.usfirst.frc.team2485.subsystems;
 import org.usfirst.frc.com.kauailabs.nav6.frc.IMU;
 import org.usfirst.frc.team2485.robot.Robot;
 import org.usfirst.frc.team2485.util.CombinedSpeedController;
+import org.usfirst.frc.team2485.util.ControlLoopScheduler;
+import org.usfirst.frc.team2485.util.DistanceEncoder;
 import org.usfirst.frc.team2485.util.DualEncoder;
 import org.usfirst.frc.team2485.util.DummyOutput;
+import org.usfirst.frc.team2485.util.EventLog;
+import org.usfirst.frc.team2485.util.HardwareAdapters;
 import org.usfirst.frc.team2485.util.InvertableEncoder;
+import org.usfirst.frc.team2485.util.MotionProfile;
+import org.usfirst.frc.team2485.util.PoseEstimator;
+import org.usfirst.frc.team2485.util.RobotClock;
+import org.usfirst.frc.team2485.util.ScheduledPIDController;
+import org.usfirst.frc.team2485.util.SolenoidOutput;
 import org.usfirst.frc.team2485.util.ThresholdHandler;
 import org.usfirst.frc.team2485.util.UltrasonicWrapper;
 
 import edu.wpi.first.wpilibj.AnalogInput;
 import edu.wpi.first.wpilibj.Encoder;
-import edu.wpi.first.wpilibj.PIDController;
+import edu.wpi.first.wpilibj.PIDSource;
 import edu.wpi.first.wpilibj.Solenoid;
 import edu.wpi.first.wpilibj.Talon;
 import edu.wpi.first.wpilibj.Ultrasonic;
@@ -29,11 +38,12 @@ import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 public class DriveTrain {
 
 	private CombinedSpeedController leftDrive, rightDrive, centerDrive; 
-	private Solenoid suspension;
+	private SolenoidOutput suspension;
 	private DualEncoder dualEncoder;
 	private InvertableEncoder centerEnc;
 	private IMU imu;
 	private UltrasonicWrapper sonicSensorWrapper; 
+	private PoseEstimator poseEstimator;
 
 	//Drive Controls 
 	private final double 
@@ -56,10 +66,10 @@ public class DriveTrain {
 	private static final double STRAFE_TUNING_PARAMETER = 1;
 	
 	//PID 
-	private PIDController driveStraightPID;
-	private PIDController imuPID;
-	private PIDController strafePID; 
-	private PIDController sonicStrafePID; 
+	private ScheduledPIDController driveStraightPID;
+	private ScheduledPIDController imuPID;
+	private ScheduledPIDController strafePID; 
+	private ScheduledPIDController sonicStrafePID; 
 	  
 	private double desiredHeading = 0.0; 
 	private boolean maintainingHeading = false; //use for auto and while !rotating
@@ -70,6 +80,7 @@ public class DriveTrain {
 	private double lowEncRate = 40;
 	private int imuOnTargetCounter = 0;
 	private final int MINIMUM_IMU_ON_TARGET_ITERATIONS = 10;
+	private static final double MAX_SETTLED_YAW_RATE = 5.0; // degrees per second
 
 	private static final double
 		absTolerance_Imu_TurnTo 		= 1.0,
@@ -84,18 +95,42 @@ public class DriveTrain {
 	
 	public static final double driveStraightEncoder_ONE_CONTAINER_Kp = 0.005;
 
+	//Motion profiling 
+	public static final double 
+		PROFILE_MAX_VELOCITY 		= 115, 	// in/s, leaving headroom below full speed for the PID
+		PROFILE_MAX_ACCELERATION 	= 150, 	// in/s^2, before the wheels slip
+		STACK_TIP_ACCELERATION 		= 270; 	// in/s^2 carrying one tote; a taller stack tips at proportionally less
+	
+	private static final double
+		driveStraight_kV = 1 / 130.0, 	// output per in/s (1 / speed at full output)
+		driveStraight_kA = 0.001; 		// output per in/s^2
+	
+	private MotionProfile driveProfile;
+	private long driveProfileStartTime;
+
 	private static final double 
 		strafeEncoder_Kp 		= 0.08,
 		strafeEncoder_Ki 		= 0.0,
 		strafeEncoder_Kd 		= 0.0,
 		STRAFE_MAX_SIGNAL_DELTA = .045;
 	
+	public static final double MIN_SONIC_CONFIDENCE = 0.3;
+	
 	private static final double
 		sonicStrafe_Kp = 0.075, 
 		sonicStrafe_Ki = 0, 
 		sonicStrafe_Kd = 0; 
 	
 	private double lastStrafeValue = 0.0;
+	
+	private static final EventLog.Site
+		LOG_DRIVE_ENABLED 		= EventLog.site("Enabling driveStraight PID in driveTo {} , {}"),
+		LOG_DRIVE_IMU_ENABLED 	= EventLog.site("enabling IMU PID in driveTo"),
+		LOG_PROFILE_ENABLED 	= EventLog.site("Enabling driveStraight PID in driveToProfiled {} , {}, {} s"),
+		LOG_STRAFE_ENABLED 		= EventLog.site("Enabling strafe PID in strafeTo"),
+		LOG_STRAFE_IMU_ENABLED 	= EventLog.site("enabling IMU PID in strafeTo"),
+		LOG_SONIC_OUTPUT 		= EventLog.site("strafeTo sonicOutput {} imuOutput {} confidence {}", 0.25),
+		LOG_SONIC_ON_TARGET 	= EventLog.site("strafeTo finished on sonic target");
 
 	private static final double
 		driveStraightImu_Kp = 0.05, 
@@ -117,6 +152,17 @@ public class DriveTrain {
 						CombinedSpeedController center, Solenoid suspension, 
 						IMU imu, Encoder leftEnc, Encoder rightEnc, Encoder centerEnc, Ultrasonic sonicSensor) {
 
+		this(leftDrive, rightDrive, center, HardwareAdapters.wrap(suspension), imu, 
+				HardwareAdapters.wrap(leftEnc), HardwareAdapters.wrap(rightEnc), HardwareAdapters.wrap(centerEnc), sonicSensor);
+	}
+
+	/**
+	 * @param sonicSensor reports the distance to the wall in inches
+	 */
+	public DriveTrain(CombinedSpeedController leftDrive, CombinedSpeedController rightDrive, 
+						CombinedSpeedController center, SolenoidOutput suspension, 
+						IMU imu, DistanceEncoder leftEnc, DistanceEncoder rightEnc, DistanceEncoder centerEnc, PIDSource sonicSensor) {
+
 		this.leftDrive 			= leftDrive; 
 		this.rightDrive   		= rightDrive; 
 		this.centerDrive		= center;
@@ -125,22 +171,23 @@ public class DriveTrain {
 //		this.centerEnc			= new InvertableEncoder(centerEnc);
 		this.dualEncoder		= new DualEncoder(leftEnc, rightEnc); 
 		this.sonicSensorWrapper	= new UltrasonicWrapper(sonicSensor); //units set in UltraSonic constructor
+		this.poseEstimator		= new PoseEstimator(dualEncoder, sonicSensorWrapper, imu);
 
 		if (this.imu != null) 
 			setImu(this.imu);
 		
 		dummyDriveStraightEncoderOutput = new DummyOutput();
-		driveStraightPID = new PIDController(driveStraightEncoder_Kp, driveStraightEncoder_Ki, driveStraightEncoder_Kd,
+		driveStraightPID = new ScheduledPIDController(driveStraightEncoder_Kp, driveStraightEncoder_Ki, driveStraightEncoder_Kd,
 				dualEncoder, dummyDriveStraightEncoderOutput);
 		driveStraightPID.setAbsoluteTolerance(absTolerance_Enc_DriveStraight);
 		
 		dummySonicStrafeOutput = new DummyOutput();
-		sonicStrafePID = new PIDController(sonicStrafe_Kp, sonicStrafe_Ki, sonicStrafe_Kd, sonicSensorWrapper, dummySonicStrafeOutput); 
+		sonicStrafePID = new ScheduledPIDController(sonicStrafe_Kp, sonicStrafe_Ki, sonicStrafe_Kd, sonicSensorWrapper, dummySonicStrafeOutput); 
 		sonicStrafePID.setAbsoluteTolerance(absTolerance_Enc_Strafe); 
 		
 		if (this.centerEnc != null) {
 			dummyStrafeEncoderOutput = new DummyOutput();
-			strafePID = new PIDController(strafeEncoder_Kp, strafeEncoder_Ki, strafeEncoder_Kd, 
+			strafePID = new ScheduledPIDController(strafeEncoder_Kp, strafeEncoder_Ki, strafeEncoder_Kd, 
 					this.centerEnc, dummyStrafeEncoderOutput);
 			strafePID.setAbsoluteTolerance(absTolerance_Enc_Strafe);
 		}
@@ -287,9 +334,10 @@ public class DriveTrain {
 
 	public void setImu(IMU imu) {
 		this.imu = imu;
+		poseEstimator.setImu(imu);
 
 		dummyImuOutput = new DummyOutput();
-		imuPID = new PIDController(rotateImu_kP, rotateImu_kI, rotateImu_kD, imu, dummyImuOutput);
+		imuPID = new ScheduledPIDController(rotateImu_kP, rotateImu_kI, rotateImu_kD, imu, dummyImuOutput);
 		imuPID.setAbsoluteTolerance(absTolerance_Imu_DriveStraight);
 		imuPID.setInputRange(-180, 180);
 		imuPID.setContinuous(true);
@@ -409,7 +457,11 @@ public class DriveTrain {
 		 else 
 			imuOnTargetCounter = 0;
 
-		if (imuOnTargetCounter >= MINIMUM_IMU_ON_TARGET_ITERATIONS) {
+		// Finish as soon as we're on target and no longer turning, rather than 
+		// waiting out the minimum on target iterations
+		if (imuOnTargetCounter >= MINIMUM_IMU_ON_TARGET_ITERATIONS || 
+				(imuOnTargetCounter > 0 && Math.abs(imu.getYawRate()) < MAX_SETTLED_YAW_RATE)) {
+			imuOnTargetCounter = 0;
 			setLeftRight(0, 0);
 			imuPID.disable();
 			return true;
@@ -448,14 +500,14 @@ public class DriveTrain {
 
 		if (!driveStraightPID.isEnable()) {
 			driveStraightPID.enable();
-			System.out.println("Enabling driveStraight PID in driveTo " + dualEncoder.getDistance() + " , " + inches);
+			LOG_DRIVE_ENABLED.log(dualEncoder.getDistance(), inches);
 			driveStraightPID.setSetpoint(inches);
 		}
 
 		if (imuPID != null && !imuPID.isEnable()) {
 			setImuForDrivingStraight();
 			imuPID.setSetpoint(yawSetpoint);
-			System.out.println("enabling IMU PID in driveTo");
+			LOG_DRIVE_IMU_ENABLED.log();
 			imuPID.enable();
 		}
 
@@ -484,6 +536,78 @@ public class DriveTrain {
 		return false;
 	}
 	
+	/**
+	 * @param totes how many totes the robot is carrying
+	 * @return the fastest the robot can accelerate without the stack tipping, in in/s^2
+	 */
+	public static double getMaxSafeAcceleration(int totes) {
+		if (totes <= 1)
+			return PROFILE_MAX_ACCELERATION;
+		return Math.min(PROFILE_MAX_ACCELERATION, STACK_TIP_ACCELERATION / totes);
+	}
+
+	public boolean driveToProfiled(double inches, double maxVelocity, double maxAcceleration) {
+		return driveToProfiled(inches, imu.getYaw(), maxVelocity, maxAcceleration);
+	}
+
+	/**
+	 * Drives robot forward to the setpoint along a trapezoidal motion profile, so it gets there as fast as the
+	 * velocity and acceleration limits allow. The profile's velocity and acceleration are fed forward, and the
+	 * drive straight PID corrects the error from the profile's position. <p>
+	 * 
+	 * Like <code>driveTo()</code>, the move starts when the drive straight PID isn't enabled, and encoders are
+	 * not reset after completion.
+	 * 
+	 * @param inches to drive forward
+	 * @param maxVelocity in inches per second
+	 * @param maxAcceleration in inches per second squared, see <code>getMaxSafeAcceleration()</code>
+	 * @return true when robot has driven that many inches, false if not completed
+	 */
+	public boolean driveToProfiled(double inches, double yawSetpoint, double maxVelocity, double maxAcceleration) {
+
+		if (driveStraightPID == null)
+			throw new IllegalStateException("Attempting to driveToProfiled but no PID controller");
+
+		if (!driveStraightPID.isEnable() || driveProfile == null) {
+			double start = dualEncoder.getDistance();
+			driveProfile = new MotionProfile(start, inches, maxVelocity, maxAcceleration);
+			driveProfileStartTime = RobotClock.nanoTime();
+			driveStraightPID.setSetpoint(start);
+			driveStraightPID.enable();
+			LOG_PROFILE_ENABLED.log(start, inches, driveProfile.getTotalTime());
+		}
+
+		if (imuPID != null && !imuPID.isEnable()) {
+			setImuForDrivingStraight();
+			imuPID.setSetpoint(yawSetpoint);
+			imuPID.enable();
+		}
+
+		double t = (RobotClock.nanoTime() - driveProfileStartTime) / 1e9;
+		driveStraightPID.setSetpoint(driveProfile.getPosition(t));
+
+		double feedForward = driveStraight_kV * driveProfile.getVelocity(t) + 
+				driveStraight_kA * driveProfile.getAcceleration(t);
+		double encoderOutput = clamp(feedForward + dummyDriveStraightEncoderOutput.get());
+
+		double imuOutput = 0.0;
+		if (imuPID != null)
+			imuOutput = dummyImuOutput.get();
+
+		setLeftRight(encoderOutput + imuOutput, encoderOutput - imuOutput);
+
+		// done? the PID's setpoint is only the goal once the profile has finished
+		if (driveProfile.isFinished(t) && driveStraightPID.onTarget() && Math.abs(dualEncoder.getRate()) < lowEncRate) {
+			setLeftRight(0.0, 0.0);
+			driveStraightPID.disable();
+			if (imuPID != null)
+				imuPID.disable();
+			driveProfile = null;
+			return true;
+		}
+		return false;
+	}
+
 	public double getDistanceFromEncoders() {
 		return dualEncoder.getDistance();
 	}
@@ -496,6 +620,31 @@ public class DriveTrain {
 		return imu;
 	}
 
+	public DualEncoder getDualEncoder() {
+		return dualEncoder;
+	}
+
+	/**
+	 * Runs with the drive train's control loops, and isn't affected by <code>resetEncoders()</code>.
+	 */
+	public PoseEstimator getPoseEstimator() {
+		return poseEstimator;
+	}
+	
+	/**
+	 * Adds the drive train's PID loops to the scheduler. Call after <code>setImu()</code>.
+	 */
+	public void registerControlLoops(ControlLoopScheduler scheduler) {
+		scheduler.add(sonicSensorWrapper);
+		scheduler.add(poseEstimator);
+		if (imuPID != null)
+			scheduler.add(imuPID);
+		scheduler.add(driveStraightPID);
+		if (strafePID != null)
+			scheduler.add(strafePID);
+		scheduler.add(sonicStrafePID);
+	}
+
 	public double getAbsoluteRate(){
 		return dualEncoder.getAbsoluteRate();
 	}
@@ -514,14 +663,14 @@ public class DriveTrain {
 
 		if (!strafePID.isEnable()) {
 			strafePID.enable();
-			System.out.println("Enabling strafe PID in strafeTo");
+			LOG_STRAFE_ENABLED.log();
 			strafePID.setSetpoint(inches);
 		}
 
 		if (imuPID != null && !imuPID.isEnable()) {
 			setImuForDrivingStraight(); //this is correct even though we are strafing because we are not rotating
 			imuPID.setSetpoint(yawSetpoint);
-			System.out.println("enabling IMU PID in strafeTo");
+			LOG_STRAFE_IMU_ENABLED.log();
 			imuPID.enable();
 		}
 		dropCenterWheel(true);
@@ -582,6 +731,11 @@ public class DriveTrain {
 		
 		double dummySonicOutput = dummySonicStrafeOutput.get();
 		
+		// don't strafe on a range the filter doesn't trust; the slew limit below eases the wheel to a stop
+		boolean sonicTrusted = sonicSensorWrapper.getConfidence() >= MIN_SONIC_CONFIDENCE;
+		if (!sonicTrusted)
+			dummySonicOutput = 0;
+		
 		if (Math.abs(dummySonicOutput - lastStrafeValue) > STRAFE_MAX_SIGNAL_DELTA) {
 			if (dummySonicOutput > lastStrafeValue)
 				dummySonicOutput = lastStrafeValue + STRAFE_MAX_SIGNAL_DELTA;
@@ -601,7 +755,7 @@ public class DriveTrain {
 		setCenterWheel(dummySonicOutput);
 		setLeftRight(imuOutput, -imuOutput);
 
-		System.out.println("strafeTo encOutput and imuOutput " + dummySonicOutput + ", " + imuOutput);
+		LOG_SONIC_OUTPUT.log(dummySonicOutput, imuOutput, sonicSensorWrapper.getConfidence());
 		
 //		
 //		SmartDashboard.putNumber("Strafe Encoder error", strafePID.getError());
@@ -622,14 +776,13 @@ public class DriveTrain {
 		
 
 		// Check to see if we're on target //doesnt check speed 
-		if (sonicStrafePID.onTarget()) {
-			System.out.println("Reached PID on target");
+		if (sonicTrusted && sonicStrafePID.onTarget()) {
 			setCenterWheel(0.0);
 			setLeftRight(0.0, 0.0);
 			lastStrafeValue = 0;
 			sonicStrafePID.disable();
 			imuPID.disable();
-			System.out.println("strafeTo finished inside of strafeTo");
+			LOG_SONIC_ON_TARGET.log();
 			return true;
 		}
 		return false;
@@ -639,6 +792,17 @@ public class DriveTrain {
 		return sonicSensorWrapper.pidGet();
 	}
 	
+	public double getRawUltrasonicDistance() {
+		return sonicSensorWrapper.getRawRange();
+	}
+	
+	/**
+	 * @return how much to trust <code>getUltrasonicDistance()</code>, from 0 to 1
+	 */
+	public double getUltrasonicConfidence() {
+		return sonicSensorWrapper.getConfidence();
+	}
+	
 	public void resetLastStrafeValue() {
 		lastStrafeValue = 0.0;
 	}
@@ -650,7 +814,7 @@ public class DriveTrain {
 		if (!strafePID.isEnable()) {
 //			centerEnc.reset();	// not resetting...making auto relative to a starting 0
 			strafePID.enable();
-			System.out.println("Enabling strafe PID in strafeTo");
+			LOG_STRAFE_ENABLED.log();
 			strafePID.setSetpoint(inches);
 		}
 
@@ -703,6 +867,7 @@ public class DriveTrain {
 		dualEncoder.reset();
 		if (centerEnc != null)
 			centerEnc.reset();
+		poseEstimator.encodersReset();
 	}
 
 	public double getErrorFromDriveStraightPID() {
@@ -713,10 +878,39 @@ public class DriveTrain {
 		return strafePID.getError();
 	}
 
+	public double getDriveStraightPIDOutput() {
+		return driveStraightPID.get();
+	}
+
+	public double getErrorFromImuPID() {
+		return imuPID != null ? imuPID.getError() : 0;
+	}
+
+	public double getImuPIDOutput() {
+		return imuPID != null ? imuPID.get() : 0;
+	}
+
+	public double getErrorFromSonicStrafePID() {
+		return sonicStrafePID.getError();
+	}
+
+	public double getSonicStrafePIDSetpoint() {
+		return sonicStrafePID.getSetpoint();
+	}
+
 	public void disableSonicStrafePID() {
 		sonicStrafePID.disable();
 	}
 
+	/**
+	 * Disables every drive PID and stops all the wheels.
+	 */
+	public void stop() {
+		disableDriveStraightPID();
+		disableSonicStrafePID();
+		disableStrafePID();
+	}
+
 	public void setDriveStraightPID(double kP, int i, int d) {
 		driveStraightPID.setPID(kP, i, d);
 	}
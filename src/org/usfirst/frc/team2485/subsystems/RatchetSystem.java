@@ -1,5 +1,8 @@
 package org.usfirst.frc.team2485.subsystems;
 
+import org.usfirst.frc.team2485.util.HardwareAdapters;
+import org.usfirst.frc.team2485.util.SolenoidOutput;
+
 import edu.wpi.first.wpilibj.Solenoid;
 
 /**
@@ -9,12 +12,16 @@ import edu.wpi.first.wpilibj.Solenoid;
  */
 public class RatchetSystem {
 
-	private Solenoid ratchetActuator;
+	private SolenoidOutput ratchetActuator;
 	
-	public RatchetSystem(Solenoid ratchetActuator) {
+	public RatchetSystem(SolenoidOutput ratchetActuator) {
 		this.ratchetActuator = ratchetActuator;
 	}
 	
+	public RatchetSystem(Solenoid ratchetActuator) {
+		this(HardwareAdapters.wrap(ratchetActuator));
+	}
+	
 	public RatchetSystem(int ratchetActuatorPort) {
 		this(new Solenoid(ratchetActuatorPort));
 	}
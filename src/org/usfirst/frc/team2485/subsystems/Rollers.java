@@ -38,4 +38,9 @@ public class Rollers {
 		rightWheel.set(-speed);
 		leftWheel.set(-speed);
 	}
+	
+	public void stop() {
+		rightWheel.set(0);
+		leftWheel.set(0);
+	}
 }
\ No newline at end of file
@@ -1,11 +1,13 @@
 package org.usfirst.frc.team2485.subsystems;
 
 import org.usfirst.frc.com.kauailabs.nav6.frc.IMU;
-import org.usfirst.frc.com.kauailabs.nav6.frc.IMUAdvanced;
 import org.usfirst.frc.team2485.robot.Robot;
+import org.usfirst.frc.team2485.util.ControlLoopScheduler;
+import org.usfirst.frc.team2485.util.DualEncoder;
+import org.usfirst.frc.team2485.util.EventLog;
 import org.usfirst.frc.team2485.util.IMURollPIDSource;
+import org.usfirst.frc.team2485.util.ScheduledPIDController;
 
-import edu.wpi.first.wpilibj.PIDController;
 import edu.wpi.first.wpilibj.SpeedController;
 import edu.wpi.first.wpilibj.VictorSP;
 
@@ -19,9 +21,10 @@ public class Strongback {
 	
 	//serial port is the "tail" of the imu
 	private SpeedController leadScrew; 
-	private IMUAdvanced imu; 
-	private PIDController leadScrewImuPID;
+	private IMU imu; 
+	private ScheduledPIDController leadScrewImuPID;
 	public static final double STANDARD_SETPOINT = 1; 
+	private static final EventLog.Site LOG_UNSAFE = EventLog.site("ERROR in check safety, lead screw error {}", 1.0);
 	private double absToleranceLeadScrew = 0.25; //degrees 
 	
 	private IMURollPIDSource rollPIDSource; 
@@ -31,19 +34,19 @@ public class Strongback {
 		leadScrew_kI = 0.0, 
 		leadscrew_kD = 0.0; 
 		
-	public Strongback(SpeedController strongbackMotor, IMUAdvanced imu) { 
+	public Strongback(SpeedController strongbackMotor, IMU imu, DualEncoder driveEncoder) { 
 		this.leadScrew = strongbackMotor; 
 		this.imu = imu; 
 				
-		rollPIDSource = new IMURollPIDSource(this.imu, true); 
+		rollPIDSource = new IMURollPIDSource(this.imu, driveEncoder, true); 
 		
-		leadScrewImuPID = new PIDController(leadScrew_kP, leadScrew_kI, leadscrew_kD, rollPIDSource, this.leadScrew); 
+		leadScrewImuPID = new ScheduledPIDController(leadScrew_kP, leadScrew_kI, leadscrew_kD, rollPIDSource, this.leadScrew); 
 		leadScrewImuPID.setAbsoluteTolerance(absToleranceLeadScrew );
 		leadScrewImuPID.setSetpoint(STANDARD_SETPOINT);
 	}
 	
-	public Strongback(int leadScrewPort, IMUAdvanced imu) {
-		this(new VictorSP(leadScrewPort), imu);
+	public Strongback(int leadScrewPort, IMU imu, DualEncoder driveEncoder) {
+		this(new VictorSP(leadScrewPort), imu, driveEncoder);
 	}
 	
 	public void disablePid() {
@@ -70,12 +73,12 @@ public class Strongback {
 	}
 	
 	public double getIMURoll(){
-		return rollPIDSource.pidGet();
+		return rollPIDSource.getRoll();
 	}
 	
 	public void checkSafety() {
 		if (Math.abs(leadScrewImuPID.getError()) > 12) {
-			System.out.println("ERROR in check safety");
+			LOG_UNSAFE.log(leadScrewImuPID.getError());
 			leadScrewImuPID.disable();
 		}
 	}
@@ -83,4 +86,8 @@ public class Strongback {
 	public boolean isPIDEnabled() {
 		return leadScrewImuPID.isEnable();
 	}
+	
+	public void registerControlLoops(ControlLoopScheduler scheduler) {
+		scheduler.add(leadScrewImuPID);
+	}
 }
@@ -0,0 +1,27 @@
+package org.usfirst.frc.team2485.util;
+
+/**
+ * A control loop run by a {@link ControlLoopScheduler}. <p>
+ * 
+ * Each tick, the scheduler calls <code>sample()</code> on every loop, then <code>calculate()</code> on every loop, 
+ * then <code>write()</code> on every loop, always in the order the loops were added. 
+ * All three are called from the scheduler's thread.
+ */
+public interface ControlLoop {
+
+	/**
+	 * Reads this loop's sensors.
+	 */
+	public void sample();
+
+	/**
+	 * Computes this loop's output from the values read in <code>sample()</code>.
+	 * @param dt seconds since the previous tick
+	 */
+	public void calculate(double dt);
+
+	/**
+	 * Writes the output computed in <code>calculate()</code>.
+	 */
+	public void write();
+}
@@ -0,0 +1,221 @@
+package org.usfirst.frc.team2485.util;
+
+/**
+ * Runs {@link ControlLoop}s on a single thread at a fixed period. <p>
+ *
+ * Each tick samples every loop's sensors, then calculates every loop, then writes every loop's output, in the
+ * order the loops were added. This replaces one WPILib <code>PIDController</code> thread per loop, and gives all
+ * the loops the same phase. <p>
+ *
+ * The scheduler keeps track of how late each tick starts (jitter) and how many ticks take longer than
+ * the period to run (overruns). <p>
+ *
+ * A loop which throws only loses that phase for that tick: the exception is counted and logged to the
+ * {@link EventLog}, and every other loop still samples, calculates and writes.
+ */
+public class ControlLoopScheduler implements Runnable {
+
+	public static final double DEFAULT_PERIOD = 0.01;
+
+	private static final EventLog.Site
+		LOG_SAMPLE_FAILED 		= EventLog.site("Control loop {} threw in sample(), {} failures so far", 1.0),
+		LOG_CALCULATE_FAILED 	= EventLog.site("Control loop {} threw in calculate(), {} failures so far", 1.0),
+		LOG_WRITE_FAILED 		= EventLog.site("Control loop {} threw in write(), {} failures so far", 1.0);
+
+	private final long periodNanos;
+	private volatile ControlLoop[] loops = new ControlLoop[0];
+	private Thread thread;
+	private volatile boolean running;
+
+	// Statistics, written by the scheduler thread
+	private volatile long tickCount, overrunCount, failureCount;
+	private volatile long lastJitterNanos, maxJitterNanos, totalJitterNanos;
+	private volatile long lastTickNanos, maxTickNanos;
+
+	public ControlLoopScheduler() {
+		this(DEFAULT_PERIOD);
+	}
+
+	/**
+	 * @param period seconds between ticks
+	 */
+	public ControlLoopScheduler(double period) {
+		if (period <= 0)
+			throw new IllegalArgumentException("period must be positive");
+		this.periodNanos = (long) (period * 1e9);
+	}
+
+	/**
+	 * Adds a loop, to be run after all of the loops already added.
+	 */
+	public synchronized void add(ControlLoop loop) {
+		if (loop == null)
+			throw new IllegalArgumentException("loop can't be null");
+
+		ControlLoop[] newLoops = new ControlLoop[loops.length + 1];
+		System.arraycopy(loops, 0, newLoops, 0, loops.length);
+		newLoops[loops.length] = loop;
+		loops = newLoops;
+	}
+
+	public synchronized void start() {
+		if (thread != null)
+			return;
+		running = true;
+		thread = new Thread(this, "ControlLoopScheduler");
+		thread.setPriority(Thread.MAX_PRIORITY);
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	public synchronized void stop() {
+		running = false;
+		thread = null;
+	}
+
+	@Override
+	public void run() {
+
+		long nextTick = RobotClock.nanoTime() + periodNanos;
+		long lastTickStart = nextTick - periodNanos;
+
+		while (running) {
+
+			long remaining = nextTick - RobotClock.nanoTime();
+			if (remaining > 0) {
+				try {
+					RobotClock.sleep(remaining);
+				} catch (InterruptedException e) {
+					e.printStackTrace();
+				}
+				continue;
+			}
+
+			long tickStart = RobotClock.nanoTime();
+			double dt = (tickStart - lastTickStart) / 1e9;
+			lastTickStart = tickStart;
+
+			tick(dt);
+
+			long tickEnd = RobotClock.nanoTime();
+			long jitter = tickStart - nextTick;
+			long duration = tickEnd - tickStart;
+
+			tickCount++;
+			lastJitterNanos = jitter;
+			totalJitterNanos += jitter;
+			if (jitter > maxJitterNanos)
+				maxJitterNanos = jitter;
+			lastTickNanos = duration;
+			if (duration > maxTickNanos)
+				maxTickNanos = duration;
+
+			nextTick += periodNanos;
+			if (tickEnd - nextTick > 0) {
+				// Missed one or more ticks; skip them rather than running several back to back
+				overrunCount++;
+				nextTick = tickEnd + periodNanos;
+			}
+		}
+	}
+
+	/**
+	 * Runs one tick of every loop on the calling thread. The scheduler's own thread calls this; a simulation
+	 * which doesn't <code>start()</code> the scheduler calls it directly to step the loops in lockstep with its
+	 * models.
+	 * @param dt seconds since the last tick
+	 */
+	public void tick(double dt) {
+		ControlLoop[] loops = this.loops;
+		for (int i = 0; i < loops.length; i++) {
+			try {
+				loops[i].sample();
+			} catch (RuntimeException ex) {
+				LOG_SAMPLE_FAILED.log(i, ++failureCount);
+			}
+		}
+		for (int i = 0; i < loops.length; i++) {
+			try {
+				loops[i].calculate(dt);
+			} catch (RuntimeException ex) {
+				LOG_CALCULATE_FAILED.log(i, ++failureCount);
+			}
+		}
+		for (int i = 0; i < loops.length; i++) {
+			try {
+				loops[i].write();
+			} catch (RuntimeException ex) {
+				LOG_WRITE_FAILED.log(i, ++failureCount);
+			}
+		}
+	}
+
+	public int getLoopCount() {
+		return loops.length;
+	}
+
+	public long getTickCount() {
+		return tickCount;
+	}
+
+	/**
+	 * @return the number of ticks which finished after the next tick should have started
+	 */
+	public long getOverrunCount() {
+		return overrunCount;
+	}
+
+	/**
+	 * @return the number of times a loop has thrown from sample(), calculate() or write()
+	 */
+	public long getFailureCount() {
+		return failureCount;
+	}
+
+	/**
+	 * @return how late the last tick started, in seconds
+	 */
+	public double getLastJitter() {
+		return lastJitterNanos / 1e9;
+	}
+
+	/**
+	 * @return the latest any tick has started, in seconds
+	 */
+	public double getMaxJitter() {
+		return maxJitterNanos / 1e9;
+	}
+
+	/**
+	 * @return the average of how late each tick started, in seconds
+	 */
+	public double getAverageJitter() {
+		long ticks = tickCount;
+		return ticks == 0 ? 0 : (totalJitterNanos / (double) ticks) / 1e9;
+	}
+
+	/**
+	 * @return how long the last tick took to run, in seconds
+	 */
+	public double getLastTickDuration() {
+		return lastTickNanos / 1e9;
+	}
+
+	/**
+	 * @return the longest any tick has taken to run, in seconds
+	 */
+	public double getMaxTickDuration() {
+		return maxTickNanos / 1e9;
+	}
+
+	public void resetStatistics() {
+		tickCount = 0;
+		overrunCount = 0;
+		failureCount = 0;
+		lastJitterNanos = 0;
+		maxJitterNanos = 0;
+		totalJitterNanos = 0;
+		lastTickNanos = 0;
+		maxTickNanos = 0;
+	}
+}
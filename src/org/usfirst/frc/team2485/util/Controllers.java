@@ -1,5 +1,6 @@
 package org.usfirst.frc.team2485.util;
 
+import edu.wpi.first.wpilibj.DriverStation;
 import edu.wpi.first.wpilibj.Joystick;
 
 
@@ -9,7 +10,15 @@ import edu.wpi.first.wpilibj.Joystick;
  * Any Controllers objects not being used should be set to null. <p>     
  *  <code>Controllers.set(driver360, operator, null);</code> or <br>
  *  <code>Controllers.set(driver360, operator1, operator2);</code>  or <br> 
- *  <code>Controllers.set(driverRight, driverLeft, operator1, operator2);</code>  
+ *  <code>Controllers.set(driverRight, driverLeft, operator1, operator2);</code>  <p>
+ *  
+ * Inputs are read once per loop by <code>update()</code>, which must be called at the start of each periodic
+ * loop; every getter returns the value from the last update. Buttons are kept as bitsets, so the update also
+ * finds which buttons were pressed or released since the previous one. A press within 
+ * <code>DEBOUNCE_TIME</code> of the button's last press is contact bounce, and isn't reported as pressed. <p>
+ * 
+ * Joysticks set by port are read from the installed {@link Source}, the driver station unless a tool 
+ * running off the robot sets its own.
  *
  * @author Bryce Matsumori
  * @author Ben Clark
@@ -28,6 +37,63 @@ public final class Controllers {
 							operatorJoystickLeft	= null, 
 							operatorJoystickRight 	= null;
 	
+	// snapshot, indexed by stick
+	private static final int
+		DRIVER_CONTROLLER 		= 0,
+		DRIVER_JOYSTICK_LEFT 	= 1,
+		DRIVER_JOYSTICK_RIGHT 	= 2,
+		OPERATOR_JOYSTICK_LEFT 	= 3,
+		OPERATOR_JOYSTICK_RIGHT = 4,
+		STICKS 					= 5;
+	
+	private static final int MAX_BUTTONS = 22, MAX_AXES = 7;
+	
+	/**
+	 * Seconds after a press during which another press of the same button is ignored.
+	 */
+	public static final double DEBOUNCE_TIME = 0.1;
+	
+	private static final Joystick[] sticks = new Joystick[STICKS];
+	private static final int[] ports = { -1, -1, -1, -1, -1 };
+	private static final int[] buttons = new int[STICKS], pressed = new int[STICKS], released = new int[STICKS];
+	private static final float[][] axes = new float[STICKS][MAX_AXES];
+	private static final double[][] lastPressTime = new double[STICKS][MAX_BUTTONS];
+	
+	/**
+	 * The joystick state <code>update()</code> reads for joysticks set by port. The methods are the 
+	 * driver station's.
+	 */
+	public interface Source {
+		
+		/**
+		 * @return the joystick's buttons as a bitset, button 1 in the lowest bit
+		 */
+		public int getStickButtons(int port);
+		
+		public int getStickAxisCount(int port);
+		
+		public double getStickAxis(int port, int axis);
+	}
+	
+	/**
+	 * The driver station, as WPILib last heard from it. Used until another source is set.
+	 */
+	public static final Source DRIVER_STATION = new Source() {
+		public int getStickButtons(int port) {
+			return DriverStation.getInstance().getStickButtons(port);
+		}
+		
+		public int getStickAxisCount(int port) {
+			return DriverStation.getInstance().getStickAxisCount(port);
+		}
+		
+		public double getStickAxis(int port, int axis) {
+			return DriverStation.getInstance().getStickAxis(port, axis);
+		}
+	};
+	
+	private static volatile Source source = DRIVER_STATION;
+	
 	// ensure that Controllers is a static class
 	private Controllers() {}
 	
@@ -48,6 +114,7 @@ public final class Controllers {
 		Controllers.driverController		= driverController;
 		Controllers.operatorJoystickLeft	= operatorJoystick1;
 		Controllers.operatorJoystickRight	= operatorJoystick2;
+		setSticks(-1, -1, -1, -1, -1);
 	}
 	
 	/**
@@ -68,6 +135,119 @@ public final class Controllers {
 		Controllers.driverJoystickRight		= driverJoystickRight; 
 		Controllers.operatorJoystickLeft	= operatorJoystickLeft; 
 		Controllers.operatorJoystickRight	= operatorJoystickRight; 
+		setSticks(-1, -1, -1, -1, -1);
+	}
+	
+	/**
+	 * Sets the driver and operator joysticks by driver station port. Unlike passing <code>Joystick</code>s, 
+	 * this lets <code>update()</code> read all of a joystick's buttons in one call.
+	 */
+	public static void set(int driverJoystickLeftPort, int driverJoystickRightPort, 
+			int operatorJoystickLeftPort, int operatorJoystickRightPort) {
+		
+		set(null, null, null, null);
+		setSticks(-1, driverJoystickLeftPort, driverJoystickRightPort, operatorJoystickLeftPort, operatorJoystickRightPort);
+	}
+	
+	/**
+	 * Sets where joysticks set by port are read from.
+	 */
+	public static void setSource(Source source) {
+		if (source == null)
+			throw new IllegalArgumentException("controller source can't be null");
+		Controllers.source = source;
+	}
+	
+	private static boolean present(int stick) {
+		return sticks[stick] != null || ports[stick] >= 0;
+	}
+	
+	private static void setSticks(int driverControllerPort, int driverJoystickLeftPort, int driverJoystickRightPort, 
+			int operatorJoystickLeftPort, int operatorJoystickRightPort) {
+		sticks[DRIVER_CONTROLLER] 		= driverController;
+		sticks[DRIVER_JOYSTICK_LEFT] 	= driverJoystickLeft;
+		sticks[DRIVER_JOYSTICK_RIGHT] 	= driverJoystickRight;
+		sticks[OPERATOR_JOYSTICK_LEFT] 	= operatorJoystickLeft;
+		sticks[OPERATOR_JOYSTICK_RIGHT] = operatorJoystickRight;
+		
+		ports[DRIVER_CONTROLLER] 		= driverControllerPort;
+		ports[DRIVER_JOYSTICK_LEFT] 	= driverJoystickLeftPort;
+		ports[DRIVER_JOYSTICK_RIGHT] 	= driverJoystickRightPort;
+		ports[OPERATOR_JOYSTICK_LEFT] 	= operatorJoystickLeftPort;
+		ports[OPERATOR_JOYSTICK_RIGHT] 	= operatorJoystickRightPort;
+		
+		for (int s = 0; s < STICKS; s++) {
+			buttons[s] = pressed[s] = released[s] = 0;
+			for (int a = 0; a < MAX_AXES; a++)
+				axes[s][a] = 0;
+			for (int b = 0; b < MAX_BUTTONS; b++)
+				lastPressTime[s][b] = Double.NEGATIVE_INFINITY;
+		}
+	}
+	
+	/**
+	 * Reads every controller's buttons and axes, and finds which buttons were pressed or released since the 
+	 * last update. Call once at the start of each periodic loop.
+	 */
+	public static void update() {
+		
+		double now = RobotClock.getTimestamp();
+		final Source source = Controllers.source;
+		
+		for (int s = 0; s < STICKS; s++) {
+			if (!present(s))
+				continue;
+			
+			Joystick stick = sticks[s];
+			int current = 0;
+			float[] stickAxes = axes[s];
+			int port = ports[s];
+			
+			if (port >= 0) {
+				current = source.getStickButtons(port);
+				int axisCount = Math.min(source.getStickAxisCount(port), MAX_AXES);
+				for (int a = 0; a < axisCount; a++)
+					stickAxes[a] = (float) source.getStickAxis(port, a);
+			} else {
+				int buttonCount = Math.min(stick.getButtonCount(), MAX_BUTTONS);
+				for (int b = 0; b < buttonCount; b++)
+					if (stick.getRawButton(b + 1))
+						current |= 1 << b;
+				int axisCount = Math.min(stick.getAxisCount(), MAX_AXES);
+				for (int a = 0; a < axisCount; a++)
+					stickAxes[a] = (float) stick.getRawAxis(a);
+			}
+			
+			int changed = current ^ buttons[s];
+			int down = changed & current;
+			
+			int accepted = 0;
+			for (int bits = down; bits != 0; bits &= bits - 1) {
+				int b = Integer.numberOfTrailingZeros(bits);
+				if (b < MAX_BUTTONS && now - lastPressTime[s][b] >= DEBOUNCE_TIME) {
+					accepted |= 1 << b;
+					lastPressTime[s][b] = now;
+				}
+			}
+			
+			pressed[s] = accepted;
+			released[s] = changed & ~current;
+			buttons[s] = current;
+		}
+	}
+	
+	private static float getAxis(int stick, int axis, float inputThreshold) {
+		float val = axes[stick][axis];
+		
+		// prevent idle movement
+		if (inputThreshold > 0 && Math.abs(val) < inputThreshold)
+			return 0;
+		
+		return val;
+	}
+	
+	private static boolean isSet(int[] bits, int stick, int button) {
+		return (bits[stick] & (1 << (button - 1))) != 0;
 	}
 	
 	/**
@@ -182,19 +362,13 @@ public final class Controllers {
 	 * @see edu.wpi.first.wpilibj.Joystick
 	 */
 	public static float getDriverXboxControllerAxis(int axis, float inputThreshold) {
-		if (driverController == null)
+		if (!present(DRIVER_CONTROLLER))
 			throw new ControllerNullException("Driver controller is null");
 		if (axis < 0 || axis > 6)
 			throw new IllegalArgumentException("Xbox axis (" + axis
 					+ ") is invalid.");
 		
-		float val = (float)driverController.getRawAxis(axis);
-		
-		// prevent idle movement
-		if (inputThreshold > 0 && Math.abs(val) < inputThreshold)
-			return 0;
-		
-		return val;
+		return getAxis(DRIVER_CONTROLLER, axis, inputThreshold);
 	}
 	
 	/**
@@ -212,13 +386,13 @@ public final class Controllers {
 	 * @see edu.wpi.first.wpilibj.Joystick
 	 */
 	public static boolean getDriverXboxControllerButton(int button) {
-		if (driverController == null)
+		if (!present(DRIVER_CONTROLLER))
 			throw new ControllerNullException("Primary controller is null");
 		if (button < 1 || button > 12)
 			throw new IllegalArgumentException("Xbox button number (" + button
 					+ ") is invalid.");
 		
-		return driverController.getRawButton(button);
+		return isSet(buttons, DRIVER_CONTROLLER, button);
 	}
 	
 	
@@ -325,19 +499,13 @@ public final class Controllers {
 	 * @see edu.wpi.first.wpilibj.Joystick
 	 */
 	public static float getOperatorLeftJoystickAxis(int axis, float inputThreshold) {
-		if (operatorJoystickLeft == null)
+		if (!present(OPERATOR_JOYSTICK_LEFT))
 			throw new ControllerNullException("Primary operator controller is null");
 		if (axis < 0 || axis > 6)
 			throw new IllegalArgumentException("Joystick axis (" + axis
 					+ ") is invalid.");
 		
-		float val = (float)operatorJoystickLeft.getRawAxis(axis);
-		
-		// prevent idle movement
-		if (inputThreshold > 0 && Math.abs(val) < inputThreshold)
-			return 0;
-		
-		return val;
+		return getAxis(OPERATOR_JOYSTICK_LEFT, axis, inputThreshold);
 	}
 	/**
 	 * Gets the current value of the specified axis on the joystick,
@@ -357,20 +525,14 @@ public final class Controllers {
 	 * @see edu.wpi.first.wpilibj.Joystick
 	 */
 	public static float getOperatorRightJoystickAxis(int axis, float inputThreshold) {
-		if (operatorJoystickRight == null)
+		if (!present(OPERATOR_JOYSTICK_RIGHT))
 			throw new ControllerNullException(
 					"Secondary operator controller is null");
 		if (axis < 0 || axis > 6)
 			throw new IllegalArgumentException("Joystick axis (" + axis
 					+ ") is invalid.");
 		
-		float val = (float)operatorJoystickRight.getRawAxis(axis);
-		
-		// prevent idle movement
-		if (inputThreshold > 0 && Math.abs(val) < inputThreshold)
-			return 0;
-		
-		return val;
+		return getAxis(OPERATOR_JOYSTICK_RIGHT, axis, inputThreshold);
 	}
 	/**
 	 * Gets the current value of the specified axis on the joystick,
@@ -390,20 +552,13 @@ public final class Controllers {
 	 * @see edu.wpi.first.wpilibj.Joystick
 	 */
 	public static float getDriverRightJoystickAxis(int axis, float inputThreshold) {
-		if (driverJoystickRight == null)
+		if (!present(DRIVER_JOYSTICK_RIGHT))
 			throw new ControllerNullException();
 		if (axis < 0 || axis > 6)
 			throw new IllegalArgumentException("Joystick axis (" + axis
 					+ ") is invalid.");
 
-		float val = (float)driverJoystickRight.getRawAxis(axis); 
-
-		// prevent idle movement
-		if (inputThreshold > 0 && Math.abs(val) < inputThreshold)
-			return 0;
-
-		return val;
-
+		return getAxis(DRIVER_JOYSTICK_RIGHT, axis, inputThreshold);
 	}
 	/**
 	 * Gets the current value of the specified axis on the joystick,
@@ -423,20 +578,13 @@ public final class Controllers {
 	 * @see edu.wpi.first.wpilibj.Joystick
 	 */
 	public static float getDriverLeftJoystickAxis(int axis, float inputThreshold) {
-		if (driverJoystickLeft == null)
+		if (!present(DRIVER_JOYSTICK_LEFT))
 			throw new ControllerNullException();
 		if (axis < 0 || axis > 6)
 			throw new IllegalArgumentException("Joystick axis (" + axis
 					+ ") is invalid.");
 
-		float val = (float)driverJoystickLeft.getRawAxis(axis); 
-
-		// prevent idle movement
-		if (inputThreshold > 0 && Math.abs(val) < inputThreshold)
-			return 0;
-
-		return val;
-
+		return getAxis(DRIVER_JOYSTICK_LEFT, axis, inputThreshold);
 	}
 	
 	/**
@@ -453,14 +601,14 @@ public final class Controllers {
 	 * @see edu.wpi.first.wpilibj.Joystick
 	 */
 	public static boolean getOperatorLeftJoystickButton(int button) {
-		if (operatorJoystickLeft == null)
+		if (!present(OPERATOR_JOYSTICK_LEFT))
 			throw new ControllerNullException(
 					"Primary operator controller is null");
 		if (button < 1 || button > 22)
 			throw new IllegalArgumentException("Joystick button number ("
 					+ button + ") is invalid.");
 		
-		return operatorJoystickLeft.getRawButton(button);
+		return isSet(buttons, OPERATOR_JOYSTICK_LEFT, button);
 	}
 	/**
 	 * Gets the current value of the specified button on the controller.
@@ -476,35 +624,94 @@ public final class Controllers {
 	 * @see edu.wpi.first.wpilibj.Joystick
 	 */
 	public static boolean getOperatorRightJoystickButton(int button) {
-		if (operatorJoystickRight == null)
+		if (!present(OPERATOR_JOYSTICK_RIGHT))
 			throw new ControllerNullException(
 					"Secondary operator controller is null");
 		if (button < 1 || button > 22)
 			throw new IllegalArgumentException("Joystick button number ("
 					+ button + ") is invalid");
 		
-		return operatorJoystickRight.getRawButton(button);
+		return isSet(buttons, OPERATOR_JOYSTICK_RIGHT, button);
 	}
 
 	public static boolean getDriverRightJoystickButton(int button) {
-		if (driverJoystickRight == null)
+		if (!present(DRIVER_JOYSTICK_RIGHT))
 			throw new ControllerNullException(); 
 		if (button < 1 || button > 22)
 			throw new IllegalArgumentException("Joystick button number ("
 					+ button + ") is invalid"); 
 		
-		return driverJoystickRight.getRawButton(button); 
+		return isSet(buttons, DRIVER_JOYSTICK_RIGHT, button); 
 	}
 	
 	public static boolean getDriverLeftJoystickButton(int button) {
-		if (driverJoystickLeft == null)
+		if (!present(DRIVER_JOYSTICK_LEFT))
 			throw new ControllerNullException(); 
 		if (button < 1 || button > 22)
 			throw new IllegalArgumentException("Joystick button number ("
 					+ button + ") is invalid"); 
 		
-		return driverJoystickLeft.getRawButton(button); 
+		return isSet(buttons, DRIVER_JOYSTICK_LEFT, button); 
+	}
+	
+	/**
+	 * Whether the button went down between the last two updates. Bounces within 
+	 * <code>DEBOUNCE_TIME</code> of a press aren't presses.
+	 *
+	 * @throws ControllerNullException
+	 *             if the joystick has not been set
+	 * @throws IllegalArgumentException
+	 *             if the button is not 1-22
+	 */
+	public static boolean getOperatorLeftJoystickButtonPressed(int button) {
+		return isSet(pressed, checkJoystickButton(OPERATOR_JOYSTICK_LEFT, button), button);
+	}
+	
+	public static boolean getOperatorRightJoystickButtonPressed(int button) {
+		return isSet(pressed, checkJoystickButton(OPERATOR_JOYSTICK_RIGHT, button), button);
+	}
+	
+	public static boolean getDriverRightJoystickButtonPressed(int button) {
+		return isSet(pressed, checkJoystickButton(DRIVER_JOYSTICK_RIGHT, button), button);
 	}
+	
+	public static boolean getDriverLeftJoystickButtonPressed(int button) {
+		return isSet(pressed, checkJoystickButton(DRIVER_JOYSTICK_LEFT, button), button);
+	}
+	
+	/**
+	 * Whether the button came up between the last two updates.
+	 *
+	 * @throws ControllerNullException
+	 *             if the joystick has not been set
+	 * @throws IllegalArgumentException
+	 *             if the button is not 1-22
+	 */
+	public static boolean getOperatorLeftJoystickButtonReleased(int button) {
+		return isSet(released, checkJoystickButton(OPERATOR_JOYSTICK_LEFT, button), button);
+	}
+	
+	public static boolean getOperatorRightJoystickButtonReleased(int button) {
+		return isSet(released, checkJoystickButton(OPERATOR_JOYSTICK_RIGHT, button), button);
+	}
+	
+	public static boolean getDriverRightJoystickButtonReleased(int button) {
+		return isSet(released, checkJoystickButton(DRIVER_JOYSTICK_RIGHT, button), button);
+	}
+	
+	public static boolean getDriverLeftJoystickButtonReleased(int button) {
+		return isSet(released, checkJoystickButton(DRIVER_JOYSTICK_LEFT, button), button);
+	}
+	
+	private static int checkJoystickButton(int stick, int button) {
+		if (!present(stick))
+			throw new ControllerNullException(); 
+		if (button < 1 || button > 22)
+			throw new IllegalArgumentException("Joystick button number ("
+					+ button + ") is invalid"); 
+		return stick;
+	}
+	
 	/**
 	 * Returns a {@code ControllerDataDump} containing all input data from both
 	 * driver, primary operator, and secondary operator controllers.
@@ -512,41 +719,59 @@ public final class Controllers {
 	 * @return the data
 	 */
 	public static ControllerDataDump getAllData() {
-		ControllerDataDump dump = new ControllerDataDump();
-		
-		dump.xboxAxisLX						= (float)driverController.getRawAxis(XBOX_AXIS_LX);
-		dump.xboxAxisLY						= (float)driverController.getRawAxis(XBOX_AXIS_LY);
-		dump.xboxAxisRX						= (float)driverController.getRawAxis(XBOX_AXIS_RX);
-		dump.xboxAxisRY						= (float)driverController.getRawAxis(XBOX_AXIS_RY);
-		dump.xboxAxisRTrigger 				= (float)driverController.getRawAxis(XBOX_AXIS_RTRIGGER);
-		dump.xboxAxisLTrigger 				= (float)driverController.getRawAxis(XBOX_AXIS_LTRIGGER);
-		
-		dump.xboxBtnA						= driverController.getRawButton(XBOX_BTN_A);
-		dump.xboxBtnB 						= driverController.getRawButton(XBOX_BTN_B);
-		dump.xboxBtnX						= driverController.getRawButton(XBOX_BTN_X);
-		dump.xboxBtnY						= driverController.getRawButton(XBOX_BTN_Y);
-		dump.xboxBtnLBump					= driverController.getRawButton(XBOX_BTN_LBUMP);
-		dump.xboxBtnRBump					= driverController.getRawButton(XBOX_BTN_RBUMP);
-		dump.xboxBtnBack					= driverController.getRawButton(XBOX_BTN_BACK);
-		dump.xboxBtnStart					= driverController.getRawButton(XBOX_BTN_START);
-		dump.xboxBtnLStick					= driverController.getRawButton(XBOX_BTN_LSTICK);
-		dump.xboxBtnRStick					= driverController.getRawButton(XBOX_BTN_RSTICK);
-		
-		dump.primaryJoystickAxisX			= (float)operatorJoystickLeft.getRawAxis(JOYSTICK_AXIS_X);
-		dump.primaryJoystickAxisY			= (float)operatorJoystickLeft.getRawAxis(JOYSTICK_AXIS_Y);
-		dump.primaryJoystickAxisZ			= (float)operatorJoystickLeft.getRawAxis(JOYSTICK_AXIS_Z);
-		dump.primaryJoystickAxisThrottle	= (float)operatorJoystickLeft.getRawAxis(JOYSTICK_AXIS_THROTTLE);
+		return getAllData(new ControllerDataDump());
+	}
+	
+	/**
+	 * Fills a {@code ControllerDataDump} with all input data from the last update, without allocating. 
+	 * Controllers which aren't set are left as they were.
+	 *
+	 * @return the given dump
+	 */
+	public static ControllerDataDump getAllData(ControllerDataDump dump) {
 		
-		dump.secondaryJoystickAxisX			= (float)operatorJoystickRight.getRawAxis(JOYSTICK_AXIS_X);
-		dump.secondaryJoystickAxisY			= (float)operatorJoystickRight.getRawAxis(JOYSTICK_AXIS_Y);
-		dump.secondaryJoystickAxisZ			= (float)operatorJoystickRight.getRawAxis(JOYSTICK_AXIS_Z);
-		dump.secondaryJoystickAxisThrottle	= (float)operatorJoystickRight.getRawAxis(JOYSTICK_AXIS_THROTTLE);
+		if (present(DRIVER_CONTROLLER)) {
+			float[] xbox = axes[DRIVER_CONTROLLER];
+			dump.xboxAxisLX						= xbox[XBOX_AXIS_LX];
+			dump.xboxAxisLY						= xbox[XBOX_AXIS_LY];
+			dump.xboxAxisRX						= xbox[XBOX_AXIS_RX];
+			dump.xboxAxisRY						= xbox[XBOX_AXIS_RY];
+			dump.xboxAxisRTrigger 				= xbox[XBOX_AXIS_RTRIGGER];
+			dump.xboxAxisLTrigger 				= xbox[XBOX_AXIS_LTRIGGER];
+			
+			dump.xboxBtnA						= isSet(buttons, DRIVER_CONTROLLER, XBOX_BTN_A);
+			dump.xboxBtnB 						= isSet(buttons, DRIVER_CONTROLLER, XBOX_BTN_B);
+			dump.xboxBtnX						= isSet(buttons, DRIVER_CONTROLLER, XBOX_BTN_X);
+			dump.xboxBtnY						= isSet(buttons, DRIVER_CONTROLLER, XBOX_BTN_Y);
+			dump.xboxBtnLBump					= isSet(buttons, DRIVER_CONTROLLER, XBOX_BTN_LBUMP);
+			dump.xboxBtnRBump					= isSet(buttons, DRIVER_CONTROLLER, XBOX_BTN_RBUMP);
+			dump.xboxBtnBack					= isSet(buttons, DRIVER_CONTROLLER, XBOX_BTN_BACK);
+			dump.xboxBtnStart					= isSet(buttons, DRIVER_CONTROLLER, XBOX_BTN_START);
+			dump.xboxBtnLStick					= isSet(buttons, DRIVER_CONTROLLER, XBOX_BTN_LSTICK);
+			dump.xboxBtnRStick					= isSet(buttons, DRIVER_CONTROLLER, XBOX_BTN_RSTICK);
+		}
 		
-		for (int b = 0; b < 12; b++)
-			dump.joystickButtons[b] = operatorJoystickLeft.getRawButton(b + 1);
+		if (present(OPERATOR_JOYSTICK_LEFT)) {
+			float[] primary = axes[OPERATOR_JOYSTICK_LEFT];
+			dump.primaryJoystickAxisX			= primary[JOYSTICK_AXIS_X];
+			dump.primaryJoystickAxisY			= primary[JOYSTICK_AXIS_Y];
+			dump.primaryJoystickAxisZ			= primary[JOYSTICK_AXIS_Z];
+			dump.primaryJoystickAxisThrottle	= primary[JOYSTICK_AXIS_THROTTLE];
+			
+			for (int b = 0; b < dump.joystickButtons.length; b++)
+				dump.joystickButtons[b] = isSet(buttons, OPERATOR_JOYSTICK_LEFT, b + 1);
+		}
 		
-		for (int b = 0; b < 12; b++)
-			dump.joystickButtons[b] = operatorJoystickRight.getRawButton(b + 1);
+		if (present(OPERATOR_JOYSTICK_RIGHT)) {
+			float[] secondary = axes[OPERATOR_JOYSTICK_RIGHT];
+			dump.secondaryJoystickAxisX			= secondary[JOYSTICK_AXIS_X];
+			dump.secondaryJoystickAxisY			= secondary[JOYSTICK_AXIS_Y];
+			dump.secondaryJoystickAxisZ			= secondary[JOYSTICK_AXIS_Z];
+			dump.secondaryJoystickAxisThrottle	= secondary[JOYSTICK_AXIS_THROTTLE];
+			
+			for (int b = 0; b < dump.secondaryJoystickButtons.length; b++)
+				dump.secondaryJoystickButtons[b] = isSet(buttons, OPERATOR_JOYSTICK_RIGHT, b + 1);
+		}
 		
 		return dump;
 	}
@@ -568,7 +793,8 @@ public final class Controllers {
 				primaryJoystickAxisZ, primaryJoystickAxisThrottle,
 				secondaryJoystickAxisX, secondaryJoystickAxisY,
 				secondaryJoystickAxisZ, secondaryJoystickAxisThrottle;
-		public boolean[]	joystickButtons	= new boolean[12];
+		public boolean[]	joystickButtons				= new boolean[12],
+							secondaryJoystickButtons	= new boolean[12];
 	}
 	
 	
@@ -0,0 +1,89 @@
+package org.usfirst.frc.team2485.util;
+
+import java.util.HashMap;
+
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+
+/**
+ * Sends values to the SmartDashboard at a limited rate, and only when they change. <p>
+ * 
+ * Check {@link #isDue()} once per loop and only build and put values when it returns true, so the work of
+ * formatting dashboard values is skipped on the loops in between.
+ */
+public class DashboardPublisher {
+
+	public static final double DEFAULT_PERIOD = 0.1;
+
+	private final long periodNanos;
+	private long nextPublish;
+	private final HashMap<String, Entry> entries = new HashMap<String, Entry>();
+
+	private static class Entry {
+		double number;
+		String string;
+		boolean sent;
+	}
+
+	public DashboardPublisher() {
+		this(DEFAULT_PERIOD);
+	}
+
+	/**
+	 * @param period minimum seconds between updates
+	 */
+	public DashboardPublisher(double period) {
+		if (period < 0)
+			throw new IllegalArgumentException("period can't be negative");
+		this.periodNanos = (long) (period * 1e9);
+		this.nextPublish = RobotClock.nanoTime();
+	}
+
+	/**
+	 * @return true, at most once per period, if values should be put this loop
+	 */
+	public boolean isDue() {
+		long now = RobotClock.nanoTime();
+		if (now - nextPublish < 0)
+			return false;
+		nextPublish = now + periodNanos;
+		return true;
+	}
+
+	public void putNumber(String key, double value) {
+		Entry entry = getEntry(key);
+		if (entry.sent && entry.string == null && Double.doubleToLongBits(entry.number) == Double.doubleToLongBits(value))
+			return;
+
+		entry.number = value;
+		entry.string = null;
+		entry.sent = true;
+		SmartDashboard.putNumber(key, value);
+	}
+
+	public void putString(String key, String value) {
+		Entry entry = getEntry(key);
+		if (entry.sent && value.equals(entry.string))
+			return;
+
+		entry.string = value;
+		entry.sent = true;
+		SmartDashboard.putString(key, value);
+	}
+
+	/**
+	 * Sends every value again on the next put, e.g. after the dashboard reconnects.
+	 */
+	public void resendAll() {
+		for (Entry entry : entries.values())
+			entry.sent = false;
+	}
+
+	private Entry getEntry(String key) {
+		Entry entry = entries.get(key);
+		if (entry == null) {
+			entry = new Entry();
+			entries.put(key, entry);
+		}
+		return entry;
+	}
+}
@@ -0,0 +1,11 @@
+package org.usfirst.frc.team2485.util;
+
+/**
+ * A limit switch or other digital sensor, either a WPILib <code>DigitalInput</code> or a simulated one.
+ * 
+ * @see HardwareAdapters
+ */
+public interface DigitalSwitch {
+
+	public boolean get();
+}
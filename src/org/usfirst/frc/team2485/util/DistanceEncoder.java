@@ -0,0 +1,22 @@
+package org.usfirst.frc.team2485.util;
+
+/**
+ * The parts of an encoder the subsystems use, so they can run on either a WPILib <code>Encoder</code>
+ * or a simulated one.
+ * 
+ * @see HardwareAdapters
+ */
+public interface DistanceEncoder {
+
+	/**
+	 * @return the distance since the last reset, in the units set on the encoder
+	 */
+	public double getDistance();
+
+	/**
+	 * @return the distance per second
+	 */
+	public double getRate();
+
+	public void reset();
+}
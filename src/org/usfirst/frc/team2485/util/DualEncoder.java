@@ -11,18 +11,22 @@ import edu.wpi.first.wpilibj.PIDSource.PIDSourceParameter;
 
 public class DualEncoder implements PIDSource {
 	
-	private Encoder leftEncoder;
-	private Encoder rightEncoder;
+	private DistanceEncoder leftEncoder;
+	private DistanceEncoder rightEncoder;
 	
 	private int directionCorrection = -1;
 	
 	//right incoder vals are neg, left pos
 	
-	public DualEncoder (Encoder leftEncoder, Encoder rightEncoder) {
+	public DualEncoder (DistanceEncoder leftEncoder, DistanceEncoder rightEncoder) {
 		this.leftEncoder = leftEncoder;
 		this.rightEncoder = rightEncoder;
 	}
 	
+	public DualEncoder (Encoder leftEncoder, Encoder rightEncoder) {
+		this(HardwareAdapters.wrap(leftEncoder), HardwareAdapters.wrap(rightEncoder));
+	}
+	
 	@Override
 	public double pidGet() {
 		return (directionCorrection * leftEncoder.getDistance() - directionCorrection * rightEncoder.getDistance()) / 2;//check if distances are in both positive
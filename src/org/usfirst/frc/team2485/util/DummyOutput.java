@@ -9,7 +9,7 @@ import edu.wpi.first.wpilibj.SpeedController;
  */
 public class DummyOutput implements SpeedController {
 
-    private double output;
+    private volatile double output;
 
     @Override
     public double get() {
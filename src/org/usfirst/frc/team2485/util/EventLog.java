@@ -0,0 +1,278 @@
+package org.usfirst.frc.team2485.util;
+
+import java.io.PrintStream;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Logs events from control loops without blocking them on console output. <p>
+ *
+ * Each call site makes a {@link Site} once, usually as a <code>static final</code> field, with a message
+ * which has a <code>{}</code> for each number it takes, and optionally a minimum time between messages:
+ * <pre>
+ * private static final EventLog.Site STRAFE_OUTPUT = EventLog.site("strafeTo output {} imu {}", 0.5);
+ * ...
+ * STRAFE_OUTPUT.log(sonicOutput, imuOutput);
+ * </pre>
+ * Logging copies the numbers into a preallocated ring, so it doesn't allocate, lock or format. A background
+ * thread drains the ring, formats the messages and prints them. Messages inside a site's minimum interval
+ * are counted and the count is printed with its next message. If the ring is full, the message is dropped
+ * and counted instead of making the caller wait. <p>
+ *
+ * Any number of threads may log. The ring is a bounded multi-producer, single-consumer queue: each slot
+ * has a sequence number which tells producers when it's free, and the drain thread when it's written.
+ */
+public final class EventLog {
+
+	public static final int CAPACITY = 1024; // power of two
+	private static final int MASK = CAPACITY - 1;
+	private static final int MAX_ARGS = 4;
+	private static final long DRAIN_PERIOD = 10000000L; // nanoseconds
+	private static final long NEVER = Long.MIN_VALUE;
+
+	private static final AtomicLongArray sequences = new AtomicLongArray(CAPACITY);
+	private static final Site[] sites = new Site[CAPACITY];
+	private static final long[] times = new long[CAPACITY];
+	private static final int[] argCounts = new int[CAPACITY], suppressedCounts = new int[CAPACITY];
+	private static final double[] args = new double[CAPACITY * MAX_ARGS];
+
+	private static final AtomicLong tail = new AtomicLong();
+	private static volatile long head; // only written by the drain thread
+	private static final AtomicLong dropped = new AtomicLong();
+	private static long reportedDropped; // only used by the drain thread
+
+	private static volatile PrintStream out = System.out;
+	private static final Thread drainer;
+
+	static {
+		for (int i = 0; i < CAPACITY; i++)
+			sequences.set(i, i);
+
+		drainer = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				StringBuilder line = new StringBuilder(128);
+				while (true) {
+					if (!drain(line))
+						LockSupport.parkNanos(DRAIN_PERIOD);
+				}
+			}
+		}, "EventLog");
+		drainer.setPriority(Thread.MIN_PRIORITY);
+		drainer.setDaemon(true);
+		drainer.start();
+	}
+
+	private EventLog() {}
+
+	/**
+	 * @param format the message, with a <code>{}</code> for each number logged
+	 */
+	public static Site site(String format) {
+		return new Site(format, 0);
+	}
+
+	/**
+	 * @param format the message, with a <code>{}</code> for each number logged
+	 * @param minInterval seconds between messages from this site; ones in between are counted but not printed
+	 */
+	public static Site site(String format, double minInterval) {
+		return new Site(format, minInterval);
+	}
+
+	/**
+	 * Where messages are printed. Defaults to <code>System.out</code>.
+	 */
+	public static void setOutput(PrintStream output) {
+		if (output == null)
+			throw new IllegalArgumentException("output can't be null");
+		out = output;
+	}
+
+	/**
+	 * @return messages dropped because the ring was full
+	 */
+	public static long getDropped() {
+		return dropped.get();
+	}
+
+	/**
+	 * @return messages logged but not printed yet
+	 */
+	public static int getPending() {
+		return (int) (tail.get() - head);
+	}
+
+	/**
+	 * Waits for the drain thread to print everything logged so far, for when the program is about to exit.
+	 * @param timeout seconds to wait at most
+	 * @return true if everything was printed
+	 */
+	public static boolean flush(double timeout) {
+		long target = tail.get();
+		long deadline = System.nanoTime() + (long) (timeout * 1e9);
+		while (head < target) {
+			if (System.nanoTime() > deadline)
+				return false;
+			LockSupport.unpark(drainer);
+			LockSupport.parkNanos(1000000L);
+		}
+		out.flush();
+		return true;
+	}
+
+	private static boolean enqueue(Site site, long time, int suppressed, int argCount,
+			double a0, double a1, double a2, double a3) {
+
+		long position = tail.get();
+		int slot;
+		while (true) {
+			slot = (int) (position & MASK);
+			long difference = sequences.get(slot) - position;
+			if (difference == 0) {
+				if (tail.compareAndSet(position, position + 1))
+					break;
+				position = tail.get();
+			} else if (difference < 0) {
+				return false; // full: the drain thread hasn't freed this slot yet
+			} else {
+				position = tail.get(); // another producer took it
+			}
+		}
+
+		sites[slot] = site;
+		times[slot] = time;
+		suppressedCounts[slot] = suppressed;
+		argCounts[slot] = argCount;
+		int base = slot * MAX_ARGS;
+		args[base] = a0;
+		args[base + 1] = a1;
+		args[base + 2] = a2;
+		args[base + 3] = a3;
+
+		sequences.lazySet(slot, position + 1); // publish
+		return true;
+	}
+
+	/**
+	 * Prints every message in the ring.
+	 * @return false if the ring was empty
+	 */
+	private static boolean drain(StringBuilder line) {
+		PrintStream output = out;
+		boolean printed = false;
+
+		while (true) {
+			long position = head;
+			int slot = (int) (position & MASK);
+			if (sequences.get(slot) != position + 1)
+				break;
+
+			line.setLength(0);
+			format(line, sites[slot], times[slot], suppressedCounts[slot], argCounts[slot], slot * MAX_ARGS);
+			sites[slot] = null;
+
+			sequences.lazySet(slot, position + CAPACITY); // free it for the next lap
+			head = position + 1;
+
+			output.println(line);
+			printed = true;
+		}
+
+		long lost = dropped.get();
+		if (lost != reportedDropped) {
+			output.println("EventLog: " + lost + " messages dropped so far");
+			reportedDropped = lost;
+		}
+		return printed;
+	}
+
+	private static void format(StringBuilder line, Site site, long time, int suppressed, int argCount, int base) {
+		line.append('[');
+		appendNumber(line, time / 1e9);
+		line.append("] ");
+
+		String[] parts = site.parts;
+		for (int i = 0; i < parts.length; i++) {
+			line.append(parts[i]);
+			if (i < parts.length - 1) {
+				if (i < argCount)
+					appendNumber(line, args[base + i]);
+				else
+					line.append("{}");
+			}
+		}
+
+		if (suppressed > 0)
+			line.append(" (").append(suppressed).append(" more)");
+	}
+
+	private static void appendNumber(StringBuilder line, double value) {
+		if (value == Math.rint(value) && Math.abs(value) < 1e15)
+			line.append((long) value);
+		else if (Double.isNaN(value) || Double.isInfinite(value))
+			line.append(value);
+		else
+			line.append(Math.round(value * 1000) / 1000.0);
+	}
+
+	/**
+	 * One place in the code which logs a message. Make it once, and call <code>log</code> as often as needed.
+	 */
+	public static final class Site {
+
+		private final String[] parts;
+		private final long minInterval;
+		private final AtomicLong lastLogged = new AtomicLong(NEVER);
+		private final AtomicInteger suppressed = new AtomicInteger();
+
+		private Site(String format, double minInterval) {
+			if (format == null)
+				throw new IllegalArgumentException("format can't be null");
+			if (minInterval < 0)
+				throw new IllegalArgumentException("minInterval can't be negative");
+
+			this.parts = format.split("\\{\\}", -1);
+			if (parts.length - 1 > MAX_ARGS)
+				throw new IllegalArgumentException("at most " + MAX_ARGS + " numbers per message: " + format);
+			this.minInterval = (long) (minInterval * 1e9);
+		}
+
+		public void log() {
+			log(0, 0, 0, 0, 0);
+		}
+
+		public void log(double a) {
+			log(1, a, 0, 0, 0);
+		}
+
+		public void log(double a, double b) {
+			log(2, a, b, 0, 0);
+		}
+
+		public void log(double a, double b, double c) {
+			log(3, a, b, c, 0);
+		}
+
+		public void log(double a, double b, double c, double d) {
+			log(4, a, b, c, d);
+		}
+
+		private void log(int argCount, double a, double b, double c, double d) {
+			long now = RobotClock.nanoTime();
+
+			if (minInterval > 0) {
+				long last = lastLogged.get();
+				if ((last != NEVER && now - last < minInterval) || !lastLogged.compareAndSet(last, now)) {
+					suppressed.incrementAndGet();
+					return;
+				}
+			}
+
+			if (!enqueue(this, now, suppressed.getAndSet(0), argCount, a, b, c, d))
+				dropped.incrementAndGet();
+		}
+	}
+}
@@ -0,0 +1,62 @@
+package org.usfirst.frc.team2485.util;
+
+import edu.wpi.first.wpilibj.DigitalInput;
+import edu.wpi.first.wpilibj.Encoder;
+import edu.wpi.first.wpilibj.Solenoid;
+
+/**
+ * Wraps WPILib hardware classes in the interfaces the subsystems are written against. <p>
+ * 
+ * WPILib's <code>Encoder</code>, <code>Solenoid</code> and <code>DigitalInput</code> talk to the FPGA as soon
+ * as they're constructed, so code which takes them directly can't run off the robot. Each method
+ * returns null when passed null, since some sensors (e.g. the center encoder) are optional.
+ */
+public class HardwareAdapters {
+
+	private HardwareAdapters() {}
+
+	public static DistanceEncoder wrap(final Encoder encoder) {
+		if (encoder == null)
+			return null;
+
+		return new DistanceEncoder() {
+			public double getDistance() {
+				return encoder.getDistance();
+			}
+
+			public double getRate() {
+				return encoder.getRate();
+			}
+
+			public void reset() {
+				encoder.reset();
+			}
+		};
+	}
+
+	public static SolenoidOutput wrap(final Solenoid solenoid) {
+		if (solenoid == null)
+			return null;
+
+		return new SolenoidOutput() {
+			public void set(boolean on) {
+				solenoid.set(on);
+			}
+
+			public boolean get() {
+				return solenoid.get();
+			}
+		};
+	}
+
+	public static DigitalSwitch wrap(final DigitalInput input) {
+		if (input == null)
+			return null;
+
+		return new DigitalSwitch() {
+			public boolean get() {
+				return input.get();
+			}
+		};
+	}
+}
@@ -12,15 +12,19 @@ import edu.wpi.first.wpilibj.PIDSource.PIDSourceParameter;
 
 public class InvertableEncoder implements PIDSource {
 	
-	private Encoder encoder;
+	private DistanceEncoder encoder;
 	
 	private int signFlip; 
 	
-	public InvertableEncoder (Encoder encoder, int signFlip) {
+	public InvertableEncoder (DistanceEncoder encoder, int signFlip) {
 		this.encoder = encoder;	
 		this.signFlip = signFlip; 
 	}
 	
+	public InvertableEncoder (Encoder encoder, int signFlip) {
+		this(HardwareAdapters.wrap(encoder), signFlip);
+	}
+	
 	@Override
 	public double pidGet() {
 		return signFlip * encoder.getDistance();
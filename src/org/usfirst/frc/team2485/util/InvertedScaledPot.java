@@ -1,7 +1,7 @@
 package org.usfirst.frc.team2485.util;
 
-import edu.wpi.first.wpilibj.AnalogPotentiometer;
 import edu.wpi.first.wpilibj.PIDSource;
+import edu.wpi.first.wpilibj.interfaces.Potentiometer;
 
 /**
  * 
@@ -13,11 +13,11 @@ import edu.wpi.first.wpilibj.PIDSource;
 
 public class InvertedScaledPot implements PIDSource {
 	
-	private AnalogPotentiometer pot;
+	private Potentiometer pot;
 	
 	private static final double SCALAR = 1000; 
 	
-	public InvertedScaledPot(AnalogPotentiometer pot) {
+	public InvertedScaledPot(Potentiometer pot) {
 		this.pot = pot;
 	}
 	
@@ -0,0 +1,211 @@
+package org.usfirst.frc.team2485.util;
+
+import java.util.Arrays;
+
+/**
+ * Times the phases of a periodic loop, and counts loops which run over budget. <p>
+ *
+ * Call <code>startLoop()</code> at the top of the loop, <code>mark(phase)</code> at the end of each phase, and
+ * <code>endLoop()</code> at the bottom. Each phase's time is the time since the previous mark (or the start of
+ * the loop). Times go into log-linear histograms, HDR style: 16 buckets per power of two, so any percentile
+ * is within about 6%, over a range of 1 microsecond to 16 seconds, in a few hundred <code>int</code>s per phase. <p>
+ *
+ * Recording allocates nothing. Only one thread may record and read a profiler.
+ */
+public class LoopProfiler {
+
+	private static final int SUB_BUCKET_BITS = 4;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	private static final int MAX_SHIFT = 20; // 2^24 microseconds
+	private static final int BUCKETS = (MAX_SHIFT + 2) * SUB_BUCKETS;
+
+	private final String[] phases;
+	private final int loopIndex;
+	private final long budgetNanos;
+
+	private final int[][] counts;
+	private final long[] totals, maxes;
+	private final String[][] keys;
+
+	private long loopStart, lastMark;
+	private boolean inLoop;
+	private long overruns, totalOverruns, lastOverrunNanos;
+
+	/**
+	 * @param phases the name of each phase, indexed by the phase numbers passed to <code>mark()</code>
+	 * @param budget seconds a whole loop should take
+	 */
+	public LoopProfiler(String[] phases, double budget) {
+		if (budget <= 0)
+			throw new IllegalArgumentException("budget must be positive");
+
+		this.phases = new String[phases.length + 1];
+		System.arraycopy(phases, 0, this.phases, 0, phases.length);
+		this.loopIndex = phases.length;
+		this.phases[loopIndex] = "Loop";
+		this.budgetNanos = (long) (budget * 1e9);
+
+		counts = new int[this.phases.length][BUCKETS];
+		totals = new long[this.phases.length];
+		maxes = new long[this.phases.length];
+
+		keys = new String[this.phases.length][];
+		for (int i = 0; i < this.phases.length; i++)
+			keys[i] = new String[] { this.phases[i] + " p50 ms", this.phases[i] + " p99 ms", this.phases[i] + " max ms" };
+	}
+
+	public void startLoop() {
+		loopStart = RobotClock.nanoTime();
+		lastMark = loopStart;
+		inLoop = true;
+	}
+
+	/**
+	 * Records the time since the last mark as the given phase.
+	 */
+	public void mark(int phase) {
+		if (!inLoop)
+			return;
+		long now = RobotClock.nanoTime();
+		record(phase, now - lastMark);
+		lastMark = now;
+	}
+
+	/**
+	 * Records the whole loop's time.
+	 * @return true if the loop ran over budget
+	 */
+	public boolean endLoop() {
+		if (!inLoop)
+			return false;
+		inLoop = false;
+
+		long duration = RobotClock.nanoTime() - loopStart;
+		record(loopIndex, duration);
+
+		if (duration > budgetNanos) {
+			overruns++;
+			totalOverruns++;
+			lastOverrunNanos = duration;
+			return true;
+		}
+		return false;
+	}
+
+	private void record(int phase, long nanos) {
+		counts[phase][bucketFor(nanos / 1000)]++;
+		totals[phase]++;
+		if (nanos > maxes[phase])
+			maxes[phase] = nanos;
+	}
+
+	private static int bucketFor(long micros) {
+		if (micros < 2 * SUB_BUCKETS)
+			return (int) Math.max(micros, 0);
+		int shift = (63 - Long.numberOfLeadingZeros(micros)) - SUB_BUCKET_BITS;
+		if (shift > MAX_SHIFT)
+			return BUCKETS - 1;
+		return shift * SUB_BUCKETS + (int) (micros >> shift);
+	}
+
+	/**
+	 * @return the largest value, in microseconds, which falls in the bucket
+	 */
+	private static long bucketTop(int bucket) {
+		if (bucket < 2 * SUB_BUCKETS)
+			return bucket;
+		int shift = bucket / SUB_BUCKETS - 1;
+		long sub = bucket % SUB_BUCKETS + SUB_BUCKETS;
+		return ((sub + 1) << shift) - 1;
+	}
+
+	/**
+	 * @param phase a phase number, or <code>getPhaseCount()</code> for the whole loop
+	 * @param percentile from 0 to 100
+	 * @return seconds, or 0 if nothing has been recorded since the last reset
+	 */
+	public double getPercentile(int phase, double percentile) {
+		long total = totals[phase];
+		if (total == 0)
+			return 0;
+		long rank = (long) Math.ceil(percentile / 100 * total);
+		if (rank < 1)
+			rank = 1;
+
+		int[] phaseCounts = counts[phase];
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += phaseCounts[i];
+			if (seen >= rank)
+				return Math.min(bucketTop(i) * 1e-6, maxes[phase] / 1e9);
+		}
+		return maxes[phase] / 1e9;
+	}
+
+	/**
+	 * @return seconds
+	 */
+	public double getMax(int phase) {
+		return maxes[phase] / 1e9;
+	}
+
+	public long getCount(int phase) {
+		return totals[phase];
+	}
+
+	/**
+	 * @return the number of phases, which is also the phase number of the whole loop
+	 */
+	public int getPhaseCount() {
+		return loopIndex;
+	}
+
+	public String getPhaseName(int phase) {
+		return phases[phase];
+	}
+
+	/**
+	 * @return loops over budget since the last reset
+	 */
+	public long getOverruns() {
+		return overruns;
+	}
+
+	/**
+	 * @return loops over budget since the profiler was created
+	 */
+	public long getTotalOverruns() {
+		return totalOverruns;
+	}
+
+	/**
+	 * @return seconds the most recent over budget loop took
+	 */
+	public double getLastOverrun() {
+		return lastOverrunNanos / 1e9;
+	}
+
+	/**
+	 * Sends p50, p99 and max of every phase and the whole loop, in milliseconds, and the overruns.
+	 */
+	public void publish(DashboardPublisher dashboard) {
+		for (int i = 0; i < phases.length; i++) {
+			dashboard.putNumber(keys[i][0], getPercentile(i, 50) * 1000);
+			dashboard.putNumber(keys[i][1], getPercentile(i, 99) * 1000);
+			dashboard.putNumber(keys[i][2], getMax(i) * 1000);
+		}
+		dashboard.putNumber("Loop Overruns", totalOverruns);
+	}
+
+	/**
+	 * Clears the histograms and the overruns since the last reset, to start a new window.
+	 */
+	public void reset() {
+		for (int i = 0; i < phases.length; i++) {
+			Arrays.fill(counts[i], 0);
+			totals[i] = 0;
+			maxes[i] = 0;
+		}
+		overruns = 0;
+	}
+}
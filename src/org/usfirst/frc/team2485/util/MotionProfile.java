@@ -0,0 +1,120 @@
+package org.usfirst.frc.team2485.util;
+
+/**
+ * A trapezoidal motion profile: accelerates at the maximum acceleration, cruises at the maximum velocity,
+ * then decelerates to stop exactly at the goal. Short moves which never reach the maximum velocity become
+ * triangular. <p>
+ *
+ * The profile starts and ends at rest, and is sampled by time since the start of the move.
+ */
+public class MotionProfile {
+
+	private final double start, direction;
+	private final double maxVelocity, maxAcceleration;
+	private final double accelTime, cruiseTime, totalTime;
+	private final double accelDistance, cruiseVelocity, distance;
+
+	/**
+	 * @param start position at the start of the move
+	 * @param goal position at the end of the move
+	 * @param maxVelocity position units per second, positive
+	 * @param maxAcceleration position units per second squared, positive
+	 */
+	public MotionProfile(double start, double goal, double maxVelocity, double maxAcceleration) {
+		if (maxVelocity <= 0 || maxAcceleration <= 0)
+			throw new IllegalArgumentException("velocity and acceleration limits must be positive");
+
+		this.start = start;
+		this.direction = goal >= start ? 1 : -1;
+		this.maxVelocity = maxVelocity;
+		this.maxAcceleration = maxAcceleration;
+		this.distance = Math.abs(goal - start);
+
+		double fullAccelDistance = maxVelocity * maxVelocity / (2 * maxAcceleration);
+		if (2 * fullAccelDistance > distance) {
+			// triangular: turn around halfway, below the maximum velocity
+			accelDistance = distance / 2;
+			cruiseVelocity = Math.sqrt(2 * maxAcceleration * accelDistance);
+		} else {
+			accelDistance = fullAccelDistance;
+			cruiseVelocity = maxVelocity;
+		}
+
+		accelTime = cruiseVelocity / maxAcceleration;
+		cruiseTime = cruiseVelocity > 0 ? (distance - 2 * accelDistance) / cruiseVelocity : 0;
+		totalTime = 2 * accelTime + cruiseTime;
+	}
+
+	/**
+	 * @param t seconds since the start of the move
+	 * @return the position to be at
+	 */
+	public double getPosition(double t) {
+		if (t <= 0)
+			return start;
+		if (t >= totalTime)
+			return start + direction * distance;
+
+		double travelled;
+		if (t < accelTime) {
+			travelled = maxAcceleration * t * t / 2;
+		} else if (t < totalTime - accelTime) {
+			travelled = accelDistance + cruiseVelocity * (t - accelTime);
+		} else {
+			double remaining = totalTime - t;
+			travelled = distance - maxAcceleration * remaining * remaining / 2;
+		}
+		return start + direction * travelled;
+	}
+
+	/**
+	 * @param t seconds since the start of the move
+	 * @return the velocity to be moving at
+	 */
+	public double getVelocity(double t) {
+		if (t <= 0 || t >= totalTime)
+			return 0;
+		if (t < accelTime)
+			return direction * maxAcceleration * t;
+		if (t < totalTime - accelTime)
+			return direction * cruiseVelocity;
+		return direction * maxAcceleration * (totalTime - t);
+	}
+
+	/**
+	 * @param t seconds since the start of the move
+	 * @return the acceleration to be accelerating at
+	 */
+	public double getAcceleration(double t) {
+		if (t <= 0 || t >= totalTime)
+			return 0;
+		if (t < accelTime)
+			return direction * maxAcceleration;
+		if (t < totalTime - accelTime)
+			return 0;
+		return -direction * maxAcceleration;
+	}
+
+	/**
+	 * @return seconds from the start of the move to the end
+	 */
+	public double getTotalTime() {
+		return totalTime;
+	}
+
+	public boolean isFinished(double t) {
+		return t >= totalTime;
+	}
+
+	public double getGoal() {
+		return start + direction * distance;
+	}
+
+	public double getMaxVelocity() {
+		return maxVelocity;
+	}
+
+	public double getMaxAcceleration() {
+		return maxAcceleration;
+	}
+}
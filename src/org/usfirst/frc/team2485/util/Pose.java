@@ -0,0 +1,21 @@
+package org.usfirst.frc.team2485.util;
+
+/**
+ * A copy of the robot's estimated position and heading. Filled in by {@link PoseEstimator#getPose(Pose)}, so a
+ * caller that reads the pose periodically should allocate one up front and reuse it. <p>
+ *
+ * Field frame: x is forward and y is to the right of the robot's heading when the estimator was last reset,
+ * in inches. y is also the distance from the wall seen by the ultrasonic sensor, while it sees one.
+ */
+public class Pose {
+
+	public double x, y;
+	/** degrees clockwise, like the IMU's yaw */
+	public double heading;
+	/** <code>RobotClock</code> seconds of the samples this pose was estimated from */
+	public double timestamp;
+
+	public String toString() {
+		return "(" + x + ", " + y + ") heading " + heading;
+	}
+}
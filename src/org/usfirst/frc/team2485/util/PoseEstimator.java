@@ -0,0 +1,198 @@
+package org.usfirst.frc.team2485.util;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.usfirst.frc.com.kauailabs.nav6.frc.IMU;
+import org.usfirst.frc.com.kauailabs.nav6.frc.OrientationSnapshot;
+
+import edu.wpi.first.wpilibj.PIDSource;
+
+/**
+ * Estimates the H-drive's position and heading on the field, at the control loop rate. <p>
+ *
+ * Dead reckoning: each tick, the change in drive encoder distance is moved along the IMU's heading. The center
+ * wheel's belt slips, so strafing isn't measured by an encoder; instead the sideways position is pulled
+ * towards the ultrasonic sensor's distance to the wall, whenever the sensor has a plausible reading and the
+ * robot is close enough to square with the wall. <p>
+ *
+ * Outliers are rejected on both inputs: an encoder jump faster than the robot can drive (a glitch, or the
+ * encoders being reset) is ignored, as is an ultrasonic reading too far from the estimate. If the ultrasonic
+ * sensor keeps disagreeing for long enough, the estimate is assumed to be what's wrong and jumps to it. <p>
+ *
+ * Runs as a {@link ControlLoop}; add it to the scheduler before the loops that use it. Updates allocate
+ * nothing. {@link #getPose(Pose)} is lock free: the pose is published with a sequence counter, and readers
+ * retry if it changed while they were copying it.
+ */
+public class PoseEstimator implements ControlLoop {
+
+	private static final double
+		MAX_SPEED 				= 200, 	// in/s, faster encoder changes are outliers
+		SONIC_GAIN 				= 0.1, 	// fraction of the ultrasonic error corrected each tick
+		SONIC_GATE 				= 8, 	// in, further from the estimate is an outlier
+		SONIC_MIN_RANGE 		= 3, 	// in
+		SONIC_MAX_RANGE 		= 150, 	// in
+		SONIC_MAX_HEADING 		= 20, 	// degrees off square with the wall
+		SONIC_RESEED_TIME 		= 0.5; 	// s of consistent outliers before trusting the sensor instead
+
+	private final DualEncoder encoder;
+	private final PIDSource sonic;
+	private volatile IMU imu;
+	private final OrientationSnapshot orientation = new OrientationSnapshot();
+
+	// published pose, guarded by sequence
+	private volatile int sequence;
+	private volatile double x, y, heading, timestamp;
+
+	// only touched by the scheduler thread
+	private double sampledDistance, sampledSonic, sampledHeading, sampledTime;
+	private double lastDistance, estX, estY;
+	private double sonicOutlierTime;
+	private boolean initialized;
+	private final AtomicBoolean resetPending = new AtomicBoolean(true), encodersResetPending = new AtomicBoolean();
+	private volatile double resetX, resetY;
+	private long outlierCount;
+
+	/**
+	 * @param encoder forward distance
+	 * @param sonic distance to the wall, in inches, off the robot's side
+	 * @param imu may be null, in which case the heading is taken to be 0
+	 */
+	public PoseEstimator(DualEncoder encoder, PIDSource sonic, IMU imu) {
+		if (encoder == null)
+			throw new IllegalArgumentException("encoder can't be null");
+		this.encoder = encoder;
+		this.sonic = sonic;
+		this.imu = imu;
+	}
+
+	public void setImu(IMU imu) {
+		this.imu = imu;
+	}
+
+	/**
+	 * Moves the estimate to a known position, at the next tick. The heading always comes from the IMU.
+	 */
+	public void reset(double x, double y) {
+		resetX = x;
+		resetY = y;
+		resetPending.set(true);
+	}
+
+	/**
+	 * Tells the estimator the drive encoders were just reset, so the jump in distance isn't counted as motion.
+	 * Call after resetting them.
+	 */
+	public void encodersReset() {
+		encodersResetPending.set(true);
+	}
+
+	@Override
+	public void sample() {
+		// taken and cleared in one step, so a reset flagged in between isn't lost
+		boolean encodersReset = encodersResetPending.getAndSet(false);
+
+		// read after the flag, so a reset flagged above is already seen here
+		sampledDistance = encoder.getDistance();
+		if (encodersReset)
+			lastDistance = sampledDistance;
+
+		sampledSonic = sonic != null ? sonic.pidGet() : -1;
+
+		IMU imu = this.imu;
+		if (imu != null) {
+			imu.getSnapshot(orientation);
+			sampledHeading = orientation.yaw;
+		} else
+			sampledHeading = 0;
+
+		sampledTime = RobotClock.getTimestamp();
+	}
+
+	@Override
+	public void calculate(double dt) {
+
+		boolean reset = resetPending.getAndSet(false);
+		if (reset || !initialized) {
+			initialized = true;
+			estX = resetX;
+			estY = resetY;
+			lastDistance = sampledDistance;
+			sonicOutlierTime = 0;
+			publish();
+			return;
+		}
+
+		double delta = sampledDistance - lastDistance;
+		lastDistance = sampledDistance;
+
+		if (Math.abs(delta) > MAX_SPEED * Math.max(dt, ScheduledPIDController.NOMINAL_PERIOD)) {
+			outlierCount++;
+			delta = 0;
+		}
+
+		double radians = Math.toRadians(sampledHeading);
+		estX += delta * Math.cos(radians);
+		estY += delta * Math.sin(radians);
+
+		if (sampledSonic > SONIC_MIN_RANGE && sampledSonic < SONIC_MAX_RANGE && 
+				Math.abs(sampledHeading) < SONIC_MAX_HEADING) {
+
+			double measuredY = sampledSonic * Math.cos(radians);
+			double error = measuredY - estY;
+
+			if (Math.abs(error) < SONIC_GATE) {
+				estY += SONIC_GAIN * error;
+				sonicOutlierTime = 0;
+			} else {
+				outlierCount++;
+				sonicOutlierTime += dt;
+				if (sonicOutlierTime > SONIC_RESEED_TIME) {
+					estY = measuredY;
+					sonicOutlierTime = 0;
+				}
+			}
+		}
+
+		publish();
+	}
+
+	@Override
+	public void write() {
+	}
+
+	private void publish() {
+		sequence++; // odd while writing
+		x = estX;
+		y = estY;
+		heading = sampledHeading;
+		timestamp = sampledTime;
+		sequence++;
+	}
+
+	/**
+	 * Copies the latest pose, without locking. Can be called from any thread.
+	 * @param pose filled in with the estimate
+	 * @return the pose passed in
+	 */
+	public Pose getPose(Pose pose) {
+		while (true) {
+			int before = sequence;
+			if ((before & 1) == 0) {
+				pose.x = x;
+				pose.y = y;
+				pose.heading = heading;
+				pose.timestamp = timestamp;
+				if (sequence == before)
+					return pose;
+			}
+			Thread.yield();
+		}
+	}
+
+	/**
+	 * @return how many encoder and ultrasonic samples have been rejected
+	 */
+	public long getOutlierCount() {
+		return outlierCount;
+	}
+}
@@ -0,0 +1,102 @@
+package org.usfirst.frc.team2485.util;
+
+import edu.wpi.first.wpilibj.Utility;
+
+/**
+ * The one monotonic clock the robot program reads. <p>
+ * 
+ * Sequencers, the control loop scheduler and the IMU all read time here, from whichever {@link Source}
+ * is installed. On the robot that's the FPGA clock, so timestamps match <code>Timer.getFPGATimestamp()</code>.
+ * A simulation installs its own source and steps it, so a run is deterministic and goes as fast as the
+ * CPU allows. <p>
+ * 
+ * Set the source before anything starts timing, since times from different sources can't be compared.
+ */
+public class RobotClock {
+
+	public interface Source {
+
+		/**
+		 * @return the current time in nanoseconds, from an arbitrary but fixed starting point
+		 */
+		public long nanoTime();
+
+		/**
+		 * Blocks the calling thread until the specified time has passed on this clock.
+		 */
+		public void sleep(long nanos) throws InterruptedException;
+	}
+
+	/**
+	 * The JVM's monotonic clock. Used until another source is set, e.g. in tools running off the robot.
+	 */
+	public static final Source SYSTEM = new Source() {
+		public long nanoTime() {
+			return System.nanoTime();
+		}
+
+		public void sleep(long nanos) throws InterruptedException {
+			sleepNanos(nanos);
+		}
+	};
+
+	/**
+	 * The FPGA's microsecond clock, the same one WPILib's <code>Timer</code> reads.
+	 */
+	public static final Source FPGA = new Source() {
+		public long nanoTime() {
+			return Utility.getFPGATime() * 1000;
+		}
+
+		public void sleep(long nanos) throws InterruptedException {
+			sleepNanos(nanos);
+		}
+	};
+
+	private static volatile Source source = SYSTEM;
+
+	private RobotClock() {}
+
+	public static void setSource(Source source) {
+		if (source == null)
+			throw new IllegalArgumentException("clock source can't be null");
+		RobotClock.source = source;
+	}
+
+	public static Source getSource() {
+		return source;
+	}
+
+	/**
+	 * @return the current time in nanoseconds; only differences between times are meaningful
+	 */
+	public static long nanoTime() {
+		return source.nanoTime();
+	}
+
+	/**
+	 * @return the current time in seconds; on the robot, the same as <code>Timer.getFPGATimestamp()</code>
+	 */
+	public static double getTimestamp() {
+		return source.nanoTime() / 1e9;
+	}
+
+	/**
+	 * Sleeps for the specified time on the clock.
+	 */
+	public static void sleep(long nanos) throws InterruptedException {
+		if (nanos > 0)
+			source.sleep(nanos);
+	}
+
+	/**
+	 * Sleeps for the specified time on the clock.
+	 */
+	public static void sleep(double seconds) throws InterruptedException {
+		sleep((long) (seconds * 1e9));
+	}
+
+	private static void sleepNanos(long nanos) throws InterruptedException {
+		Thread.sleep(nanos / 1000000, (int) (nanos % 1000000));
+	}
+}
@@ -0,0 +1,141 @@
+package org.usfirst.frc.team2485.util;
+
+import org.usfirst.frc.com.kauailabs.nav6.frc.IMU;
+import org.usfirst.frc.com.kauailabs.nav6.frc.IMUAdvanced;
+import org.usfirst.frc.com.kauailabs.nav6.frc.MotionSnapshot;
+
+/**
+ *
+ * Estimates the robot's roll with a one state Kalman filter. <p>
+ *
+ * The IMU senses roll from the direction of gravity, so when the robot accelerates its roll is off by the tilt of
+ * the acceleration, <code>atan(a / g)</code>. The acceleration is taken from the change in drive encoder rate, and
+ * that tilt is subtracted from the IMU's roll before each correction, so the encoders take out the fast error and
+ * the IMU supplies the slow changes. The subtraction lags while the acceleration is changing and can't see
+ * acceleration the encoders miss, such as wheel slip, so the measurement noise grows with both; the missed
+ * acceleration is found from the IMU's world linear acceleration when it's an IMUAdvanced. <p>
+ *
+ * Each call to <code>update()</code> does a constant amount of work and allocates nothing.
+ */
+public class RollEstimator {
+
+	private IMU imu;
+	private IMUAdvanced imuAdvanced;
+	private DualEncoder encoder;
+	private final MotionSnapshot orientation = new MotionSnapshot(); // the acceleration is only filled in by an IMUAdvanced
+
+	private static final double INCHES_PER_SECOND_SQUARED_PER_G = 386.09;
+
+	private static final double
+		PROCESS_NOISE 			= 4.0,	// degrees^2 per second the true roll may wander
+		MEASUREMENT_NOISE 		= 0.01, // degrees^2 when the tilt correction is exact
+		ACCEL_NOISE_SCALE_G 	= 0.002, // measurement noise doubles at this much uncorrected acceleration
+		ACCEL_SMOOTHING 		= 0.5,	// low pass filter constant for the encoder acceleration
+		MAX_DT 					= 0.25;
+
+	private volatile double estimate;
+	private volatile double variance;
+
+	private boolean initialized;
+	private int lastSequence;
+	private double lastTime, lastEncoderRate, encoderAccel, accelChange;
+
+	public RollEstimator(IMU imu, DualEncoder encoder) {
+		this.imu = imu;
+		this.imuAdvanced = (imu instanceof IMUAdvanced) ? (IMUAdvanced) imu : null;
+		this.encoder = encoder;
+		reset();
+	}
+
+	/**
+	 * Discards the current estimate; the next update starts over from the IMU's roll.
+	 */
+	public void reset() {
+		initialized = false;
+		estimate = 0;
+		variance = 0;
+		encoderAccel = 0;
+		accelChange = 0;
+	}
+
+	/**
+	 * @return how far the robot's acceleration tilts the IMU's sense of gravity, in degrees
+	 */
+	private static double tilt(double accel) {
+		return Math.toDegrees(Math.atan2(accel, INCHES_PER_SECOND_SQUARED_PER_G));
+	}
+
+	/**
+	 * Steps the filter. Should only be called from one thread (the PID thread using this estimator).
+	 * @return the new roll estimate, in degrees
+	 */
+	public double update() {
+
+		imu.getSnapshot(orientation);
+		double now = RobotClock.getTimestamp();
+		double encoderRate = encoder == null ? 0 : encoder.getRate();
+
+		if (!initialized) {
+			initialized = true;
+			estimate = orientation.roll;
+			variance = MEASUREMENT_NOISE;
+			lastSequence = orientation.sequence;
+			lastTime = now;
+			lastEncoderRate = encoderRate;
+			return estimate;
+		}
+
+		double dt = Math.min(now - lastTime, MAX_DT);
+		lastTime = now;
+
+		if (dt > 0) {
+			double accel = (encoderRate - lastEncoderRate) / dt;
+			// the smoothed acceleration lags by this much; keep the largest since the last correction
+			accelChange = Math.max(accelChange, Math.abs(accel - encoderAccel));
+			encoderAccel += ACCEL_SMOOTHING * (accel - encoderAccel);
+		}
+		lastEncoderRate = encoderRate;
+
+		// predict: roll is modeled as a random walk
+		double p = variance + PROCESS_NOISE * Math.max(dt, 0);
+		double x = estimate;
+
+		// correct, only when the IMU has sent a new packet
+		if (orientation.sequence != lastSequence) {
+			lastSequence = orientation.sequence;
+
+			double measured = orientation.roll - tilt(encoderAccel);
+
+			double uncorrectedG = accelChange / INCHES_PER_SECOND_SQUARED_PER_G;
+			if (imuAdvanced != null) {
+				double imuAccelG = Math.hypot(orientation.world_linear_accel_x, orientation.world_linear_accel_y);
+				uncorrectedG = Math.max(uncorrectedG, Math.abs(imuAccelG - Math.abs(encoderAccel) / INCHES_PER_SECOND_SQUARED_PER_G));
+			}
+			accelChange = 0;
+			double accelRatio = uncorrectedG / ACCEL_NOISE_SCALE_G;
+			double r = MEASUREMENT_NOISE * (1 + accelRatio * accelRatio);
+
+			double gain = p / (p + r);
+			x += gain * (measured - x);
+			p *= (1 - gain);
+		}
+
+		variance = p;
+		estimate = x;
+		return x;
+	}
+
+	/**
+	 * @return the most recent roll estimate, in degrees, without stepping the filter
+	 */
+	public double getEstimate() {
+		return estimate;
+	}
+
+	/**
+	 * @return the variance of the roll estimate, in degrees^2
+	 */
+	public double getVariance() {
+		return variance;
+	}
+}
@@ -1,7 +1,7 @@
 package org.usfirst.frc.team2485.util;
 
-import edu.wpi.first.wpilibj.AnalogPotentiometer;
 import edu.wpi.first.wpilibj.PIDSource;
+import edu.wpi.first.wpilibj.interfaces.Potentiometer;
 
 /**
  * 
@@ -12,11 +12,11 @@ import edu.wpi.first.wpilibj.PIDSource;
 
 public class ScaledPot implements PIDSource {
 	
-	private AnalogPotentiometer pot;
+	private Potentiometer pot;
 	
 	private static final double SCALER = 1000; 
 	
-	public ScaledPot(AnalogPotentiometer pot) {
+	public ScaledPot(Potentiometer pot) {
 		this.pot = pot;
 	}
 	
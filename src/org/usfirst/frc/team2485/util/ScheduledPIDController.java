@@ -0,0 +1,229 @@
+package org.usfirst.frc.team2485.util;
+
+import edu.wpi.first.wpilibj.PIDOutput;
+import edu.wpi.first.wpilibj.PIDSource;
+
+/**
+ * A PID controller with the same interface as WPILib's <code>PIDController</code>, but run by a
+ * {@link ControlLoopScheduler} instead of its own thread. <p>
+ *
+ * Gains are tuned the same way as for <code>PIDController</code>, which runs every 0.05 seconds. The I and D
+ * terms are scaled by the actual time between ticks, so the tuned gains behave the same at the scheduler's
+ * faster rate. <p>
+ *
+ * The input is sampled every tick, even while disabled, so <code>getError()</code> and <code>onTarget()</code>
+ * are never more than one tick old. The output is only written while enabled. An input of <code>NaN</code> means
+ * the source has no reading: the output is 0 until it has one again, and the I and D terms are left as they were.
+ */
+public class ScheduledPIDController implements ControlLoop {
+
+	public static final double NOMINAL_PERIOD = 0.05;
+
+	private PIDSource source;
+	private PIDOutput output;
+
+	private double p, i, d;
+	private double minimumOutput = -1.0, maximumOutput = 1.0;
+	private double minimumInput = 0.0, maximumInput = 0.0;
+	private boolean continuous = false;
+	private double tolerance = 0.05;
+
+	private boolean enabled = false;
+	private boolean calculatedSinceEnable = false;
+	private double setpoint;
+	private double input;
+	private double prevError, totalError;
+	private double result;
+
+	private double sampledInput; // only touched by the scheduler thread
+	private double resultToWrite;
+	private boolean writeResult;
+
+	public ScheduledPIDController(double p, double i, double d, PIDSource source, PIDOutput output) {
+		if (source == null)
+			throw new IllegalArgumentException("PID source can't be null");
+		if (output == null)
+			throw new IllegalArgumentException("PID output can't be null");
+
+		this.p = p;
+		this.i = i;
+		this.d = d;
+		this.source = source;
+		this.output = output;
+	}
+
+	@Override
+	public void sample() {
+		sampledInput = source.pidGet();
+	}
+
+	@Override
+	public synchronized void calculate(double dt) {
+
+		input = sampledInput;
+		writeResult = enabled;
+		if (!enabled)
+			return;
+
+		if (Double.isNaN(input)) {
+			result = 0;
+			resultToWrite = 0;
+			return;
+		}
+
+		double error = getError();
+		double scale = dt / NOMINAL_PERIOD;
+		if (scale <= 0)
+			scale = 1;
+
+		if (!calculatedSinceEnable) {
+			prevError = error; // no derivative kick on the first tick
+			calculatedSinceEnable = true;
+		}
+
+		if (i != 0) {
+			double potentialIGain = (totalError + error * scale) * i;
+			if (potentialIGain < maximumOutput) {
+				if (potentialIGain > minimumOutput)
+					totalError += error * scale;
+				else
+					totalError = minimumOutput / i;
+			} else {
+				totalError = maximumOutput / i;
+			}
+		}
+
+		result = p * error + i * totalError + d * (error - prevError) / scale;
+		prevError = error;
+
+		if (result > maximumOutput)
+			result = maximumOutput;
+		else if (result < minimumOutput)
+			result = minimumOutput;
+
+		resultToWrite = result;
+	}
+
+	@Override
+	public synchronized void write() {
+		if (writeResult && enabled)
+			output.pidWrite(resultToWrite);
+	}
+
+	public synchronized void setPID(double p, double i, double d) {
+		this.p = p;
+		this.i = i;
+		this.d = d;
+	}
+
+	public synchronized double getP() {
+		return p;
+	}
+
+	public synchronized double getI() {
+		return i;
+	}
+
+	public synchronized double getD() {
+		return d;
+	}
+
+	/**
+	 * @return the most recently calculated output
+	 */
+	public synchronized double get() {
+		return result;
+	}
+
+	public synchronized void setContinuous(boolean continuous) {
+		this.continuous = continuous;
+	}
+
+	public synchronized void setInputRange(double minimumInput, double maximumInput) {
+		if (minimumInput > maximumInput)
+			throw new IllegalArgumentException("Lower bound is greater than upper bound");
+		this.minimumInput = minimumInput;
+		this.maximumInput = maximumInput;
+		setSetpoint(setpoint);
+	}
+
+	public synchronized void setOutputRange(double minimumOutput, double maximumOutput) {
+		if (minimumOutput > maximumOutput)
+			throw new IllegalArgumentException("Lower bound is greater than upper bound");
+		this.minimumOutput = minimumOutput;
+		this.maximumOutput = maximumOutput;
+	}
+
+	public synchronized void setSetpoint(double setpoint) {
+		if (maximumInput > minimumInput) {
+			if (setpoint > maximumInput)
+				setpoint = maximumInput;
+			else if (setpoint < minimumInput)
+				setpoint = minimumInput;
+		}
+		this.setpoint = setpoint;
+	}
+
+	public synchronized double getSetpoint() {
+		return setpoint;
+	}
+
+	/**
+	 * @return the setpoint minus the most recently sampled input
+	 */
+	public synchronized double getError() {
+		double error = setpoint - input;
+		if (continuous) {
+			double range = maximumInput - minimumInput;
+			if (Math.abs(error) > range / 2) {
+				if (error > 0)
+					error -= range;
+				else
+					error += range;
+			}
+		}
+		return error;
+	}
+
+	public synchronized void setAbsoluteTolerance(double absoluteTolerance) {
+		this.tolerance = absoluteTolerance;
+	}
+
+	/**
+	 * Always false until the controller has run at least once since being enabled,
+	 * so a stale error from before can't end a move early.
+	 * @return true if the error is within the absolute tolerance
+	 */
+	public synchronized boolean onTarget() {
+		return calculatedSinceEnable && Math.abs(getError()) < tolerance;
+	}
+
+	public synchronized void enable() {
+		if (!enabled)
+			calculatedSinceEnable = false;
+		enabled = true;
+	}
+
+	/**
+	 * Stops running the controller and immediately writes 0 to the output.
+	 */
+	public synchronized void disable() {
+		output.pidWrite(0);
+		enabled = false;
+		writeResult = false;
+	}
+
+	public synchronized boolean isEnable() {
+		return enabled;
+	}
+
+	/**
+	 * Disables the controller and clears the accumulated error and output.
+	 */
+	public synchronized void reset() {
+		disable();
+		prevError = 0;
+		totalError = 0;
+		result = 0;
+	}
+}
@@ -0,0 +1,13 @@
+package org.usfirst.frc.team2485.util;
+
+/**
+ * A single solenoid, either a WPILib <code>Solenoid</code> or a simulated one.
+ * 
+ * @see HardwareAdapters
+ */
+public interface SolenoidOutput {
+
+	public void set(boolean on);
+
+	public boolean get();
+}
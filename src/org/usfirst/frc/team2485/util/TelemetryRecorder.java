@@ -0,0 +1,188 @@
+package org.usfirst.frc.team2485.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Records fixed-layout binary telemetry frames to memory-mapped files. <p>
+ * 
+ * Each frame is a timestamp followed by one float per channel, written straight into a mapped file, so
+ * recording a frame doesn't allocate or make a system call. When a file fills up the recorder switches to the
+ * next one, which a background thread has already created and mapped. If that file isn't ready yet, frames
+ * are dropped (and counted) rather than making the caller wait. <p>
+ * 
+ * File layout, big-endian:
+ * <pre>
+ * int    MAGIC
+ * int    VERSION
+ * int    channel count
+ * int    frame count, updated after every frame
+ * per channel, in order: short name length, name in UTF-8
+ * frames, each: long timestamp (RobotClock nanoseconds), float value per channel
+ * </pre>
+ * Only one thread may call {@link #record(long, float[])}.
+ */
+public class TelemetryRecorder implements Runnable {
+
+	public static final int MAGIC = 0x54454c4d; // "TELM"
+	public static final int VERSION = 1;
+	public static final int FRAME_COUNT_OFFSET = 12;
+
+	private final File directory;
+	private final String prefix;
+	private final String[] channels;
+	private final int framesPerFile, maxFiles;
+	private final int headerSize, frameSize;
+
+	private MappedByteBuffer current;
+	private int framesInFile;
+	private volatile MappedByteBuffer next;
+	private volatile long droppedFrames;
+
+	private final Thread thread;
+	private volatile boolean failed;
+	private int fileIndex;
+
+	/**
+	 * Starts the background thread, which creates the first file.
+	 * @param directory where to write files; created if needed
+	 * @param prefix start of each file's name
+	 * @param channels the name of each value in a frame
+	 * @param framesPerFile frames to write before switching to a new file
+	 * @param maxFiles how many files to keep; older ones are deleted
+	 */
+	public TelemetryRecorder(File directory, String prefix, String[] channels, int framesPerFile, int maxFiles) {
+		if (channels.length == 0)
+			throw new IllegalArgumentException("need at least one channel");
+		if (framesPerFile <= 0 || maxFiles < 2)
+			throw new IllegalArgumentException("need at least one frame per file and two files");
+
+		this.directory = directory;
+		this.prefix = prefix;
+		this.channels = channels.clone();
+		this.framesPerFile = framesPerFile;
+		this.maxFiles = maxFiles;
+
+		int size = 16;
+		for (int i = 0; i < channels.length; i++)
+			size += 2 + channels[i].getBytes(StandardCharsets.UTF_8).length;
+		this.headerSize = size;
+		this.frameSize = 8 + 4 * channels.length;
+
+		thread = new Thread(this, "TelemetryRecorder");
+		thread.setPriority(Thread.MIN_PRIORITY);
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Records one frame.
+	 * @param timestamp from <code>RobotClock.nanoTime()</code>
+	 * @param values one per channel, in the order the channels were given
+	 */
+	public void record(long timestamp, float[] values) {
+		if (values.length != channels.length)
+			throw new IllegalArgumentException("expected " + channels.length + " values, got " + values.length);
+
+		if (current == null || framesInFile == framesPerFile) {
+			MappedByteBuffer buffer = next;
+			if (buffer == null) {
+				droppedFrames++;
+				return;
+			}
+			next = null;
+			LockSupport.unpark(thread); // start on the file after this one
+			current = buffer;
+			framesInFile = 0;
+		}
+
+		int position = headerSize + framesInFile * frameSize;
+		current.putLong(position, timestamp);
+		for (int i = 0; i < values.length; i++)
+			current.putFloat(position + 8 + 4 * i, values[i]);
+
+		framesInFile++;
+		current.putInt(FRAME_COUNT_OFFSET, framesInFile);
+	}
+
+	/**
+	 * Creates and maps the next file whenever the recorder has taken the previous one.
+	 */
+	@Override
+	public void run() {
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			System.out.println("TelemetryRecorder: can't create " + directory);
+			failed = true;
+			return;
+		}
+
+		while (true) {
+			if (next != null) {
+				LockSupport.park(this);
+				continue;
+			}
+
+			try {
+				next = createFile(fileIndex);
+			} catch (IOException ex) {
+				ex.printStackTrace();
+				failed = true;
+				return;
+			}
+
+			File old = fileFor(fileIndex - maxFiles);
+			if (old.exists())
+				old.delete();
+			fileIndex++;
+		}
+	}
+
+	private MappedByteBuffer createFile(int index) throws IOException {
+		RandomAccessFile file = new RandomAccessFile(fileFor(index), "rw");
+		try {
+			long size = headerSize + (long) framesPerFile * frameSize;
+			file.setLength(size);
+			MappedByteBuffer buffer = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+
+			buffer.putInt(MAGIC);
+			buffer.putInt(VERSION);
+			buffer.putInt(channels.length);
+			buffer.putInt(0);
+			for (int i = 0; i < channels.length; i++) {
+				byte[] name = channels[i].getBytes(StandardCharsets.UTF_8);
+				buffer.putShort((short) name.length);
+				buffer.put(name);
+			}
+			return buffer;
+		} finally {
+			file.close(); // the mapping stays valid
+		}
+	}
+
+	private File fileFor(int index) {
+		return new File(directory, prefix + "-" + index + ".bin");
+	}
+
+	/**
+	 * @return frames dropped because the next file wasn't ready in time
+	 */
+	public long getDroppedFrames() {
+		return droppedFrames;
+	}
+
+	/**
+	 * @return true if files can't be written, in which case every frame is dropped
+	 */
+	public boolean hasFailed() {
+		return failed;
+	}
+
+	public int getChannelCount() {
+		return channels.length;
+	}
+}
@@ -0,0 +1,167 @@
+package org.usfirst.frc.team2485.util;
+
+/**
+ * Filters a stream of ultrasonic ranges: a median over the last few accepted readings, with out of range and
+ * outlying readings thrown away. <p>
+ *
+ * A reading is an outlier if it's further than <code>OUTLIER_GATE</code> from the current median. If nothing
+ * has been accepted for <code>STALE_TIME</code>, the filter assumes the median is what's wrong (e.g. its first
+ * reading was bad, or the robot really did jump to a different wall) and starts over from the next reading. <p>
+ *
+ * The median delays ramps by about half the window. That delay, plus the sensor's own ping rate, limits how
+ * fast a PID on the filtered range can close. <p>
+ *
+ * The sensor only measures a new range every ping, but it's read much more often, so most reads repeat the
+ * last ping. {@link #sample(double, double)} only passes a read on when it's a new ping, so one ping can't
+ * fill the window or count as several accepted readings. <p>
+ *
+ * Each update does a constant amount of work and allocates nothing. Not thread safe.
+ */
+public class UltrasonicFilter {
+
+	public static final int WINDOW = 5;
+
+	public static final double PING_PERIOD = 0.1; // s between new ranges in automatic mode
+
+	public static final double
+		MIN_RANGE 		= 1, 	// in, closer readings are invalid
+		MAX_RANGE 		= 200, 	// in, further readings are invalid
+		OUTLIER_GATE 	= 6, 	// in from the median
+		STALE_TIME 		= 0.3; 	// s without an accepted reading
+
+	private final double[] window = new double[WINDOW];
+	private final double[] sorted = new double[WINDOW];
+	private int count, next;
+
+	// the last WINDOW readings, accepted or not, for the confidence
+	private final boolean[] accepted = new boolean[WINDOW];
+	private int acceptedCount, readingCount, readingIndex;
+
+	private double lastSampledRange = Double.NaN, lastSampledTime = Double.NaN;
+
+	private double median = Double.NaN;
+	private double lastAcceptedTime = Double.NaN, lastTime;
+	private long rejectedCount;
+
+	/**
+	 * Adds a read of the sensor, if it's a new ping: the range changed, or a whole <code>PING_PERIOD</code> has
+	 * passed since the last new ping, so a range which really didn't change still counts.
+	 * @param range in inches
+	 * @param time in seconds, e.g. <code>RobotClock.getTimestamp()</code>
+	 * @return the filtered range, in inches, or <code>NaN</code> if nothing has been accepted yet
+	 */
+	public double sample(double range, double time) {
+		if (range == lastSampledRange && time - lastSampledTime < PING_PERIOD) {
+			lastTime = time; // still ages the median
+			return median;
+		}
+		lastSampledRange = range;
+		lastSampledTime = time;
+		return update(range, time);
+	}
+
+	/**
+	 * Adds a reading.
+	 * @param range in inches
+	 * @param time in seconds, e.g. <code>RobotClock.getTimestamp()</code>
+	 * @return the filtered range, in inches, or <code>NaN</code> if nothing has been accepted yet
+	 */
+	public double update(double range, double time) {
+
+		lastTime = time;
+		if (isStale())
+			count = 0; // start over
+
+		boolean accept = range >= MIN_RANGE && range <= MAX_RANGE && 
+				(count == 0 || Math.abs(range - median) <= OUTLIER_GATE);
+
+		if (accept) {
+			window[next] = range;
+			next = (next + 1) % WINDOW;
+			if (count < WINDOW)
+				count++;
+			median = computeMedian();
+			lastAcceptedTime = time;
+		} else
+			rejectedCount++;
+
+		if (readingCount == WINDOW && accepted[readingIndex])
+			acceptedCount--;
+		accepted[readingIndex] = accept;
+		if (accept)
+			acceptedCount++;
+		readingIndex = (readingIndex + 1) % WINDOW;
+		if (readingCount < WINDOW)
+			readingCount++;
+
+		return median;
+	}
+
+	private double computeMedian() {
+		// insertion sort of at most WINDOW values
+		int start = (next - count + WINDOW) % WINDOW;
+		for (int i = 0; i < count; i++) {
+			double value = window[(start + i) % WINDOW];
+			int j = i - 1;
+			while (j >= 0 && sorted[j] > value) {
+				sorted[j + 1] = sorted[j];
+				j--;
+			}
+			sorted[j + 1] = value;
+		}
+		return (count & 1) == 1 ? sorted[count / 2] : (sorted[count / 2 - 1] + sorted[count / 2]) / 2;
+	}
+
+	/**
+	 * @return the filtered range, in inches, or <code>NaN</code> if nothing has been accepted yet
+	 */
+	public double get() {
+		return median;
+	}
+
+	/**
+	 * @return true if nothing has been accepted for <code>STALE_TIME</code>, or ever
+	 */
+	public boolean isStale() {
+		return Double.isNaN(lastAcceptedTime) || lastTime - lastAcceptedTime > STALE_TIME;
+	}
+
+	/**
+	 * @return seconds since a reading was last accepted
+	 */
+	public double getAge() {
+		return Double.isNaN(lastAcceptedTime) ? Double.POSITIVE_INFINITY : lastTime - lastAcceptedTime;
+	}
+
+	/**
+	 * How much to trust the filtered range, from 0 to 1: the fraction of recent readings accepted, scaled
+	 * down as the median gets older or has fewer readings in it.
+	 */
+	public double getConfidence() {
+		if (readingCount == 0 || isStale())
+			return 0;
+		double acceptedFraction = acceptedCount / (double) readingCount;
+		double fill = count / (double) WINDOW;
+		double freshness = 1 - getAge() / STALE_TIME;
+		return acceptedFraction * fill * freshness;
+	}
+
+	public long getRejectedCount() {
+		return rejectedCount;
+	}
+
+	/**
+	 * Forgets every reading.
+	 */
+	public void reset() {
+		count = 0;
+		next = 0;
+		acceptedCount = 0;
+		readingCount = 0;
+		readingIndex = 0;
+		median = Double.NaN;
+		lastAcceptedTime = Double.NaN;
+		lastSampledRange = Double.NaN;
+		lastSampledTime = Double.NaN;
+	}
+}
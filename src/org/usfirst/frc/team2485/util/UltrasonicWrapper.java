@@ -1,41 +1,70 @@
 package org.usfirst.frc.team2485.util;
 
 import edu.wpi.first.wpilibj.PIDSource;
-import edu.wpi.first.wpilibj.Ultrasonic;
 
 /**
  * 
  * Prevents bad data jumps from Ultrasonic sensor. <p>
  * 
- * WARNING: If sonic's initial data is bad, this prevents ever getting good data. 
+ * Reads the sensor once per control loop tick and passes each new ping to an {@link UltrasonicFilter}, so add 
+ * it to the scheduler before any loop which uses it. <code>pidGet()</code> returns the latest filtered range 
+ * from any thread, or <code>NaN</code> until the filter has accepted a reading; check <code>getConfidence()</code> 
+ * before acting on it. <p>
+ * 
+ * The sensor must report its range in inches, e.g. an <code>Ultrasonic</code> constructed with <code>Unit.kInches</code>.
  * 
  * @author Patrick Wamsley
  */
 
-public class UltrasonicWrapper implements PIDSource {
+public class UltrasonicWrapper implements PIDSource, ControlLoop {
 	
-	private Ultrasonic sonic; //aka the hedgehog
+	private PIDSource sonic; //aka the hedgehog
 	
-	private static final double MAX_SENSOR_VALUE_CHANGE = 40; 
+	private final UltrasonicFilter filter = new UltrasonicFilter();
 	
-	private double lastGoodValue;
+	private double sampledRange, sampledTime; // only touched by the scheduler thread
+	private volatile double filteredRange = Double.NaN, confidence;
 	
-	public UltrasonicWrapper(Ultrasonic sonic) {
+	public UltrasonicWrapper(PIDSource sonic) {
 		this.sonic = sonic;
-		lastGoodValue = -1;
 	}
 
+	@Override
+	public void sample() {
+		sampledRange = sonic.pidGet();
+		sampledTime = RobotClock.getTimestamp();
+	}
+
+	@Override
+	public void calculate(double dt) {
+		filteredRange = filter.sample(sampledRange, sampledTime);
+		confidence = filter.getConfidence();
+	}
+
+	@Override
+	public void write() {
+	}
+
+	/**
+	 * @return the filtered range, in inches, or <code>NaN</code> if the filter hasn't accepted a reading
+	 */
 	@Override
 	public double pidGet() {
-		
-		double currValue = sonic.getRangeInches();
-		
-		if (lastGoodValue == -1 || Math.abs(currValue - lastGoodValue) < MAX_SENSOR_VALUE_CHANGE) {
-			lastGoodValue = currValue;
-			return lastGoodValue;
-		} else {
-//			System.out.println("In UltrasonicWrapper, threw away junk value of: " + currValue);
-			return lastGoodValue;
-		}		
+		return filteredRange;
+	}
+	
+	/**
+	 * @return the unfiltered range, in inches
+	 */
+	public double getRawRange() {
+		return sonic.pidGet();
+	}
+	
+	/**
+	 * @return how much to trust <code>pidGet()</code>, from 0 to 1
+	 * @see UltrasonicFilter#getConfidence()
+	 */
+	public double getConfidence() {
+		return confidence;
 	}
 }